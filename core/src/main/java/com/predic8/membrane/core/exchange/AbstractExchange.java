@@ -60,6 +60,11 @@ public abstract class AbstractExchange {
 
 	private long tResReceived;
 
+	/**
+	 * {@link System#nanoTime()} counterparts of the timestamps above, used for latency histograms.
+	 */
+	private long nanoReqReceived, nanoReqSent, nanoResReceived, nanoResSent;
+
 	private List<String> destinations = new ArrayList<>();
 
 
@@ -275,6 +280,41 @@ public abstract class AbstractExchange {
 
 	public void received() {
 		setTimeReqReceived(System.currentTimeMillis());
+		nanoReqReceived = System.nanoTime();
+	}
+
+	public void requestSent() {
+		setTimeReqSent(System.currentTimeMillis());
+		nanoReqSent = System.nanoTime();
+	}
+
+	public void responseReceived() {
+		setTimeResReceived(System.currentTimeMillis());
+		nanoResReceived = System.nanoTime();
+	}
+
+	public void responseSent() {
+		setTimeResSent(System.currentTimeMillis());
+		nanoResSent = System.nanoTime();
+	}
+
+	/**
+	 * @return {@link System#nanoTime()} when {@link #received()} was called, 0 if it was not
+	 */
+	public long getNanoReqReceived() {
+		return nanoReqReceived;
+	}
+
+	public long getNanoReqSent() {
+		return nanoReqSent;
+	}
+
+	public long getNanoResReceived() {
+		return nanoResReceived;
+	}
+
+	public long getNanoResSent() {
+		return nanoResSent;
 	}
 
 	public long getTimeResSent() {
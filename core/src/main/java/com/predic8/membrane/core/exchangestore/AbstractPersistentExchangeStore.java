@@ -22,23 +22,72 @@ import com.predic8.membrane.core.http.*;
 import com.predic8.membrane.core.interceptor.*;
 import com.predic8.membrane.core.proxies.*;
 import com.predic8.membrane.core.router.*;
+import org.slf4j.*;
 
 import java.util.*;
 import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
+import java.util.concurrent.locks.*;
+
+import static java.util.concurrent.TimeUnit.*;
+
+/**
+ * Base class for exchange stores writing to an external system.
+ * <p>
+ * Snapshots are handed over to writer threads through bounded queues. Updates of an exchange which is still waiting
+ * are merged, so every exchange is written at most once per batch. An exchange is always handled by the same writer,
+ * so its updates are written in order. Failed batches are retried with exponential backoff.
+ */
+public abstract class AbstractPersistentExchangeStore extends AbstractExchangeStore {
 
+    private static final Logger log = LoggerFactory.getLogger(AbstractPersistentExchangeStore.class);
 
-public abstract class AbstractPersistentExchangeStore extends AbstractExchangeStore {
+    private static final long MAX_RETRY_BACKOFF_MS = 30_000;
+    private static final long DROP_WARNING_INTERVAL_MS = 10_000;
+
+    public enum DropPolicy {
+        /**
+         * Discard the snapshot which does not fit into the queue anymore.
+         */
+        NEWEST,
+
+        /**
+         * Discard the oldest snapshot waiting in the queue to make room.
+         */
+        OLDEST
+    }
 
     int updateIntervalMs = 1000;
+    private int batchSize = 1000;
+    private int queueSize = 10_000;
+    private int writerThreads = 1;
+    private int maxRetries = 3;
+    private long retryBackoffMs = 1000;
+    private DropPolicy dropPolicy = DropPolicy.NEWEST;
 
-    final Map<Long, AbstractExchangeSnapshot> shortTermMemoryForBatching = new HashMap<>();
+    /**
+     * Latest snapshot of every exchange waiting to be written. The id is in the queue of its writer at most once.
+     */
+    final Map<Long, AbstractExchangeSnapshot> shortTermMemoryForBatching = new ConcurrentHashMap<>();
     final Cache<Long, AbstractExchangeSnapshot> cacheToWait = CacheBuilder.newBuilder().expireAfterWrite(5, TimeUnit.SECONDS).build();
 
+    private Writer[] writers = new Writer[0];
+
+    private final AtomicLong enqueued = new AtomicLong();
+    private final AtomicLong written = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private final AtomicLong droppedSinceWarning = new AtomicLong();
+    private volatile long lastDropWarning;
+
+    private final ReentrantLock processedLock = new ReentrantLock();
+    private final Condition processedCondition = processedLock.newCondition();
+    private long processed; // guarded by processedLock
+
     protected long startTime;
     boolean init = false;
     protected int maxBodySize = 100000;
     protected BodyCollectingMessageObserver.Strategy bodyExceedingMaxSizeStrategy = BodyCollectingMessageObserver.Strategy.TRUNCATE;
-    volatile boolean updateThreadWorking;
 
     @Override
     public void init(Router router) {
@@ -46,34 +95,19 @@ public abstract class AbstractPersistentExchangeStore extends AbstractExchangeSt
 
         startTime = System.nanoTime();
 
-        Thread updateJob = new Thread(() -> {
-            while (true) {
-                try {
-                    List<AbstractExchangeSnapshot> exchanges;
-                    updateThreadWorking = true;
-                    synchronized (shortTermMemoryForBatching) {
-                        exchanges = new ArrayList<>(shortTermMemoryForBatching.values());
-                        shortTermMemoryForBatching.values().forEach(exc -> cacheToWait.put(exc.getId(), exc));
-                        shortTermMemoryForBatching.clear();
-                    }
-                    if (!exchanges.isEmpty()) {
-                        writeToStore(exchanges);
-                    } else {
-                        updateThreadWorking = false;
-                        Thread.sleep(updateIntervalMs);
-                    }
-                } catch (InterruptedException e) {
-                    break;
-                } catch (Exception e) {
-                    throw new RuntimeException(e);
-                }
-            }
-        });
-        updateJob.start();
+        Writer[] ws = new Writer[Math.max(1, writerThreads)];
+        for (int i = 0; i < ws.length; i++) {
+            ws[i] = new Writer(Math.max(1, queueSize / ws.length));
+            Thread.ofPlatform().daemon().name(getClass().getSimpleName() + " Writer " + i).start(ws[i]);
+        }
+        writers = ws;
         init = true;
     }
 
-    protected abstract void writeToStore(List<AbstractExchangeSnapshot> exchanges);
+    /**
+     * Called by the writer threads. An exception causes the batch to be retried.
+     */
+    protected abstract void writeToStore(List<AbstractExchangeSnapshot> exchanges) throws Exception;
 
 
     @Override
@@ -98,8 +132,188 @@ public abstract class AbstractPersistentExchangeStore extends AbstractExchangeSt
      * @param exc To add to batch cache
      */
     protected void addForStorage(AbstractExchangeSnapshot exc) {
-        synchronized (shortTermMemoryForBatching) {
-            shortTermMemoryForBatching.put(exc.getId(), exc);
+        if (shortTermMemoryForBatching.put(exc.getId(), exc) != null)
+            return; // merged into the update already waiting
+        BlockingQueue<Long> queue = getWriter(exc.getId()).queue;
+        if (queue.offer(exc.getId())) {
+            enqueued.incrementAndGet();
+            return;
+        }
+        if (dropPolicy == DropPolicy.OLDEST) {
+            Long oldest = queue.poll();
+            if (oldest != null) {
+                shortTermMemoryForBatching.remove(oldest);
+                drop(1);
+                markProcessed(1);
+            }
+            if (queue.offer(exc.getId())) {
+                enqueued.incrementAndGet();
+                return;
+            }
+        }
+        // Remove by id only: a snapshot merged in the meantime is not queued either and would block the id for good.
+        shortTermMemoryForBatching.remove(exc.getId());
+        drop(1);
+    }
+
+    private Writer getWriter(long id) {
+        Writer[] ws = writers;
+        if (ws.length == 0)
+            throw new IllegalStateException(getClass().getSimpleName() + " has not been initialized.");
+        return ws[(int) Math.floorMod(id, (long) ws.length)];
+    }
+
+    private void drop(int count) {
+        dropped.addAndGet(count);
+        droppedSinceWarning.addAndGet(count);
+        long now = System.currentTimeMillis();
+        if (now - lastDropWarning < DROP_WARNING_INTERVAL_MS)
+            return;
+        lastDropWarning = now;
+        log.warn("Dropped {} exchange snapshots, as {} could not write them fast enough.", droppedSinceWarning.getAndSet(0), getClass().getSimpleName());
+    }
+
+    private void markProcessed(int count) {
+        processedLock.lock();
+        try {
+            processed += count;
+            processedCondition.signalAll();
+        } finally {
+            processedLock.unlock();
+        }
+    }
+
+    /**
+     * Waits until the snapshots queued so far are written (or dropped).
+     *
+     * @return false, if the timeout elapsed before
+     */
+    public boolean flush(long timeoutMillis) {
+        long target = enqueued.get();
+        processedLock.lock();
+        try {
+            long nanos = MILLISECONDS.toNanos(timeoutMillis);
+            while (processed < target) {
+                if (nanos <= 0)
+                    return false;
+                nanos = processedCondition.awaitNanos(nanos);
+            }
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        } finally {
+            processedLock.unlock();
+        }
+    }
+
+    /**
+     * @return number of exchanges waiting to be written
+     */
+    public int getQueueDepth() {
+        int depth = 0;
+        for (Writer w : writers)
+            depth += w.queue.size();
+        return depth;
+    }
+
+    /**
+     * @return number of snapshots written since startup
+     */
+    public long getWrittenSnapshots() {
+        return written.get();
+    }
+
+    /**
+     * @return number of snapshots discarded since startup, because the queue was full or all retries failed
+     */
+    public long getDroppedSnapshots() {
+        return dropped.get();
+    }
+
+    /**
+     * @return number of failed write attempts since startup, including the ones retried successfully
+     */
+    public long getFailedWrites() {
+        return failed.get();
+    }
+
+    private class Writer implements Runnable {
+
+        final BlockingQueue<Long> queue;
+
+        Writer(int capacity) {
+            queue = new ArrayBlockingQueue<>(capacity);
+        }
+
+        @Override
+        public void run() {
+            List<Long> ids = new ArrayList<>();
+            while (true) {
+                try {
+                    ids.add(queue.take());
+                    collectBatch(ids);
+                    write(ids);
+                } catch (InterruptedException e) {
+                    return;
+                } catch (Exception e) {
+                    log.error("Error in exchange store writer.", e);
+                } finally {
+                    markProcessed(ids.size());
+                    ids.clear();
+                }
+            }
+        }
+
+        /**
+         * Waits up to <tt>updateIntervalMs</tt> for the batch to fill up.
+         */
+        private void collectBatch(List<Long> ids) throws InterruptedException {
+            long deadline = System.nanoTime() + MILLISECONDS.toNanos(updateIntervalMs);
+            while (ids.size() < batchSize) {
+                if (queue.drainTo(ids, batchSize - ids.size()) > 0)
+                    continue;
+                long remaining = deadline - System.nanoTime();
+                if (remaining <= 0)
+                    return;
+                Long next = queue.poll(remaining, NANOSECONDS);
+                if (next == null)
+                    return;
+                ids.add(next);
+            }
+        }
+
+        private void write(List<Long> ids) throws InterruptedException {
+            List<AbstractExchangeSnapshot> batch = new ArrayList<>(ids.size());
+            for (Long id : ids) {
+                AbstractExchangeSnapshot exc = shortTermMemoryForBatching.remove(id);
+                if (exc == null)
+                    continue;
+                cacheToWait.put(id, exc);
+                batch.add(exc);
+            }
+            if (batch.isEmpty())
+                return;
+
+            for (int attempt = 0; ; attempt++) {
+                try {
+                    writeToStore(batch);
+                    written.addAndGet(batch.size());
+                    return;
+                } catch (InterruptedException e) {
+                    throw e;
+                } catch (Exception e) {
+                    failed.incrementAndGet();
+                    if (attempt >= maxRetries) {
+                        log.error("Could not write {} exchanges after {} attempts. Dropping them.", batch.size(), attempt + 1, e);
+                        drop(batch.size());
+                        return;
+                    }
+                    long backoff = Math.min(retryBackoffMs << Math.min(attempt, 20), MAX_RETRY_BACKOFF_MS);
+                    log.warn("Could not write {} exchanges, retrying in {} ms: {}", batch.size(), backoff, e.toString());
+                    Thread.sleep(backoff);
+                }
+            }
         }
     }
 
@@ -108,10 +322,7 @@ public abstract class AbstractPersistentExchangeStore extends AbstractExchangeSt
 
     public AbstractExchangeSnapshot getExchangeDtoById(int id) {
         Long idBox = (long) id;
-        AbstractExchangeSnapshot memorizedExchangeSnapshot;
-        synchronized (shortTermMemoryForBatching) {
-            memorizedExchangeSnapshot = shortTermMemoryForBatching.get(idBox);
-        }
+        AbstractExchangeSnapshot memorizedExchangeSnapshot = shortTermMemoryForBatching.get(idBox);
         if (memorizedExchangeSnapshot != null)
             return memorizedExchangeSnapshot;
         AbstractExchangeSnapshot cachedExchangeSnapshot = cacheToWait.getIfPresent(idBox);
@@ -145,6 +356,10 @@ public abstract class AbstractPersistentExchangeStore extends AbstractExchangeSt
         return updateIntervalMs;
     }
 
+    /**
+     * @description Maximum time in milliseconds a writer waits for a batch to fill up, before writing it anyway.
+     * @default 1000
+     */
     @MCAttribute
     public void setUpdateIntervalMs(int updateIntervalMs) {
         this.updateIntervalMs = updateIntervalMs;
@@ -174,4 +389,83 @@ public abstract class AbstractPersistentExchangeStore extends AbstractExchangeSt
     public void setBodyExceedingMaxSizeStrategy(BodyCollectingMessageObserver.Strategy bodyExceedingMaxSizeStrategy) {
         this.bodyExceedingMaxSizeStrategy = bodyExceedingMaxSizeStrategy;
     }
-}
\ No newline at end of file
+
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    /**
+     * @description Maximum number of exchanges written in one batch.
+     * @default 1000
+     */
+    @MCAttribute
+    public void setBatchSize(int batchSize) {
+        this.batchSize = batchSize;
+    }
+
+    public int getQueueSize() {
+        return queueSize;
+    }
+
+    /**
+     * @description Maximum number of exchanges waiting to be written. Further snapshots are handled according to the
+     * <tt>dropPolicy</tt>.
+     * @default 10000
+     */
+    @MCAttribute
+    public void setQueueSize(int queueSize) {
+        this.queueSize = queueSize;
+    }
+
+    public int getWriterThreads() {
+        return writerThreads;
+    }
+
+    /**
+     * @description Number of threads writing batches in parallel.
+     * @default 1
+     */
+    @MCAttribute
+    public void setWriterThreads(int writerThreads) {
+        this.writerThreads = writerThreads;
+    }
+
+    public int getMaxRetries() {
+        return maxRetries;
+    }
+
+    /**
+     * @description How often a failed batch is retried before it is dropped.
+     * @default 3
+     */
+    @MCAttribute
+    public void setMaxRetries(int maxRetries) {
+        this.maxRetries = maxRetries;
+    }
+
+    public long getRetryBackoffMs() {
+        return retryBackoffMs;
+    }
+
+    /**
+     * @description Time in milliseconds to wait before the first retry. The time doubles with every further retry.
+     * @default 1000
+     */
+    @MCAttribute
+    public void setRetryBackoffMs(long retryBackoffMs) {
+        this.retryBackoffMs = retryBackoffMs;
+    }
+
+    public DropPolicy getDropPolicy() {
+        return dropPolicy;
+    }
+
+    /**
+     * @description Which snapshot to discard when the queue is full: <tt>NEWEST</tt> or <tt>OLDEST</tt>.
+     * @default NEWEST
+     */
+    @MCAttribute
+    public void setDropPolicy(DropPolicy dropPolicy) {
+        this.dropPolicy = dropPolicy;
+    }
+}
@@ -92,26 +92,23 @@ public class ElasticSearchExchangeStore extends AbstractPersistentExchangeStore
         super.init(router);
     }
 
-    protected void writeToStore(List<AbstractExchangeSnapshot> exchanges) {
+    protected void writeToStore(List<AbstractExchangeSnapshot> exchanges) throws Exception {
         String data = exchanges
                 .stream()
                 .map(exchange -> wrapForBulkOperationElasticSearch(index,getLocalMachineNameWithSuffix()+"-"+exchange.getId(),collectExchangeDataFrom(exchange)))
                 .collect(joining());
 
-        try {
-            Exchange elasticSearchExc = new Request.Builder()
-                    .post(location + "/_bulk")
-                    .header("Content-Type","application/x-ndjson")
-                    .body(data)
-                    .buildExchange();
-
-            client.call(elasticSearchExc);
-
-        } catch (Exception e) {
-            throw new RuntimeException(e);
-        }
+        Exchange elasticSearchExc = new Request.Builder()
+                .post(location + "/_bulk")
+                .header("Content-Type","application/x-ndjson")
+                .body(data)
+                .buildExchange();
 
+        client.call(elasticSearchExc);
 
+        int status = elasticSearchExc.getResponse().getStatusCode();
+        if (status >= 500 || status == 429)
+            throw new IOException("Elasticsearch answered the bulk request with status " + status + ".");
     }
 
     private static String getLocalHostname() {
@@ -59,6 +59,12 @@ public interface ExchangeStore {
 
 	default void init(Router router) {}
 
+	/**
+	 * Releases threads and files acquired by {@link #init(Router)}. Must tolerate being called without a preceding
+	 * <tt>init</tt> and more than once. A later <tt>init</tt> starts the store again.
+	 */
+	default void stop() {}
+
 	List<? extends ClientStatistics> getClientStatistics();
 
 	void collect(ExchangeCollector col);
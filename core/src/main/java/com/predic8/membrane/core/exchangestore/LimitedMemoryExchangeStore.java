@@ -26,8 +26,12 @@ import java.text.*;
 import java.util.*;
 import java.util.concurrent.*;
 import java.util.concurrent.atomic.*;
+import java.util.concurrent.locks.*;
+import java.util.function.*;
 
-import static com.predic8.membrane.core.interceptor.Interceptor.Flow.*;
+import static com.predic8.membrane.core.interceptor.Interceptor.Flow.REQUEST;
+import static com.predic8.membrane.core.interceptor.Interceptor.Flow.RESPONSE;
+import static java.util.concurrent.TimeUnit.*;
 
 /**
  * @description Stores exchange objects in-memory until a memory threshold is reached. When the threshold is reached and
@@ -47,18 +51,32 @@ public class LimitedMemoryExchangeStore extends AbstractExchangeStore {
 	private int maxSize = 1_000_000;
 	private int maxBodySize = 100_000;
 
-	private final AtomicInteger currentSize = new AtomicInteger(0);
-
 	private BodyCollectingMessageObserver.Strategy bodyExceedingMaxSizeStrategy = BodyCollectingMessageObserver.Strategy.TRUNCATE;
 
 	/**
-	 * EVERY time that exchanges or inflight is changed, modify() MUST be called afterwards
+	 * All stored exchanges by id. Completed exchanges are additionally kept in {@link #exchanges} (oldest first),
+	 * running ones in {@link #inflight}.
 	 */
+	private final Map<Long, Entry> byId = new ConcurrentHashMap<>();
+	private final Queue<Entry> exchanges = new ConcurrentLinkedQueue<>();
+	private final Queue<Entry> inflight = new ConcurrentLinkedQueue<>();
 
-	private final Queue<AbstractExchange> exchanges = new ConcurrentLinkedQueue<>();
-	private final Queue<AbstractExchange> inflight = new ConcurrentLinkedQueue<>();
+	/**
+	 * Sum of the sizes accounted for the entries in {@link #byId}. Striped, as every snap updates it.
+	 */
+	private final LongAdder currentSize = new LongAdder();
 
-	private long lastModification = System.currentTimeMillis();
+	/**
+	 * Time of the last change in milliseconds. Increased by at least one on every change, so that two changes within
+	 * the same millisecond can be told apart, but never runs ahead of the clock for longer than such a burst lasts.
+	 */
+	private final AtomicLong lastModified = new AtomicLong(System.currentTimeMillis());
+
+	/**
+	 * Threads long-polling in {@link #waitForModification(long)}. Changes only wake them up, so request threads never
+	 * wait for a lock held by a poller.
+	 */
+	private final Queue<Thread> waiters = new ConcurrentLinkedQueue<>();
 
 	public void snap(final AbstractExchange exc, final Flow flow) {
 		newSnap(exc, flow);
@@ -68,16 +86,15 @@ public class LimitedMemoryExchangeStore extends AbstractExchangeStore {
 	private void newSnap(AbstractExchange exc, Flow flow) {
 		try {
 			if (flow == REQUEST) {
-				AbstractExchange excCopy = snapInternal(exc, flow);
-
-				if (exc.getRequest() != null)
-					excCopy.setRequest(exc.getRequest().createSnapshot(() -> {
-						{
-							currentSize.getAndAdd(- excCopy.resetHeapSizeEstimation() + excCopy.getHeapSizeEstimation());
-							log.debug("newSnap currentSize: " + currentSize);
-							modify();
-						}
+				Entry entry = snapInternal(exc, flow);
+
+				if (exc.getRequest() != null) {
+					entry.exc.setRequest(exc.getRequest().createSnapshot(() -> {
+						account(entry);
+						modify();
 					}, bodyExceedingMaxSizeStrategy, maxBodySize));
+					account(entry);
+				}
 
 				exc.addExchangeViewerListener(new AbstractExchangeViewerListener() {
 					@Override
@@ -90,14 +107,17 @@ public class LimitedMemoryExchangeStore extends AbstractExchangeStore {
 					}
 				});
 			} else {
-				AbstractExchange excCopy = snapInternal(exc, flow);
+				Entry entry = snapInternal(exc, flow);
 
-				if (exc.getResponse() != null)
-					excCopy.setResponse(exc.getResponse().createSnapshot(() -> {
-						currentSize.getAndAdd(- excCopy.resetHeapSizeEstimation() + excCopy.getHeapSizeEstimation());
-						log.debug("newSnap currentSize: " + currentSize);
+				if (exc.getResponse() != null) {
+					entry.exc.setResponse(exc.getResponse().createSnapshot(() -> {
+						account(entry);
+						makeSpaceIfNeeded();
 						modify();
 					}, bodyExceedingMaxSizeStrategy, maxBodySize));
+					account(entry);
+					makeSpaceIfNeeded();
+				}
 				modify();
 			}
 		} catch (Exception e) {
@@ -106,80 +126,120 @@ public class LimitedMemoryExchangeStore extends AbstractExchangeStore {
 		}
 	}
 
-	private  AbstractExchange snapInternal(AbstractExchange orig, Flow flow) {
-		AbstractExchange exc = getExchangeById(orig.getId());
-
-		if (exc == null) {
-			exc = orig.createSnapshot(null, null, 0);
-			AbstractExchange exc2 = exc;
-			exc.addExchangeViewerListener(new AbstractExchangeViewerListener() {
-				@Override
-				public void addRequest(Request request) {
-					currentSize.getAndAdd(- exc2.resetHeapSizeEstimation() + exc2.getHeapSizeEstimation());
-					log.debug("addRequest currentSize: " + currentSize);
-				}
-
-				@Override
-				public void addResponse(Response response) {
-					currentSize.getAndAdd(- exc2.resetHeapSizeEstimation() + exc2.getHeapSizeEstimation());
-					log.debug("addResponse currentSize: " + currentSize);
-				}
-			});
+	private Entry snapInternal(AbstractExchange orig, Flow flow) {
+		Entry entry = byId.get(orig.getId());
+		if (entry == null) {
+			Entry created = new Entry(orig.createSnapshot(null, null, 0));
+			entry = byId.putIfAbsent(orig.getId(), created);
+			if (entry == null) {
+				entry = created;
+				account(entry);
+			}
 		}
 
-		makeSpaceIfNeeded(exc);
-
 		if (flow == REQUEST) {
-			if (inflight.add(exc))
-				currentSize.getAndAdd(exc.getHeapSizeEstimation());
+			if (entry.state.compareAndSet(Entry.NEW, Entry.INFLIGHT))
+				inflight.add(entry);
 		} else {
-			if (inflight.remove(exc))
-				currentSize.getAndAdd(- exc.getHeapSizeEstimation());
-			if (!exchanges.contains(exc)) {
-				exchanges.add(exc);
-				currentSize.getAndAdd(exc.getHeapSizeEstimation());
+			if (entry.state.compareAndSet(Entry.INFLIGHT, Entry.COMPLETED)) {
+				inflight.remove(entry);
+				exchanges.add(entry);
+			} else if (entry.state.compareAndSet(Entry.NEW, Entry.COMPLETED)) {
+				exchanges.add(entry);
 			}
-			Exchange.updateCopy(orig, exc, null, null, 0);
+			Exchange.updateCopy(orig, entry.exc, null, null, 0);
+			account(entry);
 		}
+		makeSpaceIfNeeded();
 		modify();
 
-		return exc;
+		return entry;
 	}
 
-	public  void remove(AbstractExchange exc) {
-		exchanges.remove(exc);
-		modify();
+	/**
+	 * Replaces the size accounted for the entry by its current estimation. Does nothing, if the entry has been
+	 * released in the meantime.
+	 */
+	private void account(Entry entry) {
+		entry.exc.resetHeapSizeEstimation();
+		int size = entry.exc.getHeapSizeEstimation();
+		int old;
+		do {
+			old = entry.accounted.get();
+			if (old < 0)
+				return;
+		} while (!entry.accounted.compareAndSet(old, size));
+		currentSize.add(size - old);
+	}
+
+	/**
+	 * Drops the oldest completed exchanges until the accounted size fits into <tt>maxSize</tt>.
+	 */
+	private void makeSpaceIfNeeded() {
+		while (currentSize.sum() > maxSize) {
+			Entry oldest = exchanges.poll();
+			if (oldest == null)
+				break;
+			release(oldest);
+		}
+	}
+
+	private void release(Entry entry) {
+		entry.state.set(Entry.REMOVED);
+		byId.remove(entry.exc.getId(), entry);
+		int old = entry.accounted.getAndSet(-1);
+		if (old > 0)
+			currentSize.add(-old);
+	}
+
+	public void remove(AbstractExchange exc) {
+		removeEntries(e -> e.exc == exc);
+	}
+
+	public void removeAllExchanges(Proxy proxy) {
+		removeEntries(e -> e.exc.getProxy().getKey().equals(proxy.getKey()));
 	}
 
-	public  void removeAllExchanges(Proxy proxy) {
-		exchanges.removeAll(getExchangeList(proxy.getKey()));
+	public void removeAllExchanges(AbstractExchange[] candidates) {
+		Set<AbstractExchange> remove = Collections.newSetFromMap(new IdentityHashMap<>());
+		remove.addAll(Arrays.asList(candidates));
+		removeEntries(e -> remove.contains(e.exc));
+	}
+
+	private void removeEntries(Predicate<Entry> predicate) {
+		exchanges.removeIf(e -> {
+			if (!predicate.test(e))
+				return false;
+			release(e);
+			return true;
+		});
 		modify();
 	}
 
-	private  List<AbstractExchange> getExchangeList(RuleKey key) {
+	private List<AbstractExchange> getExchangeList(RuleKey key) {
 		List<AbstractExchange> c = new ArrayList<>();
-		for (AbstractExchange exc : inflight) {
-			if (exc.getProxy().getKey().equals(key)) {
-				c.add(exc);
+		for (Entry e : inflight) {
+			if (e.exc.getProxy().getKey().equals(key)) {
+				c.add(e.exc);
 			}
 		}
-		for(AbstractExchange exc : exchanges) {
-			if (exc.getProxy().getKey().equals(key)) {
-				c.add(exc);
+		for (Entry e : exchanges) {
+			if (e.exc.getProxy().getKey().equals(key)) {
+				c.add(e.exc);
 			}
 		}
 		return c;
 	}
 
-	public  AbstractExchange[] getExchanges(RuleKey ruleKey) {
+	public AbstractExchange[] getExchanges(RuleKey ruleKey) {
 		return getExchangeList(ruleKey).toArray(new AbstractExchange[0]);
 	}
 
-	public  int getNumberOfExchanges(RuleKey ruleKey) {
+	public int getNumberOfExchanges(RuleKey ruleKey) {
 		return getExchangeList(ruleKey).size();
 	}
 
-	public  StatisticCollector getStatistics(RuleKey key) {
+	public StatisticCollector getStatistics(RuleKey key) {
 		StatisticCollector statistics = new StatisticCollector(false);
 		List<AbstractExchange> exchangesList = getExchangeList(key);
 		if (exchangesList.isEmpty())
@@ -191,14 +251,15 @@ public class LimitedMemoryExchangeStore extends AbstractExchangeStore {
 		return statistics;
 	}
 
-	public  Object[] getAllExchanges() {
-		return exchanges.toArray(new AbstractExchange[0]);
+	public Object[] getAllExchanges() {
+		return exchanges.stream().map(e -> e.exc).toArray(AbstractExchange[]::new);
 	}
 
-	public  List<AbstractExchange> getAllExchangesAsList() {
-		List<AbstractExchange> ret = new LinkedList<>();
+	public List<AbstractExchange> getAllExchangesAsList() {
+		List<AbstractExchange> ret = new ArrayList<>();
 
-		for (AbstractExchange ex : inflight) {
+		for (Entry e : inflight) {
+			AbstractExchange ex = e.exc;
 			Exchange newEx = new Exchange(null);
 			newEx.setId(ex.getId());
 			newEx.setRequest(ex.getRequest());
@@ -209,31 +270,24 @@ public class LimitedMemoryExchangeStore extends AbstractExchangeStore {
 			newEx.setTimeResReceived(System.currentTimeMillis());
 			ret.add(newEx);
 		}
-		ret.addAll(exchanges);
+		for (Entry e : exchanges)
+			ret.add(e.exc);
 
 		return ret;
 	}
 
-	public  void removeAllExchanges(AbstractExchange[] candidates) {
-		exchanges.removeAll(Arrays.asList(candidates));
-		modify();
-	}
-
-
 	@Override
-	public  AbstractExchange getExchangeById(long id) {
-		return exchanges.stream().filter(exc -> exc.getId() == id).findAny()
-				.orElseGet(() ->
-						inflight.stream().filter(exc -> exc.getId() == id).findAny()
-								.orElse(null));
+	public AbstractExchange getExchangeById(long id) {
+		Entry entry = byId.get(id);
+		return entry == null ? null : entry.exc;
 	}
 
 	public List<AbstractExchange> search(String e) {
-		return exchanges.stream().filter(exc -> exc.getRequest().getBodyAsStringDecoded().contains(e) ).toList();
+		return exchanges.stream().map(entry -> entry.exc).filter(exc -> exc.getRequest().getBodyAsStringDecoded().contains(e) ).toList();
 	}
 
 	@Override
-	public  List<? extends ClientStatistics> getClientStatistics() {
+	public List<? extends ClientStatistics> getClientStatistics() {
 		Map<String, ClientStatisticsCollector> clients = new HashMap<>();
 
 		for (AbstractExchange exc : getAllExchangesAsList()) {
@@ -245,26 +299,16 @@ public class LimitedMemoryExchangeStore extends AbstractExchangeStore {
 		return new ArrayList<ClientStatistics>(clients.values());
 	}
 
-	public  int getCurrentSize() {
-		return exchanges.stream().map(AbstractExchange::getHeapSizeEstimation).reduce(0, Integer::sum);
-	}
-
-	public  Long getOldestTimeResSent() {
-		AbstractExchange exc = exchanges.peek();
-		return exc == null ? null : exc.getTimeResSent();
-	}
-
-	private  void makeSpaceIfNeeded(AbstractExchange exc) {
-		while (!hasEnoughSpace(exc)) {
-			AbstractExchange removedExc = exchanges.poll();
-			if (removedExc == null)
-				break;
-			currentSize.getAndAdd( - removedExc.getHeapSizeEstimation());
-		}
+	/**
+	 * @return the estimated heap size in bytes of all stored exchanges, including running ones
+	 */
+	public int getCurrentSize() {
+		return (int) currentSize.sum();
 	}
 
-	private boolean hasEnoughSpace(AbstractExchange exc) {
-		return exc.getHeapSizeEstimation()+getCurrentSize() <= maxSize;
+	public Long getOldestTimeResSent() {
+		Entry e = exchanges.peek();
+		return e == null ? null : e.exc.getTimeResSent();
 	}
 
 	public int getMaxSize() {
@@ -312,29 +356,36 @@ public class LimitedMemoryExchangeStore extends AbstractExchangeStore {
 		return formatter.format(number);
 	}
 
-	private synchronized void modify() {
-		lastModification = System.currentTimeMillis();
-		notifyAll();
+	private void modify() {
+		long now = System.currentTimeMillis();
+		lastModified.accumulateAndGet(now, (last, current) -> Math.max(current, last + 1));
+		Thread waiter;
+		while ((waiter = waiters.poll()) != null)
+			LockSupport.unpark(waiter);
 	}
 
 	@Override
-	public  long getLastModified() {
-		return lastModification;
+	public long getLastModified() {
+		return lastModified.get();
 	}
 
 	/**
-	 * Wait (milliseconds) until the store is modified or the timeout elapses.
-	 * Handles spurious wakeups by re-checking {@code lastModification}.
-	 * @param lastKnownModification last observed {@code lastModification} timestamp
+	 * Wait until the store is modified. Logs every {@link #WAIT_FOR_MODIFICATION_MS} without a modification.
+	 * @param lastKnownModification last observed value of {@link #getLastModified()}
 	 */
 	@Override
 	public void waitForModification(long lastKnownModification) throws InterruptedException {
-		synchronized (this) {
-			while (lastKnownModification >= lastModification) {
-				wait(WAIT_FOR_MODIFICATION_MS);
-				if (lastKnownModification >= lastModification) {
-					log.debug("Still waiting after {} ms without modification (lastKnown={}, lastModification={}).", WAIT_FOR_MODIFICATION_MS, lastKnownModification, lastModification);
-				}
+		Thread current = Thread.currentThread();
+		while (lastModified.get() <= lastKnownModification) {
+			// register before checking again, so that a concurrent modify() either is seen or wakes us up
+			waiters.add(current);
+			if (lastModified.get() <= lastKnownModification)
+				LockSupport.parkNanos(this, MILLISECONDS.toNanos(WAIT_FOR_MODIFICATION_MS));
+			waiters.remove(current);
+			if (Thread.interrupted())
+				throw new InterruptedException();
+			if (lastModified.get() <= lastKnownModification) {
+				log.debug("Still waiting without modification (lastKnown={}, lastModification={}).", lastKnownModification, lastModified.get());
 			}
 		}
 	}
@@ -369,4 +420,22 @@ public class LimitedMemoryExchangeStore extends AbstractExchangeStore {
 	public void setBodyExceedingMaxSizeStrategy(BodyCollectingMessageObserver.Strategy bodyExceedingMaxSizeStrategy) {
 		this.bodyExceedingMaxSizeStrategy = bodyExceedingMaxSizeStrategy;
 	}
+
+	/**
+	 * A stored exchange together with the size accounted for it in {@link #currentSize}.
+	 */
+	private static final class Entry {
+		static final int NEW = 0, INFLIGHT = 1, COMPLETED = 2, REMOVED = 3;
+
+		final AbstractExchange exc;
+		final AtomicInteger state = new AtomicInteger(NEW);
+		/**
+		 * -1 after the entry has been released.
+		 */
+		final AtomicInteger accounted = new AtomicInteger();
+
+		Entry(AbstractExchange exc) {
+			this.exc = exc;
+		}
+	}
 }
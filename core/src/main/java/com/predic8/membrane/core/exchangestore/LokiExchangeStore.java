@@ -29,6 +29,7 @@ import com.predic8.membrane.core.transport.http.*;
 import com.predic8.membrane.core.transport.http.client.*;
 import org.slf4j.*;
 
+import java.io.*;
 import java.util.*;
 import java.util.concurrent.*;
 
@@ -94,32 +95,33 @@ public class LokiExchangeStore extends AbstractPersistentExchangeStore {
     }
 
     @Override
-    protected void writeToStore(List<AbstractExchangeSnapshot> exchanges) {
+    protected void writeToStore(List<AbstractExchangeSnapshot> exchanges) throws Exception {
         List<AbstractExchangeSnapshot> finished = exchanges.stream().filter(LokiExchangeStore::isFinished).toList();
         if (finished.isEmpty())
             return;
-        finished.forEach(exc -> pending.invalidate(exc.getId()));
         push(finished);
+        finished.forEach(exc -> pending.invalidate(exc.getId()));
     }
 
-    private void push(List<AbstractExchangeSnapshot> exchanges) {
-        try {
-            Request.Builder builder = Request.post(url + "/loki/api/v1/push").json(buildPushBody(exchanges));
-            if (orgId != null)
-                builder.header("X-Scope-OrgID", orgId);
-            Exchange exc = builder.buildExchange();
-
-            client.call(exc);
-
-            Response response = exc.getResponse();
-            if (response.getStatusCode() < 200 || response.getStatusCode() > 299)
-                log.error("Loki rejected {} exchanges with status {}: {}", exchanges.size(),
-                        response.getStatusCode(), response.getBodyAsStringDecoded());
-        } catch (Exception e) {
-            // Do not propagate: AbstractPersistentExchangeStore's update thread dies on an exception and would
-            // stop storing exchanges for the rest of the router's lifetime.
-            log.error("While pushing {} exchanges to Loki at {}.", exchanges.size(), url, e);
-        }
+    /**
+     * Server errors and rate limiting are thrown, so the batch is retried. Other rejections would fail again and are
+     * only logged.
+     */
+    private void push(List<AbstractExchangeSnapshot> exchanges) throws Exception {
+        Request.Builder builder = Request.post(url + "/loki/api/v1/push").json(buildPushBody(exchanges));
+        if (orgId != null)
+            builder.header("X-Scope-OrgID", orgId);
+        Exchange exc = builder.buildExchange();
+
+        client.call(exc);
+
+        Response response = exc.getResponse();
+        int status = response.getStatusCode();
+        if (status >= 500 || status == 429)
+            throw new IOException("Loki answered with status " + status + ": " + response.getBodyAsStringDecoded());
+        if (status < 200 || status > 299)
+            log.error("Loki rejected {} exchanges with status {}: {}", exchanges.size(),
+                    status, response.getBodyAsStringDecoded());
     }
 
     private String buildPushBody(List<AbstractExchangeSnapshot> exchanges) throws JsonProcessingException {
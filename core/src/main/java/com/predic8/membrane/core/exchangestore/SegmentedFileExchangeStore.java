@@ -0,0 +1,759 @@
+/* Copyright 2026 predic8 GmbH, www.predic8.com
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+   http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License. */
+package com.predic8.membrane.core.exchangestore;
+
+import com.predic8.membrane.annot.*;
+import com.predic8.membrane.core.exchange.*;
+import com.predic8.membrane.core.http.*;
+import com.predic8.membrane.core.interceptor.Interceptor.Flow;
+import com.predic8.membrane.core.proxies.*;
+import com.predic8.membrane.core.router.*;
+import com.predic8.membrane.core.util.*;
+import org.slf4j.*;
+
+import java.io.*;
+import java.nio.channels.*;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
+import java.util.concurrent.locks.*;
+
+import static java.nio.file.StandardOpenOption.*;
+import static java.util.concurrent.TimeUnit.*;
+
+/**
+ * @description <p>Appends exchanges to rolling segment files in a compact binary format.</p>
+ * <p>Request threads only copy the message into a record and put it into a bounded queue. A dedicated writer thread
+ * appends the records to the current segment and starts a new segment when <tt>segmentSize</tt> is reached. Old
+ * exchanges are removed by deleting whole segments, see <tt>maxSegments</tt> and <tt>maxDays</tt>.</p>
+ * <p>Next to each segment, a small index file holds exchange id, time and offset of every record. The indexes are
+ * kept in memory, so exchanges can be looked up by id or time.</p>
+ */
+@MCElement(name = "segmentedFileExchangeStore")
+public class SegmentedFileExchangeStore extends AbstractExchangeStore {
+
+    private static final Logger log = LoggerFactory.getLogger(SegmentedFileExchangeStore.class);
+
+    static final String SEGMENT_SUFFIX = ".seg";
+    static final String INDEX_SUFFIX = ".idx";
+
+    private static final int MAGIC = 0x4d425853; // "MBXS"
+    private static final byte VERSION = 1;
+    private static final int SEGMENT_HEADER_SIZE = 5;
+    private static final byte REQUEST_RECORD = 1;
+    private static final byte RESPONSE_RECORD = 2;
+
+    private static final int MAX_BATCH = 1000;
+    private static final long RETENTION_CHECK_INTERVAL_MS = 60_000;
+    private static final long FLUSH_ON_SHUTDOWN_MS = 5000;
+
+    public enum Backpressure {
+        /**
+         * Drop records while the queue is full. The number of dropped records is logged.
+         */
+        DROP,
+
+        /**
+         * Block the request thread until the writer has made room in the queue.
+         */
+        BLOCK
+    }
+
+    private String dir;
+    private long segmentSize = 64 * 1024 * 1024;
+    private int maxSegments = -1;
+    private int maxDays = -1;
+    private int queueSize = 10_000;
+    private Backpressure backpressure = Backpressure.DROP;
+    private int maxBodySize = 100_000;
+    private BodyCollectingMessageObserver.Strategy bodyExceedingMaxSizeStrategy = BodyCollectingMessageObserver.Strategy.TRUNCATE;
+
+    private BlockingQueue<ExchangeRecord> queue;
+    private final List<Segment> segments = new CopyOnWriteArrayList<>();
+    private final AtomicLong dropped = new AtomicLong();
+    private final AtomicLong enqueued = new AtomicLong();
+
+    private Thread writer;
+    private Thread shutdownHook;
+    private volatile boolean stopping;
+
+    private final ReentrantLock writtenLock = new ReentrantLock();
+    private final Condition written = writtenLock.newCondition();
+    private long persisted; // guarded by writtenLock
+
+    // only used by the writer thread
+    private Segment current;
+    private long nextSegmentNumber;
+    private long lastRetentionCheck;
+
+    /**
+     * Starts the writer. Does nothing, if it is already running, e.g. because the store is used by several
+     * interceptors.
+     */
+    @Override
+    public synchronized void init(Router router) {
+        super.init(router);
+        if (writer != null)
+            return;
+        if (dir == null)
+            throw new ConfigurationException("segmentedFileExchangeStore requires the 'dir' attribute.");
+        try {
+            Files.createDirectories(Path.of(dir));
+            loadSegments();
+        } catch (IOException e) {
+            throw new ConfigurationException("Could not open exchange store directory " + dir + ".", e);
+        }
+        queue = new ArrayBlockingQueue<>(queueSize);
+        stopping = false;
+        writer = Thread.ofPlatform().daemon().name("Exchange Store Writer " + dir).start(this::run);
+        // Only writes what is queued. The writer is a daemon, so it may still be writing when the JVM exits.
+        shutdownHook = new Thread(() -> flush(FLUSH_ON_SHUTDOWN_MS), "exchange store shutdown");
+        Runtime.getRuntime().addShutdownHook(shutdownHook);
+    }
+
+    /**
+     * Writes the queued records, closes the current segment and ends the writer. Records snapped afterwards are
+     * dropped.
+     */
+    @Override
+    public synchronized void stop() {
+        if (writer == null)
+            return;
+        stopping = true;
+        try {
+            writer.join(FLUSH_ON_SHUTDOWN_MS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (writer.isAlive())
+            log.warn("Exchange store writer for {} did not finish in time.", dir);
+        writer = null;
+        try {
+            Runtime.getRuntime().removeShutdownHook(shutdownHook);
+        } catch (IllegalStateException ignored) {
+            // the JVM is shutting down, the hook is running already
+        }
+        shutdownHook = null;
+    }
+
+    private void loadSegments() throws IOException {
+        segments.clear();
+        List<Segment> found = new ArrayList<>();
+        try (DirectoryStream<Path> ds = Files.newDirectoryStream(Path.of(dir), "*" + SEGMENT_SUFFIX)) {
+            for (Path p : ds) {
+                String name = p.getFileName().toString();
+                try {
+                    found.add(Segment.load(Long.parseLong(name.substring(0, name.length() - SEGMENT_SUFFIX.length())), p));
+                } catch (NumberFormatException e) {
+                    log.debug("Ignoring {}.", p);
+                }
+            }
+        }
+        found.sort(Comparator.comparingLong(s -> s.number));
+        segments.addAll(found);
+        nextSegmentNumber = found.isEmpty() ? 0 : found.getLast().number + 1;
+    }
+
+    @Override
+    public void snap(AbstractExchange exc, Flow flow) {
+        Message msg = flow == Flow.REQUEST ? exc.getRequest() : exc.getResponse();
+        if (msg != null)
+            msg.addObserver(new RecordingObserver(exc, flow));
+    }
+
+    private void enqueue(ExchangeRecord record) {
+        if (queue == null)
+            throw new IllegalStateException("segmentedFileExchangeStore has not been initialized.");
+        if (stopping) {
+            dropped.incrementAndGet();
+            return;
+        }
+        if (backpressure == Backpressure.BLOCK) {
+            try {
+                queue.put(record);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                dropped.incrementAndGet();
+                return;
+            }
+        } else if (!queue.offer(record)) {
+            dropped.incrementAndGet();
+            return;
+        }
+        enqueued.incrementAndGet();
+    }
+
+    /**
+     * Waits until the records queued so far are written.
+     *
+     * @return false, if the timeout elapsed before
+     */
+    public boolean flush(long timeoutMillis) {
+        long target = enqueued.get();
+        writtenLock.lock();
+        try {
+            long nanos = MILLISECONDS.toNanos(timeoutMillis);
+            while (persisted < target) {
+                if (nanos <= 0)
+                    return false;
+                nanos = written.awaitNanos(nanos);
+            }
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        } finally {
+            writtenLock.unlock();
+        }
+    }
+
+    private void run() {
+        List<ExchangeRecord> batch = new ArrayList<>();
+        while (true) {
+            try {
+                // checked before polling, so the records queued until then are written
+                boolean last = stopping;
+                ExchangeRecord first = last ? queue.poll() : queue.poll(100, MILLISECONDS);
+                if (first != null) {
+                    batch.add(first);
+                    queue.drainTo(batch, MAX_BATCH - 1);
+                    writeBatch(batch);
+                    markPersisted(batch.size());
+                    batch.clear();
+                } else if (last) {
+                    closeCurrent();
+                    return;
+                }
+                long d = dropped.getAndSet(0);
+                if (d > 0)
+                    log.warn("Dropped {} exchange records, as they could not be written to {} fast enough.", d, dir);
+                long now = System.currentTimeMillis();
+                if (now - lastRetentionCheck > RETENTION_CHECK_INTERVAL_MS) {
+                    lastRetentionCheck = now;
+                    applyRetention(now);
+                }
+            } catch (InterruptedException e) {
+                closeCurrent();
+                return;
+            } catch (Exception e) {
+                log.error("Exchange store writer failed.", e);
+                markPersisted(batch.size());
+                batch.clear();
+            }
+        }
+    }
+
+    private void writeBatch(List<ExchangeRecord> batch) {
+        try {
+            for (ExchangeRecord record : batch) {
+                if (current == null || current.size >= segmentSize)
+                    roll();
+                current.append(record);
+            }
+            current.flush();
+        } catch (IOException e) {
+            log.warn("Could not write exchanges to {}: {}", dir, e.getMessage());
+            closeCurrent();
+        }
+    }
+
+    private void markPersisted(int count) {
+        writtenLock.lock();
+        try {
+            persisted += count;
+            written.signalAll();
+        } finally {
+            writtenLock.unlock();
+        }
+    }
+
+    private void roll() throws IOException {
+        closeCurrent();
+        current = Segment.create(nextSegmentNumber++, Path.of(dir));
+        segments.add(current);
+        applyRetention(System.currentTimeMillis());
+    }
+
+    private void closeCurrent() {
+        if (current == null)
+            return;
+        try {
+            current.close();
+        } catch (IOException e) {
+            log.warn("Could not close segment {}: {}", current.file, e.getMessage());
+        }
+        current = null;
+    }
+
+    /**
+     * Deletes the oldest segments exceeding <tt>maxSegments</tt> and segments without exchanges newer than
+     * <tt>maxDays</tt>. The segment being written is never deleted.
+     */
+    void applyRetention(long now) {
+        List<Segment> deletion = new ArrayList<>();
+        if (maxSegments > 0 && segments.size() > maxSegments)
+            deletion.addAll(segments.subList(0, segments.size() - maxSegments));
+        if (maxDays >= 0) {
+            long limit = now - DAYS.toMillis(maxDays);
+            for (Segment s : segments)
+                if (s.getLastTime() < limit && !deletion.contains(s))
+                    deletion.add(s);
+        }
+        deletion.remove(current);
+        for (Segment s : deletion) {
+            segments.remove(s);
+            s.delete();
+        }
+    }
+
+    @Override
+    public AbstractExchange getExchangeById(long id) {
+        List<Segment> snapshot = List.copyOf(segments);
+        for (int i = snapshot.size() - 1; i >= 0; i--) {
+            Segment s = snapshot.get(i);
+            long offset = s.findLast(id);
+            if (offset < 0)
+                continue;
+            try {
+                return s.readExchange(id, offset, snapshot.subList(0, i + 1));
+            } catch (IOException e) {
+                log.debug("Could not read exchange {} from {}.", id, s.file, e);
+                return null;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @return the ids of the exchanges stored with a time between <tt>from</tt> and <tt>to</tt> (both inclusive, in
+     * milliseconds since the epoch), oldest first
+     */
+    public List<Long> getExchangeIds(long from, long to) {
+        Set<Long> ids = new LinkedHashSet<>();
+        for (Segment s : segments)
+            if (s.getFirstTime() <= to && s.getLastTime() >= from)
+                s.collectIds(from, to, ids);
+        return new ArrayList<>(ids);
+    }
+
+    /**
+     * @return the exchanges stored with a time between <tt>from</tt> and <tt>to</tt>, oldest first
+     */
+    public List<AbstractExchange> getExchanges(long from, long to) {
+        List<AbstractExchange> result = new ArrayList<>();
+        for (long id : getExchangeIds(from, to)) {
+            AbstractExchange exc = getExchangeById(id);
+            if (exc != null)
+                result.add(exc);
+        }
+        return result;
+    }
+
+    public int getNumberOfSegments() {
+        return segments.size();
+    }
+
+    public AbstractExchange[] getExchanges(RuleKey ruleKey) {
+        throw new UnsupportedOperationException("Method getExchanges() is not supported by SegmentedFileExchangeStore");
+    }
+
+    public void remove(AbstractExchange exchange) {
+        throw new UnsupportedOperationException("Method remove() is not supported by SegmentedFileExchangeStore");
+    }
+
+    public void removeAllExchanges(Proxy proxy) {
+        throw new UnsupportedOperationException("Method removeAllExchanges() is not supported by SegmentedFileExchangeStore");
+    }
+
+    public void removeAllExchanges(AbstractExchange[] exchanges) {
+        // ignore
+    }
+
+    public StatisticCollector getStatistics(RuleKey ruleKey) {
+        return null;
+    }
+
+    public Object[] getAllExchanges() {
+        return new Object[0];
+    }
+
+    public List<AbstractExchange> getAllExchangesAsList() {
+        return List.of();
+    }
+
+    public String getDir() {
+        return dir;
+    }
+
+    /**
+     * @description Directory where the segment files are written.
+     * @example exchanges
+     */
+    @Required
+    @MCAttribute
+    public void setDir(String dir) {
+        this.dir = dir;
+    }
+
+    public long getSegmentSize() {
+        return segmentSize;
+    }
+
+    /**
+     * @description Size in bytes after which a new segment file is started.
+     * @default 67108864
+     */
+    @MCAttribute
+    public void setSegmentSize(long segmentSize) {
+        this.segmentSize = segmentSize;
+    }
+
+    public int getMaxSegments() {
+        return maxSegments;
+    }
+
+    /**
+     * @description Maximum number of segment files. When a new segment is started, the oldest ones are deleted. A value
+     * smaller than one keeps all segments.
+     * @default -1
+     */
+    @MCAttribute
+    public void setMaxSegments(int maxSegments) {
+        this.maxSegments = maxSegments;
+    }
+
+    public int getMaxDays() {
+        return maxDays;
+    }
+
+    /**
+     * @description Number of days for which exchanges are preserved. Segments holding only older exchanges are deleted.
+     * A value smaller than zero deactivates the deletion.
+     * @default -1
+     * @example 60
+     */
+    @MCAttribute
+    public void setMaxDays(int maxDays) {
+        this.maxDays = maxDays;
+    }
+
+    public int getQueueSize() {
+        return queueSize;
+    }
+
+    /**
+     * @description Number of records waiting for the writer thread, before <tt>backpressure</tt> applies.
+     * @default 10000
+     */
+    @MCAttribute
+    public void setQueueSize(int queueSize) {
+        this.queueSize = queueSize;
+    }
+
+    public Backpressure getBackpressure() {
+        return backpressure;
+    }
+
+    /**
+     * @description What happens when the queue is full: <tt>DROP</tt> discards the record, <tt>BLOCK</tt> lets the
+     * request wait for the writer.
+     * @default DROP
+     */
+    @MCAttribute
+    public void setBackpressure(Backpressure backpressure) {
+        this.backpressure = backpressure;
+    }
+
+    public int getMaxBodySize() {
+        return maxBodySize;
+    }
+
+    /**
+     * @description Maximum body size in bytes stored per message.
+     * @default 100000
+     */
+    @MCAttribute
+    public void setMaxBodySize(int maxBodySize) {
+        this.maxBodySize = maxBodySize;
+    }
+
+    public BodyCollectingMessageObserver.Strategy getBodyExceedingMaxSizeStrategy() {
+        return bodyExceedingMaxSizeStrategy;
+    }
+
+    /**
+     * @description The strategy to use (TRUNCATE or ERROR) when a HTTP message body is larger than the <tt>maxBodySize</tt>.
+     * @default TRUNCATE
+     */
+    @MCAttribute
+    public void setBodyExceedingMaxSizeStrategy(BodyCollectingMessageObserver.Strategy bodyExceedingMaxSizeStrategy) {
+        this.bodyExceedingMaxSizeStrategy = bodyExceedingMaxSizeStrategy;
+    }
+
+    /**
+     * A message as it is written to a segment: start line and header as on the wire, followed by the body.
+     */
+    record ExchangeRecord(long id, long time, boolean response, byte[] head, byte[] body) {
+    }
+
+    private class RecordingObserver extends BodyCollectingMessageObserver {
+        private final AbstractExchange exc;
+        private final boolean response;
+
+        RecordingObserver(AbstractExchange exc, Flow flow) {
+            super(bodyExceedingMaxSizeStrategy, maxBodySize);
+            this.exc = exc;
+            this.response = flow != Flow.REQUEST;
+        }
+
+        public void bodyRequested(AbstractBody body) {
+        }
+
+        public void bodyComplete(AbstractBody body) {
+            Message msg = response ? exc.getResponse() : exc.getRequest();
+            if (msg == null)
+                return;
+            try {
+                ByteArrayOutputStream head = new ByteArrayOutputStream(512);
+                msg.writeStartLine(head);
+                msg.getHeader().write(head);
+                head.write(Constants.CRLF_BYTES);
+                byte[] content = getBody(body).getContent();
+                if (maxBodySize >= 0 && content.length > maxBodySize)
+                    content = Arrays.copyOf(content, maxBodySize);
+                enqueue(new ExchangeRecord(exc.getId(), exc.getTime().getTimeInMillis(), response, head.toByteArray(), content));
+            } catch (IOException e) {
+                log.warn("Could not record {} of exchange {}: {}", response ? "response" : "request", exc.getId(), e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * A segment file and its index.
+     * <p>
+     * The index of a segment is only appended to by the writer thread. Readers see the entries published by the last
+     * {@link #flush()}.
+     */
+    static class Segment {
+
+        private static final int ENTRY_LONGS = 3; // id, time, offset
+
+        final long number;
+        final Path file;
+        final Path indexFile;
+
+        private long[] entries = new long[ENTRY_LONGS * 64];
+        private volatile int published;
+        private int appended; // entries appended by the writer
+        private volatile long firstTime = Long.MAX_VALUE;
+        private volatile long lastTime = Long.MIN_VALUE;
+
+        // only used by the writer thread
+        private DataOutputStream out;
+        private DataOutputStream indexOut;
+        long size;
+
+        private Segment(long number, Path file) {
+            this.number = number;
+            this.file = file;
+            String name = file.getFileName().toString();
+            this.indexFile = file.resolveSibling(name.substring(0, name.length() - SEGMENT_SUFFIX.length()) + INDEX_SUFFIX);
+        }
+
+        static Segment create(long number, Path dir) throws IOException {
+            Segment s = new Segment(number, dir.resolve("%016d%s".formatted(number, SEGMENT_SUFFIX)));
+            s.out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(s.file, CREATE_NEW, WRITE), 64 * 1024));
+            s.indexOut = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(s.indexFile, CREATE_NEW, WRITE), 8 * 1024));
+            s.out.writeInt(MAGIC);
+            s.out.writeByte(VERSION);
+            s.size = SEGMENT_HEADER_SIZE;
+            return s;
+        }
+
+        /**
+         * Loads the index of a segment written before. An incomplete last index entry is ignored.
+         */
+        static Segment load(long number, Path file) throws IOException {
+            Segment s = new Segment(number, file);
+            if (Files.exists(s.indexFile)) {
+                try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(s.indexFile)))) {
+                    long entries = Files.size(s.indexFile) / (ENTRY_LONGS * 8);
+                    for (long i = 0; i < entries; i++)
+                        s.add(in.readLong(), in.readLong(), in.readLong());
+                }
+                s.publish();
+            }
+            // Without index entries, the age of the segment is only known from the file. Otherwise, it would be
+            // deleted at once by maxDays.
+            if (s.appended == 0)
+                s.lastTime = Files.getLastModifiedTime(file).toMillis();
+            return s;
+        }
+
+        void append(ExchangeRecord r) throws IOException {
+            long offset = size;
+            out.writeByte(r.response() ? RESPONSE_RECORD : REQUEST_RECORD);
+            out.writeLong(r.id());
+            out.writeLong(r.time());
+            out.writeInt(r.head().length);
+            out.write(r.head());
+            out.writeInt(r.body().length);
+            out.write(r.body());
+            size += 1 + 8 + 8 + 4 + r.head().length + 4 + r.body().length;
+
+            indexOut.writeLong(r.id());
+            indexOut.writeLong(r.time());
+            indexOut.writeLong(offset);
+            add(r.id(), r.time(), offset);
+        }
+
+        private void add(long id, long time, long offset) {
+            int i = appended * ENTRY_LONGS;
+            if (i + ENTRY_LONGS > entries.length)
+                entries = Arrays.copyOf(entries, entries.length * 2);
+            entries[i] = id;
+            entries[i + 1] = time;
+            entries[i + 2] = offset;
+            appended++;
+            if (time < firstTime)
+                firstTime = time;
+            if (time > lastTime)
+                lastTime = time;
+        }
+
+        /**
+         * Makes the appended records visible to readers.
+         */
+        void flush() throws IOException {
+            out.flush();
+            indexOut.flush();
+            publish();
+        }
+
+        private void publish() {
+            published = appended;
+        }
+
+        void close() throws IOException {
+            try {
+                flush();
+            } finally {
+                out.close();
+                indexOut.close();
+                out = null;
+            }
+        }
+
+        void delete() {
+            try {
+                if (out != null)
+                    close();
+                Files.deleteIfExists(file);
+                Files.deleteIfExists(indexFile);
+            } catch (IOException e) {
+                log.warn("Could not delete segment {}: {}", file, e.getMessage());
+            }
+        }
+
+        long getFirstTime() {
+            return firstTime;
+        }
+
+        long getLastTime() {
+            return lastTime;
+        }
+
+        /**
+         * @return the offset of the last record of the exchange, or -1
+         */
+        long findLast(long id) {
+            return findBefore(id, published);
+        }
+
+        private long findBefore(long id, int end) {
+            int n = Math.min(end, published);
+            long[] e = entries;
+            for (int i = n - 1; i >= 0; i--)
+                if (e[i * ENTRY_LONGS] == id)
+                    return e[i * ENTRY_LONGS + 2];
+            return -1;
+        }
+
+        private int indexOf(long offset) {
+            int n = published;
+            long[] e = entries;
+            for (int i = n - 1; i >= 0; i--)
+                if (e[i * ENTRY_LONGS + 2] == offset)
+                    return i;
+            return -1;
+        }
+
+        void collectIds(long from, long to, Set<Long> ids) {
+            int n = published;
+            long[] e = entries;
+            for (int i = 0; i < n; i++) {
+                long time = e[i * ENTRY_LONGS + 1];
+                if (time >= from && time <= to)
+                    ids.add(e[i * ENTRY_LONGS]);
+            }
+        }
+
+        /**
+         * Reads the request and response records of the exchange. The request is searched in this segment before
+         * <tt>offset</tt> and then in the older segments.
+         */
+        AbstractExchange readExchange(long id, long offset, List<Segment> olderAndThis) throws IOException {
+            Exchange exc = new Exchange(null);
+            exc.setId(id);
+            if (!read(offset, exc))
+                return exc; // the last record is the request
+            Segment s = this;
+            long requestOffset = findBefore(id, indexOf(offset));
+            for (int i = olderAndThis.size() - 2; requestOffset < 0 && i >= 0; i--) {
+                s = olderAndThis.get(i);
+                requestOffset = s.findLast(id);
+            }
+            if (requestOffset >= 0)
+                s.read(requestOffset, exc);
+            return exc;
+        }
+
+        /**
+         * @return true, if the record is a response
+         */
+        private boolean read(long offset, Exchange exc) throws IOException {
+            try (FileChannel ch = FileChannel.open(file, READ)) {
+                DataInputStream in = new DataInputStream(new BufferedInputStream(Channels.newInputStream(ch.position(offset))));
+                boolean response = in.readByte() == RESPONSE_RECORD;
+                in.readLong();
+                Calendar time = Calendar.getInstance();
+                time.setTimeInMillis(in.readLong());
+                exc.setTime(time);
+                byte[] head = in.readNBytes(in.readInt());
+                byte[] body = in.readNBytes(in.readInt());
+                Message msg = response ? new Response() : new Request();
+                msg.read(new ByteArrayInputStream(head), false);
+                msg.setBody(new Body(body));
+                if (response)
+                    exc.setResponse((Response) msg);
+                else
+                    exc.setRequest((Request) msg);
+                return response;
+            } catch (EndOfStreamException e) {
+                throw new IOException(e);
+            }
+        }
+    }
+}
@@ -19,6 +19,7 @@ import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.charset.Charset;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -60,6 +61,12 @@ public abstract class AbstractBody {
 	 */
 	static final int MAX_ARRAY_LENGTH = Integer.MAX_VALUE - 8;
 
+	/**
+	 * Upper bound for the copy buffer of a pass-through body, see {@link #isPassThrough()}. Larger than the
+	 * regular buffer to need fewer reads and writes for large downloads.
+	 */
+	static final int PASS_THROUGH_BUFFER_SIZE = 64 * 1024;
+
 	// whether the body has been read completely from the wire
 	boolean read;
 
@@ -138,6 +145,19 @@ public abstract class AbstractBody {
 		return content;
 	}
 
+	/**
+	 * Decodes the content. A body consisting of a single chunk, which is the case for most bodies with a
+	 * Content-Length, is decoded without copying it into a new array first.
+	 */
+	String getContentAsString(Charset charset) {
+		if (wasStreamed)
+			throw new IllegalStateException("Cannot read body after it was streamed.");
+		read();
+		if (chunks.size() == 1 && chunks.getFirst().content() != null)
+			return new String(chunks.getFirst().content(), charset);
+		return new String(getContent(), charset);
+	}
+
 	public InputStream getContentAsStream() {
 		if (wasStreamed)
 			throw new IllegalStateException("Cannot read body after it was streamed.");
@@ -165,8 +185,6 @@ public abstract class AbstractBody {
 
 	protected abstract void writeAlreadyRead(AbstractBodyTransferer out) throws IOException;
 
-	protected abstract void writeNotRead(AbstractBodyTransferer out) throws IOException;
-
 	/**
 	 * Is called when there are no observers that need to read the body. Streams the body without reading it
 	 */
@@ -221,7 +239,19 @@ public abstract class AbstractBody {
 	protected abstract byte[] getRawLocal() throws IOException;
 
 	protected boolean hasRelevantObservers() {
-		return observers.stream().anyMatch(o -> !(o instanceof NonRelevantBodyObserver));
+		for (MessageObserver observer : observers) {
+			if (!(observer instanceof NonRelevantBodyObserver))
+				return true;
+		}
+		return false;
+	}
+
+	/**
+	 * A body is passed through, if it is streamed and no observer processes its chunks: It is then copied from the
+	 * input to the output through a single buffer without creating chunks or notifying observers of them.
+	 */
+	protected boolean isPassThrough() {
+		return !hasRelevantObservers();
 	}
 
 	/**
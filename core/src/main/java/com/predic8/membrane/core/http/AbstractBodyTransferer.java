@@ -28,4 +28,18 @@ public abstract class AbstractBodyTransferer {
 
 	public abstract void finish(@Nullable Header header) throws IOException;
 
+	/**
+	 * Starts a chunk of the given length whose content is passed in parts using {@link #writeChunkPart(byte[], int, int)}.
+	 * This allows copying a chunk without holding all of it in memory.
+	 */
+	public void beginChunk(int length) throws IOException {
+	}
+
+	public void writeChunkPart(byte[] content, int i, int length) throws IOException {
+		write(content, i, length);
+	}
+
+	public void endChunk() throws IOException {
+	}
+
 }
@@ -14,6 +14,7 @@
 
 package com.predic8.membrane.core.http;
 
+import com.predic8.membrane.core.util.BufferPool;
 import com.predic8.membrane.core.util.ByteUtil;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -103,23 +104,28 @@ public class Body extends AbstractBody {
 		byte[] buffer = null;
 		boolean hasRelevantObserver = hasRelevantObservers();
 		if (hasRelevantObserver)
-			buffer = new byte[BUFFER_SIZE];
-
-		chunks.clear();
-		long toSkip = length;
-		while (toSkip > 0) {
-			long skipped;
-			if (hasRelevantObserver) {
-				skipped = inputStream.read(buffer);
-				if (skipped > 0)
-					for (MessageObserver observer : observers)
-						observer.bodyChunk(buffer, 0, (int)skipped);
-			} else {
-				skipped = inputStream.skip(toSkip);
+			buffer = BufferPool.getDefault().acquire(BUFFER_SIZE);
+
+		try {
+			chunks.clear();
+			long toSkip = length;
+			while (toSkip > 0) {
+				long skipped;
+				if (hasRelevantObserver) {
+					skipped = inputStream.read(buffer, 0, (int) Math.min(buffer.length, toSkip));
+					if (skipped > 0)
+						for (MessageObserver observer : observers)
+							observer.bodyChunk(buffer, 0, (int)skipped);
+				} else {
+					skipped = inputStream.skip(toSkip);
+				}
+				if (skipped <= 0)
+					break; // EOF
+				toSkip -= skipped;
 			}
-			if (skipped <= 0)
-				break; // EOF
-			toSkip -= skipped;
+		} finally {
+			if (buffer != null)
+				BufferPool.getDefault().release(buffer);
 		}
 		markAsRead();
 	}
@@ -134,37 +140,29 @@ public class Body extends AbstractBody {
 	}
 
 	@Override
-	protected void writeNotRead(AbstractBodyTransferer out) throws IOException {
-		byte[] buffer = new byte[BUFFER_SIZE];
-
-		long totalLength = 0;
-		int length;
-		chunks.clear();
-		while ((this.length > totalLength || this.length == -1) && (length = inputStream.read(buffer)) > 0) {
-			totalLength += length;
-			out.write(buffer, 0, length);
-			byte[] chunk = new byte[length];
-			System.arraycopy(buffer, 0, chunk, 0, length);
-			Chunk chunk1 = new Chunk(chunk);
-			chunks.add(chunk1);
-			for (MessageObserver observer : observers)
-				observer.bodyChunk(chunk1);
+	protected void writeStreamed(AbstractBodyTransferer out) {
+		boolean passThrough = isPassThrough();
+		byte[] buffer = BufferPool.getDefault().acquire(passThrough ? getPassThroughBufferSize() : BUFFER_SIZE);
+		try {
+			copy(out, buffer, passThrough);
+		} finally {
+			BufferPool.getDefault().release(buffer);
 		}
-
-		out.finish(null);
-		markAsRead();
+        try {
+            out.finish(null);
+        } catch (IOException e) {
+            throw new WritingBodyException(e);
+        }
+        markAsRead();
 	}
 
-	@Override
-	protected void writeStreamed(AbstractBodyTransferer out) {
-		byte[] buffer = new byte[BUFFER_SIZE];
-
+	private void copy(AbstractBodyTransferer out, byte[] buffer, boolean passThrough) {
 		long totalLength = 0;
 		int length;
 		chunks.clear();
 		while (true) {
             try {
-                if (!((this.length > totalLength || this.length == -1) && (length = inputStream.read(buffer)) > 0))
+                if (!((this.length > totalLength || this.length == -1) && (length = inputStream.read(buffer, 0, toRead(buffer, totalLength))) > 0))
                     break;
             } catch (IOException e) {
                 throw new ReadingBodyException(e);
@@ -176,15 +174,29 @@ public class Body extends AbstractBody {
 			} catch (IOException e) {
 				throw new WritingBodyException(e);
 			}
+			if (passThrough)
+				continue;
 			for (MessageObserver observer : observers)
 				observer.bodyChunk(buffer, 0, length);
 		}
-        try {
-            out.finish(null);
-        } catch (IOException e) {
-            throw new WritingBodyException(e);
-        }
-        markAsRead();
+	}
+
+	/**
+	 * Small bodies get a buffer of their own size, large ones one of {@link #PASS_THROUGH_BUFFER_SIZE}.
+	 */
+	private int getPassThroughBufferSize() {
+		if (length == -1)
+			return PASS_THROUGH_BUFFER_SIZE;
+		return (int) Math.max(1, Math.min(length, PASS_THROUGH_BUFFER_SIZE));
+	}
+
+	/**
+	 * Does not read beyond the end of the body, as the next message on the connection might follow.
+	 */
+	private int toRead(byte[] buffer, long totalLength) {
+		if (length == -1)
+			return buffer.length;
+		return (int) Math.min(buffer.length, length - totalLength);
 	}
 
 	@Override
@@ -0,0 +1,69 @@
+/* Copyright 2026 predic8 GmbH, www.predic8.com
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+   http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License. */
+
+package com.predic8.membrane.core.http;
+
+import com.fasterxml.jackson.databind.*;
+
+import java.io.*;
+
+/**
+ * A parsed form of a message body, like a JSON tree. Use {@link Message#getParsedBody(BodyRepresentation)} to get it,
+ * so that several expressions evaluated against the same message parse the body only once.
+ * <p>
+ * The parsed XML document is kept by {@link XmlDomBody} instead, since it can also be modified and written back.
+ */
+public final class BodyRepresentation<T> {
+
+    private static final ObjectMapper om = new ObjectMapper();
+
+    /**
+     * The decoded body as a string.
+     */
+    public static final BodyRepresentation<String> TEXT = new BodyRepresentation<>("text", Message::getBodyAsStringDecoded);
+
+    /**
+     * The decoded body parsed as JSON into maps, lists and values, like
+     * <code>ObjectMapper.readValue(body, Object.class)</code> does.
+     */
+    public static final BodyRepresentation<Object> JSON = new BodyRepresentation<>("json", BodyRepresentation::parseJson);
+
+    private final String name;
+    private final Parser<T> parser;
+
+    private BodyRepresentation(String name, Parser<T> parser) {
+        this.name = name;
+        this.parser = parser;
+    }
+
+    T parse(Message msg) throws IOException {
+        return parser.parse(msg);
+    }
+
+    private static Object parseJson(Message msg) throws IOException {
+        try (InputStream in = msg.getBodyAsStreamDecoded()) {
+            return om.readValue(in, Object.class);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return name;
+    }
+
+    @FunctionalInterface
+    private interface Parser<T> {
+        T parse(Message msg) throws IOException;
+    }
+}
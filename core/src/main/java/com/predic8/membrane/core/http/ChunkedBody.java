@@ -14,11 +14,13 @@
 
 package com.predic8.membrane.core.http;
 
+import com.predic8.membrane.core.util.BufferPool;
 import com.predic8.membrane.core.util.ByteUtil;
 import com.predic8.membrane.core.util.EndOfStreamException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.EOFException;
 import java.io.IOException;
 import java.io.InputStream;
 import java.util.ArrayList;
@@ -245,32 +247,30 @@ public class ChunkedBody extends AbstractBody {
         };
     }
 
-    @Override
-    protected void writeNotRead(AbstractBodyTransferer out) throws IOException {
-        log.debug("writeNotReadChunked");
-        int chunkSize;
-        while ((chunkSize = readChunkSize(inputStream)) > 0) {
-            Chunk chunk = new Chunk(readByteArray(inputStream, chunkSize));
-            out.write(chunk);
-            chunks.add(chunk);
-            for (MessageObserver observer : observers)
-                observer.bodyChunk(chunk);
-            //noinspection ResultOfMethodCallIgnored
-            inputStream.read(); // CR
-            //noinspection ResultOfMethodCallIgnored
-            inputStream.read(); // LF
-        }
-        trailer = readTrailer(inputStream);
-        out.finish(trailer);
-        markAsRead();
-    }
-
     @Override
     protected void writeStreamed(AbstractBodyTransferer out) {
         log.debug("writeStreamed");
+        boolean passThrough = isPassThrough();
+        byte[] buffer = null;
         int chunkSize;
         try {
             while ((chunkSize = readChunkSize(inputStream)) > 0) {
+                if (passThrough) {
+                    // Small chunks get a small buffer. It is replaced, when a larger chunk follows.
+                    int bufferSize = Math.min(chunkSize, PASS_THROUGH_BUFFER_SIZE);
+                    if (buffer == null || buffer.length < bufferSize) {
+                        if (buffer != null)
+                            BufferPool.getDefault().release(buffer);
+                        buffer = BufferPool.getDefault().acquire(bufferSize);
+                    }
+                    copyChunk(out, chunkSize, buffer);
+                    //noinspection ResultOfMethodCallIgnored
+                    inputStream.read(); // CR
+                    //noinspection ResultOfMethodCallIgnored
+                    inputStream.read(); // LF
+                    lengthStreamed += chunkSize;
+                    continue;
+                }
                 Chunk chunk = new Chunk(readByteArray(inputStream, chunkSize));
                 try {
                     out.write(chunk);
@@ -288,6 +288,9 @@ public class ChunkedBody extends AbstractBody {
             trailer = readTrailer(inputStream);
         } catch (IOException e) { // note that we only want to catch the IOExceptions associated to *reading* the body
             throw new ReadingBodyException(e);
+        } finally {
+            if (buffer != null)
+                BufferPool.getDefault().release(buffer);
         }
         try {
             out.finish(trailer);
@@ -297,6 +300,36 @@ public class ChunkedBody extends AbstractBody {
         markAsRead();
     }
 
+    /**
+     * Copies a chunk through the buffer, keeping the chunk boundary if the output is chunked as well.
+     *
+     * @throws IOException if reading the chunk fails
+     */
+    private void copyChunk(AbstractBodyTransferer out, int chunkSize, byte[] buffer) throws IOException {
+        try {
+            out.beginChunk(chunkSize);
+        } catch (IOException e) {
+            throw new WritingBodyException(e);
+        }
+        int remaining = chunkSize;
+        while (remaining > 0) {
+            int n = inputStream.read(buffer, 0, Math.min(buffer.length, remaining));
+            if (n == -1)
+                throw new EOFException("Stream ended within a chunk.");
+            try {
+                out.writeChunkPart(buffer, 0, n);
+            } catch (IOException e) {
+                throw new WritingBodyException(e);
+            }
+            remaining -= n;
+        }
+        try {
+            out.endChunk();
+        } catch (IOException e) {
+            throw new WritingBodyException(e);
+        }
+    }
+
     protected int getRawLength() {
         if (chunks.isEmpty())
             return 0;
@@ -40,6 +40,22 @@ public class ChunkedBodyTransferer extends AbstractBodyTransferer {
 		chunk.write(out);
 	}
 
+	@Override
+	public void beginChunk(int length) throws IOException {
+		writeChunkSize(out, length);
+	}
+
+	@Override
+	public void writeChunkPart(byte[] content, int i, int length) throws IOException {
+		out.write(content, i, length);
+	}
+
+	@Override
+	public void endChunk() throws IOException {
+		out.write(Constants.CRLF_BYTES);
+		out.flush();
+	}
+
 	@Override
 	public void finish(Header header) throws IOException {
 		out.write(ZERO);
@@ -38,11 +38,6 @@ public class EmptyBody extends AbstractBody {
 		//ignore
 	}
 
-	@Override
-	protected void writeNotRead(AbstractBodyTransferer out) {
-		//ignore
-	}
-
 	@Override
 	protected void writeStreamed(AbstractBodyTransferer out) {
 		//ignore
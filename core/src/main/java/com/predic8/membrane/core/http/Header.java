@@ -14,12 +14,10 @@
 
 package com.predic8.membrane.core.http;
 
-import com.predic8.membrane.annot.Constants;
 import com.predic8.membrane.core.http.cookie.Cookies;
 import com.predic8.membrane.core.http.cookie.MimeHeaders;
 import com.predic8.membrane.core.http.cookie.ServerCookie;
 import com.predic8.membrane.core.util.EndOfStreamException;
-import com.predic8.membrane.core.util.HttpUtil;
 import jakarta.mail.internet.ContentType;
 import jakarta.mail.internet.ParseException;
 import org.jetbrains.annotations.NotNull;
@@ -39,7 +37,6 @@ import java.util.regex.Pattern;
 import java.util.stream.Stream;
 
 import static com.predic8.membrane.core.http.MimeType.isBinary;
-import static com.predic8.membrane.core.util.HttpUtil.readLine;
 import static java.nio.charset.StandardCharsets.ISO_8859_1;
 import static java.nio.charset.StandardCharsets.UTF_8;
 import static java.util.Arrays.stream;
@@ -92,6 +89,7 @@ public class Header {
     public static final String PROXY_AUTHORIZATION = "Proxy-Authorization";
     public static final String SOAP_ACTION = "SOAPAction";
     public static final String ACCEPT = "Accept";
+    public static final String ACCEPT_ENCODING = "Accept-Encoding";
     public static final String LOCATION = "Location";
     public static final String AUTHORIZATION = "Authorization";
     public static final String SET_COOKIE = "Set-Cookie";
@@ -115,6 +113,16 @@ public class Header {
 
     public static final String IF_MODIFIED_SINCE = "If-Modified-Since";
 
+    public static final String IF_NONE_MATCH = "If-None-Match";
+
+    public static final String ETAG = "ETag";
+
+    public static final String AGE = "Age";
+
+    public static final String DATE = "Date";
+
+    public static final String RANGE = "Range";
+
     public static final String VARY = "Vary";
 
     public static final String WWW_AUTHENTICATE = "WWW-Authenticate";
@@ -154,23 +162,16 @@ public class Header {
     /**
      * Constructs a Header by reading and parsing HTTP header lines from the provided input stream.
      *
-     * <p>This constructor reads the input stream line by line until an empty line is encountered,
-     * creating and adding a HeaderField for each non-empty line. If a header line is malformed, resulting
-     * in a StringIndexOutOfBoundsException, the error is logged and the line is skipped.</p>
+     * <p>This constructor reads the input stream until an empty line is encountered, creating and adding a
+     * HeaderField for each non-empty line. If a header line is malformed (it has no colon), the error is logged and
+     * the line is skipped. See {@link HeaderParser}.</p>
      *
      * @param in the input stream containing HTTP header lines
      * @throws IOException          if an I/O error occurs while reading the stream
      * @throws EndOfStreamException if the stream ends unexpectedly before a complete header is read
      */
     public Header(InputStream in) throws IOException, EndOfStreamException {
-        String line;
-        while (!(line = readLine(in)).isEmpty()) {
-            try {
-                add(new HeaderField(line));
-            } catch (StringIndexOutOfBoundsException sie) {
-                log.error("Header read line that caused problems: {}", line);
-            }
-        }
+        HeaderParser.parse(in, this);
     }
 
     public Header(String header) {
@@ -222,7 +223,7 @@ public class Header {
     }
 
     public void removeFields(String name) {
-        fields.removeAll(filterByHeaderName(name).toList());
+        fields.removeIf(hf -> hf.getHeaderName().hasName(name));
     }
 
     /**
@@ -232,19 +233,36 @@ public class Header {
      * @return a list of header fields that match the provided header name; returns an empty list if none are found
      */
     public List<HeaderField> getValues(HeaderName headerName) {
-        return fields.stream()
-                .filter(field -> field.getHeaderName().equals(headerName))
-                .toList();
+        List<HeaderField> result = new ArrayList<>(2);
+        for (HeaderField field : fields) {
+            if (field.getHeaderName().equals(headerName))
+                result.add(field);
+        }
+        return unmodifiableList(result);
     }
 
     public String getValuesAsString(String name) {
-        var list = filterByHeaderName(name).map(HeaderField::getValue).toList();
-        if (list.isEmpty()) return null;
-        return String.join(", ", list);
+        return joinValues(name, ", ");
     }
 
-    private @NotNull Stream<HeaderField> filterByHeaderName(String name) {
-        return fields.stream().filter(hf -> hf.getHeaderName().hasName(name));
+    /**
+     * @return the values of all fields with the name joined by the separator, or null if there is no such field
+     */
+    private String joinValues(String name, String separator) {
+        String first = null;
+        StringBuilder sb = null;
+        for (HeaderField field : fields) {
+            if (!field.getHeaderName().hasName(name))
+                continue;
+            if (first == null) {
+                first = field.getValue();
+                continue;
+            }
+            if (sb == null)
+                sb = new StringBuilder(first);
+            sb.append(separator).append(field.getValue());
+        }
+        return sb == null ? first : sb.toString();
     }
 
     /**
@@ -257,10 +275,18 @@ public class Header {
      * @return the value of the matching header field, or {@code null} if not present
      */
     public String getFirstValue(String name) {
-        return filterByHeaderName(name)
-                .findFirst()
-                .map(HeaderField::getValue)
-                .orElse(null);
+        HeaderField field = getFirstField(name);
+        return field == null ? null : field.getValue();
+    }
+
+    private HeaderField getFirstField(String name) {
+        // index based: avoids an iterator per lookup
+        for (int i = 0; i < fields.size(); i++) {
+            HeaderField field = fields.get(i);
+            if (field.getHeaderName().hasName(name))
+                return field;
+        }
+        return null;
     }
 
     public String getFirstValue(HeaderName name) {
@@ -272,7 +298,7 @@ public class Header {
     }
 
     public boolean contains(String header) {
-        return filterByHeaderName(header).findAny().isPresent();
+        return getFirstField(header) != null;
     }
 
     public boolean contains(HeaderName header) {
@@ -280,14 +306,35 @@ public class Header {
     }
 
     /**
-     * Since {@link HttpUtil#readLine(InputStream)} assembles the String byte-by-byte
-     * converting it to char-by-char, we use ISO-8859-1 for output here.
+     * Since {@link HeaderParser} converts the header byte-by-byte to chars, we use ISO-8859-1 for output here.
+     * Characters outside of ISO-8859-1 are written as '?'.
      */
     public void write(OutputStream out) throws IOException {
-        byte[] bytes = fields.stream()
-                .map(f -> "%s: %s%s".formatted(f.getHeaderName(), f.getValue(), Constants.CRLF))
-                .collect(joining()).getBytes(ISO_8859_1);
-        out.write(bytes);
+        int size = 0;
+        for (HeaderField f : fields)
+            size += f.getHeaderName().getName().length() + f.getValue().length() + 4;
+
+        byte[] bytes = new byte[size];
+        int pos = 0;
+        for (HeaderField f : fields) {
+            pos = putISO88591(f.getHeaderName().getName(), bytes, pos);
+            bytes[pos++] = ':';
+            bytes[pos++] = ' ';
+            pos = putISO88591(f.getValue(), bytes, pos);
+            bytes[pos++] = '\r';
+            bytes[pos++] = '\n';
+        }
+        out.write(bytes, 0, pos);
+    }
+
+    private static int putISO88591(String s, byte[] bytes, int pos) {
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            if (Character.isHighSurrogate(c) && i + 1 < s.length() && Character.isLowSurrogate(s.charAt(i + 1)))
+                i++; // one '?' per code point, like String.getBytes()
+            bytes[pos++] = c <= 0xFF ? (byte) c : (byte) '?';
+        }
+        return pos;
     }
 
     /**
@@ -366,7 +413,9 @@ public class Header {
      */
     public long getContentLength() {
         Long length = null;
-        for (HeaderField field : filterByHeaderName(CONTENT_LENGTH).toList()) {
+        for (HeaderField field : fields) {
+            if (!field.getHeaderName().hasName(CONTENT_LENGTH))
+                continue;
             for (String token : field.getValue().split(",", -1)) {
                 long value = parseContentLengthValue(token, field.getValue());
                 if (length == null) {
@@ -562,13 +611,19 @@ public class Header {
     }
 
     public int estimateHeapSize() {
-        return 10 + fields.stream()
-                .map(f -> 4 + f.estimateHeapSize())
-                .reduce(0, Integer::sum);
+        int size = 10;
+        for (HeaderField f : fields)
+            size += 4 + f.estimateHeapSize();
+        return size;
     }
 
     public int getNumberOf(String headerName) {
-        return (int) filterByHeaderName(headerName).count();
+        int n = 0;
+        for (HeaderField field : fields) {
+            if (field.getHeaderName().hasName(headerName))
+                n++;
+        }
+        return n;
     }
 
     /**
@@ -614,10 +669,8 @@ public class Header {
     }
 
     public String getNormalizedValue(String headerName) {
-        var s = filterByHeaderName(headerName)
-                .map(HeaderField::getValue)
-                .collect(joining(","));
-        return s.isEmpty() ? null : s;
+        var s = joinValues(headerName, ",");
+        return s == null || s.isEmpty() ? null : s;
     }
 
     public boolean isBinaryContentType() {
@@ -25,6 +25,11 @@ public class HeaderName {
 
 	private final String name;
 
+	/**
+	 * Cached, as header names are looked up frequently. 0 if not computed yet.
+	 */
+	private int hash;
+
 	public HeaderName(String name) {
 		this.name = name;
 	}
@@ -41,7 +46,10 @@ public class HeaderName {
 
 	@Override
 	public int hashCode() {
-		return hash(name.toLowerCase());
+		int h = hash;
+		if (h == 0)
+			hash = h = hash(name.toLowerCase());
+		return h;
 	}
 
 	public String getName() {
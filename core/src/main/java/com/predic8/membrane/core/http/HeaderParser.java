@@ -0,0 +1,266 @@
+/* Copyright 2026 predic8 GmbH, www.predic8.com
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+   http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License. */
+package com.predic8.membrane.core.http;
+
+import com.predic8.membrane.core.transport.http.*;
+import com.predic8.membrane.core.util.*;
+import org.slf4j.*;
+
+import java.io.*;
+
+import static com.predic8.membrane.core.http.Header.*;
+import static com.predic8.membrane.core.util.HttpUtil.*;
+import static java.nio.charset.StandardCharsets.*;
+import static java.util.Locale.*;
+
+/**
+ * Reads the header fields of an HTTP message directly from the bytes of the stream.
+ * <p>
+ * If the stream supports mark/reset (as the {@link BufferedInputStream}s of the transport do), it is read in blocks
+ * and the bytes following the header are pushed back. Names of well-known header fields are shared instead of being
+ * allocated for every message.
+ * <p>
+ * Line endings are handled like in {@link HttpUtil#readLine(InputStream)}, except that a header terminated by a
+ * single LF is complete as soon as the LF has been read, even if no further byte is available yet.
+ */
+final class HeaderParser {
+
+    private static final Logger log = LoggerFactory.getLogger(HeaderParser.class.getName());
+
+    private static final int BLOCK_SIZE = 1024;
+
+    private static final String[] WELL_KNOWN_NAMES = {
+            HOST, USER_AGENT, ACCEPT, "Accept-Encoding", "Accept-Language", "Accept-Charset", CONNECTION, KEEP_ALIVE,
+            CONTENT_LENGTH, CONTENT_TYPE, CONTENT_ENCODING, TRANSFER_ENCODING, DATE, SERVER, CACHE_CONTROL, PRAGMA,
+            EXPIRES, AGE, ETAG, LAST_MODIFIED, IF_MODIFIED_SINCE, IF_NONE_MATCH, VARY, COOKIE, SET_COOKIE,
+            AUTHORIZATION, WWW_AUTHENTICATE, PROXY_AUTHORIZATION, PROXY_CONNECTION, LOCATION, "Referer", ORIGIN,
+            X_FORWARDED_FOR, X_FORWARDED_PROTO, X_FORWARDED_HOST, "Forwarded", "X-Request-Id", "Traceparent", EXPECT,
+            UPGRADE, SOAP_ACTION, ACCESS_CONTROL_ALLOW_ORIGIN, "Strict-Transport-Security", "X-Content-Type-Options",
+            "Accept-Ranges", "Content-Range", RANGE, "Via", "TE", "Trailer"
+    };
+
+    /**
+     * Open addressing hash table of well-known names, each in its canonical and in its lower case spelling.
+     */
+    private static final HeaderName[] TABLE = new HeaderName[512];
+
+    static {
+        for (String name : WELL_KNOWN_NAMES) {
+            register(name);
+            register(name.toLowerCase(ROOT));
+        }
+    }
+
+    private final Header header;
+    private byte[] line = new byte[128];
+    private int length;
+    private int colon = -1;
+
+    /**
+     * The previous byte was a CR: The next byte belongs to the line ending.
+     */
+    private boolean skipNext;
+
+    /**
+     * The previous byte was a LF: The next byte belongs to the line ending, if it is a CR.
+     */
+    private boolean skipNextIfCR;
+
+    /**
+     * The empty line terminating the header has been read, but its line ending might not be complete.
+     */
+    private boolean lastLine;
+
+    private HeaderParser(Header header) {
+        this.header = header;
+    }
+
+    static void parse(InputStream in, Header header) throws IOException {
+        HeaderParser parser = new HeaderParser(header);
+        if (in.markSupported())
+            parser.parseBlocks(in);
+        else
+            parser.parseBytes(in);
+    }
+
+    private void parseBlocks(InputStream in) throws IOException {
+        byte[] block = new byte[BLOCK_SIZE];
+        while (true) {
+            in.mark(BLOCK_SIZE);
+            int n = in.read(block, 0, BLOCK_SIZE);
+            if (n == -1) {
+                endOfStream();
+                return;
+            }
+            int end = feed(block, n);
+            if (end == -1)
+                continue;
+            // push back what follows the header
+            in.reset();
+            skipFully(in, end);
+            return;
+        }
+    }
+
+    private void parseBytes(InputStream in) throws IOException {
+        byte[] b = new byte[1];
+        while (true) {
+            int c = in.read();
+            if (c == -1) {
+                endOfStream();
+                return;
+            }
+            b[0] = (byte) c;
+            if (feed(b, 1) != -1)
+                return;
+        }
+    }
+
+    /**
+     * @return the number of bytes of the block belonging to the header, or -1 if the header is not complete yet
+     */
+    private int feed(byte[] block, int n) throws IOException {
+        for (int i = 0; i < n; i++) {
+            byte b = block[i];
+            if (skipNext) {
+                skipNext = false;
+                if (lastLine)
+                    return i + 1;
+                continue;
+            }
+            if (skipNextIfCR) {
+                skipNextIfCR = false;
+                if (b == '\r') {
+                    if (lastLine)
+                        return i + 1;
+                    continue;
+                }
+                if (lastLine)
+                    return i;
+            }
+            switch (b) {
+                case '\r' -> {
+                    endOfLine();
+                    skipNext = true;
+                }
+                case '\n' -> {
+                    endOfLine();
+                    skipNextIfCR = true;
+                }
+                default -> append(b);
+            }
+        }
+        // A final LF at the end of the block: do not wait for more bytes
+        if (lastLine && skipNextIfCR)
+            return n;
+        return -1;
+    }
+
+    private void append(byte b) throws LineTooLongException {
+        if (length == line.length) {
+            byte[] larger = new byte[line.length * 2];
+            System.arraycopy(line, 0, larger, 0, length);
+            line = larger;
+        }
+        if (b == ':' && colon == -1)
+            colon = length;
+        line[length++] = b;
+        if (length == MAX_LINE_LENGTH)
+            throw new LineTooLongException(currentLine());
+    }
+
+    private void endOfLine() {
+        if (length == 0) {
+            lastLine = true;
+            return;
+        }
+        if (colon == -1) {
+            log.error("Header read line that caused problems: {}", currentLine());
+        } else {
+            header.add(new HeaderField(getName(line, colon), getValue()));
+        }
+        length = 0;
+        colon = -1;
+    }
+
+    private void endOfStream() {
+        // Like readLine(), a missing LF after the final CR is tolerated.
+        if (lastLine)
+            return;
+        throw new EOFWhileReadingLineException(currentLine());
+    }
+
+    private String getValue() {
+        int start = colon + 1;
+        int end = length;
+        while (start < end && (line[start] & 0xFF) <= ' ')
+            start++;
+        while (end > start && (line[end - 1] & 0xFF) <= ' ')
+            end--;
+        return new String(line, start, end - start, ISO_8859_1);
+    }
+
+    private String currentLine() {
+        return new String(line, 0, length, ISO_8859_1);
+    }
+
+    private static void skipFully(InputStream in, int n) throws IOException {
+        while (n > 0) {
+            long skipped = in.skip(n);
+            if (skipped <= 0)
+                throw new IOException("Could not push back bytes following the header.");
+            n -= (int) skipped;
+        }
+    }
+
+    /**
+     * @return the shared instance for a well-known name, or a new one
+     */
+    static HeaderName getName(byte[] b, int length) {
+        int h = hash(b, length);
+        for (int i = h & (TABLE.length - 1); TABLE[i] != null; i = (i + 1) & (TABLE.length - 1)) {
+            if (equals(TABLE[i].getName(), b, length))
+                return TABLE[i];
+        }
+        return new HeaderName(new String(b, 0, length, ISO_8859_1));
+    }
+
+    private static void register(String name) {
+        byte[] b = name.getBytes(ISO_8859_1);
+        int i = hash(b, b.length) & (TABLE.length - 1);
+        while (TABLE[i] != null) {
+            if (TABLE[i].getName().equals(name))
+                return;
+            i = (i + 1) & (TABLE.length - 1);
+        }
+        TABLE[i] = new HeaderName(name);
+    }
+
+    private static int hash(byte[] b, int length) {
+        int h = length;
+        for (int i = 0; i < length; i++)
+            h = 31 * h + b[i];
+        return h ^ (h >>> 16);
+    }
+
+    private static boolean equals(String name, byte[] b, int length) {
+        if (name.length() != length)
+            return false;
+        for (int i = 0; i < length; i++) {
+            if (name.charAt(i) != (b[i] & 0xFF))
+                return false;
+        }
+        return true;
+    }
+}
@@ -26,6 +26,8 @@ import java.io.InputStream;
 import java.io.OutputStream;
 import java.nio.charset.Charset;
 import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
 
 import static com.predic8.membrane.annot.Constants.CRLF;
 import static com.predic8.membrane.annot.Constants.CRLF_BYTES;
@@ -56,6 +58,13 @@ public abstract class Message {
 
 	private String errorMessage = "";
 
+	/**
+	 * Parsed representations of the body, see {@link #getParsedBody(BodyRepresentation)}. Only valid as long as
+	 * {@link #parsedBody} is still the body of the message.
+	 */
+	private Map<BodyRepresentation<?>, Object> parsedRepresentations;
+	private AbstractBody parsedBody;
+
 	public Message() {
 		header = new Header();
 	}
@@ -164,12 +173,35 @@ public abstract class Message {
 	 */
 	public String getBodyAsStringDecoded() throws ReadingBodyException {
 		try {
+			if (!isGzip() && !isDeflate() && !isBrotli())
+				return body.getContentAsString(getCharsetOrDefault());
 			return new String(MessageUtil.getContent(this), getCharsetOrDefault());
 		} catch (Exception e) {
 			throw new ReadingBodyException(e);
 		}
 	}
 
+	/**
+	 * Returns a parsed representation of the body, e.g. the JSON tree. The body is only parsed if the representation
+	 * was not requested before. Replacing the body, e.g. with {@link #setBodyContent(byte[])}, discards all
+	 * representations.
+	 * <p>
+	 * The returned object is shared with other callers and must not be modified. A body that cannot be parsed is
+	 * not cached, the next call tries again.
+	 */
+	@SuppressWarnings("unchecked")
+	public <T> T getParsedBody(BodyRepresentation<T> representation) throws IOException {
+		if (parsedBody != body || parsedRepresentations == null) {
+			parsedRepresentations = new HashMap<>(4);
+			parsedBody = body;
+		}
+		if (parsedRepresentations.containsKey(representation))
+			return (T) parsedRepresentations.get(representation);
+		T parsed = representation.parse(this);
+		parsedRepresentations.put(representation, parsed);
+		return parsed;
+	}
+
 	/**
 	 * Sets the body, leaving the header alone. The caller is responsible for <tt>Content-Length</tt>,
 	 * <tt>Content-Encoding</tt> and <tt>Transfer-Encoding</tt> still describing the new body — pass it
@@ -32,6 +32,7 @@ import javax.xml.transform.TransformerException;
 import javax.xml.transform.dom.DOMSource;
 import javax.xml.transform.stream.StreamResult;
 import javax.xml.xpath.XPathEvaluationResult;
+import javax.xml.xpath.XPathExpression;
 import javax.xml.xpath.XPathExpressionException;
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
@@ -120,6 +121,27 @@ public class XmlDomBody extends AbstractBody {
         return XPathUtil.newXPath(namespaces).evaluateExpression(expression, documentOf(msg));
     }
 
+    /**
+     * Evaluates a compiled XPath expression against the message's document. For a caller that evaluates the same
+     * expression over and over, compiling it once instead of once per message.
+     * <p>
+     * A compiled expression is not thread-safe, the caller has to make sure it is not evaluated concurrently.
+     *
+     * @param type the {@code XPathConstants} type to coerce the result to
+     */
+    public static Object xpath(Message msg, XPathExpression expression, QName type) throws XPathExpressionException {
+        return expression.evaluate(documentOf(msg), type);
+    }
+
+    /**
+     * Evaluates a compiled XPath expression, leaving the result in whatever type the expression itself yields.
+     *
+     * @see #xpath(Message, XPathExpression, QName)
+     */
+    public static XPathEvaluationResult<?> xpath(Message msg, XPathExpression expression) throws XPathExpressionException {
+        return expression.evaluateExpression(documentOf(msg));
+    }
+
     /**
      * Hands the message's document to a reader and returns what it made of it, without publishing
      * anything. For a caller whose work is not an XPath expression: WS-Security walks and rewrites
@@ -273,11 +295,6 @@ public class XmlDomBody extends AbstractBody {
         out.finish(null);
     }
 
-    @Override
-    protected void writeNotRead(AbstractBodyTransferer out) throws IOException {
-        writeAlreadyRead(out);
-    }
-
     @Override
     protected void writeStreamed(AbstractBodyTransferer out) {
         try {
@@ -129,6 +129,13 @@ public class ExchangeStoreInterceptor extends AbstractInterceptor implements App
 		searchAdminConsole();
 	}
 
+	@Override
+	public void stop() {
+		// the exchange store of the router is stopped with the router
+		if (store != null && store != router.getExchangeStore())
+			store.stop();
+	}
+
 	private void searchAdminConsole() {
 		for (Proxy r : router.getRuleManager().getRules()) {
 			if (!(r instanceof AbstractServiceProxy)) continue;
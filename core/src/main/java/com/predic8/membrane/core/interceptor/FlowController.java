@@ -15,6 +15,7 @@ package com.predic8.membrane.core.interceptor;
 
 import com.predic8.membrane.core.exchange.*;
 import com.predic8.membrane.core.interceptor.Interceptor.*;
+import com.predic8.membrane.core.proxies.Proxy;
 import com.predic8.membrane.core.router.*;
 import com.predic8.membrane.core.transport.http.*;
 import org.slf4j.*;
@@ -25,6 +26,7 @@ import static com.predic8.membrane.core.exceptions.ProblemDetails.*;
 import static com.predic8.membrane.core.interceptor.Interceptor.Flow.*;
 import static com.predic8.membrane.core.interceptor.Outcome.ABORT;
 import static com.predic8.membrane.core.interceptor.Outcome.*;
+import static java.lang.System.nanoTime;
 
 /**
  * Controls the flow of an exchange through a chain of interceptors.
@@ -78,7 +80,7 @@ public class FlowController {
                 continue;
 
             try {
-                Outcome o = interceptor.handleRequest(exchange);
+                Outcome o = handleRequest(interceptor, exchange);
                 if (o == RETURN) {
                     log.debug("Interceptor returned RETURN. Returning!");
                     flow = RESPONSE;
@@ -124,7 +126,7 @@ public class FlowController {
             if (!interceptor.handlesResponses())
                 continue;
             if (!aborted) {
-                if (interceptor.handleResponse(exchange) == ABORT) {
+                if (handleResponse(interceptor, exchange) == ABORT) {
                     aborted = true;
                 }
                 continue;
@@ -136,6 +138,38 @@ public class FlowController {
         return CONTINUE;
     }
 
+    private Outcome handleRequest(Interceptor interceptor, Exchange exchange) {
+        if (!router.getConfiguration().isInterceptorLatency())
+            return interceptor.handleRequest(exchange);
+        long start = nanoTime();
+        try {
+            return interceptor.handleRequest(exchange);
+        } finally {
+            recordLatency(interceptor, exchange, REQUEST, start);
+        }
+    }
+
+    private Outcome handleResponse(Interceptor interceptor, Exchange exchange) {
+        if (!router.getConfiguration().isInterceptorLatency())
+            return interceptor.handleResponse(exchange);
+        long start = nanoTime();
+        try {
+            return interceptor.handleResponse(exchange);
+        } finally {
+            recordLatency(interceptor, exchange, RESPONSE, start);
+        }
+    }
+
+    /**
+     * Interceptors running before the proxy is determined are not recorded.
+     */
+    private static void recordLatency(Interceptor interceptor, Exchange exchange, Flow flow, long start) {
+        Proxy proxy = exchange.getProxy();
+        if (proxy == null)
+            return;
+        proxy.getStatisticCollector().getLatency().recordInterceptor(interceptor, flow, nanoTime() - start);
+    }
+
     public void invokeAbortHandlers(Exchange exchange, List<Interceptor> interceptors) {
         invokeAbortHandlers(exchange, interceptors, interceptors.size());
     }
@@ -57,6 +57,14 @@ public interface Interceptor {
 
 	void init(Router router, Proxy proxy);
 
+	/**
+	 * Called when the interceptor is taken out of service: its proxy was removed or replaced, or the router stopped.
+	 * Releases threads, files and connections acquired by <tt>init</tt>. Must tolerate being called without a
+	 * preceding <tt>init</tt> and more than once.
+	 */
+	default void stop() {
+	}
+
 	Outcome handleRequest(Exchange exchange);
 	Outcome handleResponse(Exchange exchange);
 
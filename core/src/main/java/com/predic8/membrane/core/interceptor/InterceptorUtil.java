@@ -13,11 +13,30 @@
    limitations under the License. */
 package com.predic8.membrane.core.interceptor;
 
+import org.slf4j.*;
+
 import java.util.*;
 import java.util.function.*;
 
 public class InterceptorUtil {
 
+    private static final Logger log = LoggerFactory.getLogger(InterceptorUtil.class);
+
+    /**
+     * Stops the interceptors. A failing interceptor does not keep the others from being stopped.
+     */
+    public static void stop(List<Interceptor> interceptors) {
+        if (interceptors == null)
+            return;
+        for (Interceptor interceptor : interceptors) {
+            try {
+                interceptor.stop();
+            } catch (RuntimeException e) {
+                log.warn("Could not stop interceptor {}.", interceptor.getDisplayName(), e);
+            }
+        }
+    }
+
     public static <T extends Interceptor> List<T> getInterceptors(List<Interceptor> interceptors, Class<T> clazz) {
         return interceptors.stream().filter(i -> i.getClass().equals(clazz))
                 .map(clazz::cast)
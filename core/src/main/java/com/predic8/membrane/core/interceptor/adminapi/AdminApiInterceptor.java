@@ -30,6 +30,9 @@ import com.predic8.membrane.core.interceptor.rest.QueryParameter;
 import com.predic8.membrane.core.openapi.util.PathDoesNotMatchException;
 import com.predic8.membrane.core.proxies.AbstractServiceProxy;
 import com.predic8.membrane.core.proxies.Proxy;
+import com.predic8.membrane.core.stats.LatencyHistogram;
+import com.predic8.membrane.core.stats.LatencyStatistics;
+import com.predic8.membrane.core.stats.LatencyStatistics.InterceptorLatency;
 import com.predic8.membrane.core.transport.ws.WebSocketConnectionCollection;
 
 import java.io.IOException;
@@ -187,6 +190,10 @@ public class AdminApiInterceptor extends AbstractInterceptor {
 
                     gen.writeObjectFieldStart("stats");
                     gen.writeNumberField("count", p.getStatisticCollector().getCount());
+                    LatencyStatistics latency = p.getStatisticCollector().getLatency();
+                    writeLatency("total", latency.getTotal(), gen);
+                    writeLatency("backend", latency.getBackend(), gen);
+                    writeLatency("overhead", latency.getOverhead(), gen);
                     gen.writeEndObject();
 
                     gen.writeEndObject();
@@ -217,7 +224,7 @@ public class AdminApiInterceptor extends AbstractInterceptor {
             StringWriter writer = new StringWriter();
             JsonGenerator gen = om.getFactory().createGenerator(writer);
             gen.writeStartArray();
-            writePluginRow(proxy.getFlow(), null, gen);
+            writePluginRow(proxy.getFlow(), null, proxy.getStatisticCollector().getLatency(), gen);
             gen.writeEndArray();
             gen.close();
 
@@ -228,24 +235,46 @@ public class AdminApiInterceptor extends AbstractInterceptor {
         }
     }
 
-    private void writePluginRow(List<Interceptor> plugins, Flow limitedFlow, JsonGenerator gen) throws IOException {
+    private void writePluginRow(List<Interceptor> plugins, Flow limitedFlow, LatencyStatistics latency, JsonGenerator gen) throws IOException {
         for (Interceptor p : plugins) {
             switch (p) {
-                case RequestInterceptor rqi -> writePluginRow(rqi.getFlow(), REQUEST, gen);
-                case ResponseInterceptor rsi -> writePluginRow(rsi.getFlow(), RESPONSE, gen);
-                case AbortInterceptor ai -> writePluginRow(ai.getFlow(), ABORT, gen);
+                case RequestInterceptor rqi -> writePluginRow(rqi.getFlow(), REQUEST, latency, gen);
+                case ResponseInterceptor rsi -> writePluginRow(rsi.getFlow(), RESPONSE, latency, gen);
+                case AbortInterceptor ai -> writePluginRow(ai.getFlow(), ABORT, latency, gen);
                 default -> {
                     gen.writeStartObject();
                     gen.writeStringField("flow", String.valueOf(limitedFlow != null ? limitedFlow : p.getAppliedFlow()));
                     gen.writeStringField("name", p.getDisplayName());
                     gen.writeStringField("shortDescription", p.getShortDescription());
                     gen.writeStringField("longDescription", p.getLongDescription());
+                    InterceptorLatency il = latency.getInterceptor(p);
+                    if (il != null) {
+                        gen.writeObjectFieldStart("latency");
+                        writeLatency("request", il.getRequest(), gen);
+                        writeLatency("response", il.getResponse(), gen);
+                        gen.writeEndObject();
+                    }
                     gen.writeEndObject();
                 }
             }
         }
     }
 
+    /**
+     * Writes count and percentiles in milliseconds.
+     */
+    private static void writeLatency(String name, LatencyHistogram histogram, JsonGenerator gen) throws IOException {
+        LatencyHistogram.Snapshot snapshot = histogram.snapshot();
+        gen.writeObjectFieldStart(name);
+        gen.writeNumberField("count", snapshot.getCount());
+        gen.writeNumberField("p50", snapshot.getValueAtPercentile(50) / 1000.0);
+        gen.writeNumberField("p90", snapshot.getValueAtPercentile(90) / 1000.0);
+        gen.writeNumberField("p99", snapshot.getValueAtPercentile(99) / 1000.0);
+        gen.writeNumberField("p999", snapshot.getValueAtPercentile(99.9) / 1000.0);
+        gen.writeNumberField("max", snapshot.getMax() / 1000.0);
+        gen.writeEndObject();
+    }
+
     private Outcome handleCalls(Exchange exc) {
         ExchangeQueryResult res;
         try {
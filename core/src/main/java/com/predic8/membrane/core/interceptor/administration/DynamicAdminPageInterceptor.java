@@ -53,7 +53,7 @@ public class DynamicAdminPageInterceptor extends AbstractInterceptor {
 	public Outcome handleRequest(Exchange exc) {
 		log.debug("request: {}", exc.getOriginalRequestUri());
 
-		exc.setTimeReqSent(System.currentTimeMillis());
+		exc.requestSent();
 
         Outcome o;
         try {
@@ -68,7 +68,7 @@ public class DynamicAdminPageInterceptor extends AbstractInterceptor {
         }
 
         exc.setReceived();
-		exc.setTimeResReceived(System.currentTimeMillis());
+		exc.responseReceived();
 
 		return o;
 	}
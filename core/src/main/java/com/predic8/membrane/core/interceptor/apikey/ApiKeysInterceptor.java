@@ -23,6 +23,7 @@ import com.predic8.membrane.core.interceptor.apikey.extractors.ApiKeyExtractor;
 import com.predic8.membrane.core.interceptor.apikey.extractors.ApiKeyHeaderExtractor;
 import com.predic8.membrane.core.interceptor.apikey.extractors.LocationNameValue;
 import com.predic8.membrane.core.interceptor.apikey.stores.ApiKeyStore;
+import com.predic8.membrane.core.interceptor.apikey.stores.CachingApiKeyStore;
 import com.predic8.membrane.core.interceptor.apikey.stores.UnauthorizedApiKeyException;
 import com.predic8.membrane.core.security.ApiKeySecurityScheme;
 import org.slf4j.Logger;
@@ -106,6 +107,12 @@ public class ApiKeysInterceptor extends AbstractInterceptor {
             this.stores.addAll(router.getRegistry().getBeans(ApiKeyStore.class));
         }
 
+        // A store wrapped by a cachingApiKeyStore must only be queried through the cache
+        stores.removeAll(stores.stream()
+                .filter(CachingApiKeyStore.class::isInstance)
+                .map(s -> ((CachingApiKeyStore) s).getStore())
+                .toList());
+
         stores.forEach(s -> s.init(router));
 
         // Add the default extractor if none is configured
@@ -116,6 +123,11 @@ public class ApiKeysInterceptor extends AbstractInterceptor {
         extractors.forEach(e -> e.init(router));
     }
 
+    @Override
+    public void stop() {
+        stores.forEach(ApiKeyStore::stop);
+    }
+
     @Override
     public Outcome handleRequest(Exchange exc) {
         var key = getKey(exc);
@@ -68,6 +68,11 @@ public class ApiKeyFileStore implements ApiKeyStore {
         }
     }
 
+    @Override
+    public Optional<Map<String, Optional<Set<String>>>> getAllScopes() {
+        return of(scopes);
+    }
+
     public static Map<String, Optional<Set<String>>> readKeyData(Stream<String> lines) throws IOException {
         Map<String, Optional<Set<String>>> collect;
         try {
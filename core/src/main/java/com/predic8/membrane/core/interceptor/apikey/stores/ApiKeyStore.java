@@ -28,6 +28,13 @@ public interface ApiKeyStore {
     default void init(Router router) {
     }
 
+    /**
+     * Lifecycle hook invoked when the interceptor using the store is stopped. Releases threads acquired by
+     * {@link #init(Router)}. Must tolerate being called without a preceding <code>init</code> and more than once.
+     */
+    default void stop() {
+    }
+
     /**
      * Validates the API key and returns the associated scopes.
      * If the key is not found, expired, or invalid, an {@link UnauthorizedApiKeyException} is thrown.
@@ -37,4 +44,14 @@ public interface ApiKeyStore {
      * @throws UnauthorizedApiKeyException if the API key is not found or is invalid
      */
     Optional<Set<String>> getScopes(String apiKey) throws UnauthorizedApiKeyException;
+
+    /**
+     * Lists all keys with their scopes at once, e.g. to fill a {@link CachingApiKeyStore}.
+     *
+     * @return the keys mapped to what {@link #getScopes(String)} would return for them, or {@code Optional.empty()}
+     * if the store cannot list its keys
+     */
+    default Optional<Map<String, Optional<Set<String>>>> getAllScopes() {
+        return Optional.empty();
+    }
 }
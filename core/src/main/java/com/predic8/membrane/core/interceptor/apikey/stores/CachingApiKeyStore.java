@@ -0,0 +1,295 @@
+/* Copyright 2026 predic8 GmbH, www.predic8.com
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+   http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License. */
+package com.predic8.membrane.core.interceptor.apikey.stores;
+
+import com.google.common.cache.*;
+import com.google.common.util.concurrent.*;
+import com.predic8.membrane.annot.*;
+import com.predic8.membrane.core.router.*;
+import com.predic8.membrane.core.stats.*;
+import com.predic8.membrane.core.util.*;
+import org.slf4j.*;
+
+import java.util.*;
+import java.util.concurrent.*;
+
+import static java.lang.System.nanoTime;
+import static java.util.concurrent.TimeUnit.*;
+
+/**
+ * @description Keeps the answers of another API key store in memory, so that the database behind a
+ * <code>databaseApiKeyStore</code> or <code>mongoDBApiKeyStore</code> is not queried for every request.
+ * <ul>
+ *   <li>Keys are cached for <code>ttlSeconds</code>. Once an entry is older than <code>refreshAfterSeconds</code>, the
+ *   next request still gets the cached scopes while they are reloaded in the background.</li>
+ *   <li>Unknown keys are remembered for <code>negativeTtlSeconds</code>, so that invalid keys do not reach the
+ *   database either.</li>
+ *   <li>With <code>preload</code>, all keys are read in one query at startup and, if
+ *   <code>preloadIntervalSeconds</code> is set, synchronized periodically.</li>
+ * </ul>
+ * Hits, misses and reload times are reported by the <code>prometheus</code> plugin.
+ * @yaml <pre><code>
+ * apiKey:
+ *   stores:
+ *     - cachingApiKeyStore:
+ *         ttlSeconds: 600
+ *         refreshAfterSeconds: 60
+ *         store:
+ *           databaseApiKeyStore:
+ *             datasource: datasource
+ * </code></pre>
+ * @topic 3. Security and Validation
+ */
+@MCElement(name = "cachingApiKeyStore")
+public class CachingApiKeyStore implements ApiKeyStore {
+
+    private static final Logger log = LoggerFactory.getLogger(CachingApiKeyStore.class);
+
+    private static final ExecutorService refreshExecutor = Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("api-key-refresh-", 0).factory());
+
+    private ApiKeyStore store;
+    private long maxSize = 100_000;
+    private int ttlSeconds = 600;
+    private int refreshAfterSeconds = 60;
+    private int negativeTtlSeconds = 10;
+    private boolean preload;
+    private int preloadIntervalSeconds;
+
+    private LoadingCache<String, Entry> cache;
+    private ScheduledExecutorService preloadExecutor;
+    private final LatencyHistogram loadLatency = new LatencyHistogram();
+
+    /**
+     * @param unknown whether the store rejected the key; <code>scopes</code> is empty then
+     */
+    private record Entry(boolean unknown, Optional<Set<String>> scopes, long loaded) {
+        static Entry known(Optional<Set<String>> scopes, long loaded) {
+            return new Entry(false, scopes, loaded);
+        }
+
+        static Entry unknown(long loaded) {
+            return new Entry(true, Optional.empty(), loaded);
+        }
+    }
+
+    @Override
+    public void init(Router router) {
+        if (store == null)
+            throw new ConfigurationException("cachingApiKeyStore requires a store.");
+        if (refreshAfterSeconds >= ttlSeconds)
+            throw new ConfigurationException("refreshAfterSeconds (%d) of cachingApiKeyStore must be lower than ttlSeconds (%d).".formatted(refreshAfterSeconds, ttlSeconds));
+        stop();
+        store.init(router);
+
+        cache = CacheBuilder.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttlSeconds, SECONDS)
+                .refreshAfterWrite(refreshAfterSeconds, SECONDS)
+                .recordStats()
+                .build(CacheLoader.asyncReloading(CacheLoader.from(this::load), refreshExecutor));
+
+        if (preload) {
+            preload();
+            if (preloadIntervalSeconds > 0) {
+                // The preload queries the store, so it does not run on the timer shared by the router.
+                preloadExecutor = Executors.newSingleThreadScheduledExecutor(Thread.ofPlatform().daemon().name("API key preload").factory());
+                preloadExecutor.scheduleWithFixedDelay(this::preload, preloadIntervalSeconds, preloadIntervalSeconds, SECONDS);
+            }
+        }
+    }
+
+    @Override
+    public void stop() {
+        if (preloadExecutor != null) {
+            preloadExecutor.shutdownNow();
+            preloadExecutor = null;
+        }
+        if (store != null)
+            store.stop();
+    }
+
+    @Override
+    public Optional<Set<String>> getScopes(String apiKey) throws UnauthorizedApiKeyException {
+        long now = nanoTime();
+        Entry entry = get(apiKey);
+        if (entry.unknown() && now - entry.loaded() > SECONDS.toNanos(negativeTtlSeconds)) {
+            cache.invalidate(apiKey);
+            entry = get(apiKey);
+        }
+        if (entry.unknown())
+            throw new UnauthorizedApiKeyException();
+        return entry.scopes();
+    }
+
+    @Override
+    public Optional<Map<String, Optional<Set<String>>>> getAllScopes() {
+        return store.getAllScopes();
+    }
+
+    private Entry get(String apiKey) {
+        try {
+            return cache.getUnchecked(apiKey);
+        } catch (UncheckedExecutionException e) {
+            if (e.getCause() instanceof RuntimeException re)
+                throw re;
+            throw e;
+        }
+    }
+
+    private Entry load(String apiKey) {
+        long start = nanoTime();
+        try {
+            return Entry.known(store.getScopes(apiKey), nanoTime());
+        } catch (UnauthorizedApiKeyException e) {
+            return Entry.unknown(nanoTime());
+        } finally {
+            loadLatency.recordNanos(nanoTime() - start);
+        }
+    }
+
+    /**
+     * Replaces the cached keys by all keys of the store. Keys no longer in the store are removed.
+     */
+    void preload() {
+        long start = nanoTime();
+        Optional<Map<String, Optional<Set<String>>>> all;
+        try {
+            all = store.getAllScopes();
+        } catch (Exception e) {
+            log.warn("Could not preload API keys: {}", e.getMessage());
+            log.debug("", e);
+            return;
+        }
+        if (all.isEmpty()) {
+            log.warn("{} cannot list its keys. Preloading is skipped.", store.getClass().getSimpleName());
+            return;
+        }
+        long now = nanoTime();
+        Map<String, Optional<Set<String>>> keys = all.get();
+        cache.asMap().entrySet().removeIf(e -> !e.getValue().unknown() && !keys.containsKey(e.getKey()));
+        keys.forEach((key, scopes) -> cache.put(key, Entry.known(scopes, now)));
+        loadLatency.recordNanos(now - start);
+        log.debug("Preloaded {} API keys.", keys.size());
+    }
+
+    public CacheStats getStats() {
+        return cache.stats();
+    }
+
+    public long getSize() {
+        return cache.size();
+    }
+
+    /**
+     * Durations of the calls to the underlying store, including background refreshes and preloads.
+     */
+    public LatencyHistogram getLoadLatency() {
+        return loadLatency;
+    }
+
+    public ApiKeyStore getStore() {
+        return store;
+    }
+
+    /**
+     * @description The store whose answers are cached.
+     */
+    @MCChildElement(allowForeign = true)
+    public void setStore(ApiKeyStore store) {
+        this.store = store;
+    }
+
+    public long getMaxSize() {
+        return maxSize;
+    }
+
+    /**
+     * @description Maximum number of cached keys. The least recently used keys are removed first.
+     * @default 100000
+     */
+    @MCAttribute
+    public void setMaxSize(long maxSize) {
+        this.maxSize = maxSize;
+    }
+
+    public int getTtlSeconds() {
+        return ttlSeconds;
+    }
+
+    /**
+     * @description Seconds after loading a key until the cached scopes are no longer used. Changes in the store, like
+     * revoked keys, take at most that long to take effect, even if the store is not reachable.
+     * @default 600
+     */
+    @MCAttribute
+    public void setTtlSeconds(int ttlSeconds) {
+        this.ttlSeconds = ttlSeconds;
+    }
+
+    public int getRefreshAfterSeconds() {
+        return refreshAfterSeconds;
+    }
+
+    /**
+     * @description Seconds after loading a key until it is reloaded in the background on the next access. Must be
+     * lower than <code>ttlSeconds</code>.
+     * @default 60
+     */
+    @MCAttribute
+    public void setRefreshAfterSeconds(int refreshAfterSeconds) {
+        this.refreshAfterSeconds = refreshAfterSeconds;
+    }
+
+    public int getNegativeTtlSeconds() {
+        return negativeTtlSeconds;
+    }
+
+    /**
+     * @description Seconds an unknown key is rejected without asking the store again. Newly created keys may be
+     * rejected for that long, if they were presented before their creation.
+     * @default 10
+     */
+    @MCAttribute
+    public void setNegativeTtlSeconds(int negativeTtlSeconds) {
+        this.negativeTtlSeconds = negativeTtlSeconds;
+    }
+
+    public boolean isPreload() {
+        return preload;
+    }
+
+    /**
+     * @description Whether all keys are read from the store at startup. Supported by the database, MongoDB and file
+     * stores.
+     * @default false
+     */
+    @MCAttribute
+    public void setPreload(boolean preload) {
+        this.preload = preload;
+    }
+
+    public int getPreloadIntervalSeconds() {
+        return preloadIntervalSeconds;
+    }
+
+    /**
+     * @description Seconds between two complete reloads of all keys, if <code>preload</code> is set. Keys removed from
+     * the store are removed from the cache as well. 0 reads the keys only at startup.
+     * @default 0
+     */
+    @MCAttribute
+    public void setPreloadIntervalSeconds(int preloadIntervalSeconds) {
+        this.preloadIntervalSeconds = preloadIntervalSeconds;
+    }
+}
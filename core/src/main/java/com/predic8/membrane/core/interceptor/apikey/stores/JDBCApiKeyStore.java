@@ -75,6 +75,8 @@ public class JDBCApiKeyStore extends AbstractJdbcSupport implements ApiKeyStore
         try {
             checkApiKey(apiKey);
             return fetchScopes(apiKey);
+        } catch (UnauthorizedApiKeyException e) {
+            throw e;
         } catch (Exception e) {
             throw new RuntimeException("Error while retrieving scopes for API key: " + apiKey, e);
         }
@@ -108,6 +110,26 @@ public class JDBCApiKeyStore extends AbstractJdbcSupport implements ApiKeyStore
         }
     }
 
+    @Override
+    public Optional<Map<String, Optional<Set<String>>>> getAllScopes() {
+        try (Connection con = getDatasource().getConnection()) {
+            try (PreparedStatement stmt = con.prepareStatement("SELECT a.apikey, s.scope FROM %s a LEFT JOIN %s s ON a.apikey=s.apikey".formatted(keyTable.getName(), scopeTable.getName()))) {
+                try (ResultSet rs = stmt.executeQuery()) {
+                    Map<String, Optional<Set<String>>> keys = new HashMap<>();
+                    while (rs.next()) {
+                        Set<String> scopes = keys.computeIfAbsent(rs.getString("apikey"), k -> Optional.of(new HashSet<>())).get();
+                        String scope = rs.getString("scope");
+                        if (scope != null)
+                            scopes.add(scope);
+                    }
+                    return Optional.of(keys);
+                }
+            }
+        } catch (SQLException e) {
+            throw new RuntimeException("Error while retrieving all API keys.", e);
+        }
+    }
+
     private void createTablesIfNotExist() {
         if (!autoCreate) {
             return;
@@ -22,7 +22,9 @@ import com.predic8.membrane.core.router.Router;
 import com.predic8.membrane.core.util.ConfigurationException;
 import org.bson.Document;
 
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
 
@@ -81,6 +83,18 @@ public class MongoDBApiKeyStore implements ApiKeyStore {
             throw new UnauthorizedApiKeyException();
         }
 
+        return toScopes(apiKeyDoc);
+    }
+
+    @Override
+    public Optional<Map<String, Optional<Set<String>>>> getAllScopes() {
+        Map<String, Optional<Set<String>>> keys = new HashMap<>();
+        for (Document apiKeyDoc : mongoDatabase.getCollection(collection).find())
+            keys.put(apiKeyDoc.get("_id").toString(), toScopes(apiKeyDoc));
+        return Optional.of(keys);
+    }
+
+    private static Optional<Set<String>> toScopes(Document apiKeyDoc) {
         var scopes = apiKeyDoc.getList("scopes", String.class);
         return scopes == null || scopes.isEmpty() ? Optional.empty() : Optional.of(new HashSet<>(scopes));
     }
@@ -36,6 +36,7 @@ import java.io.*;
 import java.net.InetSocketAddress;
 import java.net.Socket;
 import java.util.*;
+import java.util.concurrent.*;
 
 import static com.predic8.membrane.core.http.Request.*;
 import static com.predic8.membrane.core.interceptor.balancer.BalancerUtil.*;
@@ -52,6 +53,11 @@ import static com.predic8.membrane.core.util.TimerTaskUtil.createTimerTask;
  * If a health URL is configured for the node, it performs an HTTP request against that endpoint.
  * Otherwise, it performs a TCP check against the node's host and port.
  * This ensures the load balancer always has up-to-date status for routing decisions.
+ * <p>
+ * Nodes are checked concurrently, at most <tt>maxParallelChecks</tt> at a time. Each check is delayed by a random
+ * <tt>jitter</tt>, so the nodes are not probed in bursts. A node whose previous check is still running is skipped, so a
+ * hanging node does not delay the others.
+ * </p>
  * @example <a href="https://github.com/membrane/api-gateway/tree/master/distribution/examples/loadbalancing/6-health-monitor">health monitor example</a>
  * @topic 4. Monitoring, Logging and Statistics
  */
@@ -68,15 +74,25 @@ public class BalancerHealthMonitor implements ApplicationContextAware, BeanRegis
 
     private Router router;
     private int interval = 10000;
+    private int maxParallelChecks = 16;
+    private int jitter = 1000;
     private HttpClient client;
 
     private HttpClientConfiguration httpClientConfig = new HttpClientConfiguration();
 
     private volatile boolean stopped;
 
+    private Semaphore permits;
+    private final Set<Check> running = ConcurrentHashMap.newKeySet();
+
+    private record Check(Cluster cluster, Node node) {}
+
     private void init() {
         if (interval <= 0)
             throw new ConfigurationException("balancerHealthMonitor: 'interval' (ms) must be > 0");
+        if (maxParallelChecks <= 0)
+            throw new ConfigurationException("balancerHealthMonitor: 'maxParallelChecks' must be > 0");
+        permits = new Semaphore(maxParallelChecks);
 
         log.info("Starting HealthMonitor for load balancing with interval of {} ms", interval);
 
@@ -88,33 +104,62 @@ public class BalancerHealthMonitor implements ApplicationContextAware, BeanRegis
         int soTimeout = cc.getSoTimeout();
         int timeout = cc.getTimeout();
         if (soTimeout > 10_000) {
-            log.warn("Socket timeout is {} s. Keep timeout low to prevent the health monitor thread from hanging!", soTimeout / 1000);
+            log.warn("Socket timeout is {} s. Keep timeout low to prevent hanging health checks from occupying the {} parallel checks!", soTimeout / 1000, maxParallelChecks);
         }
         if (timeout > 10_000) {
-            log.warn("Connection timeout is {} s. Keep timeout low to prevent the health monitor thread from hanging!", timeout / 1000);
+            log.warn("Connection timeout is {} s. Keep timeout low to prevent hanging health checks from occupying the {} parallel checks!", timeout / 1000, maxParallelChecks);
         }
     }
 
-    private final Runnable healthCheckTask = () -> {
-        log.debug("Starting health check.");
-        collectClusters(router).forEach(cluster -> {
+    private final Runnable healthCheckTask = this::checkAll;
 
-            // Positioned here because the loop may run for several seconds if the list is big
+    /**
+     * Starts a check for every node that is not being checked already. Does not wait for the checks.
+     */
+    void checkAll() {
+        log.debug("Starting health check.");
+        for (Cluster cluster : collectClusters(router)) {
             if (stopped)
                 return;
-
             log.debug("Checking cluster '{}'", cluster.getName());
-            cluster.getNodes().forEach(this::updateStatus);
+            for (Node node : cluster.getNodes())
+                startCheck(new Check(cluster, node));
+        }
+    }
+
+    private void startCheck(Check check) {
+        if (!running.add(check)) {
+            log.debug("Health check of node {} is still running.", check.node());
+            return;
+        }
+        long delay = jitter > 0 ? ThreadLocalRandom.current().nextLong(Math.min(jitter, interval / 2) + 1) : 0;
+        Thread.ofVirtual().name("health-check " + check.node()).start(() -> {
+            try {
+                Thread.sleep(delay);
+                permits.acquire();
+                try {
+                    if (!stopped)
+                        updateStatus(check);
+                } finally {
+                    permits.release();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                running.remove(check);
+            }
         });
-        log.debug("Health check complete.");
-    };
+    }
 
-    private void updateStatus(Node node) {
-        node.setStatus(isHealthy(node));
+    private void updateStatus(Check check) {
+        long start = System.nanoTime();
+        Status status = isHealthy(check.node());
+        check.cluster().getHealthCheckLatency().recordNanos(System.nanoTime() - start);
+        check.node().setStatus(status);
     }
 
     private void createScheduler() {
-        router.getTimerManager().schedulePeriodicTask(createTimerTask(healthCheckTask), INITIAL_DELAY, BALANCER_HEALTH_MONITOR);
+        router.getTimerManager().schedulePeriodicTask(createTimerTask(healthCheckTask), INITIAL_DELAY, interval, BALANCER_HEALTH_MONITOR);
     }
 
     private Status isHealthy(Node node) {
@@ -219,6 +264,32 @@ public class BalancerHealthMonitor implements ApplicationContextAware, BeanRegis
         return interval;
     }
 
+    /**
+     * @description Maximum number of nodes checked at the same time.
+     * @default 16
+     */
+    @MCAttribute
+    public void setMaxParallelChecks(int maxParallelChecks) {
+        this.maxParallelChecks = maxParallelChecks;
+    }
+
+    public int getMaxParallelChecks() {
+        return maxParallelChecks;
+    }
+
+    /**
+     * @description Upper limit in milliseconds of the random delay of each check. Limited to half the interval.
+     * @default 1000
+     */
+    @MCAttribute
+    public void setJitter(int jitter) {
+        this.jitter = jitter;
+    }
+
+    public int getJitter() {
+        return jitter;
+    }
+
     /**
      * @return the HTTP client configuration used to construct the {@link HttpClient}
      */
@@ -18,6 +18,7 @@ import com.predic8.membrane.annot.MCAttribute;
 import com.predic8.membrane.annot.MCChildElement;
 import com.predic8.membrane.annot.MCElement;
 import com.predic8.membrane.core.interceptor.balancer.Node.Status;
+import com.predic8.membrane.core.stats.LatencyHistogram;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -50,6 +51,7 @@ public class Cluster {
 	private String name = DEFAULT_NAME;
 	private final List<Node> nodes = Collections.synchronizedList(new LinkedList<>());
 	private final Map<String, Session> sessions = new Hashtable<>();
+	private final LatencyHistogram healthCheckLatency = new LatencyHistogram();
 
 	public Cluster() {
 	}
@@ -151,6 +153,13 @@ public class Cluster {
 		this.name = name;
 	}
 
+	/**
+	 * @return duration of the checks of the {@link BalancerHealthMonitor}
+	 */
+	public LatencyHistogram getHealthCheckLatency() {
+		return healthCheckLatency;
+	}
+
 	public void addSession(String sessionId, Node n) {
 		sessions.put(sessionId, new Session(sessionId, n));
 	}
@@ -0,0 +1,301 @@
+/* Copyright 2026 predic8 GmbH, www.predic8.com
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+   http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License. */
+package com.predic8.membrane.core.interceptor.balancer;
+
+import com.google.common.hash.*;
+import com.predic8.membrane.annot.*;
+import com.predic8.membrane.core.config.*;
+import com.predic8.membrane.core.exchange.*;
+import com.predic8.membrane.core.lang.*;
+import com.predic8.membrane.core.lang.spel.*;
+import com.predic8.membrane.core.router.*;
+import com.predic8.membrane.core.util.*;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
+
+import static com.predic8.membrane.core.interceptor.Interceptor.Flow.*;
+import static java.nio.charset.StandardCharsets.*;
+
+/**
+ * @description Sends requests with the same key to the same node, e.g. to raise the hit rate of caches on the nodes.
+ * The key is taken from a <tt>header</tt>, a <tt>cookie</tt>, a <tt>pathSegment</tt> or a SpEL <tt>expression</tt>,
+ * and defaults to the client IP. Nodes are placed on a hash ring with <tt>virtualNodes</tt> points each, so when a
+ * node is added, removed, goes down or is ejected, only the keys of that node move.
+ * <p>
+ * With a <tt>loadFactor</tt>, no node receives more than that factor times the average number of outstanding
+ * requests. Requests for a node at its limit overflow to the next node on the ring ("bounded load"), so a hot key
+ * cannot overload a single node.
+ * </p>
+ * @yaml <pre><code>
+ * balancer:
+ *   consistentHashStrategy:
+ *     header: X-Tenant
+ *     loadFactor: 1.25
+ *   clusters:
+ *     - nodes:
+ *         - host: node1.predic8.com
+ *           port: 8080
+ *         - host: node2.predic8.com
+ *           port: 8080
+ * </code></pre>
+ */
+@MCElement(name = "consistentHashStrategy")
+public class ConsistentHashStrategy extends AbstractXmlElement implements DispatchingStrategy {
+
+    private static final HashFunction HASH = Hashing.murmur3_128();
+
+    private final String dispatchProperty = getClass().getName();
+    private final AtomicReference<Ring> ring = new AtomicReference<>(new Ring(List.of(), new long[0], new Node[0]));
+    private final ConcurrentHashMap<Node, AtomicInteger> outstanding = new ConcurrentHashMap<>();
+    private final AtomicInteger totalOutstanding = new AtomicInteger();
+
+    private String header;
+    private String cookie;
+    private int pathSegment;
+    private String expression;
+    private int virtualNodes = 100;
+    private double loadFactor = 1.25;
+
+    private ExchangeExpression exchangeExpression;
+
+    /**
+     * Immutable hash ring. <tt>owners[i]</tt> is the node of the point <tt>points[i]</tt>.
+     *
+     * @param nodes the nodes the ring was built from
+     */
+    record Ring(List<Node> nodes, long[] points, Node[] owners) {}
+
+    private record Dispatch(Node node) {}
+
+    @Override
+    public void init(Router router) {
+        int keys = (header != null ? 1 : 0) + (cookie != null ? 1 : 0) + (pathSegment > 0 ? 1 : 0) + (expression != null ? 1 : 0);
+        if (keys > 1)
+            throw new ConfigurationException("consistentHashStrategy: Set only one of header, cookie, pathSegment and expression.");
+        if (virtualNodes < 1)
+            throw new ConfigurationException("consistentHashStrategy: virtualNodes must be at least 1.");
+        if (loadFactor > 0 && loadFactor < 1)
+            throw new ConfigurationException("consistentHashStrategy: loadFactor must be at least 1, or 0 to disable the bound.");
+        if (expression != null)
+            exchangeExpression = new SpELExchangeExpression(expression, null, router);
+    }
+
+    @Override
+    public Node dispatch(LoadBalancingInterceptor interceptor, AbstractExchange exc) throws EmptyNodeListException {
+        List<Node> nodes = interceptor.getEndpoints();
+        if (nodes.isEmpty())
+            throw new EmptyNodeListException();
+
+        String key = getKey(exc);
+        long hash = key != null ? hash(key) : ThreadLocalRandom.current().nextLong();
+        Node node = choose(getRing(nodes), hash);
+
+        getOutstanding(node).incrementAndGet();
+        totalOutstanding.incrementAndGet();
+        exc.setProperty(dispatchProperty, new Dispatch(node));
+        return node;
+    }
+
+    /**
+     * Called once per dispatched exchange, also if it was aborted.
+     */
+    @Override
+    public void done(AbstractExchange exc) {
+        if (!(exc.getProperties().remove(dispatchProperty) instanceof Dispatch dispatch))
+            return;
+        getOutstanding(dispatch.node()).decrementAndGet();
+        totalOutstanding.decrementAndGet();
+    }
+
+    /**
+     * @return the key of the exchange, or null if it has none
+     */
+    String getKey(AbstractExchange exc) {
+        if (header != null)
+            return exc.getRequest().getHeader().getFirstValue(header);
+        if (cookie != null)
+            return exc.getRequest().getHeader().getFirstCookie(cookie);
+        if (pathSegment > 0)
+            return getPathSegment(exc.getRequest().getUri());
+        if (exchangeExpression != null)
+            return exc instanceof Exchange e ? exchangeExpression.evaluate(e, REQUEST, String.class) : null;
+        return exc.getRemoteAddrIp();
+    }
+
+    private String getPathSegment(String uri) {
+        int end = uri.indexOf('?');
+        String[] segments = (end == -1 ? uri : uri.substring(0, end)).split("/");
+        // segments[0] is the empty string before the leading slash
+        return pathSegment < segments.length && !segments[pathSegment].isEmpty() ? segments[pathSegment] : null;
+    }
+
+    /**
+     * Returns the ring for the current nodes. If they changed, a new ring is built and published without locking; when
+     * several threads notice the change at once, each builds a ring and the last one wins.
+     */
+    Ring getRing(List<Node> nodes) {
+        Ring r = ring.get();
+        if (isSame(r.nodes(), nodes))
+            return r;
+        Ring built = build(nodes);
+        ring.compareAndSet(r, built);
+        return built;
+    }
+
+    /**
+     * Compares by identity: {@link Node#equals(Object)} only looks at host and port, but a node removed and added
+     * again is a new instance, which has to be returned from then on.
+     */
+    private static boolean isSame(List<Node> a, List<Node> b) {
+        if (a.size() != b.size())
+            return false;
+        for (int i = 0; i < a.size(); i++) {
+            if (a.get(i) != b.get(i))
+                return false;
+        }
+        return true;
+    }
+
+    private Ring build(List<Node> nodes) {
+        long[] points = new long[nodes.size() * virtualNodes];
+        Map<Long, Node> owners = new HashMap<>();
+        int i = 0;
+        for (Node node : nodes) {
+            for (int v = 0; v < virtualNodes; v++) {
+                long point = hash(node.getHost() + ":" + node.getPort() + "#" + v);
+                // on the rare collision, the node first in the list keeps the point
+                if (owners.putIfAbsent(point, node) == null)
+                    points[i++] = point;
+            }
+        }
+        points = Arrays.copyOf(points, i);
+        Arrays.sort(points);
+        Node[] pointOwners = new Node[i];
+        for (int j = 0; j < i; j++)
+            pointOwners[j] = owners.get(points[j]);
+        return new Ring(List.copyOf(nodes), points, pointOwners);
+    }
+
+    /**
+     * Walks the ring clockwise from the hash and returns the first node below the load bound.
+     */
+    private Node choose(Ring ring, long hash) {
+        int start = Arrays.binarySearch(ring.points(), hash);
+        if (start < 0)
+            start = -start - 1;
+        Node[] owners = ring.owners();
+        if (loadFactor <= 0)
+            return owners[start % owners.length];
+
+        double limit = Math.ceil(loadFactor * (totalOutstanding.get() + 1) / ring.nodes().size());
+        for (int i = 0; i < owners.length; i++) {
+            Node node = owners[(start + i) % owners.length];
+            if (getOutstanding(node).get() < limit)
+                return node;
+        }
+        return owners[start % owners.length];
+    }
+
+    private AtomicInteger getOutstanding(Node node) {
+        AtomicInteger count = outstanding.get(node);
+        return count != null ? count : outstanding.computeIfAbsent(node, n -> new AtomicInteger());
+    }
+
+    private static long hash(String s) {
+        return HASH.hashString(s, UTF_8).asLong();
+    }
+
+    public String getHeader() {
+        return header;
+    }
+
+    /**
+     * @description Name of the request header used as key.
+     */
+    @MCAttribute
+    public void setHeader(String header) {
+        this.header = header;
+    }
+
+    public String getCookie() {
+        return cookie;
+    }
+
+    /**
+     * @description Name of the cookie used as key.
+     */
+    @MCAttribute
+    public void setCookie(String cookie) {
+        this.cookie = cookie;
+    }
+
+    public int getPathSegment() {
+        return pathSegment;
+    }
+
+    /**
+     * @description Number of the path segment used as key, starting at 1. For <tt>/tenants/acme/orders</tt>,
+     * <tt>2</tt> selects <tt>acme</tt>.
+     */
+    @MCAttribute
+    public void setPathSegment(int pathSegment) {
+        this.pathSegment = pathSegment;
+    }
+
+    public String getExpression() {
+        return expression;
+    }
+
+    /**
+     * @description SpEL expression computing the key, e.g. <tt>json['customerId']</tt>.
+     */
+    @MCAttribute
+    public void setExpression(String expression) {
+        this.expression = expression;
+    }
+
+    public int getVirtualNodes() {
+        return virtualNodes;
+    }
+
+    /**
+     * @description Number of points per node on the hash ring. More points spread the keys more evenly.
+     * @default 100
+     */
+    @MCAttribute
+    public void setVirtualNodes(int virtualNodes) {
+        this.virtualNodes = virtualNodes;
+    }
+
+    public double getLoadFactor() {
+        return loadFactor;
+    }
+
+    /**
+     * @description Maximum number of outstanding requests of a node relative to the average. Requests for a node at
+     * its limit go to the next node on the ring. <tt>0</tt> disables the bound.
+     * @default 1.25
+     */
+    @MCAttribute
+    public void setLoadFactor(double loadFactor) {
+        this.loadFactor = loadFactor;
+    }
+
+    @Override
+    protected String getElementName() {
+        return "consistentHashStrategy";
+    }
+}
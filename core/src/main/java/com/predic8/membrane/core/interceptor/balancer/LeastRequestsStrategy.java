@@ -0,0 +1,47 @@
+/* Copyright 2026 predic8 GmbH, www.predic8.com
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+   http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License. */
+package com.predic8.membrane.core.interceptor.balancer;
+
+import com.predic8.membrane.annot.*;
+
+/**
+ * @description Sends each request to the node with fewer outstanding requests out of two picked at random
+ * ("power of two choices"). Nodes answering slowly accumulate outstanding requests and so receive fewer new ones.
+ * Compared to round robin, this keeps the tail latency low when the nodes differ in speed. Nodes that return to the
+ * rotation receive a growing share of the requests during <tt>slowStart</tt>.
+ * @yaml <pre><code>
+ * balancer:
+ *   leastRequestsStrategy:
+ *     slowStart: 30000
+ *   clusters:
+ *     - nodes:
+ *         - host: node1.predic8.com
+ *           port: 8080
+ *         - host: node2.predic8.com
+ *           port: 8080
+ * </code></pre>
+ */
+@MCElement(name = "leastRequestsStrategy")
+public class LeastRequestsStrategy extends PowerOfTwoChoicesStrategy {
+
+    @Override
+    protected int compare(Node a, Node b, long now) {
+        return Double.compare((getLoad(a).getOutstanding() + 1) / getWeight(a), (getLoad(b).getOutstanding() + 1) / getWeight(b));
+    }
+
+    @Override
+    protected String getElementName() {
+        return "leastRequestsStrategy";
+    }
+}
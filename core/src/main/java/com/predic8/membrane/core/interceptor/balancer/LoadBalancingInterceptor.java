@@ -22,6 +22,7 @@ import com.predic8.membrane.core.interceptor.Outcome;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.ArrayList;
 import java.util.List;
 
 import static com.predic8.membrane.core.exceptions.ProblemDetails.internal;
@@ -29,6 +30,7 @@ import static com.predic8.membrane.core.interceptor.Interceptor.Flow.REQUEST;
 import static com.predic8.membrane.core.interceptor.Interceptor.Flow.RESPONSE;
 import static com.predic8.membrane.core.interceptor.Outcome.ABORT;
 import static com.predic8.membrane.core.interceptor.Outcome.CONTINUE;
+import static java.lang.Boolean.TRUE;
 
 /**
  * @description Distributes requests across a set of backend nodes. Nodes are grouped into one or more clusters, and the
@@ -42,7 +44,9 @@ import static com.predic8.membrane.core.interceptor.Outcome.CONTINUE;
  * balancer:
  *   [ name: &lt;id&gt; ]                  # default: Default
  *   [ sessionIdExtractor: ... ]      # enables sticky sessions
- *   [ roundRobinStrategy | priorityStrategy | byThreadStrategy | faultMonitoringStrategy ]
+ *   [ roundRobinStrategy | priorityStrategy | byThreadStrategy | faultMonitoringStrategy |
+ *     leastRequestsStrategy | peakEwmaStrategy | consistentHashStrategy ]
+ *   [ outlierDetection: ... ]        # ejects failing nodes for a while
  *   clusters:                        # 1..*
  *     - name: &lt;id&gt;
  *       nodes:                       # 1..*
@@ -72,6 +76,9 @@ public class LoadBalancingInterceptor extends AbstractInterceptor {
 
     private static final Logger log = LoggerFactory.getLogger(LoadBalancingInterceptor.class.getName());
 
+    private static final String DESTINATION_NODES = "destinationNodes";
+    private static final String IN_FLIGHT = "balancerInFlight";
+
     /**
      * Round-robin is the default, but it's configurable.
      */
@@ -80,6 +87,7 @@ public class LoadBalancingInterceptor extends AbstractInterceptor {
     private boolean failOver = true;
     private final Balancer balancer = new Balancer();
     private boolean trackNodeStatus;
+    private OutlierDetection outlierDetection;
 
     public LoadBalancingInterceptor() {
         name = "balancer";
@@ -93,6 +101,10 @@ public class LoadBalancingInterceptor extends AbstractInterceptor {
         if (sessionIdExtractor != null) {
             sessionIdExtractor.init(router);
         }
+
+        if (outlierDetection != null) {
+            outlierDetection.init();
+        }
     }
 
     @Override
@@ -128,16 +140,21 @@ public class LoadBalancingInterceptor extends AbstractInterceptor {
         dispatchedNode.addThread();
 
         exc.setProperty("dispatchedNode", dispatchedNode);
+        exc.setProperty(IN_FLIGHT, TRUE);
 
         exc.setOriginalRequestUri(dispatchedNode.getDestinationURL(exc));
 
         exc.getDestinations().clear();
         exc.getDestinations().add(dispatchedNode.getDestinationURL(exc));
 
-        setFailOverNodes(exc, dispatchedNode);
+        List<Node> destinationNodes = new ArrayList<>();
+        destinationNodes.add(dispatchedNode);
+        setFailOverNodes(exc, dispatchedNode, destinationNodes);
 
-        if (trackNodeStatus)
+        if (trackNodeStatus || outlierDetection != null)
             exc.initNodeStatusTracker();
+        if (outlierDetection != null)
+            exc.setProperty(DESTINATION_NODES, destinationNodes);
 
         return CONTINUE;
     }
@@ -163,22 +180,46 @@ public class LoadBalancingInterceptor extends AbstractInterceptor {
             }
         }
 
+        exc.getProperties().remove(IN_FLIGHT);
         updateDispatchedNode(exc);
         strategy.done(exc);
+        collectOutliers(exc);
 
         return CONTINUE;
     }
 
+    /**
+     * Releases the node, if the exchange failed before the response reached this interceptor.
+     */
+    @Override
+    public void handleAbort(Exchange exc) {
+        if (exc.getProperties().remove(IN_FLIGHT) != null) {
+            exc.getProperty("dispatchedNode", Node.class).removeThread();
+            strategy.done(exc);
+        }
+        collectOutliers(exc);
+    }
+
+    @SuppressWarnings("unchecked")
+    private void collectOutliers(Exchange exc) {
+        List<Node> destinationNodes = exc.getProperty(DESTINATION_NODES, List.class);
+        if (outlierDetection == null || destinationNodes == null)
+            return;
+        outlierDetection.collect(exc, destinationNodes, getAvailableNodes());
+        exc.getProperties().remove(DESTINATION_NODES);
+    }
+
     /**
      * Add secondary destinations in case the primary fails.
      */
-    private void setFailOverNodes(Exchange exc, Node dispatchedNode) {
+    private void setFailOverNodes(Exchange exc, Node dispatchedNode, List<Node> destinationNodes) {
         if (!failOver)
             return;
 
         for (Node ep : getEndpoints()) {
             if (!ep.equals(dispatchedNode)) { //don't add the primary one again
                 exc.getDestinations().add(ep.getDestinationURL(exc));
+                destinationNodes.add(ep);
             }
         }
     }
@@ -249,10 +290,30 @@ public class LoadBalancingInterceptor extends AbstractInterceptor {
         this.strategy = strategy;
     }
 
+    /**
+     * @return the nodes that are up and not ejected by the {@link OutlierDetection}
+     */
     public List<Node> getEndpoints() {
+        List<Node> nodes = getAvailableNodes();
+        return outlierDetection == null ? nodes : outlierDetection.filter(nodes);
+    }
+
+    private List<Node> getAvailableNodes() {
         return balancer.getAvailableNodesByCluster(BalancerUtil.getSingleClusterNameOrDefault(balancer)); // fallback
     }
 
+    public OutlierDetection getOutlierDetection() {
+        return outlierDetection;
+    }
+
+    /**
+     * @description Ejects nodes failing repeatedly on live traffic from the rotation for a while.
+     */
+    @MCChildElement(order = 4)
+    public void setOutlierDetection(OutlierDetection outlierDetection) {
+        this.outlierDetection = outlierDetection;
+    }
+
     public SessionIdExtractor getSessionIdExtractor() {
         return sessionIdExtractor;
     }
@@ -28,6 +28,7 @@ import javax.xml.stream.XMLStreamWriter;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 import static com.google.common.base.Objects.equal;
 import static com.predic8.membrane.core.interceptor.balancer.Node.Status.DOWN;
@@ -59,6 +60,11 @@ public class Node extends AbstractXmlElement {
 	// Initialize with a starttime
 	private volatile long lastUpTime = System.currentTimeMillis();
 
+	/**
+	 * Time the node last changed to {@link Status#UP}.
+	 */
+	private volatile long upSince = lastUpTime;
+
 	/**
 	 * Assume a node is UP until proven DOWN
 	 */
@@ -69,6 +75,15 @@ public class Node extends AbstractXmlElement {
 
 	private final ConcurrentHashMap<Integer, StatisticCollector> statusCodes = new ConcurrentHashMap<>();
 
+	/**
+	 * State of the passive outlier detection, see {@link OutlierDetection}.
+	 */
+	private final AtomicInteger consecutiveFailures = new AtomicInteger();
+	private final AtomicLong ejections = new AtomicLong();
+	private volatile long ejectedUntil;
+	private volatile long lastEjectionDuration;
+	private volatile int ejectionStreak;
+
 	public Node(String host, int port) {
 		this.host = host;
 		this.port = port;
@@ -192,6 +207,9 @@ public class Node extends AbstractXmlElement {
 		if (status == DOWN) {
 			threads.set(0);
 		}
+		if (status == UP && this.status != UP) {
+			upSince = currentTimeMillis();
+		}
 		this.status = status;
 		if (status == UP) {
 			lastUpTime = currentTimeMillis();
@@ -202,6 +220,61 @@ public class Node extends AbstractXmlElement {
 		return status;
 	}
 
+	/**
+	 * @return the time the node returned to the rotation, i.e. changed to {@link Status#UP} or its last ejection ended
+	 */
+	public long getInRotationSince() {
+		return Math.max(upSince, ejectedUntil);
+	}
+
+	/**
+	 * @return whether the node was taken out of the rotation by {@link OutlierDetection}. Unlike {@link Status#DOWN},
+	 * an ejection ends by itself.
+	 */
+	public boolean isEjected() {
+		return currentTimeMillis() < ejectedUntil;
+	}
+
+	void eject(long duration) {
+		lastEjectionDuration = duration;
+		ejectedUntil = currentTimeMillis() + duration;
+		ejectionStreak++;
+		ejections.incrementAndGet();
+	}
+
+	/**
+	 * @return the number of times the node was ejected so far
+	 */
+	public long getEjections() {
+		return ejections.get();
+	}
+
+	public long getEjectedUntil() {
+		return ejectedUntil;
+	}
+
+	int getEjectionStreak() {
+		return ejectionStreak;
+	}
+
+	int incConsecutiveFailures() {
+		return consecutiveFailures.incrementAndGet();
+	}
+
+	/**
+	 * Called on success. The back-off of the ejections starts over once the node has stayed in the rotation as long as
+	 * it was ejected the last time.
+	 */
+	void clearConsecutiveFailures() {
+		consecutiveFailures.set(0);
+		if (ejectionStreak > 0 && currentTimeMillis() - ejectedUntil >= lastEjectionDuration)
+			ejectionStreak = 0;
+	}
+
+	boolean resetConsecutiveFailures(int expected) {
+		return consecutiveFailures.compareAndSet(expected, 0);
+	}
+
 	@Override
 	public String toString() {
 		return "["+host+":"+port+"]";
@@ -0,0 +1,157 @@
+/* Copyright 2026 predic8 GmbH, www.predic8.com
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+   http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License. */
+package com.predic8.membrane.core.interceptor.balancer;
+
+import com.predic8.membrane.annot.*;
+import com.predic8.membrane.core.exchange.*;
+import com.predic8.membrane.core.util.*;
+import org.slf4j.*;
+
+import java.util.*;
+
+/**
+ * @description Passive health checking based on live traffic. A node answering a number of requests in a row with a
+ * 5xx status code or failing with an exception (e.g. a refused connection) is ejected from the rotation for a while.
+ * Each further ejection of the same node doubles the ejection time up to <tt>maxEjectionTime</tt>. Unlike a node
+ * marked down by the balancerHealthMonitor, an ejected node returns by itself.
+ * @yaml <pre><code>
+ * balancer:
+ *   outlierDetection:
+ *     consecutiveErrors: 5
+ *     baseEjectionTime: 30000
+ *   clusters:
+ *     - nodes:
+ *         - host: node1.predic8.com
+ *           port: 8080
+ *         - host: node2.predic8.com
+ *           port: 8080
+ * </code></pre>
+ */
+@MCElement(name = "outlierDetection")
+public class OutlierDetection {
+
+    private static final Logger log = LoggerFactory.getLogger(OutlierDetection.class);
+
+    private int consecutiveErrors = 5;
+    private long baseEjectionTime = 30_000;
+    private long maxEjectionTime = 300_000;
+    private int maxEjectionPercent = 50;
+
+    public void init() {
+        if (consecutiveErrors < 1)
+            throw new ConfigurationException("outlierDetection: 'consecutiveErrors' must be > 0");
+        if (baseEjectionTime <= 0 || maxEjectionTime < baseEjectionTime)
+            throw new ConfigurationException("outlierDetection: 'baseEjectionTime' must be > 0 and must not exceed 'maxEjectionTime'");
+    }
+
+    /**
+     * Feeds the outcome of the calls recorded by the {@link ExchangeNodeStatusTracker} of the exchange.
+     *
+     * @param destinations the nodes in the order of <tt>exc.getDestinations()</tt>
+     * @param nodes all nodes taking part in the balancing
+     */
+    public void collect(AbstractExchange exc, List<Node> destinations, List<Node> nodes) {
+        ExchangeNodeStatusTracker tracker = exc.getNodeStatusTracker();
+        if (tracker == null)
+            return;
+        int[] codes = tracker.getNodeStatusCodes();
+        Exception[] exceptions = tracker.getNodeExceptions();
+        for (int i = 0; i < destinations.size(); i++) {
+            int code = codes != null && i < codes.length ? codes[i] : 0;
+            boolean exception = exceptions != null && i < exceptions.length && exceptions[i] != null;
+            if (code >= 500 || exception)
+                failure(destinations.get(i), nodes);
+            else if (code > 0)
+                destinations.get(i).clearConsecutiveFailures();
+        }
+    }
+
+    void failure(Node node, List<Node> nodes) {
+        int failures = node.incConsecutiveFailures();
+        if (failures < consecutiveErrors || !node.resetConsecutiveFailures(failures) || node.isEjected())
+            return;
+
+        long ejected = nodes.stream().filter(Node::isEjected).count();
+        if ((ejected + 1) * 100 > (long) maxEjectionPercent * nodes.size()) {
+            log.info("Node {} failed {} times in a row, but is not ejected as {} of {} nodes are ejected already.", node, failures, ejected, nodes.size());
+            return;
+        }
+
+        long duration = Math.min(baseEjectionTime << Math.min(node.getEjectionStreak(), 20), maxEjectionTime);
+        node.eject(duration);
+        log.warn("Node {} failed {} times in a row and is ejected for {} ms.", node, failures, duration);
+    }
+
+    /**
+     * @return the nodes without the ejected ones, or all nodes if every node is ejected
+     */
+    public List<Node> filter(List<Node> nodes) {
+        if (nodes.stream().noneMatch(Node::isEjected))
+            return nodes;
+        List<Node> available = nodes.stream().filter(n -> !n.isEjected()).toList();
+        return available.isEmpty() ? nodes : available;
+    }
+
+    public int getConsecutiveErrors() {
+        return consecutiveErrors;
+    }
+
+    /**
+     * @description Number of failed calls in a row after which a node is ejected.
+     * @default 5
+     */
+    @MCAttribute
+    public void setConsecutiveErrors(int consecutiveErrors) {
+        this.consecutiveErrors = consecutiveErrors;
+    }
+
+    public long getBaseEjectionTime() {
+        return baseEjectionTime;
+    }
+
+    /**
+     * @description Time in milliseconds a node is ejected the first time. Doubles with every further ejection.
+     * @default 30000
+     */
+    @MCAttribute
+    public void setBaseEjectionTime(long baseEjectionTime) {
+        this.baseEjectionTime = baseEjectionTime;
+    }
+
+    public long getMaxEjectionTime() {
+        return maxEjectionTime;
+    }
+
+    /**
+     * @description Upper limit in milliseconds of the ejection time.
+     * @default 300000
+     */
+    @MCAttribute
+    public void setMaxEjectionTime(long maxEjectionTime) {
+        this.maxEjectionTime = maxEjectionTime;
+    }
+
+    public int getMaxEjectionPercent() {
+        return maxEjectionPercent;
+    }
+
+    /**
+     * @description Maximum share of the nodes in percent that may be ejected at the same time.
+     * @default 50
+     */
+    @MCAttribute
+    public void setMaxEjectionPercent(int maxEjectionPercent) {
+        this.maxEjectionPercent = maxEjectionPercent;
+    }
+}
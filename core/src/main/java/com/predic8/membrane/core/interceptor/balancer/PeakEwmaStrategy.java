@@ -0,0 +1,100 @@
+/* Copyright 2026 predic8 GmbH, www.predic8.com
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+   http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License. */
+package com.predic8.membrane.core.interceptor.balancer;
+
+import com.predic8.membrane.annot.*;
+
+import static java.util.concurrent.TimeUnit.*;
+
+/**
+ * @description Latency-aware load balancing. For every node a moving average of the response time is kept, which jumps
+ * to a slower response at once and decays with <tt>decayTime</tt> otherwise ("peak EWMA"). Failed requests count as
+ * twice as slow. Out of two nodes picked at random, the one with the lower product of latency estimate and
+ * outstanding requests is used. The estimate of an idle node decays as well, so a slow node is tried again after a
+ * while. Nodes that return to the rotation receive a growing share of the requests during <tt>slowStart</tt>.
+ * @yaml <pre><code>
+ * balancer:
+ *   peakEwmaStrategy:
+ *     decayTime: 10000
+ *   clusters:
+ *     - nodes:
+ *         - host: node1.predic8.com
+ *           port: 8080
+ *         - host: node2.predic8.com
+ *           port: 8080
+ * </code></pre>
+ */
+@MCElement(name = "peakEwmaStrategy")
+public class PeakEwmaStrategy extends PowerOfTwoChoicesStrategy {
+
+    private long decayTime = 10_000;
+
+    @Override
+    protected int compare(Node a, Node b, long now) {
+        NodeLoad loadA = getLoad(a);
+        NodeLoad loadB = getLoad(b);
+        double costA = getCost(loadA, now);
+        double costB = getCost(loadB, now);
+        // A node without measurements is assumed to be as fast as the other one.
+        if (costA < 0)
+            costA = costB < 0 ? 1 : costB;
+        if (costB < 0)
+            costB = costA;
+        return Double.compare(costA * (loadA.getOutstanding() + 1) / getWeight(a), costB * (loadB.getOutstanding() + 1) / getWeight(b));
+    }
+
+    @Override
+    protected void observe(NodeLoad load, long nanos, boolean failure, long now) {
+        load.ewma.updateAndGet(e -> {
+            double rtt = failure ? 2 * Math.max(nanos, e == null ? 0 : e.cost()) : nanos;
+            if (e == null || rtt >= e.cost())
+                return new Ewma(rtt, now);
+            double w = decay(now - e.stamp());
+            return new Ewma(e.cost() * w + rtt * (1 - w), now);
+        });
+    }
+
+    /**
+     * @return the latency estimate in nanoseconds, or -1 if the node has not answered yet
+     */
+    double getCost(NodeLoad load, long now) {
+        Ewma e = load.ewma.get();
+        if (e == null)
+            return -1;
+        // The estimate of an idle node decays towards zero, so it is tried again after a while.
+        return load.getOutstanding() == 0 ? e.cost() * decay(now - e.stamp()) : e.cost();
+    }
+
+    private double decay(long elapsed) {
+        return Math.exp(-(double) Math.max(0, elapsed) / MILLISECONDS.toNanos(decayTime));
+    }
+
+    public long getDecayTime() {
+        return decayTime;
+    }
+
+    /**
+     * @description Time in milliseconds after which a measurement has lost about two thirds of its weight.
+     * @default 10000
+     */
+    @MCAttribute
+    public void setDecayTime(long decayTime) {
+        this.decayTime = decayTime;
+    }
+
+    @Override
+    protected String getElementName() {
+        return "peakEwmaStrategy";
+    }
+}
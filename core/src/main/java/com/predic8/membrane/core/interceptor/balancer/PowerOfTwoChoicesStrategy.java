@@ -0,0 +1,176 @@
+/* Copyright 2026 predic8 GmbH, www.predic8.com
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+   http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License. */
+package com.predic8.membrane.core.interceptor.balancer;
+
+import com.predic8.membrane.annot.*;
+import com.predic8.membrane.core.config.*;
+import com.predic8.membrane.core.exchange.*;
+import com.predic8.membrane.core.router.*;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
+
+import static java.lang.System.*;
+
+/**
+ * Base of the load-aware strategies. For every request two different nodes are picked at random and the one with the
+ * lower load, as defined by {@link #compare(Node, Node, long)}, is used ("power of two choices"). This avoids
+ * both a global scan over all nodes and the herd behaviour of always choosing the least loaded node.
+ * <p>
+ * Nodes that just returned to the rotation are weighted down during <tt>slowStart</tt>, so they are not flooded before
+ * their caches and connection pools are warm. All state is updated without locks.
+ */
+public abstract class PowerOfTwoChoicesStrategy extends AbstractXmlElement implements DispatchingStrategy {
+
+    private static final double MIN_WEIGHT = 0.1;
+
+    private final String dispatchProperty = getClass().getName();
+    final ConcurrentHashMap<Address, NodeLoad> loads = new ConcurrentHashMap<>();
+    private long slowStart = 30_000;
+
+    /**
+     * Key of the {@link NodeLoad}s. A node removed and added again is a new {@link Node} instance, but has the same
+     * address.
+     */
+    record Address(String host, int port) {
+        Address(Node node) {
+            this(node.getHost(), node.getPort());
+        }
+    }
+
+    /**
+     * Load of a node as seen by this strategy, kept per host and port. It is dropped when the node leaves the
+     * rotation.
+     */
+    protected static class NodeLoad {
+
+        final AtomicInteger outstanding = new AtomicInteger();
+        final AtomicReference<Ewma> ewma = new AtomicReference<>();
+
+        public int getOutstanding() {
+            return outstanding.get();
+        }
+    }
+
+    /**
+     * @param cost latency estimate in nanoseconds
+     * @param stamp time of the last update from {@link System#nanoTime()}
+     */
+    record Ewma(double cost, long stamp) {}
+
+    private record Dispatch(NodeLoad load, long start) {}
+
+    @Override
+    public void init(Router router) {
+    }
+
+    @Override
+    public Node dispatch(LoadBalancingInterceptor interceptor, AbstractExchange exc) throws EmptyNodeListException {
+        List<Node> nodes = interceptor.getEndpoints();
+        if (nodes.isEmpty())
+            throw new EmptyNodeListException();
+
+        if (loads.size() > nodes.size())
+            prune(nodes);
+
+        Node node = nodes.size() == 1 ? nodes.getFirst() : choose(nodes);
+        NodeLoad load = getLoad(node);
+        load.outstanding.incrementAndGet();
+        exc.setProperty(dispatchProperty, new Dispatch(load, nanoTime()));
+        return node;
+    }
+
+    /**
+     * Drops the loads of nodes that are no longer in the rotation. Exchanges still running on such a node keep their
+     * load object until they are done.
+     */
+    private void prune(List<Node> nodes) {
+        Set<Address> current = new HashSet<>();
+        for (Node node : nodes)
+            current.add(new Address(node));
+        loads.keySet().retainAll(current);
+    }
+
+    private Node choose(List<Node> nodes) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int i = random.nextInt(nodes.size());
+        int j = random.nextInt(nodes.size() - 1);
+        if (j >= i)
+            j++;
+        Node a = nodes.get(i);
+        Node b = nodes.get(j);
+        return compare(a, b, nanoTime()) <= 0 ? a : b;
+    }
+
+    /**
+     * Called once per dispatched exchange, also if it was aborted.
+     */
+    @Override
+    public void done(AbstractExchange exc) {
+        if (!(exc.getProperties().remove(dispatchProperty) instanceof Dispatch dispatch))
+            return;
+        dispatch.load().outstanding.decrementAndGet();
+        long now = nanoTime();
+        observe(dispatch.load(), now - dispatch.start(), isFailure(exc), now);
+    }
+
+    private static boolean isFailure(AbstractExchange exc) {
+        return exc.getResponse() == null || exc.getResponse().getStatusCode() >= 500;
+    }
+
+    /**
+     * @return a negative number, if <tt>a</tt> should be preferred over <tt>b</tt>
+     */
+    protected abstract int compare(Node a, Node b, long now);
+
+    /**
+     * Records the duration of an exchange dispatched to the node.
+     */
+    protected void observe(NodeLoad load, long nanos, boolean failure, long now) {
+    }
+
+    /**
+     * @return a factor between 0.1 and 1 rising linearly during <tt>slowStart</tt> after the node returned to the
+     * rotation
+     */
+    protected double getWeight(Node node) {
+        if (slowStart <= 0)
+            return 1;
+        long inRotation = currentTimeMillis() - node.getInRotationSince();
+        if (inRotation >= slowStart)
+            return 1;
+        return Math.max(MIN_WEIGHT, (double) inRotation / slowStart);
+    }
+
+    protected NodeLoad getLoad(Node node) {
+        Address address = new Address(node);
+        NodeLoad load = loads.get(address);
+        return load != null ? load : loads.computeIfAbsent(address, a -> new NodeLoad());
+    }
+
+    public long getSlowStart() {
+        return slowStart;
+    }
+
+    /**
+     * @description Time in milliseconds during which a node that was added, came up again or returned from an
+     * ejection receives a growing share of the requests. <tt>0</tt> disables slow start.
+     * @default 30000
+     */
+    @MCAttribute
+    public void setSlowStart(long slowStart) {
+        this.slowStart = slowStart;
+    }
+}
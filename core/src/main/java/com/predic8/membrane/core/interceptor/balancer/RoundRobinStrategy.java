@@ -21,6 +21,7 @@ import com.predic8.membrane.core.router.Router;
 import javax.xml.stream.XMLStreamException;
 import javax.xml.stream.XMLStreamWriter;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * @description Dispatches requests to the available nodes in rotation, one after another. It ignores sessions and node
@@ -39,12 +40,12 @@ import java.util.List;
 @MCElement(name="roundRobinStrategy")
 public class RoundRobinStrategy extends AbstractXmlElement implements DispatchingStrategy {
 
-	private int last = -1;
+	private final AtomicInteger last = new AtomicInteger(-1);
 
 	public void done(AbstractExchange exc) {
 	}
 
-	public synchronized Node dispatch(LoadBalancingInterceptor interceptor, AbstractExchange exc) throws EmptyNodeListException {
+	public Node dispatch(LoadBalancingInterceptor interceptor, AbstractExchange exc) throws EmptyNodeListException {
 		//getting a decoupled copy to avoid index out of bounds in case of concurrent modification (dynamic config files reload...)
 		List<Node> endpoints = interceptor.getEndpoints(); //this calls synchronizes access internally.
 		if (endpoints.isEmpty()) {
@@ -55,14 +56,10 @@ public class RoundRobinStrategy extends AbstractXmlElement implements Dispatchin
 	}
 
 	/**
-	 * Must be atomic, therefore synchronized.
+	 * Must be atomic. Lock-free, so that virtual threads do not pin their carrier thread here.
 	 */
-	private synchronized int incrementAndGet(int numEndpoints) {
-		last ++;
-		if (last >= numEndpoints) {
-			last = 0;
-		}
-		return last;
+	private int incrementAndGet(int numEndpoints) {
+		return last.updateAndGet(l -> l + 1 >= numEndpoints ? 0 : l + 1);
 	}
 
 	@Override
@@ -32,6 +32,7 @@ import java.net.URISyntaxException;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * @description
@@ -155,7 +156,7 @@ public class FaultMonitoringStrategy extends AbstractXmlElement implements Dispa
 	}
 
 
-	public synchronized Node dispatch(LoadBalancingInterceptor interceptor, AbstractExchange exc) throws EmptyNodeListException {
+	public Node dispatch(LoadBalancingInterceptor interceptor, AbstractExchange exc) throws EmptyNodeListException {
 		httpClientStatusEventBus.engageInstance(exc);
 
 		//getting a decoupled copy to avoid index out of bounds in case of concurrent modification (dynamic config files reload...)
@@ -224,20 +225,16 @@ public class FaultMonitoringStrategy extends AbstractXmlElement implements Dispa
 	 * Using the "last" variable is a bit dirty, we can't be sure to always get the same nodes.
 	 * But in practice it is irrelevant, worst case this returns the same Node twice in a row...
 	 */
-	private int last = -1;
+	private final AtomicInteger last = new AtomicInteger(-1);
 	private Node applyRoundRobinStrategy(List<Node> endpoints) {
 		int i = incrementAndGet(endpoints.size());
 		return endpoints.get(i);
 	}
 	/**
-	 * Must be atomic, therefore synchronized.
+	 * Must be atomic. Lock-free, so that virtual threads do not pin their carrier thread here.
 	 */
-	private synchronized int incrementAndGet(int numEndpoints) {
-		last ++;
-		if (last >= numEndpoints) {
-			last = 0;
-		}
-		return last;
+	private int incrementAndGet(int numEndpoints) {
+		return last.updateAndGet(l -> l + 1 >= numEndpoints ? 0 : l + 1);
 	}
 
 
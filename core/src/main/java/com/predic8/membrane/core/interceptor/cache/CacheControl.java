@@ -0,0 +1,112 @@
+/* Copyright 2026 predic8 GmbH, www.predic8.com
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+   http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License. */
+
+package com.predic8.membrane.core.interceptor.cache;
+
+import java.util.*;
+
+import static java.util.Locale.*;
+
+/**
+ * Directives of a <tt>Cache-Control</tt> header as defined in RFC 9111, section 5.2.
+ */
+final class CacheControl {
+
+    static final CacheControl EMPTY = new CacheControl(Map.of());
+
+    private final Map<String, String> directives;
+
+    private CacheControl(Map<String, String> directives) {
+        this.directives = directives;
+    }
+
+    /**
+     * @param value the values of all Cache-Control fields joined by commas, may be null
+     */
+    static CacheControl parse(String value) {
+        if (value == null || value.isBlank())
+            return EMPTY;
+        Map<String, String> directives = new HashMap<>();
+        int i = 0;
+        int length = value.length();
+        while (i < length) {
+            int end = i;
+            while (end < length && value.charAt(end) != ',' && value.charAt(end) != '=')
+                end++;
+            String name = value.substring(i, end).trim().toLowerCase(ROOT);
+            String argument = null;
+            i = end;
+            if (i < length && value.charAt(i) == '=') {
+                i++;
+                while (i < length && value.charAt(i) == ' ')
+                    i++;
+                if (i < length && value.charAt(i) == '"') {
+                    int close = value.indexOf('"', i + 1);
+                    if (close == -1)
+                        close = length;
+                    argument = value.substring(i + 1, close);
+                    i = close + 1;
+                    while (i < length && value.charAt(i) != ',')
+                        i++;
+                } else {
+                    int comma = value.indexOf(',', i);
+                    if (comma == -1)
+                        comma = length;
+                    argument = value.substring(i, comma).trim();
+                    i = comma;
+                }
+            }
+            i++; // skip ','
+            if (!name.isEmpty())
+                directives.putIfAbsent(name, argument);
+        }
+        return new CacheControl(directives);
+    }
+
+    boolean has(String directive) {
+        return directives.containsKey(directive);
+    }
+
+    /**
+     * @return the delta-seconds argument of the directive, or -1 if the directive is missing or invalid
+     */
+    long getSeconds(String directive) {
+        String argument = directives.get(directive);
+        if (argument == null)
+            return -1;
+        try {
+            long seconds = Long.parseLong(argument);
+            return seconds < 0 ? -1 : seconds;
+        } catch (NumberFormatException e) {
+            // RFC 9111, 1.2.2: values beyond the integer range are treated as the largest one
+            return argument.chars().allMatch(Character::isDigit) && !argument.isEmpty() ? Integer.MAX_VALUE : -1;
+        }
+    }
+
+    /**
+     * For <tt>max-stale</tt> without argument, meaning any staleness is accepted.
+     */
+    long getSecondsOrDefault(String directive, long defaultSeconds) {
+        if (!has(directive))
+            return -1;
+        if (directives.get(directive) == null)
+            return defaultSeconds;
+        return getSeconds(directive);
+    }
+
+    @Override
+    public String toString() {
+        return directives.toString();
+    }
+}
@@ -39,7 +39,7 @@ import static java.nio.charset.StandardCharsets.UTF_8;
 
 /**
  * @description <p>
- *              Don't use, this does NOT implement valid HTTP caching.
+ *              Don't use, this does NOT implement valid HTTP caching. Use <tt>httpCache</tt> instead.
  *              </p>
  *              <p>
  *                  We currently just use this class to cache a bunch of Debian and Ubuntu Repositories as well as
@@ -50,6 +50,7 @@ import static java.nio.charset.StandardCharsets.UTF_8;
  *              </p>
  * @topic 9. Misc
  */
+@Deprecated
 @MCElement(name="cache")
 public class CacheInterceptor extends AbstractInterceptor {
 
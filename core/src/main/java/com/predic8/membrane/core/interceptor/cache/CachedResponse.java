@@ -0,0 +1,297 @@
+/* Copyright 2026 predic8 GmbH, www.predic8.com
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+   http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License. */
+
+package com.predic8.membrane.core.interceptor.cache;
+
+import com.predic8.membrane.core.http.*;
+
+import java.time.*;
+import java.time.format.*;
+import java.util.*;
+
+import static com.predic8.membrane.core.http.Header.*;
+import static java.lang.Math.*;
+import static java.util.Locale.*;
+
+/**
+ * A response stored by the {@link HttpCacheInterceptor} together with the times it was requested and received, as
+ * needed for the age calculation of RFC 9111, section 4.2.3.
+ * <p>
+ * Instances are immutable. A revalidation creates a new instance.
+ */
+final class CachedResponse {
+
+    /**
+     * Heuristic freshness is capped, see RFC 9111, section 4.2.2.
+     */
+    static final long MAX_HEURISTIC_FRESHNESS = Duration.ofDays(1).toMillis();
+
+    /**
+     * Status codes that are heuristically cacheable, see RFC 9110, section 15.1.
+     */
+    private static final Set<Integer> HEURISTICALLY_CACHEABLE = Set.of(200, 203, 204, 300, 301, 308, 404, 405, 410, 414, 501);
+
+    private static final Set<String> HOP_BY_HOP = Set.of("connection", "keep-alive", "proxy-connection", "proxy-authenticate",
+            "proxy-authorization", "te", "trailer", "transfer-encoding", "upgrade");
+
+    private final int statusCode;
+    private final String statusMessage;
+    private final List<HeaderField> fields;
+    private final byte[] body;
+    private final long requestTime;
+    private final long responseTime;
+
+    /**
+     * Values of the request header fields named by Vary, keyed by lower case name. A missing field is mapped to null.
+     */
+    private final Map<String, String> selectingHeaders;
+
+    private final CacheControl cacheControl;
+    private final long date;
+
+    CachedResponse(int statusCode, String statusMessage, List<HeaderField> fields, byte[] body, long requestTime, long responseTime, Map<String, String> selectingHeaders) {
+        this.statusCode = statusCode;
+        this.statusMessage = statusMessage;
+        this.fields = List.copyOf(fields);
+        this.body = body;
+        this.requestTime = requestTime;
+        this.responseTime = responseTime;
+        this.selectingHeaders = selectingHeaders;
+        Header header = new Header(this.fields);
+        cacheControl = CacheControl.parse(header.getValuesAsString(CACHE_CONTROL));
+        long d = parseDate(header.getFirstValue(DATE));
+        date = d == -1 ? responseTime : d;
+    }
+
+    static CachedResponse of(Request request, Response response, byte[] body, long requestTime, long responseTime) {
+        List<HeaderField> fields = new ArrayList<>();
+        for (HeaderField field : response.getHeader().getAllHeaderFields()) {
+            if (!HOP_BY_HOP.contains(field.getHeaderName().toString().toLowerCase(ROOT)))
+                fields.add(new HeaderField(field));
+        }
+        return new CachedResponse(response.getStatusCode(), response.getStatusMessage(), fields, body, requestTime, responseTime,
+                getSelectingHeaders(request, response.getHeader().getValuesAsString(VARY)));
+    }
+
+    private static Map<String, String> getSelectingHeaders(Request request, String vary) {
+        if (vary == null)
+            return Map.of();
+        Map<String, String> selecting = new TreeMap<>();
+        for (String name : vary.split(",")) {
+            name = name.trim().toLowerCase(ROOT);
+            if (!name.isEmpty())
+                selecting.put(name, normalize(request.getHeader().getValuesAsString(name)));
+        }
+        return selecting;
+    }
+
+    /**
+     * Whitespace differences are not significant when comparing selecting header fields.
+     */
+    private static String normalize(String value) {
+        return value == null ? null : value.trim().replaceAll("\\s*,\\s*", ",").replaceAll("\\s+", " ");
+    }
+
+    /**
+     * @return true, if the response was selected by request header field values equal to those of the request
+     */
+    boolean matches(Request request) {
+        for (Map.Entry<String, String> e : selectingHeaders.entrySet()) {
+            if (!Objects.equals(e.getValue(), normalize(request.getHeader().getValuesAsString(e.getKey()))))
+                return false;
+        }
+        return true;
+    }
+
+    boolean hasSameSelectingHeaders(CachedResponse other) {
+        return selectingHeaders.equals(other.selectingHeaders);
+    }
+
+    /**
+     * Applies the header fields of a <tt>304 Not Modified</tt> response, see RFC 9111, section 4.3.4.
+     */
+    /**
+     * For responses whose body is stored once it has been streamed to the client.
+     */
+    CachedResponse withBody(byte[] body) {
+        return new CachedResponse(statusCode, statusMessage, fields, body, requestTime, responseTime, selectingHeaders);
+    }
+
+    CachedResponse revalidated(Response notModified, long requestTime, long responseTime) {
+        Header header = new Header(fields.stream().map(HeaderField::new).toList());
+        Set<String> replaced = new HashSet<>();
+        for (HeaderField field : notModified.getHeader().getAllHeaderFields()) {
+            String name = field.getHeaderName().toString().toLowerCase(ROOT);
+            if (HOP_BY_HOP.contains(name) || name.equals("content-length"))
+                continue;
+            if (replaced.add(name))
+                header.removeFields(name);
+            header.add(new HeaderField(field));
+        }
+        return new CachedResponse(statusCode, statusMessage, header.getFields(), body, requestTime, responseTime, selectingHeaders);
+    }
+
+    /**
+     * RFC 9111, section 4.2.1
+     */
+    long getFreshnessLifetime(boolean shared) {
+        if (shared && cacheControl.getSeconds("s-maxage") != -1)
+            return cacheControl.getSeconds("s-maxage") * 1000;
+        if (cacheControl.getSeconds("max-age") != -1)
+            return cacheControl.getSeconds("max-age") * 1000;
+        String expires = getHeaderValue(EXPIRES);
+        if (expires != null) {
+            long e = parseDate(expires);
+            return e == -1 ? 0 : max(0, e - date);
+        }
+        long lastModified = parseDate(getHeaderValue(LAST_MODIFIED));
+        if (lastModified != -1 && (HEURISTICALLY_CACHEABLE.contains(statusCode) || cacheControl.has("public")))
+            return min(max(0, (date - lastModified) / 10), MAX_HEURISTIC_FRESHNESS);
+        return 0;
+    }
+
+    /**
+     * RFC 9111, section 4.2.3
+     */
+    long getCurrentAge(long now) {
+        long apparentAge = max(0, responseTime - date);
+        long correctedAgeValue = getAgeValue() + (responseTime - requestTime);
+        return max(apparentAge, correctedAgeValue) + (now - responseTime);
+    }
+
+    private long getAgeValue() {
+        try {
+            String age = getHeaderValue(AGE);
+            return age == null ? 0 : max(0, Long.parseLong(age.trim()) * 1000);
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+
+    boolean hasValidator() {
+        return getETag() != null || getHeaderValue(LAST_MODIFIED) != null;
+    }
+
+    String getETag() {
+        return getHeaderValue(ETAG);
+    }
+
+    String getLastModified() {
+        return getHeaderValue(LAST_MODIFIED);
+    }
+
+    CacheControl getCacheControl() {
+        return cacheControl;
+    }
+
+    private String getHeaderValue(String name) {
+        for (HeaderField field : fields) {
+            if (field.getHeaderName().hasName(name))
+                return field.getValue();
+        }
+        return null;
+    }
+
+    static boolean isHeuristicallyCacheable(int statusCode) {
+        return HEURISTICALLY_CACHEABLE.contains(statusCode);
+    }
+
+    /**
+     * Builds the response sent to a client. The <tt>Age</tt> field is set to the current age.
+     */
+    Response toResponse(long now) {
+        Response response = new Response.ResponseBuilder().status(statusCode, statusMessage).header(createHeader(now)).build();
+        response.setBodyContent(body);
+        return response;
+    }
+
+    /**
+     * RFC 9110, section 15.4.5: the fields a <tt>304 Not Modified</tt> response has to contain.
+     */
+    Response toNotModifiedResponse(long now) {
+        Header header = new Header();
+        for (HeaderField field : createHeader(now).getFields()) {
+            if (field.getHeaderName().hasName(CACHE_CONTROL) || field.getHeaderName().hasName(ETAG) || field.getHeaderName().hasName(EXPIRES)
+                || field.getHeaderName().hasName(DATE) || field.getHeaderName().hasName(VARY) || field.getHeaderName().hasName("Content-Location")
+                || field.getHeaderName().hasName(AGE))
+                header.add(field);
+        }
+        Response response = new Response.ResponseBuilder().status(304, "Not Modified").header(header).build();
+        response.setBodyContent(new byte[0]);
+        response.getHeader().removeFields(CONTENT_LENGTH);
+        return response;
+    }
+
+    private Header createHeader(long now) {
+        Header header = new Header(fields.stream().map(HeaderField::new).toList());
+        header.removeFields(AGE);
+        header.add(AGE, Long.toString(getCurrentAge(now) / 1000));
+        return header;
+    }
+
+    /**
+     * Rough number of bytes occupied in memory.
+     */
+    int getSize() {
+        int size = 128 + body.length;
+        for (HeaderField field : fields)
+            size += 48 + 2 * (field.getHeaderName().toString().length() + field.getValue().length());
+        return size;
+    }
+
+    int getStatusCode() {
+        return statusCode;
+    }
+
+    String getStatusMessage() {
+        return statusMessage;
+    }
+
+    List<HeaderField> getFields() {
+        return fields;
+    }
+
+    byte[] getBody() {
+        return body;
+    }
+
+    long getRequestTime() {
+        return requestTime;
+    }
+
+    long getResponseTime() {
+        return responseTime;
+    }
+
+    Map<String, String> getSelectingHeaders() {
+        return selectingHeaders;
+    }
+
+    /**
+     * @return the time in milliseconds, or -1 if the value is missing or not a valid HTTP-date
+     */
+    static long parseDate(String value) {
+        if (value == null)
+            return -1;
+        try {
+            return ZonedDateTime.parse(value.trim(), DateTimeFormatter.RFC_1123_DATE_TIME).toInstant().toEpochMilli();
+        } catch (DateTimeParseException e) {
+            return -1;
+        }
+    }
+
+    static String formatDate(long millis) {
+        return DateTimeFormatter.RFC_1123_DATE_TIME.format(Instant.ofEpochMilli(millis).atOffset(ZoneOffset.UTC));
+    }
+}
@@ -0,0 +1,243 @@
+/* Copyright 2026 predic8 GmbH, www.predic8.com
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+   http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License. */
+
+package com.predic8.membrane.core.interceptor.cache;
+
+import com.google.common.cache.*;
+import com.predic8.membrane.core.http.*;
+import org.slf4j.*;
+
+import java.io.*;
+import java.nio.*;
+import java.nio.file.*;
+import java.security.*;
+import java.util.*;
+import java.util.concurrent.*;
+
+import static java.nio.charset.StandardCharsets.*;
+import static java.nio.file.StandardCopyOption.*;
+import static java.util.concurrent.TimeUnit.*;
+
+/**
+ * Second tier of the {@link HttpCacheStore}: takes the entries evicted from memory, one file per key. Evicted entries
+ * are written by a background thread, so the request evicting them does not wait for the disk.
+ * <p>
+ * The index is kept in memory only, so the directory is cleared on startup.
+ */
+class DiskCacheTier {
+
+    private static final Logger log = LoggerFactory.getLogger(DiskCacheTier.class);
+
+    private static final int MAGIC = 0x4d434831; // "MCH1"
+
+    private final Path dir;
+    private final Cache<String, Integer> index;
+
+    /**
+     * Entries waiting to be written by the {@link #writer}.
+     */
+    private final ConcurrentHashMap<String, Variants> pending = new ConcurrentHashMap<>();
+    private final ExecutorService writer = Executors.newSingleThreadExecutor(Thread.ofPlatform().daemon().name("http cache spill").factory());
+
+    DiskCacheTier(Path dir, long maxSize) throws IOException {
+        this.dir = dir;
+        Files.createDirectories(dir);
+        clear();
+        index = CacheBuilder.newBuilder()
+                .maximumWeight(maxSize)
+                .weigher((String key, Integer size) -> size)
+                .removalListener((RemovalListener<String, Integer>) n -> {
+                    if (n.getCause() != RemovalCause.REPLACED)
+                        delete(n.getKey());
+                })
+                .build();
+    }
+
+    private void clear() throws IOException {
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(dir, "*.entry")) {
+            for (Path file : files)
+                Files.deleteIfExists(file);
+        }
+    }
+
+    /**
+     * Writes the entry in the background. Until then, it is still returned by {@link #get(String)}.
+     */
+    void spill(String key, Variants variants) {
+        pending.put(key, variants);
+        try {
+            writer.execute(() -> {
+                Variants v = pending.get(key);
+                if (v == null)
+                    return;
+                put(key, v);
+                if (!pending.remove(key, v))
+                    index.invalidate(key); // removed or replaced while it was written
+            });
+        } catch (RejectedExecutionException e) {
+            pending.remove(key, variants);
+        }
+    }
+
+    void put(String key, Variants variants) {
+        try {
+            byte[] data = encode(key, variants);
+            Path tmp = Files.createTempFile(dir, "put", ".tmp");
+            Files.write(tmp, data);
+            Files.move(tmp, getPath(key), REPLACE_EXISTING, ATOMIC_MOVE);
+            index.put(key, data.length);
+        } catch (IOException e) {
+            log.warn("Could not write cache entry to disk: {}", e.getMessage());
+        }
+    }
+
+    Variants get(String key) {
+        Variants waiting = pending.get(key);
+        if (waiting != null)
+            return waiting;
+        if (index.getIfPresent(key) == null)
+            return null;
+        try {
+            // read into the heap, as decode() copies everything anyway and a mapping would stay until it is collected
+            Variants variants = decode(key, ByteBuffer.wrap(Files.readAllBytes(getPath(key))));
+            if (variants == null)
+                index.invalidate(key);
+            return variants;
+        } catch (IOException | RuntimeException e) {
+            log.debug("Could not read cache entry from disk.", e);
+            index.invalidate(key);
+            return null;
+        }
+    }
+
+    void remove(String key) {
+        pending.remove(key);
+        index.invalidate(key);
+    }
+
+    /**
+     * Stops writing entries. Entries not written yet are dropped, a write in progress is waited for.
+     */
+    void close() {
+        // queued writes find no pending entry and return; a running write is not interrupted, so no temp file is left
+        pending.clear();
+        writer.shutdown();
+        try {
+            if (!writer.awaitTermination(10, SECONDS))
+                log.warn("Cache entry still being written to disk.");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    long getSize() {
+        long size = 0;
+        for (int s : index.asMap().values())
+            size += s;
+        return size;
+    }
+
+    private void delete(String key) {
+        try {
+            Files.deleteIfExists(getPath(key));
+        } catch (IOException e) {
+            log.debug("Could not delete cache entry.", e);
+        }
+    }
+
+    private Path getPath(String key) {
+        try {
+            return dir.resolve(HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(key.getBytes(UTF_8))) + ".entry");
+        } catch (NoSuchAlgorithmException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    static byte[] encode(String key, Variants variants) throws IOException {
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(baos);
+        out.writeInt(MAGIC);
+        writeString(out, key);
+        out.writeInt(variants.responses().size());
+        for (CachedResponse r : variants.responses()) {
+            out.writeInt(r.getStatusCode());
+            writeString(out, r.getStatusMessage());
+            out.writeLong(r.getRequestTime());
+            out.writeLong(r.getResponseTime());
+            out.writeInt(r.getFields().size());
+            for (HeaderField field : r.getFields()) {
+                writeString(out, field.getHeaderName().toString());
+                writeString(out, field.getValue());
+            }
+            out.writeInt(r.getSelectingHeaders().size());
+            for (Map.Entry<String, String> e : r.getSelectingHeaders().entrySet()) {
+                writeString(out, e.getKey());
+                writeString(out, e.getValue());
+            }
+            out.writeInt(r.getBody().length);
+            out.write(r.getBody());
+        }
+        out.flush();
+        return baos.toByteArray();
+    }
+
+    /**
+     * @return null, if the data belongs to another key (hash collision)
+     */
+    static Variants decode(String key, ByteBuffer in) throws IOException {
+        if (in.getInt() != MAGIC)
+            throw new IOException("Not a cache entry.");
+        if (!key.equals(readString(in)))
+            return null;
+        int count = in.getInt();
+        List<CachedResponse> responses = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            int statusCode = in.getInt();
+            String statusMessage = readString(in);
+            long requestTime = in.getLong();
+            long responseTime = in.getLong();
+            int fieldCount = in.getInt();
+            List<HeaderField> fields = new ArrayList<>(fieldCount);
+            for (int j = 0; j < fieldCount; j++)
+                fields.add(new HeaderField(readString(in), readString(in)));
+            int selectingCount = in.getInt();
+            Map<String, String> selecting = new TreeMap<>();
+            for (int j = 0; j < selectingCount; j++)
+                selecting.put(readString(in), readString(in));
+            byte[] body = new byte[in.getInt()];
+            in.get(body);
+            responses.add(new CachedResponse(statusCode, statusMessage, fields, body, requestTime, responseTime, selecting));
+        }
+        return new Variants(responses);
+    }
+
+    private static void writeString(DataOutputStream out, String s) throws IOException {
+        if (s == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] b = s.getBytes(UTF_8);
+        out.writeInt(b.length);
+        out.write(b);
+    }
+
+    private static String readString(ByteBuffer in) {
+        int length = in.getInt();
+        if (length == -1)
+            return null;
+        byte[] b = new byte[length];
+        in.get(b);
+        return new String(b, UTF_8);
+    }
+}
@@ -0,0 +1,632 @@
+/* Copyright 2026 predic8 GmbH, www.predic8.com
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+   http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License. */
+
+package com.predic8.membrane.core.interceptor.cache;
+
+import com.predic8.membrane.annot.*;
+import com.predic8.membrane.core.exchange.*;
+import com.predic8.membrane.core.http.*;
+import com.predic8.membrane.core.interceptor.*;
+import com.predic8.membrane.core.transport.http.*;
+import com.predic8.membrane.core.util.*;
+import org.slf4j.*;
+
+import java.io.*;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.function.*;
+
+import static com.predic8.membrane.core.http.Header.*;
+import static com.predic8.membrane.core.interceptor.Outcome.*;
+import static com.predic8.membrane.core.resolver.ResolverMap.*;
+import static com.predic8.membrane.core.util.URIUtil.*;
+import static java.util.Locale.*;
+import static java.util.concurrent.TimeUnit.*;
+
+/**
+ * @description <p>
+ * Caches responses of the backend following RFC 9111 (HTTP Caching). Freshness is calculated from
+ * <tt>Cache-Control</tt>, <tt>Expires</tt> and <tt>Age</tt>; responses are selected by the request fields named
+ * in <tt>Vary</tt>. Stale responses with an <tt>ETag</tt> or <tt>Last-Modified</tt> field are revalidated with a
+ * conditional request, and <tt>stale-while-revalidate</tt> is honoured by revalidating in the background.
+ * </p>
+ * <p>
+ * Concurrent requests for a response that is not in the cache wait for the first of them, so the backend sees a
+ * single request.
+ * </p>
+ * <p>
+ * Responses are kept in memory up to <tt>maxMemorySize</tt> bytes. With <tt>diskDir</tt>, responses evicted from
+ * memory are moved to disk.
+ * </p>
+ * <p>
+ * The cache is a shared cache by default: responses with <tt>Cache-Control: private</tt> or
+ * <tt>Set-Cookie</tt> and responses to requests with <tt>Authorization</tt> are not stored unless allowed
+ * explicitly. Range requests are not cached.
+ * </p>
+ * @yaml <pre><code>
+ * api:
+ *   port: 2000
+ *   flow:
+ *     - httpCache:
+ *         maxMemorySize: 67108864
+ *   target:
+ *     url: https://api.predic8.de
+ * </code></pre>
+ * @topic 9. Misc
+ */
+@MCElement(name = "httpCache")
+public class HttpCacheInterceptor extends AbstractInterceptor {
+
+    private static final Logger log = LoggerFactory.getLogger(HttpCacheInterceptor.class);
+
+    private static final String TRANSACTION = "membrane.httpCache";
+
+    /**
+     * Methods that do not invalidate stored responses, see RFC 9111, section 4.4.
+     */
+    private static final Set<String> SAFE_METHODS = Set.of("GET", "HEAD", "OPTIONS", "TRACE");
+
+    private static final Set<String> HOP_BY_HOP = Set.of("connection", "keep-alive", "proxy-connection", "te", "trailer",
+            "transfer-encoding", "upgrade", "content-length");
+
+    /**
+     * Consumes the body of background revalidations, which have no client to send it to.
+     */
+    private static final AbstractBodyTransferer DISCARD = new AbstractBodyTransferer() {
+        @Override
+        public void write(byte[] content, int i, int length) {
+        }
+
+        @Override
+        public void write(Chunk chunk) {
+        }
+
+        @Override
+        public void finish(Header header) {
+        }
+    };
+
+    private long maxMemorySize = 64 * 1024 * 1024;
+    private int maxEntrySize = 1024 * 1024;
+    private String diskDir;
+    private long maxDiskSize = 1024L * 1024 * 1024;
+    private boolean shared = true;
+    private long coalesceTimeout = 10_000;
+
+    private HttpCacheStore store;
+    private HttpClient client;
+    private LongSupplier clock = System::currentTimeMillis;
+
+    /**
+     * Keys of responses currently fetched from the backend. Other requests for them wait.
+     */
+    private final ConcurrentHashMap<String, CountDownLatch> misses = new ConcurrentHashMap<>();
+
+    private final Set<String> backgroundRevalidations = ConcurrentHashMap.newKeySet();
+
+    public HttpCacheInterceptor() {
+        name = "http cache";
+    }
+
+    /**
+     * State of an exchange between request and response flow.
+     */
+    private static final class Transaction {
+        final String key;
+        final long requestTime;
+        final boolean invalidate;
+
+        /**
+         * Stored response that is revalidated by the request.
+         */
+        CachedResponse revalidating;
+
+        /**
+         * Conditional fields of the client, replaced by the validators of the stored response.
+         */
+        String ifNoneMatch;
+        String ifModifiedSince;
+
+        /**
+         * Set, if other requests wait for the response of this one.
+         */
+        volatile CountDownLatch miss;
+
+        /**
+         * Set, if the body is stored after it has been streamed. The waiting requests are released then.
+         */
+        boolean storing;
+
+        Transaction(String key, long requestTime, boolean invalidate) {
+            this.key = key;
+            this.requestTime = requestTime;
+            this.invalidate = invalidate;
+        }
+    }
+
+    @Override
+    public void init() {
+        super.init();
+        stop();
+        DiskCacheTier disk = null;
+        if (diskDir != null) {
+            String base = getBeanBaseLocation();
+            try {
+                disk = new DiskCacheTier(Path.of(base == null ? diskDir : pathFromFileURI(combine(base, diskDir))), maxDiskSize);
+            } catch (IOException e) {
+                throw new ConfigurationException("Could not use directory %s for the http cache.".formatted(diskDir), e);
+            }
+        }
+        store = new HttpCacheStore(maxMemorySize, disk);
+        client = router.getHttpClientFactory().createClient(null);
+    }
+
+    @Override
+    public void stop() {
+        if (store != null)
+            store.close();
+    }
+
+    @Override
+    public Outcome handleRequest(Exchange exc) {
+        Request request = exc.getRequest();
+        String key = getKey(exc);
+        if (!request.isGETRequest()) {
+            if (!SAFE_METHODS.contains(request.getMethod()))
+                exc.setProperty(TRANSACTION, new Transaction(key, 0, true));
+            return CONTINUE;
+        }
+        if (request.getHeader().contains(RANGE))
+            return CONTINUE;
+
+        CacheControl cacheControl = getCacheControl(request.getHeader());
+        Transaction t = new Transaction(key, clock.getAsLong(), false);
+        exc.setProperty(TRANSACTION, t);
+
+        CachedResponse cached = store.get(key, request);
+        if (serveFromCache(exc, cached, cacheControl))
+            return RETURN;
+
+        if (!cacheControl.has("only-if-cached") && !lead(t)) {
+            cached = store.get(key, request);
+            if (serveFromCache(exc, cached, cacheControl))
+                return RETURN;
+        }
+
+        if (cacheControl.has("only-if-cached")) {
+            exc.setResponse(Response.gatewayTimeout("No stored response available.").build());
+            return RETURN;
+        }
+
+        if (cached != null && cached.hasValidator())
+            addValidators(request, t, cached);
+        return CONTINUE;
+    }
+
+    private boolean serveFromCache(Exchange exc, CachedResponse cached, CacheControl cacheControl) {
+        if (cached == null)
+            return false;
+        long now = clock.getAsLong();
+        if (isUsable(cached, cacheControl, now)) {
+            exc.setResponse(createResponse(exc.getRequest().getHeader(), cached, now));
+            return true;
+        }
+        if (isStaleWhileRevalidate(cached, cacheControl, now)) {
+            exc.setResponse(createResponse(exc.getRequest().getHeader(), cached, now));
+            revalidateInBackground(exc, cached);
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * @return true, if the caller should fetch the response. Otherwise, the caller has waited for another request
+     * fetching it.
+     */
+    private boolean lead(Transaction t) {
+        CountDownLatch latch = new CountDownLatch(1);
+        CountDownLatch existing = misses.putIfAbsent(t.key, latch);
+        if (existing == null) {
+            t.miss = latch;
+            return true;
+        }
+        try {
+            if (!existing.await(coalesceTimeout, MILLISECONDS))
+                misses.remove(t.key, existing);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return false;
+    }
+
+    private void release(Transaction t) {
+        CountDownLatch miss = t.miss;
+        if (miss == null)
+            return;
+        misses.remove(t.key, miss);
+        miss.countDown();
+        t.miss = null;
+    }
+
+    private static void addValidators(Request request, Transaction t, CachedResponse cached) {
+        Header header = request.getHeader();
+        t.revalidating = cached;
+        t.ifNoneMatch = header.getValuesAsString(IF_NONE_MATCH);
+        t.ifModifiedSince = header.getFirstValue(IF_MODIFIED_SINCE);
+        header.removeFields(IF_NONE_MATCH);
+        header.removeFields(IF_MODIFIED_SINCE);
+        if (cached.getETag() != null)
+            header.add(IF_NONE_MATCH, cached.getETag());
+        if (cached.getLastModified() != null)
+            header.add(IF_MODIFIED_SINCE, cached.getLastModified());
+    }
+
+    /**
+     * RFC 9111, section 4.2 and 5.2.1
+     */
+    private boolean isUsable(CachedResponse cached, CacheControl request, long now) {
+        CacheControl response = cached.getCacheControl();
+        if (request.has("no-cache") || response.has("no-cache"))
+            return false;
+        long age = cached.getCurrentAge(now);
+        long lifetime = cached.getFreshnessLifetime(shared);
+        long maxAge = request.getSeconds("max-age");
+        if (maxAge != -1 && age > maxAge * 1000)
+            return false;
+        long minFresh = request.getSeconds("min-fresh");
+        if (minFresh != -1 && lifetime - age < minFresh * 1000)
+            return false;
+        if (lifetime > age)
+            return true;
+        if (mustRevalidate(response))
+            return false;
+        long maxStale = request.getSecondsOrDefault("max-stale", Integer.MAX_VALUE);
+        return maxStale != -1 && age - lifetime <= maxStale * 1000;
+    }
+
+    /**
+     * RFC 5861, section 3
+     */
+    private boolean isStaleWhileRevalidate(CachedResponse cached, CacheControl request, long now) {
+        CacheControl response = cached.getCacheControl();
+        long window = response.getSeconds("stale-while-revalidate");
+        if (window == -1 || request.has("no-cache") || response.has("no-cache") || mustRevalidate(response))
+            return false;
+        long age = cached.getCurrentAge(now);
+        long maxAge = request.getSeconds("max-age");
+        if (maxAge != -1 && age > maxAge * 1000)
+            return false;
+        long staleness = age - cached.getFreshnessLifetime(shared);
+        return staleness >= 0 && staleness <= window * 1000;
+    }
+
+    private boolean mustRevalidate(CacheControl response) {
+        return response.has("must-revalidate") || (shared && (response.has("proxy-revalidate") || response.getSeconds("s-maxage") != -1));
+    }
+
+    private void revalidateInBackground(Exchange exc, CachedResponse cached) {
+        String key = getKey(exc);
+        if (exc.getDestinations().isEmpty() || !backgroundRevalidations.add(key))
+            return;
+        String url = exc.getDestinations().getFirst();
+        Header header = copyEndToEndFields(exc.getRequest().getHeader());
+        Thread.ofVirtual().name("http cache revalidation").start(() -> {
+            try {
+                Exchange revalidation = new Request.Builder().method("GET").url(router.getConfiguration().getUriFactory(), url).header(header).buildExchange();
+                Transaction t = new Transaction(key, clock.getAsLong(), false);
+                addValidators(revalidation.getRequest(), t, cached);
+                client.call(revalidation);
+                processResponse(t, revalidation.getRequest(), revalidation.getResponse());
+                revalidation.getResponse().getBody().write(DISCARD, false);
+            } catch (Exception e) {
+                log.debug("Background revalidation of {} failed.", url, e);
+            } finally {
+                backgroundRevalidations.remove(key);
+            }
+        });
+    }
+
+    private static Header copyEndToEndFields(Header header) {
+        Header copy = new Header();
+        for (HeaderField field : header.getAllHeaderFields()) {
+            if (!HOP_BY_HOP.contains(field.getHeaderName().toString().toLowerCase(ROOT)))
+                copy.add(new HeaderField(field));
+        }
+        return copy;
+    }
+
+    @Override
+    public Outcome handleResponse(Exchange exc) {
+        Transaction t = exc.getProperty(TRANSACTION, Transaction.class);
+        if (t == null)
+            return CONTINUE;
+        try {
+            Response response = processResponse(t, exc.getRequest(), exc.getResponse());
+            if (response != null)
+                exc.setResponse(response);
+        } catch (Exception e) {
+            log.warn("Could not cache response.", e);
+        } finally {
+            if (!t.storing)
+                release(t);
+        }
+        return CONTINUE;
+    }
+
+    @Override
+    public void handleAbort(Exchange exc) {
+        Transaction t = exc.getProperty(TRANSACTION, Transaction.class);
+        if (t != null)
+            release(t);
+    }
+
+    /**
+     * Stores the response if allowed.
+     *
+     * @return the response to send instead of the received one, or null
+     */
+    private Response processResponse(Transaction t, Request request, Response response) throws IOException {
+        long now = clock.getAsLong();
+        if (t.invalidate) {
+            if (response.getStatusCode() >= 200 && response.getStatusCode() < 400)
+                store.invalidate(t.key);
+            return null;
+        }
+
+        if (t.revalidating != null && response.getStatusCode() == 304) {
+            CachedResponse updated = t.revalidating.revalidated(response, t.requestTime, now);
+            if (!getCacheControl(request.getHeader()).has("no-store") && !updated.getCacheControl().has("no-store"))
+                store.put(t.key, updated);
+            response.discardBody();
+            if (isNotModified(t.ifNoneMatch, t.ifModifiedSince, updated))
+                return updated.toNotModifiedResponse(now);
+            return updated.toResponse(now);
+        }
+
+        if (!isStorable(request, response))
+            return null;
+        long length = response.getHeader().getContentLength();
+        if (length > maxEntrySize)
+            return null;
+        if (length == -1 && !response.getBody().isRead()) {
+            // Chunked or unknown length: copy at most maxEntrySize bytes while the body is streamed to the client.
+            t.storing = true;
+            response.addObserver(new StoringObserver(t, CachedResponse.of(request, response, new byte[0], t.requestTime, now)));
+            return null;
+        }
+        byte[] body = response.getBody().getContent();
+        if (body.length <= maxEntrySize)
+            store.put(t.key, CachedResponse.of(request, response, body, t.requestTime, now));
+        return null;
+    }
+
+    /**
+     * Stores the response once its body is complete, unless the body exceeds <tt>maxEntrySize</tt>.
+     */
+    private final class StoringObserver extends BodyCollectingMessageObserver {
+
+        private final Transaction t;
+        private final CachedResponse head;
+
+        StoringObserver(Transaction t, CachedResponse head) {
+            super(Strategy.TRUNCATE, maxEntrySize);
+            this.t = t;
+            this.head = head;
+        }
+
+        @Override
+        public void bodyRequested(AbstractBody body) {
+        }
+
+        @Override
+        public void bodyChunk(Chunk chunk) {
+            super.bodyChunk(chunk);
+            if (isTruncated())
+                release(t); // will not be stored, so there is no point in waiting for it
+        }
+
+        @Override
+        public void bodyComplete(AbstractBody body) {
+            try {
+                if (isTruncated())
+                    return;
+                byte[] content = getBody(body).getContent();
+                if (content.length <= maxEntrySize)
+                    store.put(t.key, head.withBody(content));
+            } catch (Exception e) {
+                log.warn("Could not cache response.", e);
+            } finally {
+                release(t);
+            }
+        }
+    }
+
+    /**
+     * RFC 9111, section 3
+     */
+    private boolean isStorable(Request request, Response response) {
+        int status = response.getStatusCode();
+        if (status < 200 || status == 206 || status == 304)
+            return false;
+        Header header = response.getHeader();
+        CacheControl cacheControl = CacheControl.parse(header.getValuesAsString(CACHE_CONTROL));
+        if (cacheControl.has("no-store") || getCacheControl(request.getHeader()).has("no-store"))
+            return false;
+        String vary = header.getValuesAsString(VARY);
+        if (vary != null && vary.contains("*"))
+            return false;
+        if (shared) {
+            if (cacheControl.has("private") || header.contains(SET_COOKIE))
+                return false;
+            if (request.getHeader().contains(AUTHORIZATION)
+                && !(cacheControl.has("must-revalidate") || cacheControl.has("public") || cacheControl.getSeconds("s-maxage") != -1))
+                return false;
+        }
+        if (cacheControl.has("public") || cacheControl.getSeconds("max-age") != -1 || header.contains(EXPIRES)
+            || (shared && cacheControl.getSeconds("s-maxage") != -1))
+            return true;
+        // Without explicit freshness, only responses that can be validated are worth storing.
+        return CachedResponse.isHeuristicallyCacheable(status) && (header.contains(ETAG) || header.contains(LAST_MODIFIED));
+    }
+
+    private static Response createResponse(Header request, CachedResponse cached, long now) {
+        if (isNotModified(request.getValuesAsString(IF_NONE_MATCH), request.getFirstValue(IF_MODIFIED_SINCE), cached))
+            return cached.toNotModifiedResponse(now);
+        return cached.toResponse(now);
+    }
+
+    /**
+     * Evaluates the conditional request fields against a stored response, see RFC 9110, section 13.1.2 and 13.1.3.
+     */
+    static boolean isNotModified(String ifNoneMatch, String ifModifiedSince, CachedResponse cached) {
+        if (cached.getStatusCode() != 200)
+            return false;
+        if (ifNoneMatch != null) {
+            String etag = cached.getETag();
+            if (ifNoneMatch.trim().equals("*"))
+                return true;
+            if (etag == null)
+                return false;
+            for (String tag : ifNoneMatch.split(",")) {
+                if (weakEtag(tag).equals(weakEtag(etag)))
+                    return true;
+            }
+            return false;
+        }
+        long since = CachedResponse.parseDate(ifModifiedSince);
+        long lastModified = CachedResponse.parseDate(cached.getLastModified());
+        return since != -1 && lastModified != -1 && lastModified <= since;
+    }
+
+    private static String weakEtag(String etag) {
+        etag = etag.trim();
+        return etag.startsWith("W/") ? etag.substring(2) : etag;
+    }
+
+    /**
+     * <tt>Pragma: no-cache</tt> is only considered without <tt>Cache-Control</tt>, see RFC 9111, section 5.4.
+     */
+    private static CacheControl getCacheControl(Header header) {
+        String value = header.getValuesAsString(CACHE_CONTROL);
+        if (value == null && "no-cache".equalsIgnoreCase(header.getFirstValue(PRAGMA)))
+            return CacheControl.parse("no-cache");
+        return CacheControl.parse(value);
+    }
+
+    /**
+     * The target URL of the request, so that proxies for different backends do not share entries.
+     */
+    private static String getKey(Exchange exc) {
+        if (!exc.getDestinations().isEmpty())
+            return exc.getDestinations().getFirst();
+        return exc.getRequest().getHeader().getHost() + exc.getRequest().getUri();
+    }
+
+    void setClock(LongSupplier clock) {
+        this.clock = clock;
+    }
+
+    HttpCacheStore getStore() {
+        return store;
+    }
+
+    public long getMaxMemorySize() {
+        return maxMemorySize;
+    }
+
+    /**
+     * @description Maximum number of bytes occupied by stored responses in memory. Least recently used responses
+     * are evicted first.
+     * @default 67108864
+     */
+    @MCAttribute
+    public void setMaxMemorySize(long maxMemorySize) {
+        this.maxMemorySize = maxMemorySize;
+    }
+
+    public int getMaxEntrySize() {
+        return maxEntrySize;
+    }
+
+    /**
+     * @description Responses with larger bodies are not stored.
+     * @default 1048576
+     */
+    @MCAttribute
+    public void setMaxEntrySize(int maxEntrySize) {
+        this.maxEntrySize = maxEntrySize;
+    }
+
+    public String getDiskDir() {
+        return diskDir;
+    }
+
+    /**
+     * @description Directory for responses evicted from memory. If not set, responses are only kept in memory.
+     * The directory is cleared on startup.
+     * @example cache
+     */
+    @MCAttribute
+    public void setDiskDir(String diskDir) {
+        this.diskDir = diskDir;
+    }
+
+    public long getMaxDiskSize() {
+        return maxDiskSize;
+    }
+
+    /**
+     * @description Maximum number of bytes stored in <tt>diskDir</tt>.
+     * @default 1073741824
+     */
+    @MCAttribute
+    public void setMaxDiskSize(long maxDiskSize) {
+        this.maxDiskSize = maxDiskSize;
+    }
+
+    public boolean isShared() {
+        return shared;
+    }
+
+    /**
+     * @description Whether the cache is shared by several users, see RFC 9111, section 1. Set to <tt>false</tt> only
+     * if all requests come from a single user, e.g. a local developer proxy.
+     * @default true
+     */
+    @MCAttribute
+    public void setShared(boolean shared) {
+        this.shared = shared;
+    }
+
+    public long getCoalesceTimeout() {
+        return coalesceTimeout;
+    }
+
+    /**
+     * @description Milliseconds a request waits for a concurrent request fetching the same response, before it is
+     * sent to the backend as well.
+     * @default 10000
+     */
+    @MCAttribute
+    public void setCoalesceTimeout(long coalesceTimeout) {
+        this.coalesceTimeout = coalesceTimeout;
+    }
+
+    @Override
+    public String getShortDescription() {
+        return "Caches responses following RFC 9111. Up to %d bytes are kept in memory%s.".formatted(maxMemorySize,
+                diskDir == null ? "" : ", evicted responses are moved to " + diskDir);
+    }
+}
@@ -0,0 +1,78 @@
+/* Copyright 2026 predic8 GmbH, www.predic8.com
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+   http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License. */
+
+package com.predic8.membrane.core.interceptor.cache;
+
+import com.google.common.cache.*;
+import com.predic8.membrane.core.http.*;
+
+import java.util.*;
+
+/**
+ * Responses of the {@link HttpCacheInterceptor}, bounded by their size in memory. With a {@link DiskCacheTier}, entries
+ * evicted from memory move to disk and come back on the next hit.
+ */
+class HttpCacheStore {
+
+    private final Cache<String, Variants> memory;
+    private final DiskCacheTier disk;
+
+    HttpCacheStore(long maxMemorySize, DiskCacheTier disk) {
+        this.disk = disk;
+        memory = CacheBuilder.newBuilder()
+                .maximumWeight(maxMemorySize)
+                .weigher((String key, Variants variants) -> variants.getSize())
+                .removalListener((RemovalListener<String, Variants>) n -> {
+                    if (disk != null && n.getCause() == RemovalCause.SIZE)
+                        disk.spill(n.getKey(), n.getValue());
+                })
+                .build();
+    }
+
+    CachedResponse get(String key, Request request) {
+        Variants variants = memory.getIfPresent(key);
+        if (variants == null && disk != null) {
+            variants = disk.get(key);
+            if (variants != null) {
+                disk.remove(key);
+                memory.asMap().putIfAbsent(key, variants);
+            }
+        }
+        return variants == null ? null : variants.select(request);
+    }
+
+    void put(String key, CachedResponse response) {
+        if (disk != null)
+            disk.remove(key);
+        memory.asMap().compute(key, (k, variants) -> variants == null ? new Variants(List.of(response)) : variants.with(response));
+    }
+
+    /**
+     * Removes all variants of the key.
+     */
+    void invalidate(String key) {
+        memory.invalidate(key);
+        if (disk != null)
+            disk.remove(key);
+    }
+
+    void close() {
+        if (disk != null)
+            disk.close();
+    }
+
+    long getNumberOfKeys() {
+        return memory.size();
+    }
+}
@@ -0,0 +1,63 @@
+/* Copyright 2026 predic8 GmbH, www.predic8.com
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+   http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License. */
+
+package com.predic8.membrane.core.interceptor.cache;
+
+import com.predic8.membrane.core.http.*;
+
+import java.util.*;
+
+/**
+ * The stored responses of one cache key. They differ in the request header fields named by <tt>Vary</tt>.
+ * Immutable, the newest response comes first.
+ */
+record Variants(List<CachedResponse> responses) {
+
+    static final int MAX_VARIANTS = 16;
+
+    Variants {
+        responses = List.copyOf(responses);
+    }
+
+    /**
+     * RFC 9111, section 4.1: the most recent matching response is used.
+     */
+    CachedResponse select(Request request) {
+        for (CachedResponse response : responses) {
+            if (response.matches(request))
+                return response;
+        }
+        return null;
+    }
+
+    /**
+     * @return variants with the response replacing the one with the same selecting header fields
+     */
+    Variants with(CachedResponse response) {
+        List<CachedResponse> list = new ArrayList<>(responses.size() + 1);
+        list.add(response);
+        for (CachedResponse r : responses) {
+            if (list.size() < MAX_VARIANTS && !r.hasSameSelectingHeaders(response))
+                list.add(r);
+        }
+        return new Variants(list);
+    }
+
+    int getSize() {
+        int size = 32;
+        for (CachedResponse response : responses)
+            size += response.getSize();
+        return size;
+    }
+}
@@ -43,6 +43,11 @@ public abstract class AbstractFlowInterceptor extends AbstractInterceptor {
             i.init(router,proxy);
     }
 
+    @Override
+    public void stop() {
+        InterceptorUtil.stop(interceptors);
+    }
+
     protected static void createProblemDetails(String flow, Interceptor interceptor, Exchange exc, Exception e) {
         String msg = "Aborting! Exception caused by %s %s during %s flow.".formatted(exc.getRequest().getUri(), flow, interceptor.getDisplayName()); // Flow is capital to make it the same as in other places
         log.warn(msg, e);
@@ -13,6 +13,8 @@
 package com.predic8.membrane.core.interceptor.jwt;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import com.predic8.membrane.annot.MCAttribute;
 import com.predic8.membrane.annot.MCChildElement;
 import com.predic8.membrane.annot.MCElement;
@@ -21,6 +23,8 @@ import com.predic8.membrane.core.interceptor.AbstractInterceptor;
 import com.predic8.membrane.core.interceptor.Outcome;
 import com.predic8.membrane.core.security.JWTSecurityScheme;
 import org.jose4j.jwk.RsaJsonWebKey;
+import org.jose4j.jwt.JwtClaims;
+import org.jose4j.jwt.MalformedClaimException;
 import org.jose4j.jwt.consumer.InvalidJwtException;
 import org.jose4j.jwt.consumer.InvalidJwtSignatureException;
 import org.jose4j.jwt.consumer.JwtConsumer;
@@ -28,12 +32,20 @@ import org.jose4j.jwt.consumer.JwtConsumerBuilder;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.function.LongSupplier;
 
 import static com.predic8.membrane.core.exceptions.ProblemDetails.security;
 import static com.predic8.membrane.core.interceptor.Interceptor.Flow.REQUEST;
 import static com.predic8.membrane.core.interceptor.Outcome.CONTINUE;
 import static com.predic8.membrane.core.interceptor.Outcome.RETURN;
+import static java.nio.charset.StandardCharsets.UTF_8;
 import static java.util.EnumSet.of;
 import static org.apache.commons.text.StringEscapeUtils.escapeHtml4;
 
@@ -69,13 +81,30 @@ public class JwtAuthInterceptor extends AbstractInterceptor {
     public static final String ERROR_JWT_VALUE_NOT_PRESENT_ID = "jwt-payload-entry-missing";
     private static final Logger log = LoggerFactory.getLogger(JwtAuthInterceptor.class);
 
+    private static final int ALLOWED_CLOCK_SKEW_SECONDS = 30;
+
     JwtRetriever jwtRetriever;
     Jwks jwks;
     String expectedAud;
     String expectedTid;
     String expectedIss;
     String scopesClaim = "scp";
+    int verifiedJwtCacheSize = 10_000;
+
+    /**
+     * Tokens that passed validation, keyed by their hash. Repeated requests with the same token skip parsing and
+     * signature verification.
+     */
+    private Cache<String, VerifiedJwt> verifiedJwts;
+
+    /**
+     * Consumers per key. Weak keys compare by identity, so keys replaced by a JWKS refresh get new consumers.
+     */
+    private final Cache<RsaJsonWebKey, JwtConsumer> consumers = CacheBuilder.newBuilder().weakKeys().build();
+
+    LongSupplier clock = System::currentTimeMillis;
 
+    private record VerifiedJwt(String kid, RsaJsonWebKey key, Map<String, Object> claims, long validUntil) {}
 
     public JwtAuthInterceptor() {
         name = "jwt checker.";
@@ -89,6 +118,8 @@ public class JwtAuthInterceptor extends AbstractInterceptor {
             jwtRetriever = new HeaderJwtRetriever("Authorization","Bearer");
 
         jwks.init(router);
+        if (verifiedJwtCacheSize > 0)
+            verifiedJwts = CacheBuilder.newBuilder().maximumSize(verifiedJwtCacheSize).build();
     }
 
     @Override
@@ -148,6 +179,26 @@ public class JwtAuthInterceptor extends AbstractInterceptor {
             throw new JWTException(ERROR_JWT_NOT_FOUND, ERROR_JWT_NOT_FOUND_ID);
         }
 
+        Map<String, Object> jwtClaims = getVerifiedClaims(jwt);
+
+        exc.getProperties().put("jwt",jwtClaims);
+
+        new JWTSecurityScheme(jwtClaims, scopesClaim).add(exc);
+
+        return CONTINUE;
+    }
+
+    private Map<String, Object> getVerifiedClaims(String jwt) throws JWTException, JsonProcessingException, InvalidJwtException {
+        String hash = verifiedJwts == null ? null : hash(jwt);
+        if (hash != null) {
+            VerifiedJwt verified = verifiedJwts.getIfPresent(hash);
+            if (verified != null) {
+                if (verified.validUntil() > clock.getAsLong() && isCurrentKey(verified))
+                    return copyClaims(verified.claims());
+                verifiedJwts.invalidate(hash);
+            }
+        }
+
         var decodedJwt = new JsonWebToken(jwt);
         var kid = decodedJwt.getHeader().kid();
 
@@ -158,19 +209,66 @@ public class JwtAuthInterceptor extends AbstractInterceptor {
             return new JWTException(ERROR_UNKNOWN_KEY, ERROR_UNKNOWN_KEY_ID);
         });
 
-        Map<String, Object> jwtClaims = createValidator(key).processToClaims(jwt).getClaimsMap();
+        JwtClaims claims = consumers.asMap().computeIfAbsent(key, this::createValidator).processToClaims(jwt);
+        Map<String, Object> jwtClaims = claims.getClaimsMap();
+        if (hash != null)
+            verifiedJwts.put(hash, new VerifiedJwt(kid, key, copyClaims(jwtClaims), getValidUntil(claims)));
+        return jwtClaims;
+    }
 
-        exc.getProperties().put("jwt",jwtClaims);
+    /**
+     * A token stays valid as long as its key is served by the JWKS. A refresh returning the same key keeps it.
+     */
+    private boolean isCurrentKey(VerifiedJwt verified) {
+        return jwks.getKeyByKid(verified.kid())
+                .map(current -> current == verified.key() || current.getRsaPublicKey().equals(verified.key().getRsaPublicKey()))
+                .orElse(false);
+    }
 
-        new JWTSecurityScheme(jwtClaims, scopesClaim).add(exc);
+    /**
+     * Copies nested objects and arrays as well, so that an exchange modifying its claims does not change the claims
+     * cached for other exchanges.
+     */
+    @SuppressWarnings("unchecked")
+    private static Map<String, Object> copyClaims(Map<String, Object> claims) {
+        return (Map<String, Object>) copyClaim(claims);
+    }
 
-        return CONTINUE;
+    private static Object copyClaim(Object value) {
+        if (value instanceof Map<?, ?> map) {
+            Map<Object, Object> copy = new LinkedHashMap<>();
+            map.forEach((k, v) -> copy.put(k, copyClaim(v)));
+            return copy;
+        }
+        if (value instanceof List<?> list) {
+            List<Object> copy = new ArrayList<>(list.size());
+            for (Object v : list)
+                copy.add(copyClaim(v));
+            return copy;
+        }
+        return value;
+    }
+
+    private static long getValidUntil(JwtClaims claims) {
+        try {
+            return claims.getExpirationTime().getValueInMillis() + ALLOWED_CLOCK_SKEW_SECONDS * 1000L;
+        } catch (MalformedClaimException e) {
+            return 0; // not cached
+        }
+    }
+
+    private static String hash(String jwt) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(jwt.getBytes(UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new RuntimeException(e);
+        }
     }
 
     private JwtConsumer createValidator(RsaJsonWebKey key) {
         JwtConsumerBuilder jwtConsumerBuilder = new JwtConsumerBuilder()
                 .setRequireExpirationTime()
-                .setAllowedClockSkewInSeconds(30)
+                .setAllowedClockSkewInSeconds(ALLOWED_CLOCK_SKEW_SECONDS)
                 .setRequireSubject()
                 .setVerificationKey(key.getRsaPublicKey());
 
@@ -260,6 +358,21 @@ public class JwtAuthInterceptor extends AbstractInterceptor {
         this.expectedIss = expectedIss;
     }
 
+    public int getVerifiedJwtCacheSize() {
+        return verifiedJwtCacheSize;
+    }
+
+    /**
+     * @description
+     * <p>Maximum number of validated tokens remembered until they expire. A remembered token is accepted without
+     * checking its signature again, as long as its key is still part of the JWKS. 0 disables the cache.</p>
+     * @default 10000
+     */
+    @MCAttribute
+    public void setVerifiedJwtCacheSize(int verifiedJwtCacheSize) {
+        this.verifiedJwtCacheSize = verifiedJwtCacheSize;
+    }
+
     public String getScopesClaim() {
         return scopesClaim;
     }
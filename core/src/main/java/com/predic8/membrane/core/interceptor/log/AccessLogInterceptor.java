@@ -21,7 +21,9 @@ import com.predic8.membrane.core.exchange.Exchange;
 import com.predic8.membrane.core.interceptor.AbstractInterceptor;
 import com.predic8.membrane.core.interceptor.Outcome;
 import com.predic8.membrane.core.interceptor.log.access.AccessLogInterceptorService;
+import com.predic8.membrane.core.util.ConfigurationException;
 
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -29,8 +31,9 @@ import static com.predic8.membrane.core.interceptor.Outcome.CONTINUE;
 
 /**
  * @description Writes one access-log line per completed exchange through a Log4j appender. The line follows the Apache
- * Common Log Format by default; add additionalPatternList entries to append your own SpEL-evaluated fields. Where the
- * line is written and in which format is controlled by the Log4j configuration (log4j2.xml). Typically configured under
+ * Common Log Format by default; add additionalPatternList entries to append your own SpEL-evaluated fields. By default,
+ * where the line is written and in which format is controlled by the Log4j configuration (log4j2.xml). Alternatively,
+ * set a format and let a background thread write the lines to a file or to stdout. Typically configured under
  * <code>global</code> so it covers every API. See the examples under examples/logging/access.
  * @topic 4. Monitoring, Logging and Statistics
  * @yaml
@@ -48,8 +51,27 @@ public class AccessLogInterceptor extends AbstractInterceptor {
     private String defaultValue = "-";
     private String dateTimePattern = "dd/MM/yyyy:HH:mm:ss Z";
     private boolean excludePayloadSize = false;
+    private String format;
+    private Output output = Output.LOG4J;
+    private String file;
 
     private AccessLogInterceptorService accessLogInterceptorService;
+    private AccessLogWriter writer;
+
+    public enum Output {
+        /**
+         * Through the Log4j logger <code>com.predic8.membrane.core.interceptor.log.access</code>.
+         */
+        LOG4J,
+        /**
+         * Appended to <code>file</code> by a background thread.
+         */
+        FILE,
+        /**
+         * Written to stdout by a background thread.
+         */
+        STDOUT
+    }
 
     public AccessLogInterceptor() {
         name = "access log";
@@ -64,15 +86,43 @@ public class AccessLogInterceptor extends AbstractInterceptor {
     public void init() {
         super.init();
 
+        stop();
+        writer = createWriter();
         accessLogInterceptorService = new AccessLogInterceptorService(
                 dateTimePattern,
                 defaultValue,
                 additionalVariables,
                 excludePayloadSize,
-                router
+                router,
+                format,
+                writer
         );
     }
 
+    @Override
+    public void stop() {
+        if (writer == null)
+            return;
+        writer.release();
+        writer = null;
+    }
+
+    private AccessLogWriter createWriter() {
+        return switch (output) {
+            case LOG4J -> null;
+            case STDOUT -> AccessLogWriter.stdout();
+            case FILE -> {
+                if (file == null)
+                    throw new ConfigurationException("accessLog with output=\"file\" needs the file attribute.");
+                try {
+                    yield AccessLogWriter.file(file);
+                } catch (IOException e) {
+                    throw new ConfigurationException("Cannot open access log file %s.".formatted(file), e);
+                }
+            }
+        };
+    }
+
     @Override
     public Outcome handleResponse(Exchange exc) {
         accessLogInterceptorService.handleAccessLogging(exc);
@@ -127,6 +177,49 @@ public class AccessLogInterceptor extends AbstractInterceptor {
         this.dateTimePattern = dateTimePattern;
     }
 
+    public String getFormat() {
+        return format;
+    }
+
+    /**
+     * @description Format of the log line. Variables are referenced like in log4j2.xml, e.g. <code>%X{ip}</code> or
+     * <code>%X{statusCode}</code>. The format is compiled once and the line is rendered by Membrane instead of by an
+     * MDC-based Log4j layout. With <code>output="log4j"</code> the line is the log message, use <code>%m</code> in the
+     * layout. If not set, Log4j output uses the MDC, the other outputs use the Common Log Format.
+     * @example %X{ip} [%X{time.req.received.format}] "%X{http.method} %X{uri}" %X{statusCode}
+     */
+    @MCAttribute
+    public void setFormat(String format) {
+        this.format = format;
+    }
+
+    public Output getOutput() {
+        return output;
+    }
+
+    /**
+     * @description Where to write the lines. <code>file</code> and <code>stdout</code> write on a background thread
+     * in batches, bypassing Log4j.
+     * @default log4j
+     */
+    @MCAttribute
+    public void setOutput(Output output) {
+        this.output = output;
+    }
+
+    public String getFile() {
+        return file;
+    }
+
+    /**
+     * @description The file to append the lines to when <code>output="file"</code>.
+     * @example access.log
+     */
+    @MCAttribute
+    public void setFile(String file) {
+        this.file = file;
+    }
+
     @SuppressWarnings("unused")
     public boolean isExcludePayloadSize() {
         return excludePayloadSize;
@@ -0,0 +1,325 @@
+/* Copyright 2026 predic8 GmbH, www.predic8.com
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+   http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License. */
+
+package com.predic8.membrane.core.interceptor.log;
+
+import org.slf4j.*;
+
+import java.io.*;
+import java.nio.*;
+import java.nio.channels.*;
+import java.nio.charset.*;
+import java.nio.file.*;
+import java.nio.file.attribute.*;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.locks.*;
+
+import static java.nio.charset.CodingErrorAction.*;
+import static java.nio.charset.StandardCharsets.*;
+import static java.nio.file.StandardOpenOption.*;
+
+/**
+ * Writes access log lines to a file or to stdout on a background thread.
+ * <p>
+ * A line is copied into a buffer, and the background thread writes everything buffered in one go. So logging a line
+ * does not wait for the disk and does not allocate. If the disk cannot keep up and the buffer is full, lines are
+ * dropped and the number of dropped lines is reported.
+ * <p>
+ * There is one writer per destination, shared by all <code>accessLog</code> interceptors using it. Each of them
+ * acquires the writer in <code>init</code> and releases it in <code>stop</code>; the last release flushes the buffer,
+ * ends the thread and closes the file. When the file is moved away or deleted, e.g. by logrotate, it is opened again
+ * under its name. As lines are appended, writing continues at the new end after the file was truncated.
+ */
+public class AccessLogWriter {
+
+    private static final Logger log = LoggerFactory.getLogger(AccessLogWriter.class);
+
+    static final int MAX_BUFFERED_CHARS = 1024 * 1024;
+    private static final int OUTPUT_BUFFER_SIZE = 64 * 1024;
+    private static final long FLUSH_ON_SHUTDOWN_MS = 5000;
+    private static final long FLUSH_ON_CLOSE_MS = 5000;
+    static final long REOPEN_CHECK_INTERVAL_MS = 1000;
+
+    private static final ReentrantLock writersLock = new ReentrantLock();
+    private static final Map<String, AccessLogWriter> writers = new HashMap<>(); // guarded by writersLock
+
+    static {
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            for (AccessLogWriter writer : getWriters())
+                writer.flush(FLUSH_ON_SHUTDOWN_MS);
+        }, "access log shutdown"));
+    }
+
+    private final String name;
+    private final Path path;
+    private final int maxBufferedChars;
+    private final Thread thread;
+    private int references; // guarded by writersLock
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition notEmpty = lock.newCondition();
+    private final Condition written = lock.newCondition();
+
+    // guarded by lock
+    private StringBuilder filling = new StringBuilder(8192);
+    private boolean writing;
+    private long dropped;
+    private boolean closed;
+
+    // only used by the writer thread, and by close() after the thread ended
+    private WritableByteChannel channel;
+    private Object fileKey;
+    private long lastReopenCheck = System.currentTimeMillis();
+    private StringBuilder draining = new StringBuilder(8192);
+    private final CharsetEncoder encoder = UTF_8.newEncoder().onMalformedInput(REPLACE).onUnmappableCharacter(REPLACE);
+    private final ByteBuffer out = ByteBuffer.allocate(OUTPUT_BUFFER_SIZE);
+
+    AccessLogWriter(String name, WritableByteChannel channel, int maxBufferedChars) {
+        this(name, null, channel, maxBufferedChars);
+    }
+
+    private AccessLogWriter(String name, Path path, WritableByteChannel channel, int maxBufferedChars) {
+        this.name = name;
+        this.path = path;
+        this.channel = channel;
+        this.maxBufferedChars = maxBufferedChars;
+        if (path != null)
+            fileKey = getFileKey(path);
+        thread = Thread.ofPlatform().daemon().name("Access Log Writer " + name).start(this::run);
+    }
+
+    /**
+     * Acquires the writer for stdout. Call {@link #release()} when done.
+     */
+    public static AccessLogWriter stdout() {
+        writersLock.lock();
+        try {
+            AccessLogWriter writer = writers.computeIfAbsent("stdout", k -> new AccessLogWriter(k, Channels.newChannel(System.out), MAX_BUFFERED_CHARS));
+            writer.references++;
+            return writer;
+        } finally {
+            writersLock.unlock();
+        }
+    }
+
+    /**
+     * Acquires the writer for the file. The file is created if necessary and lines are appended. Call
+     * {@link #release()} when done.
+     */
+    public static AccessLogWriter file(String fileName) throws IOException {
+        Path path = Path.of(fileName).toAbsolutePath().normalize();
+        writersLock.lock();
+        try {
+            AccessLogWriter writer = writers.get(path.toString());
+            if (writer == null) {
+                writer = new AccessLogWriter(path.toString(), path, open(path), MAX_BUFFERED_CHARS);
+                writers.put(path.toString(), writer);
+            }
+            writer.references++;
+            return writer;
+        } finally {
+            writersLock.unlock();
+        }
+    }
+
+    private static List<AccessLogWriter> getWriters() {
+        writersLock.lock();
+        try {
+            return List.copyOf(writers.values());
+        } finally {
+            writersLock.unlock();
+        }
+    }
+
+    /**
+     * Releases the writer. The last release writes the buffered lines and closes the file.
+     */
+    public void release() {
+        writersLock.lock();
+        try {
+            if (references == 0 || --references > 0)
+                return;
+            writers.remove(name, this);
+        } finally {
+            writersLock.unlock();
+        }
+        close();
+    }
+
+    private void close() {
+        if (!flush(FLUSH_ON_CLOSE_MS))
+            log.warn("Could not write all lines of access log {} before closing it.", name);
+        lock.lock();
+        try {
+            closed = true;
+            notEmpty.signal();
+        } finally {
+            lock.unlock();
+        }
+        try {
+            thread.join(FLUSH_ON_CLOSE_MS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (path == null)
+            return; // stdout stays open
+        try {
+            channel.close();
+        } catch (IOException e) {
+            log.debug("Could not close access log {}.", name, e);
+        }
+    }
+
+    /**
+     * Buffers the line. A line separator is added.
+     */
+    public void write(CharSequence line) {
+        lock.lock();
+        try {
+            if (closed)
+                return;
+            if (filling.length() + line.length() + 1 > maxBufferedChars) {
+                dropped++;
+                return;
+            }
+            boolean wasEmpty = filling.isEmpty();
+            filling.append(line).append('\n');
+            if (wasEmpty)
+                notEmpty.signal();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Waits until the lines buffered so far are written.
+     *
+     * @return false, if the timeout elapsed before
+     */
+    public boolean flush(long timeoutMillis) {
+        lock.lock();
+        try {
+            long nanos = TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+            while (!filling.isEmpty() || writing) {
+                if (nanos <= 0)
+                    return false;
+                nanos = written.awaitNanos(nanos);
+            }
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void run() {
+        while (true) {
+            long droppedLines;
+            lock.lock();
+            try {
+                writing = false;
+                while (filling.isEmpty()) {
+                    written.signalAll();
+                    if (closed)
+                        return;
+                    notEmpty.await();
+                }
+                StringBuilder batch = filling;
+                filling = draining;
+                draining = batch;
+                writing = true;
+                droppedLines = dropped;
+                dropped = 0;
+            } catch (InterruptedException e) {
+                return;
+            } finally {
+                lock.unlock();
+            }
+            if (droppedLines > 0)
+                log.warn("Dropped {} lines of access log {}, as it could not be written fast enough.", droppedLines, name);
+            reopenIfMoved();
+            writeBatch();
+        }
+    }
+
+    private void writeBatch() {
+        CharBuffer in = CharBuffer.wrap(draining);
+        encoder.reset();
+        try {
+            while (encoder.encode(in, out, true).isOverflow())
+                drain();
+            while (encoder.flush(out).isOverflow())
+                drain();
+            drain();
+        } catch (IOException e) {
+            log.warn("Could not write access log {}: {}", name, e.getMessage());
+            out.clear();
+        }
+        draining.setLength(0);
+        if (draining.capacity() > maxBufferedChars / 4)
+            draining = new StringBuilder(8192);
+    }
+
+    /**
+     * Opens the file again, if it was moved away or deleted since it was opened.
+     */
+    private void reopenIfMoved() {
+        if (path == null)
+            return;
+        long now = System.currentTimeMillis();
+        if (now - lastReopenCheck < REOPEN_CHECK_INTERVAL_MS)
+            return;
+        lastReopenCheck = now;
+        Object current = getFileKey(path);
+        if (current != null && current.equals(fileKey))
+            return;
+        if (current == null && fileKey == null && Files.exists(path))
+            return; // file keys are not supported by the file system
+        try {
+            WritableByteChannel reopened = open(path);
+            channel.close();
+            channel = reopened;
+            fileKey = getFileKey(path);
+            log.info("Reopened access log {}, as it was moved or deleted.", name);
+        } catch (IOException e) {
+            log.warn("Could not reopen access log {}: {}", name, e.getMessage());
+        }
+    }
+
+    private static FileChannel open(Path path) throws IOException {
+        return FileChannel.open(path, CREATE, WRITE, APPEND);
+    }
+
+    /**
+     * @return the identity of the file (device and inode on Unix), or null if it does not exist or the file system
+     * does not support it
+     */
+    private static Object getFileKey(Path path) {
+        try {
+            return Files.readAttributes(path, BasicFileAttributes.class).fileKey();
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    private void drain() throws IOException {
+        out.flip();
+        while (out.hasRemaining())
+            channel.write(out);
+        out.clear();
+    }
+}
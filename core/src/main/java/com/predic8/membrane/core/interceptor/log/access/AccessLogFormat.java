@@ -0,0 +1,153 @@
+/* Copyright 2026 predic8 GmbH, www.predic8.com
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+   http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License. */
+
+package com.predic8.membrane.core.interceptor.log.access;
+
+import com.predic8.membrane.core.exchange.*;
+import com.predic8.membrane.core.lang.spel.*;
+import com.predic8.membrane.core.router.*;
+import com.predic8.membrane.core.util.*;
+
+import java.util.*;
+import java.util.regex.*;
+
+import static com.predic8.membrane.core.interceptor.Interceptor.Flow.*;
+
+/**
+ * A format for access log lines like <code>%X{ip} [%X{time.req.received.format}] "%X{http.method} %X{uri}"</code>.
+ * Variables are referenced as <code>%X{name}</code>, using the names of the MDC keys, so that the pattern of a Log4j
+ * layout can be reused. <code>%%</code> stands for a single <code>%</code>.
+ * <p>
+ * The format is compiled once. Rendering appends the values of the variables straight to a {@link StringBuilder}.
+ */
+class AccessLogFormat {
+
+    /**
+     * The Common Log Format of the Apache HTTP Server.
+     */
+    static final String COMMON_LOG_FORMAT = "%X{ip} - - [%X{time.req.received.format}] \"%X{http.method} %X{uri} HTTP/%X{http.version}\" %X{statusCode} %X{res.payload.size}";
+
+    private static final Pattern VARIABLE = Pattern.compile("%X\\{([^}]+)}|%%");
+
+    private final Part[] parts;
+
+    AccessLogFormat(String format, Map<String, Variable> variables) {
+        List<Part> parts = new ArrayList<>();
+        Matcher m = VARIABLE.matcher(format);
+        int pos = 0;
+        while (m.find()) {
+            if (m.start() > pos)
+                parts.add(new Literal(format.substring(pos, m.start())));
+            if (m.group(1) == null) {
+                parts.add(new Literal("%"));
+            } else {
+                Variable v = variables.get(m.group(1));
+                if (v == null)
+                    throw new ConfigurationException("Unknown variable %%X{%s} in access log format. Known variables: %s".formatted(m.group(1), variables.keySet()));
+                parts.add(v);
+            }
+            pos = m.end();
+        }
+        if (pos < format.length())
+            parts.add(new Literal(format.substring(pos)));
+        this.parts = parts.toArray(new Part[0]);
+    }
+
+    void render(Line line, StringBuilder sb) {
+        for (Part part : parts)
+            part.append(line, sb);
+    }
+
+    sealed interface Part permits Literal, Variable {
+        void append(Line line, StringBuilder sb);
+    }
+
+    record Literal(String text) implements Part {
+        @Override
+        public void append(Line line, StringBuilder sb) {
+            sb.append(text);
+        }
+    }
+
+    /**
+     * Appends the value of a variable. Quotes are escaped. If the value is null or cannot be determined, the default
+     * value is appended instead.
+     */
+    @FunctionalInterface
+    interface Value {
+        void append(Line line, StringBuilder sb) throws Exception;
+    }
+
+    record Variable(Value value, String defaultValue) implements Part {
+        @Override
+        public void append(Line line, StringBuilder sb) {
+            int mark = sb.length();
+            try {
+                value.append(line, sb);
+            } catch (Exception e) {
+                sb.setLength(mark);
+                sb.append(defaultValue);
+            }
+        }
+    }
+
+    /**
+     * Appends <code>s</code> with escaped quotes.
+     *
+     * @throws NullPointerException if <code>s</code> is null, so that the default value is used
+     */
+    static void appendEscaped(StringBuilder sb, CharSequence s) {
+        int length = s.length();
+        for (int i = 0; i < length; i++) {
+            char c = s.charAt(i);
+            if (c == '"')
+                sb.append('\\');
+            sb.append(c);
+        }
+    }
+
+    /**
+     * State of rendering the line of one exchange. Instances are reused for the next exchange.
+     */
+    static final class Line {
+
+        final StringBuilder sb = new StringBuilder(256);
+        private final Router router;
+        private Exchange exchange;
+        private SpELExchangeEvaluationContext spel;
+
+        Line(Router router) {
+            this.router = router;
+        }
+
+        void reset(Exchange exchange) {
+            this.exchange = exchange;
+            spel = null;
+            sb.setLength(0);
+        }
+
+        Exchange exchange() {
+            return exchange;
+        }
+
+        /**
+         * Created on first use and shared by all SpEL variables of the line.
+         */
+        SpELExchangeEvaluationContext spel() {
+            if (spel == null)
+                spel = new SpELExchangeEvaluationContext(exchange, REQUEST, router);
+            return spel;
+        }
+    }
+}
@@ -12,40 +12,48 @@
    See the License for the specific language governing permissions and
    limitations under the License. */
 
-
 package com.predic8.membrane.core.interceptor.log.access;
 
 import com.predic8.membrane.core.exchange.*;
 import com.predic8.membrane.core.http.*;
 import com.predic8.membrane.core.interceptor.log.*;
-import com.predic8.membrane.core.lang.spel.*;
+import com.predic8.membrane.core.interceptor.log.access.AccessLogFormat.*;
 import com.predic8.membrane.core.router.*;
 import org.slf4j.*;
 
-import java.io.*;
-import java.time.format.*;
 import java.util.*;
+import java.util.concurrent.*;
 import java.util.function.*;
-import java.util.stream.*;
 
-import static com.predic8.membrane.core.interceptor.Interceptor.Flow.*;
-import static com.predic8.membrane.core.util.text.TextUtil.*;
-import static java.lang.Long.*;
-import static java.time.Instant.*;
-import static java.time.ZoneId.*;
-import static java.time.format.DateTimeFormatter.*;
+import static com.predic8.membrane.core.interceptor.log.access.AccessLogFormat.*;
 
 public class AccessLogInterceptorService {
 
     private static final Logger log = LoggerFactory.getLogger(AccessLogInterceptorService.class);
 
+    /**
+     * Lines grown beyond this are not reused, so that one huge line does not keep its buffer forever.
+     */
+    private static final int MAX_REUSED_LINE_LENGTH = 16 * 1024;
+
     // Fixes AccessLogInterceptor: Synchronization Problem with SimpleDateFormat #2672. Thanks, Bernd
-    private final DateTimeFormatter dateTimeFormat;
+    private final TimestampFormatter timestampFormatter;
     private final String defaultValue;
-    private final List<AdditionalVariable> additionalVariables;
-    private final boolean excludePayloadSize;
     private final Router router;
 
+    /**
+     * All variables by name, in the order they are put into the MDC.
+     */
+    private final Map<String, Variable> variables = new LinkedHashMap<>();
+
+    private final AccessLogFormat format;
+    private final AccessLogWriter writer;
+
+    /**
+     * Reusable render state. A pool rather than a thread local, as exchanges may run on virtual threads.
+     */
+    private final Queue<Line> lines = new ConcurrentLinkedQueue<>();
+
     public AccessLogInterceptorService(
             String dateTimePattern,
             String defaultValue,
@@ -53,11 +61,38 @@ public class AccessLogInterceptorService {
             boolean excludePayloadSize,
             Router router
     ) {
-        this.dateTimeFormat = ofPattern(dateTimePattern).withZone(systemDefault());
+        this(dateTimePattern, defaultValue, additionalVariables, excludePayloadSize, router, null, null);
+    }
+
+    /**
+     * @param format the format of the line, or null to log an empty message with all variables in the MDC
+     * @param writer the writer to write the line to, or null to log it through Log4j
+     */
+    public AccessLogInterceptorService(
+            String dateTimePattern,
+            String defaultValue,
+            List<AdditionalVariable> additionalVariables,
+            boolean excludePayloadSize,
+            Router router,
+            String format,
+            AccessLogWriter writer
+    ) {
+        this.timestampFormatter = new TimestampFormatter(dateTimePattern);
         this.defaultValue = defaultValue;
-        this.additionalVariables = additionalVariables;
-        this.excludePayloadSize = excludePayloadSize;
         this.router = router;
+        this.writer = writer;
+        addBaseVariables();
+        addTimeVariables();
+        if (!excludePayloadSize) {
+            addVariable("req.payload.size", (line, sb) -> sb.append(line.exchange().getRequest().getBody().getLength()));
+            addVariable("res.payload.size", (line, sb) -> sb.append(line.exchange().getResponse().getBody().getLength()));
+        }
+        for (AdditionalVariable av : additionalVariables) {
+            variables.put(av.getName(), new Variable((line, sb) -> appendEscaped(sb, String.valueOf(Objects.requireNonNull(av.getExpression().getValue(line.spel())))), av.getDefaultValue()));
+        }
+        if (format == null && writer != null)
+            format = COMMON_LOG_FORMAT;
+        this.format = format == null ? null : new AccessLogFormat(format, variables);
     }
 
     /**
@@ -65,112 +100,93 @@ public class AccessLogInterceptorService {
      * MDC often uses ThreadLocals to archive thread safety.
      * Using thread pools and reusing borrowed threads could lead to leftover MDC data
      * to be thread pool safe, we simply clear the MDC after usage
+     * <p>
+     * With a format, the rendered line is the message instead, or is handed to the writer.
      *
      * @param exc - The HTTP exchange
      */
     public void handleAccessLogging(Exchange exc) {
-        MDC.setContextMap(generateMDCMap(exc));
-        log.info("");
-        MDC.clear();
-    }
-
-    private Map<String,String> generateMDCMap(Exchange exc) {
-        var ctx = new HashMap<>(getBaseProperties(exc));
-
-        ctx.putAll(getTimeProperties(exc));
-        ctx.putAll(getTimeProperties2(exc));
-
-        if (!excludePayloadSize) {
-            ctx.put("req.payload.size", safe(getPayLoadSize(exc.getRequest())));
-            ctx.put("res.payload.size", safe(getPayLoadSize(exc.getResponse())));
+        Line line = acquire(exc);
+        try {
+            if (writer != null) {
+                format.render(line, line.sb);
+                writer.write(line.sb);
+                return;
+            }
+            if (format == null)
+                MDC.setContextMap(generateMDCMap(line));
+            else
+                format.render(line, line.sb);
+            log.info("{}", line.sb.toString());
+            MDC.clear();
+        } finally {
+            release(line);
         }
-
-        ctx.putAll(getAdditionalProvidedPattern(exc));
-
-        return ctx;
-    }
-
-    private Map<String, String> getTimeProperties2(Exchange exc) {
-        return Map.of(
-                "time.diff.received.raw", safe(() -> exc.getTimeResReceived() - exc.getTimeReqReceived()),
-                "time.diff.received.format", convert(safe(() -> exc.getTimeResReceived() - exc.getTimeReqReceived())),
-
-                "time.diff.sent.raw", safe(() -> exc.getTimeResSent() - exc.getTimeReqSent()),
-                "time.diff.sent.format", convert(safe(() -> exc.getTimeResSent() - exc.getTimeReqSent()))
-        );
     }
 
-    private Map<String, String> getTimeProperties(Exchange exc) {
-        return Map.of(
-                "time.req.received.raw", safe(exc::getTimeReqReceived),
-                "time.req.received.format", convert(safe(exc::getTimeReqReceived)),
-                "time.req.sent.raw", safe(exc::getTimeReqSent),
-                "time.req.sent.format", convert(safe(exc::getTimeReqSent)),
-
-                "time.res.received.raw", safe(exc::getTimeResReceived),
-                "time.res.received.format", convert(safe(exc::getTimeResReceived)),
-                "time.res.sent.raw", safe(exc::getTimeResSent),
-                "time.res.sent.format", convert(safe(exc::getTimeResSent))
-        );
+    /**
+     * Renders the line of an exchange without logging it.
+     */
+    String render(Exchange exc) {
+        Line line = acquire(exc);
+        try {
+            format.render(line, line.sb);
+            return line.sb.toString();
+        } finally {
+            release(line);
+        }
     }
 
-    private Map<String, String> getBaseProperties(Exchange exc) {
-        return Map.of(
-                "ip", safe(exc::getRemoteAddrIp),
-                "host", safe(exc::getOriginalHostHeaderHost),
-                "port", safe(exc::getOriginalHostHeaderPort),
-                "uri", safe(exc::getOriginalRequestUri),
-                "proto", safe(() -> exc.getRequest().getHeader().getFirstValue("x-forwarded-proto").toUpperCase()),
-                "http.version", safe(() -> exc.getRequest().getVersion()),
-                "http.method", safe(() -> exc.getRequest().getMethod()),
-                "statusCode", safe(() -> exc.getResponse().getStatusCode())
-        );
+    private Map<String, String> generateMDCMap(Line line) {
+        var ctx = new HashMap<String, String>(variables.size() * 2);
+        for (Map.Entry<String, Variable> e : variables.entrySet()) {
+            e.getValue().append(line, line.sb);
+            ctx.put(e.getKey(), line.sb.toString());
+            line.sb.setLength(0);
+        }
+        return ctx;
     }
 
-    private Supplier<Object> getPayLoadSize(Message msg) {
-        return () -> {
-            try {
-                return msg.getBody().getLength();
-            } catch (ReadingBodyException e) {
-                return defaultValue;
-            }
-        };
+    private Line acquire(Exchange exc) {
+        Line line = lines.poll();
+        if (line == null)
+            line = new Line(router);
+        line.reset(exc);
+        return line;
     }
 
-    private String safe(Supplier<Object> access) {
-        return safe(access, defaultValue);
+    private void release(Line line) {
+        line.reset(null);
+        if (line.sb.capacity() <= MAX_REUSED_LINE_LENGTH)
+            lines.offer(line);
     }
 
-    private String safe(Supplier<Object> access, String defaultValue) {
-        try {
-            return escapeQuotes(String.valueOf(access.get()));
-        } catch (Exception e) {
-            return defaultValue;
-        }
+    private void addBaseVariables() {
+        addVariable("ip", (line, sb) -> appendEscaped(sb, line.exchange().getRemoteAddrIp()));
+        addVariable("host", (line, sb) -> appendEscaped(sb, line.exchange().getOriginalHostHeaderHost()));
+        addVariable("port", (line, sb) -> appendEscaped(sb, line.exchange().getOriginalHostHeaderPort()));
+        addVariable("uri", (line, sb) -> appendEscaped(sb, line.exchange().getOriginalRequestUri()));
+        addVariable("proto", (line, sb) -> appendEscaped(sb, line.exchange().getRequest().getHeader().getFirstValue("x-forwarded-proto").toUpperCase()));
+        addVariable("http.version", (line, sb) -> appendEscaped(sb, line.exchange().getRequest().getVersion()));
+        addVariable("http.method", (line, sb) -> appendEscaped(sb, line.exchange().getRequest().getMethod()));
+        addVariable("statusCode", (line, sb) -> sb.append(line.exchange().getResponse().getStatusCode()));
     }
 
-    private Map<String, String> getAdditionalProvidedPattern(Exchange exc) {
-        if (additionalVariables.isEmpty()) return Map.of();
-
-        return additionalVariables.stream()
-                .map(additionalPatternToMapEntry(exc))
-                .collect(Collectors.toMap(Map.Entry::getKey, Map.Entry::getValue));
+    private void addTimeVariables() {
+        addTime("time.req.received", AbstractExchange::getTimeReqReceived);
+        addTime("time.req.sent", AbstractExchange::getTimeReqSent);
+        addTime("time.res.received", AbstractExchange::getTimeResReceived);
+        addTime("time.res.sent", AbstractExchange::getTimeResSent);
+        addTime("time.diff.received", exc -> exc.getTimeResReceived() - exc.getTimeReqReceived());
+        addTime("time.diff.sent", exc -> exc.getTimeResSent() - exc.getTimeReqSent());
     }
 
-    private Function<AdditionalVariable, AbstractMap.SimpleEntry<String, String>> additionalPatternToMapEntry(Exchange exc) {
-        return additionalPattern -> new AbstractMap.SimpleEntry<>(
-                additionalPattern.getName(),
-                safe(() ->  additionalPattern.getExpression().getValue(new SpELExchangeEvaluationContext(exc, REQUEST, router)),
-                    additionalPattern.getDefaultValue()
-                )
-        );
+    private void addTime(String name, ToLongFunction<Exchange> time) {
+        addVariable(name + ".raw", (line, sb) -> sb.append(time.applyAsLong(line.exchange())));
+        addVariable(name + ".format", (line, sb) -> appendEscaped(sb, timestampFormatter.format(time.applyAsLong(line.exchange()))));
     }
 
-    private String convert(String timestamp) {
-        try {
-            return escapeQuotes(dateTimeFormat.format(ofEpochMilli(parseLong(timestamp))));
-        } catch (Exception e) {
-            return defaultValue;
-        }
+    private void addVariable(String name, Value value) {
+        variables.put(name, new Variable(value, defaultValue));
     }
 }
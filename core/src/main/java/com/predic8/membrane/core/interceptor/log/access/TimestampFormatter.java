@@ -0,0 +1,70 @@
+/* Copyright 2026 predic8 GmbH, www.predic8.com
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+   http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License. */
+
+package com.predic8.membrane.core.interceptor.log.access;
+
+import java.time.format.*;
+
+import static java.lang.Math.*;
+import static java.time.Instant.*;
+import static java.time.ZoneId.*;
+import static java.time.format.DateTimeFormatter.*;
+
+/**
+ * Formats timestamps, remembering the text of the last second formatted. All exchanges completing within the same
+ * second share it. Patterns showing fractions of a second are formatted every time.
+ */
+class TimestampFormatter {
+
+    private final DateTimeFormatter formatter;
+    private final boolean cacheable;
+
+    private volatile Formatted last;
+
+    TimestampFormatter(String pattern) {
+        formatter = ofPattern(pattern).withZone(systemDefault());
+        cacheable = !showsFractionOfSecond(pattern);
+    }
+
+    String format(long millis) {
+        if (!cacheable)
+            return formatter.format(ofEpochMilli(millis));
+        long second = floorDiv(millis, 1000);
+        Formatted f = last;
+        if (f != null && f.second == second)
+            return f.text;
+        String text = formatter.format(ofEpochMilli(second * 1000));
+        last = new Formatted(second, text);
+        return text;
+    }
+
+    /**
+     * Looks for the pattern letters S (fraction), n (nano), N (nano of day) and A (milli of day) outside of quoted
+     * text.
+     */
+    static boolean showsFractionOfSecond(String pattern) {
+        boolean quoted = false;
+        for (int i = 0; i < pattern.length(); i++) {
+            char c = pattern.charAt(i);
+            if (c == '\'')
+                quoted = !quoted;
+            else if (!quoted && (c == 'S' || c == 'n' || c == 'N' || c == 'A'))
+                return true;
+        }
+        return false;
+    }
+
+    private record Formatted(long second, String text) {
+    }
+}
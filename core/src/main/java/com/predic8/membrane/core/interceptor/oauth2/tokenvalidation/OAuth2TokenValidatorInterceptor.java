@@ -13,6 +13,8 @@
 
 package com.predic8.membrane.core.interceptor.oauth2.tokenvalidation;
 
+import com.google.common.base.Ticker;
+import com.google.common.cache.*;
 import com.predic8.membrane.annot.*;
 import com.predic8.membrane.core.exchange.*;
 import com.predic8.membrane.core.http.*;
@@ -22,19 +24,55 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.net.*;
+import java.security.*;
+import java.util.HexFormat;
+import java.util.concurrent.*;
 
 import static com.predic8.membrane.core.exceptions.ProblemDetails.*;
 import static com.predic8.membrane.core.interceptor.Interceptor.Flow.Set.*;
 import static com.predic8.membrane.core.interceptor.Outcome.*;
-
+import static java.lang.Boolean.*;
+import static java.nio.charset.StandardCharsets.*;
+import static java.util.concurrent.TimeUnit.*;
+
+/**
+ * @description Grants access to requests whose <tt>Authorization</tt> header is accepted by a validation endpoint.
+ * The endpoint has to answer with status code 200 for valid tokens.
+ * <p>
+ * Results are cached per token: accepted tokens for <tt>validTokenCacheTtl</tt> seconds, rejected ones for
+ * <tt>invalidTokenCacheTtl</tt> seconds. A revoked token is therefore accepted until its entry expires. Concurrent
+ * requests with the same uncached token wait for a single call to the endpoint. Errors of the endpoint are not
+ * cached.
+ * </p>
+ */
 @MCElement(name="tokenValidator")
 public class OAuth2TokenValidatorInterceptor extends AbstractInterceptor {
 
     private static final Logger log = LoggerFactory.getLogger(OAuth2TokenValidatorInterceptor.class);
 
+    /**
+     * How long a request waits for the validation of the same token by another request, before it validates itself.
+     */
+    private static final long JOIN_TIMEOUT_MS = 30_000;
+
     private String endpoint;
+    private int validTokenCacheTtl = 60;
+    private int invalidTokenCacheTtl = 10;
+    private int cacheSize = 10_000;
 
     private HttpClient client;
+    private Ticker ticker = Ticker.systemTicker();
+
+    /**
+     * Keyed by the hash of the Authorization header, so tokens are not kept in memory.
+     */
+    private Cache<String, Boolean> validTokens;
+    private Cache<String, Boolean> invalidTokens;
+
+    /**
+     * Validations in progress. Requests with the same token wait for them.
+     */
+    private final ConcurrentHashMap<String, CompletableFuture<Boolean>> validations = new ConcurrentHashMap<>();
 
     @Override
     public void init() {
@@ -42,6 +80,16 @@ public class OAuth2TokenValidatorInterceptor extends AbstractInterceptor {
         setAppliedFlow(REQUEST_FLOW);
         name = "oauth2 token validator";
         client = router.getHttpClientFactory().createClient(null);
+        validTokens = createCache(validTokenCacheTtl);
+        invalidTokens = createCache(invalidTokenCacheTtl);
+    }
+
+    private Cache<String, Boolean> createCache(int ttl) {
+        return CacheBuilder.newBuilder()
+                .maximumSize(ttl > 0 ? cacheSize : 0)
+                .expireAfterWrite(Math.max(ttl, 0), TimeUnit.SECONDS)
+                .ticker(ticker)
+                .build();
     }
 
     @Override
@@ -52,24 +100,80 @@ public class OAuth2TokenValidatorInterceptor extends AbstractInterceptor {
 
     @Override
     public Outcome handleRequest(Exchange exc) {
-        synchronized (client){
-            try {
-                if(callExchangeAndCheckFor200(buildAccessTokenValidationExchange(exc)))
-                    return CONTINUE;
-            } catch (Exception e) {
-                internal(router.getConfiguration().isProduction(),getDisplayName())
-                        .exception(e)
-                        .buildAndSetResponse(exc);
-                return ABORT;
-            }
+        try {
+            if (isValid(getAuthorizationHeaderValue(exc)))
+                return CONTINUE;
+        } catch (Exception e) {
+            internal(router.getConfiguration().isProduction(),getDisplayName())
+                    .exception(e)
+                    .buildAndSetResponse(exc);
+            return ABORT;
         }
         setResponseToBadRequest(exc);
         return RETURN;
     }
 
-    private boolean callExchangeAndCheckFor200(Exchange e) throws Exception {
+    private boolean isValid(String authorization) throws Exception {
+        if (authorization == null)
+            return validate(null) == 200;
+
+        String key = hash(authorization);
+        if (validTokens.getIfPresent(key) != null)
+            return true;
+        if (invalidTokens.getIfPresent(key) != null)
+            return false;
+
+        CompletableFuture<Boolean> validation = new CompletableFuture<>();
+        CompletableFuture<Boolean> running = validations.putIfAbsent(key, validation);
+        if (running != null) {
+            try {
+                return join(running);
+            } catch (TimeoutException e) {
+                log.debug("Validation of the same token did not finish in time, validating again.");
+                return validate(authorization) == 200;
+            }
+        }
+
+        try {
+            int status = validate(authorization);
+            boolean valid = status == 200;
+            if (valid)
+                validTokens.put(key, TRUE);
+            else if (status < 500)
+                invalidTokens.put(key, TRUE);
+            validation.complete(valid);
+            return valid;
+        } catch (Exception | Error e) {
+            validation.completeExceptionally(e);
+            throw e;
+        } finally {
+            validations.remove(key, validation);
+        }
+    }
+
+    private static boolean join(CompletableFuture<Boolean> validation) throws Exception {
+        try {
+            return validation.get(JOIN_TIMEOUT_MS, MILLISECONDS);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof Exception cause)
+                throw cause;
+            throw e;
+        }
+    }
+
+    private int validate(String authorization) throws Exception {
+        Exchange e = buildAccessTokenValidationExchange(authorization);
         client.call(e);
-        return e.getResponse().getStatusCode() == 200;
+        e.getResponse().discardBody();
+        return e.getResponse().getStatusCode();
+    }
+
+    private static String hash(String authorization) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(authorization.getBytes(UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new RuntimeException(e);
+        }
     }
 
     private void setResponseToBadRequest(Exchange exc) {
@@ -77,14 +181,18 @@ public class OAuth2TokenValidatorInterceptor extends AbstractInterceptor {
         exc.setResponse(Response.badRequest().build());
     }
 
-    private Exchange buildAccessTokenValidationExchange(Exchange exc) throws URISyntaxException {
-        return new Request.Builder().get(endpoint).header(Header.AUTHORIZATION, getAuthorizationHeaderValue(exc)).buildExchange();
+    private Exchange buildAccessTokenValidationExchange(String authorization) throws URISyntaxException {
+        return new Request.Builder().get(endpoint).header(Header.AUTHORIZATION, authorization).buildExchange();
     }
 
     private String getAuthorizationHeaderValue(Exchange exc) {
         return exc.getRequest().getHeader().getFirstValue(Header.AUTHORIZATION);
     }
 
+    void setTicker(Ticker ticker) {
+        this.ticker = ticker;
+    }
+
     public String getEndpoint() {
         return endpoint;
     }
@@ -98,4 +206,43 @@ public class OAuth2TokenValidatorInterceptor extends AbstractInterceptor {
     public void setEndpoint(String endpoint) {
         this.endpoint = endpoint;
     }
+
+    public int getValidTokenCacheTtl() {
+        return validTokenCacheTtl;
+    }
+
+    /**
+     * @description Seconds an accepted token is not validated again. 0 disables the cache.
+     * @default 60
+     */
+    @MCAttribute
+    public void setValidTokenCacheTtl(int validTokenCacheTtl) {
+        this.validTokenCacheTtl = validTokenCacheTtl;
+    }
+
+    public int getInvalidTokenCacheTtl() {
+        return invalidTokenCacheTtl;
+    }
+
+    /**
+     * @description Seconds a rejected token is not validated again. 0 disables the cache.
+     * @default 10
+     */
+    @MCAttribute
+    public void setInvalidTokenCacheTtl(int invalidTokenCacheTtl) {
+        this.invalidTokenCacheTtl = invalidTokenCacheTtl;
+    }
+
+    public int getCacheSize() {
+        return cacheSize;
+    }
+
+    /**
+     * @description Maximum number of accepted and of rejected tokens kept in the cache.
+     * @default 10000
+     */
+    @MCAttribute
+    public void setCacheSize(int cacheSize) {
+        this.cacheSize = cacheSize;
+    }
 }
@@ -19,30 +19,53 @@ package com.predic8.membrane.core.interceptor.prometheus;
 import com.predic8.membrane.annot.MCAttribute;
 import com.predic8.membrane.annot.MCElement;
 import com.predic8.membrane.core.exchange.Exchange;
+import com.predic8.membrane.core.exchangestore.AbstractPersistentExchangeStore;
 import com.predic8.membrane.core.interceptor.AbstractInterceptor;
+import com.predic8.membrane.core.interceptor.Interceptor;
 import com.predic8.membrane.core.interceptor.Outcome;
+import com.predic8.membrane.core.interceptor.apikey.ApiKeysInterceptor;
+import com.predic8.membrane.core.interceptor.apikey.stores.ApiKeyStore;
+import com.predic8.membrane.core.interceptor.apikey.stores.CachingApiKeyStore;
 import com.predic8.membrane.core.interceptor.balancer.Cluster;
 import com.predic8.membrane.core.interceptor.balancer.Node;
 import com.predic8.membrane.core.openapi.serviceproxy.APIProxy;
 import com.predic8.membrane.core.openapi.serviceproxy.ValidationStatsKey;
 import com.predic8.membrane.core.proxies.Proxy;
 import com.predic8.membrane.core.proxies.SSLableProxy;
+import com.predic8.membrane.core.proxies.StatisticCollector;
 import com.predic8.membrane.core.proxies.TimeCollector;
+import com.predic8.membrane.core.stats.LatencyHistogram;
+import com.predic8.membrane.core.stats.LatencyStatistics;
+import com.predic8.membrane.core.stats.LatencyStatistics.InterceptorLatency;
+import com.predic8.membrane.core.transport.http.ConnectionManager.PoolStatistics;
+import com.predic8.membrane.core.transport.http.HttpClient;
 import com.predic8.membrane.core.transport.ssl.SSLContext;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.ToLongFunction;
 import java.util.regex.Pattern;
+import java.util.zip.GZIPOutputStream;
 
 import static com.predic8.membrane.annot.Constants.VERSION;
+import static com.predic8.membrane.core.http.Header.ACCEPT_ENCODING;
+import static com.predic8.membrane.core.http.Header.CONTENT_ENCODING;
 import static com.predic8.membrane.core.http.Response.ok;
 import static com.predic8.membrane.core.interceptor.Outcome.RETURN;
 import static com.predic8.membrane.core.interceptor.balancer.BalancerUtil.collectClusters;
 import static com.predic8.membrane.core.interceptor.balancer.Node.Status.UP;
 import static com.predic8.membrane.core.openapi.util.Utils.joinByComma;
+import static java.util.Arrays.stream;
+import static java.util.stream.Collectors.joining;
+import static java.nio.charset.StandardCharsets.UTF_8;
 import static java.util.stream.Collectors.toList;
+import static java.util.stream.Collectors.toSet;
 
 /**
  * @description Prometheus is an open-source monitoring system that collects metrics by scraping
@@ -60,8 +83,27 @@ import static java.util.stream.Collectors.toList;
  *   <li><code>openapi_validation</code> — validation pass/fail counts, present on
  *       <code>api</code> proxies with an OpenAPI validator configured.</li>
  *   <li><code>lb_node_status{node,cluster}</code> — load balancer node health (1 = UP, 0 = DOWN).</li>
+ *   <li><code>lb_node_ejected / lb_node_ejections_total{node,cluster}</code> — nodes ejected by the outlier
+ *       detection of a balancer.</li>
+ *   <li><code>lb_health_check_seconds{cluster}</code> — duration of the checks of the balancer health monitor.</li>
+ *   <li><code>connection_pool_idle / connection_pool_leased / connection_pool_pending</code> — outbound
+ *       connections per target host, and <code>connection_pool_opened_total / connection_pool_closed_total</code>
+ *       counting the connections opened and closed. A counter starts over when an unused host pool is removed.</li>
+ *   <li><code>exchange_store_queue_depth / exchange_store_written_total / exchange_store_dropped_total /
+ *       exchange_store_failed_writes_total</code> — state of the write pipeline, if exchanges are stored in
+ *       Elasticsearch, MongoDB or Loki.</li>
+ *   <li><code>apikey_cache_hits_total / apikey_cache_misses_total / apikey_cache_size / apikey_store_load_seconds</code>
+ *       — state of each <code>cachingApiKeyStore</code>. The hit ratio is hits / (hits + misses).</li>
  *   <li>Response time histograms per proxy and status code range.</li>
+ *   <li><code>latency_seconds{rule,phase}</code> — latency histogram per proxy with microsecond resolution. The
+ *       phase <code>total</code> measures from receiving the request until the response is sent, <code>backend</code>
+ *       the time waiting for the backend and <code>overhead</code> the difference, i.e. the time spent in the
+ *       gateway. The bucket boundaries are set by <code>sloBuckets</code>.</li>
+ *   <li><code>interceptor_latency_seconds{rule,interceptor,flow}</code> — time spent in each interceptor of a proxy.
+ *       Interceptors running a nested chain, like the HTTP client calling the backend, include the nested time.
+ *       Only reported if <code>interceptorLatency</code> is enabled in the global configuration.</li>
  * </ul>
+ * The response is gzip-compressed if the scraper sends <code>Accept-Encoding: gzip</code>, as Prometheus does.
  * See examples/monitoring-tracing/prometheus-grafana for a runnable demo including Grafana dashboards.
  * @topic 4. Monitoring, Logging and Statistics
  * @yaml <pre><code>
@@ -77,87 +119,127 @@ public class PrometheusInterceptor extends AbstractInterceptor {
     static final Logger LOG = LoggerFactory.getLogger(PrometheusInterceptor.class);
     static volatile boolean issuedDuplicateRuleNameWarning = false;
 
+    private static final String CONTENT_TYPE = "text/plain; version=0.0.4";
+
+    /**
+     * Boundaries of the latency histograms in microseconds.
+     */
+    private long[] sloBuckets = {1_000, 2_500, 5_000, 10_000, 25_000, 50_000, 100_000, 250_000, 500_000, 1_000_000, 2_500_000, 5_000_000, 10_000_000};
+    private String[] sloBucketLabels = toSeconds(sloBuckets);
+
+    /**
+     * Label strings per proxy, escaped once and reused by every scrape.
+     */
+    private final ConcurrentHashMap<Proxy, ProxySeries> series = new ConcurrentHashMap<>();
+
+    /**
+     * Size of the previous response, used to size the buffer of the next one.
+     */
+    private volatile int lastScrapeSize = 4096;
+
     public PrometheusInterceptor() {
         name = "prometheus";
     }
 
     @Override
     public Outcome handleRequest(Exchange exc) {
-        Context ctx = new Context();
-        buildPrometheusStyleResponse(ctx);
-        exc.setResponse(ok(ctx.sb.toString()).contentType( "text/plain; version=0.0.4").build());
+        String metrics = buildPrometheusStyleResponse();
+        if (acceptsGzip(exc)) {
+            exc.setResponse(ok().body(gzip(metrics)).contentType(CONTENT_TYPE).header(CONTENT_ENCODING, "gzip").build());
+            return RETURN;
+        }
+        exc.setResponse(ok(metrics).contentType(CONTENT_TYPE).build());
         return RETURN;
     }
 
-    private static class Context {
-        final StringBuilder sb = new StringBuilder();
-
-        final List<StringBuilder> dynamic = new ArrayList<>();
-
-        final StringBuilder count = new StringBuilder();
-        final StringBuilder good_count = new StringBuilder();
-        final StringBuilder good_time = new StringBuilder();
-        final StringBuilder good_bytes_req_body = new StringBuilder();
-        final StringBuilder good_bytes_res_body = new StringBuilder();
-        final StringBuilder duplicate_rule_name = new StringBuilder();
-        final StringBuilder ssl_haskeyandcert = new StringBuilder();
-        final StringBuilder ssl_validfrom_ms = new StringBuilder();
-        final StringBuilder ssl_validuntil_ms = new StringBuilder();
-        final StringBuilder openapi_validation = new StringBuilder();
-        final StringBuilder lb_active_nodes = new StringBuilder();
+    private static boolean acceptsGzip(Exchange exc) {
+        String acceptEncoding = exc.getRequest().getHeader().getFirstValue(ACCEPT_ENCODING);
+        return acceptEncoding != null && acceptEncoding.toLowerCase().contains("gzip");
+    }
 
-        final HashSet<String> seenRules = new HashSet<>();
+    private static byte[] gzip(String metrics) {
+        ByteArrayOutputStream baos = new ByteArrayOutputStream(metrics.length() / 8);
+        try (GZIPOutputStream gos = new GZIPOutputStream(baos)) {
+            gos.write(metrics.getBytes(UTF_8));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return baos.toByteArray();
+    }
 
-        private StringBuilder getNew() {
-            StringBuilder b = new StringBuilder();
-            dynamic.add(b);
-            return b;
+    /**
+     * Pre-rendered label strings of a proxy.
+     */
+    private final class ProxySeries {
+
+        final Proxy proxy;
+        final String name;
+        final String rule;
+
+        /**
+         * <code>{rule="..."} </code>
+         */
+        final String ruleLabels;
+
+        /**
+         * <code>rule="..."</code>, to be followed by more labels.
+         */
+        final String ruleLabel;
+
+        /**
+         * <code>{rule="...",code="..."} </code> by status code
+         */
+        final ConcurrentHashMap<Integer, String> codeLabels = new ConcurrentHashMap<>();
+
+        final String totalLabels, backendLabels, overheadLabels;
+
+        /**
+         * <code>{rule="...",type="..."} </code> by SSL context type
+         */
+        final ConcurrentHashMap<String, String> sslLabels = new ConcurrentHashMap<>();
+
+        ProxySeries(Proxy proxy) {
+            this.proxy = proxy;
+            name = proxy.getName();
+            rule = prometheusCompatibleName(name);
+            ruleLabel = "rule=\"" + rule + "\"";
+            ruleLabels = "{" + ruleLabel + "} ";
+            totalLabels = ruleLabel + ",phase=\"total\"";
+            backendLabels = ruleLabel + ",phase=\"backend\"";
+            overheadLabels = ruleLabel + ",phase=\"overhead\"";
         }
 
-        private void reset() {
-            count.setLength(0);
-            good_count.setLength(0);
-            good_time.setLength(0);
-            good_bytes_req_body.setLength(0);
-            good_bytes_res_body.setLength(0);
-            duplicate_rule_name.setLength(0);
-            ssl_haskeyandcert.setLength(0);
-            ssl_validfrom_ms.setLength(0);
-            ssl_validuntil_ms.setLength(0);
-            openapi_validation.setLength(0);
-            lb_active_nodes.setLength(0);
-
-            dynamic.forEach(s -> s.setLength(0));
+        String codeLabels(int code) {
+            String labels = codeLabels.get(code);
+            if (labels == null)
+                labels = codeLabels.computeIfAbsent(code, c -> "{" + ruleLabel + ",code=\"" + c + "\"} ");
+            return labels;
         }
 
-        private void resetAll() {
-            sb.setLength(0);
-            seenRules.clear();
+        String sslLabels(String type) {
+            return sslLabels.computeIfAbsent(type, t -> "{" + ruleLabel + ",type=\"" + prometheusCompatibleName(t) + "\"} ");
         }
+    }
 
-        private void collect() {
-            sb.append(count);
-            sb.append(good_count);
-            sb.append(good_time);
-            sb.append(good_bytes_req_body);
-            sb.append(good_bytes_res_body);
-            sb.append(duplicate_rule_name);
-            sb.append(ssl_haskeyandcert);
-            sb.append(ssl_validfrom_ms);
-            sb.append(ssl_validuntil_ms);
-            sb.append(openapi_validation);
-            sb.append(lb_active_nodes);
-
-            dynamic.forEach(sb::append);
+    private record SSLSeries(ProxySeries proxy, SSLContext context) {
+    }
+
+    private ProxySeries getSeries(Proxy proxy) {
+        ProxySeries ps = series.get(proxy);
+        if (ps == null || !ps.name.equals(proxy.getName())) {
+            ps = new ProxySeries(proxy);
+            series.put(proxy, ps);
         }
+        return ps;
     }
 
-    private void buildPrometheusStyleResponse(Context ctx) {
-        ctx.resetAll();
-        ctx.reset();
-        buildVersionLine(ctx);
+    private String buildPrometheusStyleResponse() {
+        List<ProxySeries> proxies = new ArrayList<>();
+        List<SSLSeries> ssl = new ArrayList<>();
+        Set<String> seenRules = new HashSet<>();
         for (Proxy r : router.getRuleManager().getRules()) {
-            if (!ctx.seenRules.add(prometheusCompatibleName(r.getName()))) {
+            ProxySeries ps = getSeries(r);
+            if (!seenRules.add(ps.rule)) {
                 // the prometheus format is not allowed to contain the same metric more than once
                 if (issuedDuplicateRuleNameWarning)
                     continue;
@@ -165,222 +247,318 @@ public class PrometheusInterceptor extends AbstractInterceptor {
                 issuedDuplicateRuleNameWarning = true;
                 continue;
             }
+            proxies.add(ps);
+            if (r.isActive() && r instanceof SSLableProxy sp) {
+                SSLContext sslib = sp.getSslInboundContext();
+                if (sslib != null)
+                    ssl.add(new SSLSeries(ps, sslib));
+            }
+        }
+        if (series.size() > proxies.size())
+            series.keySet().retainAll(proxies.stream().map(ps -> ps.proxy).collect(toSet()));
+
+        int size = lastScrapeSize;
+        StringBuilder sb = new StringBuilder(size + (size >> 3));
+        buildVersionLine(sb);
+        buildStatuscodeLines(sb, proxies, "count", StatisticCollector::getCount);
+        buildStatuscodeLines(sb, proxies, "good_count", StatisticCollector::getGoodCount);
+        buildStatuscodeLines(sb, proxies, "good_time", StatisticCollector::getGoodTotalTime);
+        buildStatuscodeLines(sb, proxies, "good_bytes_req_body", StatisticCollector::getGoodTotalBytesSent);
+        buildStatuscodeLines(sb, proxies, "good_bytes_res_body", StatisticCollector::getGoodTotalBytesReceived);
+        buildActive(sb, proxies);
+        buildDuplicateRuleNameWarning(sb, issuedDuplicateRuleNameWarning);
+        buildSSLLines(sb, ssl);
+        buildOpenAPIValidatorLines(sb, proxies);
+        buildLoadBalancerLines(sb);
+        buildLatencyLines(sb, proxies);
+        buildBuckets(sb, proxies);
+        buildConnectionPoolLines(sb);
+        buildExchangeStoreLines(sb);
+        buildApiKeyCacheLines(sb, proxies);
+        lastScrapeSize = sb.length();
+        return sb.toString();
+    }
 
-            buildStatuscodeLines(ctx, r);
-            buildBuckets(ctx, r);
-            buildActive(ctx, r);
+    private void buildVersionLine(StringBuilder sb) {
+        sb.append("membrane_info{version=\"").append(prometheusCompatibleName(VERSION)).append("\"} 1\n");
+    }
 
-            if (r.isActive()) {
-                if (r instanceof SSLableProxy sp) {
-                    SSLContext sslib = sp.getSslInboundContext();
-                    if (sslib != null)
-                        buildSSLLines(ctx, r, sslib);
+    /**
+     * see <a href="https://prometheus.io/docs/instrumenting/exposition_formats/">Exposition Formats</a> .
+     */
+    private void buildStatuscodeLines(StringBuilder sb, List<ProxySeries> proxies, String metric, ToLongFunction<StatisticCollector> value) {
+        String prometheusName = prometheusCompatibleName("membrane_" + metric);
+        boolean typeLine = true;
+        for (ProxySeries ps : proxies) {
+            for (Map.Entry<Integer, StatisticCollector> e : ps.proxy.getStatisticCollector().getStatisticsByStatusCodes().entrySet()) {
+                if (typeLine) {
+                    appendType(sb, prometheusName, "counter");
+                    typeLine = false;
                 }
+                sb.append(prometheusName).append(ps.codeLabels(e.getKey())).append(value.applyAsLong(e.getValue())).append('\n');
             }
-
-            if (r instanceof APIProxy) {
-                buildOpenAPIValidatorLines(ctx, (APIProxy) r);
-            }
-
         }
-        buildLoadBalancerLines(ctx);
-        buildDuplicateRuleNameWarning(ctx, issuedDuplicateRuleNameWarning);
-        ctx.collect();
+    }
 
+    private void buildActive(StringBuilder sb, List<ProxySeries> proxies) {
+        if (proxies.isEmpty())
+            return;
+        appendType(sb, "membrane_rule_active", "gauge");
+        for (ProxySeries ps : proxies)
+            sb.append("membrane_rule_active").append(ps.ruleLabels).append(ps.proxy.isActive() ? 1 : 0).append('\n');
     }
 
-    private void buildVersionLine(Context ctx) {
-        ctx.count.append("membrane_info{version=\"" + prometheusCompatibleName(VERSION) + "\"} 1\n");
+    private void buildDuplicateRuleNameWarning(StringBuilder sb, boolean hasDuplicateRuleName) {
+        appendType(sb, "membrane_duplicate_rule_name", "gauge");
+        sb.append("membrane_duplicate_rule_name ").append(hasDuplicateRuleName ? 1 : 0).append('\n');
     }
 
-    private void buildLoadBalancerLines(Context ctx) {
-        ctx.lb_active_nodes.append("# TYPE membrane_lb_node_status gauge\n");
-        for (Cluster cl : collectClusters(router)) {
-            for (Node node : cl.getNodes()) {
-                ctx.lb_active_nodes.append("membrane_lb_node_status");
-                ctx.lb_active_nodes.append("{node=\"");
-                ctx.lb_active_nodes.append(prometheusCompatibleName(node.toString()));
-                ctx.lb_active_nodes.append("\",cluster=\"");
-                ctx.lb_active_nodes.append(prometheusCompatibleName(cl.getName()));
-                ctx.lb_active_nodes.append("\"} ");
-                ctx.lb_active_nodes.append(node.getStatus() == UP ? 1 : 0);
-                ctx.lb_active_nodes.append("\n");
+    private void buildSSLLines(StringBuilder sb, List<SSLSeries> ssl) {
+        if (ssl.isEmpty())
+            return;
+        appendType(sb, "membrane_ssl_haskeyandcert", "gauge");
+        for (SSLSeries s : ssl)
+            sb.append("membrane_ssl_haskeyandcert").append(s.proxy().sslLabels(s.context().getPrometheusContextTypeName()))
+                    .append(s.context().hasKeyAndCertificate() ? 1 : 0).append('\n');
+        buildSSLValidityLines(sb, ssl, "membrane_ssl_validfrom_ms", SSLContext::getValidFrom);
+        buildSSLValidityLines(sb, ssl, "membrane_ssl_validuntil_ms", SSLContext::getValidUntil);
+    }
+
+    private void buildSSLValidityLines(StringBuilder sb, List<SSLSeries> ssl, String prometheusName, ToLongFunction<SSLContext> value) {
+        boolean typeLine = true;
+        for (SSLSeries s : ssl) {
+            if (!s.context().hasKeyAndCertificate())
+                continue;
+            if (typeLine) {
+                appendType(sb, prometheusName, "gauge");
+                typeLine = false;
             }
+            sb.append(prometheusName).append(s.proxy().sslLabels(s.context().getPrometheusContextTypeName()))
+                    .append(value.applyAsLong(s.context())).append('\n');
         }
     }
 
-    private void buildOpenAPIValidatorLines(Context ctx, APIProxy proxy) {
-        for (Map.Entry<ValidationStatsKey, Integer> e : proxy.getValidationStatisticCollector().getStats().entrySet()) {
-            buildLine(ctx.openapi_validation, proxy.getName(), e.getValue(), e.getKey().getLabels(), "openapi_validation");
+    private void buildOpenAPIValidatorLines(StringBuilder sb, List<ProxySeries> proxies) {
+        boolean typeLine = true;
+        for (ProxySeries ps : proxies) {
+            if (!(ps.proxy instanceof APIProxy api))
+                continue;
+            for (Map.Entry<ValidationStatsKey, Integer> e : api.getValidationStatisticCollector().getStats().entrySet()) {
+                if (typeLine) {
+                    appendType(sb, "membrane_openapi_validation", "counter");
+                    typeLine = false;
+                }
+                sb.append("membrane_openapi_validation{").append(ps.ruleLabel).append(',');
+                for (Map.Entry<String, String> label : e.getKey().getLabels().entrySet()) {
+                    sb.append(label.getKey());
+                    sb.append("=\"");
+                    sb.append(label.getValue());  // TODO Sanitize / Ok aber \ nicht wie prometheusCompatibleName
+                    sb.append("\",");
+                }
+                sb.append("} ").append(e.getValue()).append('\n');
+            }
         }
     }
 
-    private void buildLine(StringBuilder sb, String ruleName, long value, Map<String, String> labels, String postFix) {
-        String prometheusName = prometheusCompatibleName("membrane_" + postFix);
-        if (sb.isEmpty()) {
-            sb.append("# TYPE ");
-            sb.append(prometheusName);
-            sb.append(" counter\n");
-        }
-        sb.append(prometheusName);
-        sb.append("{rule=\"");
-        sb.append(prometheusCompatibleName(ruleName));
-        sb.append("\",");
-
-        for (Map.Entry<String, String> e : labels.entrySet()) {
-            sb.append(e.getKey());
-            sb.append("=\"");
-            sb.append(e.getValue());  // TODO Sanitize / Ok aber \ nicht wie prometheusCompatibleName
-            sb.append("\",");
-        }
-        sb.append("} ");
-        sb.append(value);
-        sb.append("\n");
+    private void buildLoadBalancerLines(StringBuilder sb) {
+        List<Cluster> clusters = collectClusters(router);
+        buildNodeLines(sb, clusters, "membrane_lb_node_status", "gauge", node -> node.getStatus() == UP ? 1 : 0);
+        buildNodeLines(sb, clusters, "membrane_lb_node_ejected", "gauge", node -> node.isEjected() ? 1 : 0);
+        buildNodeLines(sb, clusters, "membrane_lb_node_ejections_total", "counter", Node::getEjections);
+        boolean typeLine = true;
+        for (Cluster cl : clusters)
+            typeLine &= !buildLatencyHistogram(sb, "membrane_lb_health_check_seconds", "cluster=\"" + prometheusCompatibleName(cl.getName()) + "\"", cl.getHealthCheckLatency(), typeLine);
     }
 
-    private void buildSSLLines(Context ctx, Proxy r, SSLContext sslib) {
-        boolean hasKeyAndCert = sslib.hasKeyAndCertificate();
-        buildSSLLine(ctx.ssl_haskeyandcert, r.getName(), sslib.getPrometheusContextTypeName(), "ssl_haskeyandcert", hasKeyAndCert ? 1 : 0);
-        if (hasKeyAndCert) {
-            buildSSLLine(ctx.ssl_validfrom_ms, r.getName(), sslib.getPrometheusContextTypeName(), "ssl_validfrom_ms", sslib.getValidFrom());
-            buildSSLLine(ctx.ssl_validuntil_ms, r.getName(), sslib.getPrometheusContextTypeName(), "ssl_validuntil_ms", sslib.getValidUntil());
+    private void buildNodeLines(StringBuilder sb, List<Cluster> clusters, String metric, String type, ToLongFunction<Node> value) {
+        appendType(sb, metric, type);
+        for (Cluster cl : clusters) {
+            String cluster = prometheusCompatibleName(cl.getName());
+            for (Node node : cl.getNodes()) {
+                sb.append(metric);
+                sb.append("{node=\"");
+                sb.append(prometheusCompatibleName(node.toString()));
+                sb.append("\",cluster=\"");
+                sb.append(cluster);
+                sb.append("\"} ");
+                sb.append(value.applyAsLong(node));
+                sb.append('\n');
+            }
         }
     }
 
-    private void buildSSLLine(StringBuilder sb, String ruleName, String prometheusContextTypeName, String metric, long value) {
-        String prometheusName = prometheusCompatibleName("membrane_" + metric);
-
-        if (sb.isEmpty()) {
-            sb.append("# TYPE ");
-            sb.append(prometheusName);
-            sb.append(" gauge\n");
+    private void buildLatencyLines(StringBuilder sb, List<ProxySeries> proxies) {
+        boolean typeLine = true;
+        for (ProxySeries ps : proxies) {
+            LatencyStatistics latency = ps.proxy.getStatisticCollector().getLatency();
+            typeLine &= !buildLatencyHistogram(sb, "membrane_latency_seconds", ps.totalLabels, latency.getTotal(), typeLine);
+            typeLine &= !buildLatencyHistogram(sb, "membrane_latency_seconds", ps.backendLabels, latency.getBackend(), typeLine);
+            typeLine &= !buildLatencyHistogram(sb, "membrane_latency_seconds", ps.overheadLabels, latency.getOverhead(), typeLine);
         }
 
-        sb.append(prometheusName);
-        sb.append("{rule=\"");
-        sb.append(prometheusCompatibleName(ruleName));
-        sb.append("\",type=\"");
-        sb.append(prometheusCompatibleName(prometheusContextTypeName));
-        sb.append("\"} ");
-        sb.append(value);
-        sb.append("\n");
+        typeLine = true;
+        for (ProxySeries ps : proxies) {
+            Map<String, Integer> seenNames = new HashMap<>();
+            for (InterceptorLatency il : ps.proxy.getStatisticCollector().getLatency().getInterceptors()) {
+                String name = prometheusCompatibleName(il.getInterceptor().getDisplayName());
+                int n = seenNames.merge(name, 1, Integer::sum);
+                String labels = ps.ruleLabel + ",interceptor=\"" + (n == 1 ? name : name + "_" + n) + "\"";
+                typeLine &= !buildLatencyHistogram(sb, "membrane_interceptor_latency_seconds", labels + ",flow=\"request\"", il.getRequest(), typeLine);
+                typeLine &= !buildLatencyHistogram(sb, "membrane_interceptor_latency_seconds", labels + ",flow=\"response\"", il.getResponse(), typeLine);
+            }
+        }
     }
 
-    private void buildDuplicateRuleNameWarning(Context ctx, boolean hasDuplicateRuleName) {
-        ctx.duplicate_rule_name.append("# TYPE membrane_duplicate_rule_name gauge\n");
-
-        buildLine(ctx.duplicate_rule_name, "duplicate_rule_name", hasDuplicateRuleName ? 1 : 0);
+    /**
+     * @return whether anything was written
+     */
+    private boolean buildLatencyHistogram(StringBuilder sb, String prometheusName, String labels, LatencyHistogram histogram, boolean typeLine) {
+        LatencyHistogram.Snapshot snapshot = histogram.snapshot();
+        if (snapshot.getCount() == 0)
+            return false;
+        if (typeLine)
+            appendType(sb, prometheusName, "histogram");
+        long[] buckets = sloBuckets;
+        String[] bucketLabels = sloBucketLabels;
+        for (int i = 0; i < buckets.length; i++)
+            sb.append(prometheusName).append("_bucket{").append(labels).append(",le=\"").append(bucketLabels[i]).append("\"} ")
+                    .append(snapshot.getCountAtOrBelow(buckets[i])).append('\n');
+        sb.append(prometheusName).append("_bucket{").append(labels).append(",le=\"+Inf\"} ").append(snapshot.getCount()).append('\n');
+        sb.append(prometheusName).append("_sum{").append(labels).append("} ").append(seconds(snapshot.getSum())).append('\n');
+        sb.append(prometheusName).append("_count{").append(labels).append("} ").append(snapshot.getCount()).append('\n');
+        return true;
     }
 
-    private void buildActive(Context ctx, Proxy r) {
-        if (ctx.duplicate_rule_name.isEmpty())
-            ctx.duplicate_rule_name.append("# TYPE membrane_rule_active gauge\n");
-
-        buildBucketLine(ctx.duplicate_rule_name, r.getName(), "rule_active", r.isActive() ? 1 : 0);
+    private static String[] toSeconds(long[] micros) {
+        return stream(micros).mapToObj(PrometheusInterceptor::seconds).toArray(String[]::new);
     }
 
-    private void buildBuckets(Context ctx, Proxy proxy) {
-        proxy.getStatisticCollector().getTimeStatisticsByStatusCodeRange().forEach((code, tc) -> tc.getTrackedTimes().forEach((name, tt) -> {
-            if (tt.isEmpty())
-                return;
+    private static String seconds(long micros) {
+        return BigDecimal.valueOf(micros, 6).stripTrailingZeros().toPlainString();
+    }
 
-            StringBuilder sb = ctx.getNew();
-            tt.forEach((le, count) -> {
-                if (le.equals("SUM") || le.equals("COUNT"))
+    /**
+     * Response time histograms of the {@link TimeCollector}s, grouped by metric.
+     */
+    private void buildBuckets(StringBuilder sb, List<ProxySeries> proxies) {
+        Map<String, StringBuilder> byName = new TreeMap<>();
+        for (ProxySeries ps : proxies) {
+            ps.proxy.getStatisticCollector().getTimeStatisticsByStatusCodeRange().forEach((code, tc) -> tc.getTrackedTimes().forEach((name, tt) -> {
+                if (tt.isEmpty())
                     return;
 
-                buildBucketLine(sb, proxy.getName(), code, le, count, name);
-            });
-            buildBucketLine(sb, proxy.getName(), code, name + "_sum", tt.get("SUM"));
-            buildBucketLine(sb, proxy.getName(), code, name + "_count", tt.get("COUNT"));
-        }));
-    }
-
-    private void buildStatuscodeLines(Context ctx, Proxy proxy) {
-        proxy.getStatisticCollector().getStatisticsByStatusCodes().forEach((key, value) -> {
-            buildLine(ctx.count, proxy.getName(), value.getCount(), "code", key, "count");
-            buildLine(ctx.good_count, proxy.getName(), value.getGoodCount(), "code", key, "good_count");
-            buildLine(ctx.good_time, proxy.getName(), value.getGoodTotalTime(), "code", key, "good_time");
-            buildLine(ctx.good_bytes_req_body, proxy.getName(), value.getGoodTotalBytesSent(), "code", key, "good_bytes_req_body");
-            buildLine(ctx.good_bytes_res_body, proxy.getName(), value.getGoodTotalBytesReceived(), "code", key, "good_bytes_res_body");
+                StringBuilder family = byName.computeIfAbsent(name, n -> new StringBuilder());
+                String labels = ps.codeLabels(code);
+                String prometheusName = prometheusCompatibleName("membrane_" + name);
+                tt.forEach((le, count) -> {
+                    if (le.equals("SUM") || le.equals("COUNT"))
+                        return;
+                    // labels ends with "} "
+                    family.append(prometheusName).append("_bucket").append(labels, 0, labels.length() - 2)
+                            .append(",le=\"").append(le).append("\"} ").append(count).append('\n');
+                });
+                family.append(prometheusName).append("_sum").append(labels).append(tt.get("SUM")).append('\n');
+                family.append(prometheusName).append("_count").append(labels).append(tt.get("COUNT")).append('\n');
+            }));
+        }
+        byName.forEach((name, family) -> {
+            appendType(sb, prometheusCompatibleName("membrane_" + name), "histogram");
+            sb.append(family);
         });
     }
 
-    private void buildLine(StringBuilder sb, String label, long value) {
-        String prometheusName = prometheusCompatibleName("membrane_" + label);
-
-        sb.append(prometheusName);
-        sb.append(" ");
-        sb.append(value);
-        sb.append("\n");
+    private void buildConnectionPoolLines(StringBuilder sb) {
+        Map<String, long[]> byTarget = new TreeMap<>();
+        for (HttpClient client : router.getHttpClientFactory().getClients()) {
+            client.getConnectionFactory().getConnectionManager().getPoolStatistics().forEach((key, stats) -> {
+                long[] sum = byTarget.computeIfAbsent(key.toString(), k -> new long[5]);
+                add(sum, stats);
+            });
+        }
+        if (byTarget.isEmpty())
+            return;
+
+        buildConnectionPoolLines(sb, byTarget, "connection_pool_idle", "gauge", 0);
+        buildConnectionPoolLines(sb, byTarget, "connection_pool_leased", "gauge", 1);
+        buildConnectionPoolLines(sb, byTarget, "connection_pool_pending", "gauge", 2);
+        buildConnectionPoolLines(sb, byTarget, "connection_pool_opened_total", "counter", 3);
+        buildConnectionPoolLines(sb, byTarget, "connection_pool_closed_total", "counter", 4);
     }
 
-    private void buildBucketLine(StringBuilder sb, String ruleName, String label, long value) {
-        String prometheusName = prometheusCompatibleName("membrane_" + label);
+    private static void add(long[] sum, PoolStatistics stats) {
+        sum[0] += stats.idle();
+        sum[1] += stats.leased();
+        sum[2] += stats.pending();
+        sum[3] += stats.opened();
+        sum[4] += stats.closed();
+    }
 
-        sb.append(prometheusName);
-        sb.append("{rule=\"");
-        sb.append(prometheusCompatibleName(ruleName));
-        sb.append("\"} ");
-        sb.append(value);
-        sb.append("\n");
+    private void buildConnectionPoolLines(StringBuilder sb, Map<String, long[]> byTarget, String metric, String type, int index) {
+        String prometheusName = prometheusCompatibleName("membrane_" + metric);
+        appendType(sb, prometheusName, type);
+        byTarget.forEach((target, values) -> {
+            sb.append(prometheusName);
+            sb.append("{target=\"");
+            sb.append(prometheusCompatibleName(target));
+            sb.append("\"} ");
+            sb.append(values[index]);
+            sb.append('\n');
+        });
     }
 
-    private void buildBucketLine(StringBuilder sb, String ruleName, int code, String label, long value) {
-        String prometheusName = prometheusCompatibleName("membrane_" + label);
+    private void buildExchangeStoreLines(StringBuilder sb) {
+        if (!(router.getExchangeStore() instanceof AbstractPersistentExchangeStore store))
+            return;
+        String label = prometheusCompatibleName(store.getClass().getSimpleName());
+        buildExchangeStoreLine(sb, label, "exchange_store_queue_depth", "gauge", store.getQueueDepth());
+        buildExchangeStoreLine(sb, label, "exchange_store_written_total", "counter", store.getWrittenSnapshots());
+        buildExchangeStoreLine(sb, label, "exchange_store_dropped_total", "counter", store.getDroppedSnapshots());
+        buildExchangeStoreLine(sb, label, "exchange_store_failed_writes_total", "counter", store.getFailedWrites());
+    }
 
+    private void buildExchangeStoreLine(StringBuilder sb, String store, String metric, String type, long value) {
+        String prometheusName = prometheusCompatibleName("membrane_" + metric);
+        appendType(sb, prometheusName, type);
         sb.append(prometheusName);
-        sb.append("{rule=\"");
-        sb.append(prometheusCompatibleName(ruleName));
-        sb.append("\",code=\"");
-        sb.append(code);
+        sb.append("{store=\"");
+        sb.append(store);
         sb.append("\"} ");
         sb.append(value);
-        sb.append("\n");
+        sb.append('\n');
     }
 
-    private void buildBucketLine(StringBuilder sb, String ruleName, int code, String le, long valueCount, String infix) {
-        String prometheusName = prometheusCompatibleName("membrane_" + infix + "_bucket");
-        if (sb.isEmpty()) {
-            sb.append("# TYPE ");
-            sb.append(prometheusName);
-            sb.append(" histogram\n");
+    private void buildApiKeyCacheLines(StringBuilder sb, List<ProxySeries> proxies) {
+        Set<CachingApiKeyStore> caches = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (ProxySeries ps : proxies)
+            for (Interceptor i : ps.proxy.getFlow())
+                if (i instanceof ApiKeysInterceptor aki)
+                    for (ApiKeyStore store : aki.getStores())
+                        if (store instanceof CachingApiKeyStore cache)
+                            caches.add(cache);
+        if (caches.isEmpty())
+            return;
+
+        Map<CachingApiKeyStore, String> labels = new LinkedHashMap<>();
+        Map<String, Integer> seenNames = new HashMap<>();
+        for (CachingApiKeyStore cache : caches) {
+            String name = prometheusCompatibleName(cache.getStore().getClass().getSimpleName());
+            int n = seenNames.merge(name, 1, Integer::sum);
+            labels.put(cache, "store=\"" + (n == 1 ? name : name + "_" + n) + "\"");
         }
 
-        sb.append(prometheusName);
-        sb.append("{rule=\"");
-        sb.append(prometheusCompatibleName(ruleName));
-        sb.append("\",code=\"");
-        sb.append(code);
-        sb.append("\",le=\"");
-        sb.append(le);
-        sb.append("\"} ");
-        sb.append(valueCount);
-        sb.append("\n");
-
+        appendType(sb, "membrane_apikey_cache_hits_total", "counter");
+        labels.forEach((cache, label) -> sb.append("membrane_apikey_cache_hits_total{").append(label).append("} ").append(cache.getStats().hitCount()).append('\n'));
+        appendType(sb, "membrane_apikey_cache_misses_total", "counter");
+        labels.forEach((cache, label) -> sb.append("membrane_apikey_cache_misses_total{").append(label).append("} ").append(cache.getStats().missCount()).append('\n'));
+        appendType(sb, "membrane_apikey_cache_size", "gauge");
+        labels.forEach((cache, label) -> sb.append("membrane_apikey_cache_size{").append(label).append("} ").append(cache.getSize()).append('\n'));
+        boolean typeLine = true;
+        for (Map.Entry<CachingApiKeyStore, String> e : labels.entrySet())
+            typeLine &= !buildLatencyHistogram(sb, "membrane_apikey_store_load_seconds", e.getValue(), e.getKey().getLoadLatency(), typeLine);
     }
 
-    /**
-     * see <a href="https://prometheus.io/docs/instrumenting/exposition_formats/">Exposition Formats</a> .
-     */
-    private void buildLine(StringBuilder sb, String ruleName, long value, String labelName, int labelValue, String postFix) {
-        String prometheusName = prometheusCompatibleName("membrane_" + postFix);
-        if (sb.isEmpty()) {
-            sb.append("# TYPE ");
-            sb.append(prometheusName);
-            sb.append(" counter\n");
-        }
-
-        sb.append(prometheusName);
-        sb.append("{rule=\"");
-        sb.append(prometheusCompatibleName(ruleName));
-        sb.append("\",");
-        sb.append(prometheusCompatibleName(labelName));
-        sb.append("=\"");
-        sb.append(labelValue);
-        sb.append("\"} ");
-        sb.append(value);
-        sb.append("\n");
+    private static void appendType(StringBuilder sb, String prometheusName, String type) {
+        sb.append("# TYPE ").append(prometheusName).append(' ').append(type).append('\n');
     }
 
     final ConcurrentHashMap<String, String> names = new ConcurrentHashMap<>();
@@ -432,6 +610,26 @@ public class PrometheusInterceptor extends AbstractInterceptor {
         return joinByComma(TimeCollector.getBuckets().stream().map(Object::toString).collect(toList()));
     }
 
+    /**
+     * @description Comma-separated bucket boundaries in milliseconds of the <code>latency_seconds</code> and
+     * <code>interceptor_latency_seconds</code> histograms. Fractions down to a microsecond are allowed. Choose
+     * boundaries matching your service level objectives, e.g. 20 if the p99 latency should stay below 20 ms.
+     * @default 1,2.5,5,10,25,50,100,250,500,1000,2500,5000,10000
+     * @example 5,10,20,50,100
+     */
+    @MCAttribute
+    public void setSloBuckets(String sloBuckets) {
+        this.sloBuckets = stream(sloBuckets.replaceAll("\\s+", "").split(","))
+                .mapToLong(ms -> new BigDecimal(ms).movePointRight(3).longValueExact())
+                .sorted()
+                .toArray();
+        this.sloBucketLabels = toSeconds(this.sloBuckets);
+    }
+
+    public String getSloBuckets() {
+        return stream(sloBuckets).mapToObj(micros -> BigDecimal.valueOf(micros, 3).stripTrailingZeros().toPlainString()).collect(joining(","));
+    }
+
     @Override
     public String getShortDescription() {
         return "Returns Membrane's internal metrics in the Prometheus format.";
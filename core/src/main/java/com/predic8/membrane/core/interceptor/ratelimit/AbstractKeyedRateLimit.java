@@ -0,0 +1,136 @@
+/* Copyright 2026 predic8 GmbH, www.predic8.com
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+   http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License. */
+
+package com.predic8.membrane.core.interceptor.ratelimit;
+
+import java.time.*;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.locks.*;
+import java.util.function.*;
+
+import static java.util.concurrent.TimeUnit.*;
+
+/**
+ * Base for rate limits which keep a state object per key and measure time using {@link System#nanoTime()}.
+ * <p>
+ * Idle keys are evicted incrementally: every request checks a few entries of the map, continuing where the previous
+ * check stopped. The map is never cleared as a whole while the limiter is running.
+ *
+ * @param <S> state of a key, must be updated lock-free
+ */
+abstract class AbstractKeyedRateLimit<S> extends RateLimitStrategy {
+
+    /**
+     * Entries checked for idleness per request. More than one, so eviction keeps up with new keys.
+     */
+    private static final int EVICTION_BATCH = 4;
+
+    protected final LongSupplier nanoTime;
+
+    final ConcurrentHashMap<String, S> states = new ConcurrentHashMap<>();
+
+    private final ReentrantLock evictionLock = new ReentrantLock();
+    private Iterator<Map.Entry<String, S>> evictionCursor;
+
+    protected volatile long windowNanos;
+
+    protected AbstractKeyedRateLimit(Duration requestLimitDuration, int requestLimit, LongSupplier nanoTime) {
+        this.nanoTime = nanoTime;
+        this.requestLimitDuration = requestLimitDuration;
+        this.requestLimit = requestLimit;
+        updateAfterConfigChange();
+    }
+
+    @Override
+    public boolean isRequestLimitReached(String key) {
+        long now = nanoTime.getAsLong();
+        evictIdle(now);
+        S state = states.get(key);
+        if (state == null)
+            state = states.computeIfAbsent(key, k -> newState(now));
+        return !tryAcquire(state, now);
+    }
+
+    /**
+     * @return a state for a key without any requests
+     */
+    protected abstract S newState(long now);
+
+    /**
+     * Records the request, if it is within the limit.
+     *
+     * @return false, if the limit is reached
+     */
+    protected abstract boolean tryAcquire(S state, long now);
+
+    /**
+     * @return true, if the state does not differ from a new one anymore
+     */
+    protected abstract boolean isIdle(S state, long now);
+
+    /**
+     * @return the time until the next request for the key will be accepted
+     */
+    protected abstract long getNanosUntilAvailable(S state, long now);
+
+    @Override
+    public LocalDateTime getServiceAvailableAgainTime(String key) {
+        return LocalDateTime.now().plusNanos(getNanosUntilAvailable(key));
+    }
+
+    @Override
+    public String getLimitReset(String key) {
+        return Long.toString(NANOSECONDS.toSeconds(getNanosUntilAvailable(key) + SECONDS.toNanos(1) - 1));
+    }
+
+    private long getNanosUntilAvailable(String key) {
+        S state = states.get(key);
+        if (state == null)
+            return 0;
+        return Math.max(0, getNanosUntilAvailable(state, nanoTime.getAsLong()));
+    }
+
+    @Override
+    public void updateAfterConfigChange() {
+        windowNanos = Math.max(1, requestLimitDuration.toNanos());
+        states.clear();
+    }
+
+    /**
+     * Removes idle keys, unless another thread is doing so at the moment.
+     */
+    void evictIdle(long now) {
+        if (!evictionLock.tryLock())
+            return;
+        try {
+            for (int i = 0; i < EVICTION_BATCH; i++) {
+                if (evictionCursor == null || !evictionCursor.hasNext()) {
+                    evictionCursor = states.entrySet().iterator();
+                    if (!evictionCursor.hasNext())
+                        return;
+                }
+                Map.Entry<String, S> entry = evictionCursor.next();
+                if (isIdle(entry.getValue(), now))
+                    states.remove(entry.getKey(), entry.getValue());
+            }
+        } finally {
+            evictionLock.unlock();
+        }
+    }
+
+    int getNumberOfKeys() {
+        return states.size();
+    }
+}
@@ -0,0 +1,290 @@
+/* Copyright 2026 predic8 GmbH, www.predic8.com
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+   http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License. */
+
+package com.predic8.membrane.core.interceptor.ratelimit;
+
+import com.predic8.membrane.core.util.*;
+import org.slf4j.*;
+
+import java.time.*;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
+import java.util.function.*;
+
+import static com.predic8.membrane.core.interceptor.ratelimit.SlidingWindowRateLimit.*;
+import static java.lang.Math.*;
+import static java.util.concurrent.TimeUnit.*;
+
+/**
+ * Counts requests in a {@link RateLimitStore} shared by all gateway instances, so the limit applies to the cluster
+ * instead of to every instance.
+ * <p>
+ * Requests are counted locally and sent to the store in batches every <tt>syncInterval</tt> milliseconds by a
+ * thread of its own, which also fetches the counts of the other instances for the keys of the current window. The request
+ * path never waits for the store: it decides based on the cluster-wide count of the last sync plus the requests
+ * counted locally since. A shorter sync interval is more accurate, a longer one causes less load on the store.
+ * <p>
+ * If the store cannot be reached, the local requests are kept and sent once it is available again. Until then each
+ * instance effectively limits on its own.
+ * <p>
+ * Windows are aligned to the wall clock, so instances agree on them as long as their clocks are synchronized.
+ * Rejected requests are not counted.
+ */
+public class ClusterRateLimit extends RateLimitStrategy {
+
+    private static final Logger log = LoggerFactory.getLogger(ClusterRateLimit.class);
+
+    private final RateLimitStore store;
+    private final boolean sliding;
+    private final LongSupplier currentTimeMillis;
+
+    final ConcurrentHashMap<String, Counter> counters = new ConcurrentHashMap<>();
+
+    /**
+     * Counters replaced by the counter of a newer window since the last sync.
+     */
+    private final Queue<Map.Entry<String, Counter>> retired = new ConcurrentLinkedQueue<>();
+
+    /**
+     * Retired counters seen by the last sync. A request that fetched one of them just before it was replaced may count
+     * on it after that sync, so they are sent once more, and for as long as the store cannot be reached.
+     */
+    private List<Map.Entry<String, Counter>> draining = List.of();
+
+    private volatile long windowMillis;
+    private volatile boolean storeAvailable = true;
+    private volatile ScheduledExecutorService syncExecutor;
+
+    static final class Counter {
+        final long window;
+
+        /**
+         * Cluster-wide count of the previous window, as far as known.
+         */
+        final long previous;
+
+        /**
+         * Requests not sent to the store yet.
+         */
+        final AtomicLong pending = new AtomicLong();
+
+        /**
+         * Requests being sent to the store right now.
+         */
+        volatile long inFlight;
+
+        /**
+         * Cluster-wide count at the last sync, including the own requests sent so far.
+         */
+        volatile long synced;
+
+        Counter(long window, long previous) {
+            this.window = window;
+            this.previous = previous;
+        }
+
+        long getCount() {
+            return synced + inFlight + pending.get();
+        }
+    }
+
+    public ClusterRateLimit(Duration requestLimitDuration, int requestLimit, RateLimitStore store, boolean sliding) {
+        this(requestLimitDuration, requestLimit, store, sliding, System::currentTimeMillis);
+    }
+
+    ClusterRateLimit(Duration requestLimitDuration, int requestLimit, RateLimitStore store, boolean sliding, LongSupplier currentTimeMillis) {
+        this.store = store;
+        this.sliding = sliding;
+        this.currentTimeMillis = currentTimeMillis;
+        this.requestLimitDuration = requestLimitDuration;
+        this.requestLimit = requestLimit;
+        updateAfterConfigChange();
+    }
+
+    /**
+     * Starts the sync. It does not run on the {@link TimerManager} of the router, as a slow or unreachable store would
+     * delay all other timer tasks.
+     */
+    public void start(long syncInterval) {
+        ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(Thread.ofPlatform().daemon().name("Rate limit sync").factory());
+        executor.scheduleWithFixedDelay(() -> {
+            try {
+                sync();
+            } catch (RuntimeException e) {
+                log.warn("Could not sync rate limit counters.", e);
+            }
+        }, syncInterval, syncInterval, MILLISECONDS);
+        syncExecutor = executor;
+    }
+
+    public void stop() {
+        ScheduledExecutorService executor = syncExecutor;
+        if (executor != null)
+            executor.shutdownNow();
+    }
+
+    @Override
+    public boolean isRequestLimitReached(String key) {
+        long now = currentTimeMillis.getAsLong();
+        Counter counter = getCounter(key, floorDiv(now, windowMillis));
+        counter.pending.incrementAndGet();
+        if (estimate(counter, floorMod(now, windowMillis)) <= requestLimit)
+            return false;
+        counter.pending.decrementAndGet();
+        return true;
+    }
+
+    private double estimate(Counter counter, long elapsed) {
+        double count = counter.getCount();
+        if (sliding)
+            count += counter.previous * (1 - (double) elapsed / windowMillis);
+        return count;
+    }
+
+    private Counter getCounter(String key, long window) {
+        while (true) {
+            Counter counter = counters.get(key);
+            if (counter == null) {
+                counter = counters.putIfAbsent(key, new Counter(window, 0));
+                if (counter == null)
+                    continue;
+            }
+            if (counter.window >= window)
+                return counter;
+            Counter next = new Counter(window, counter.window == window - 1 ? counter.getCount() : 0);
+            if (counters.replace(key, counter, next)) {
+                retire(key, counter);
+                return next;
+            }
+        }
+    }
+
+    private void retire(String key, Counter counter) {
+        // Queued even without pending requests, as a request holding the counter may still count on it.
+        retired.add(Map.entry(key, counter));
+    }
+
+    /**
+     * Sends the local requests to the store and updates the cluster-wide counts. Called by the sync thread.
+     */
+    synchronized void sync() {
+        long window = floorDiv(currentTimeMillis.getAsLong(), windowMillis);
+
+        Map<Long, Map<String, Counter>> batches = new HashMap<>();
+        List<Map.Entry<String, Counter>> retiredNow = new ArrayList<>();
+        Map.Entry<String, Counter> r;
+        while ((r = retired.poll()) != null)
+            retiredNow.add(r);
+        for (List<Map.Entry<String, Counter>> list : List.of(draining, retiredNow))
+            for (Map.Entry<String, Counter> e : list)
+                if (e.getValue().pending.get() > 0)
+                    batches.computeIfAbsent(e.getValue().window, w -> new HashMap<>()).put(e.getKey(), e.getValue());
+
+        for (Iterator<Map.Entry<String, Counter>> it = counters.entrySet().iterator(); it.hasNext(); ) {
+            Map.Entry<String, Counter> e = it.next();
+            Counter counter = e.getValue();
+            if (counter.window < window - 1 && counter.pending.get() == 0) {
+                if (counters.remove(e.getKey(), counter))
+                    retire(e.getKey(), counter);
+                continue;
+            }
+            // Counters of the current window are refreshed even without own requests to learn about the others.
+            if (counter.window == window || counter.pending.get() > 0)
+                batches.computeIfAbsent(counter.window, w -> new HashMap<>()).put(e.getKey(), counter);
+        }
+
+        for (Map.Entry<Long, Map<String, Counter>> batch : batches.entrySet())
+            send(batch.getKey(), batch.getValue());
+
+        // Counters that could not be sent are kept until the store is back.
+        for (Map.Entry<String, Counter> e : draining)
+            if (e.getValue().pending.get() > 0)
+                retiredNow.add(e);
+        draining = retiredNow;
+    }
+
+    private void send(long window, Map<String, Counter> batch) {
+        Map<String, Long> increments = new HashMap<>();
+        for (Map.Entry<String, Counter> e : batch.entrySet()) {
+            Counter counter = e.getValue();
+            long n = counter.pending.get();
+            // pending first: a request must not be counted twice, that would throttle clients too early
+            counter.pending.addAndGet(-n);
+            counter.inFlight = n;
+            increments.put(e.getKey(), n);
+        }
+
+        Map<String, Long> totals;
+        try {
+            totals = store.add(window, increments, 2 * windowMillis);
+        } catch (Exception e) {
+            for (Counter counter : batch.values()) {
+                counter.pending.addAndGet(counter.inFlight);
+                counter.inFlight = 0;
+            }
+            if (storeAvailable)
+                log.warn("Rate limit store is not available, counting locally until it is back: {}", e.getMessage());
+            storeAvailable = false;
+            return;
+        }
+
+        if (!storeAvailable)
+            log.info("Rate limit store is available again.");
+        storeAvailable = true;
+        for (Map.Entry<String, Counter> e : batch.entrySet()) {
+            Counter counter = e.getValue();
+            Long total = totals.get(e.getKey());
+            if (total != null)
+                counter.synced = max(total, counter.synced + counter.inFlight);
+            else
+                counter.synced += counter.inFlight;
+            counter.inFlight = 0;
+        }
+    }
+
+    public boolean isStoreAvailable() {
+        return storeAvailable;
+    }
+
+    @Override
+    public LocalDateTime getServiceAvailableAgainTime(String key) {
+        return LocalDateTime.now().plus(Duration.ofMillis(getMillisUntilAvailable(key)));
+    }
+
+    @Override
+    public String getLimitReset(String key) {
+        return Long.toString((getMillisUntilAvailable(key) + 999) / 1000);
+    }
+
+    private long getMillisUntilAvailable(String key) {
+        long now = currentTimeMillis.getAsLong();
+        long window = floorDiv(now, windowMillis);
+        long elapsed = floorMod(now, windowMillis);
+        Counter counter = counters.get(key);
+        if (counter == null || counter.window < window - 1)
+            return 0;
+        long previous = counter.window == window - 1 ? counter.getCount() : counter.previous;
+        long current = counter.window == window - 1 ? 0 : counter.getCount();
+        if (!sliding)
+            return current < requestLimit ? 0 : windowMillis - elapsed;
+        return max(0, getTimeUntilAvailable(previous, current, elapsed, windowMillis, requestLimit));
+    }
+
+    @Override
+    public void updateAfterConfigChange() {
+        windowMillis = max(1, requestLimitDuration.toMillis());
+        counters.clear();
+    }
+}
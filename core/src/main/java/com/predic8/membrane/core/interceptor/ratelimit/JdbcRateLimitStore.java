@@ -0,0 +1,206 @@
+/* Copyright 2026 predic8 GmbH, www.predic8.com
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+   http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License. */
+
+package com.predic8.membrane.core.interceptor.ratelimit;
+
+import com.predic8.membrane.annot.*;
+import com.predic8.membrane.core.router.*;
+import com.predic8.membrane.core.util.*;
+import com.predic8.membrane.core.util.jdbc.*;
+
+import java.sql.*;
+import java.util.*;
+
+/**
+ * @description Keeps the counters of a cluster-wide rate limit in a database table. All increments of a sync are
+ * sent in one batch. Expired rows are deleted at most once per window.
+ * <p>
+ * By default, the table is created at startup if it does not exist (controlled by <code>autoCreate</code>).
+ * </p>
+ * @yaml <pre><code>
+ * rateLimiter:
+ *   requestLimit: 100
+ *   requestLimitDuration: PT1M
+ *   store:
+ *     jdbcRateLimitStore:
+ *       datasource: datasource
+ *       tableName: rate_limit_counter
+ * </code></pre>
+ * @topic 3. Security and Validation
+ */
+@MCElement(name = "jdbcRateLimitStore")
+public class JdbcRateLimitStore extends AbstractJdbcSupport implements RateLimitStore {
+
+    private static final int MAX_KEYS_PER_SELECT = 100;
+    private static final int QUERY_TIMEOUT_SECONDS = 5;
+
+    private static final String CREATE_TABLE = """
+            CREATE TABLE %s (
+                counter_key VARCHAR(255) NOT NULL,
+                time_window BIGINT NOT NULL,
+                requests BIGINT NOT NULL,
+                expires_at BIGINT NOT NULL,
+                PRIMARY KEY (counter_key, time_window)
+            )
+            """;
+
+    private String tableName = "rate_limit_counter";
+    private boolean autoCreate = true;
+
+    private long lastCleanup;
+
+    @Override
+    public void init(Router router) {
+        super.init(router);
+        createTableIfNotExists();
+    }
+
+    @Override
+    public Map<String, Long> add(long window, Map<String, Long> increments, long expireAfterMillis) throws SQLException {
+        List<String> keys = new ArrayList<>(increments.keySet());
+        try (Connection con = getDatasource().getConnection()) {
+            List<String> missing = update(con, window, keys, increments);
+            if (!missing.isEmpty())
+                insert(con, window, missing, increments, System.currentTimeMillis() + expireAfterMillis);
+            Map<String, Long> totals = select(con, window, keys);
+            deleteExpired(con, expireAfterMillis);
+            return totals;
+        }
+    }
+
+    private List<String> update(Connection con, long window, List<String> keys, Map<String, Long> increments) throws SQLException {
+        try (PreparedStatement stmt = con.prepareStatement("UPDATE %s SET requests = requests + ? WHERE counter_key = ? AND time_window = ?".formatted(tableName))) {
+            stmt.setQueryTimeout(QUERY_TIMEOUT_SECONDS);
+            for (String key : keys) {
+                stmt.setLong(1, increments.get(key));
+                stmt.setString(2, key);
+                stmt.setLong(3, window);
+                stmt.addBatch();
+            }
+            int[] counts = stmt.executeBatch();
+            List<String> missing = new ArrayList<>();
+            for (int i = 0; i < counts.length; i++) {
+                if (counts[i] == 0)
+                    missing.add(keys.get(i));
+            }
+            return missing;
+        }
+    }
+
+    private void insert(Connection con, long window, List<String> keys, Map<String, Long> increments, long expiresAt) throws SQLException {
+        try (PreparedStatement stmt = con.prepareStatement("INSERT INTO %s (counter_key, time_window, requests, expires_at) VALUES (?, ?, ?, ?)".formatted(tableName))) {
+            stmt.setQueryTimeout(QUERY_TIMEOUT_SECONDS);
+            for (String key : keys) {
+                stmt.setString(1, key);
+                stmt.setLong(2, window);
+                stmt.setLong(3, increments.get(key));
+                stmt.setLong(4, expiresAt);
+                try {
+                    stmt.executeUpdate();
+                } catch (SQLException e) {
+                    if (!isIntegrityViolation(e))
+                        throw e;
+                    // another instance inserted the row in the meantime
+                    update(con, window, List.of(key), increments);
+                }
+            }
+        }
+    }
+
+    private static boolean isIntegrityViolation(SQLException e) {
+        return e instanceof SQLIntegrityConstraintViolationException || (e.getSQLState() != null && e.getSQLState().startsWith("23"));
+    }
+
+    private Map<String, Long> select(Connection con, long window, List<String> keys) throws SQLException {
+        Map<String, Long> totals = new HashMap<>();
+        for (int from = 0; from < keys.size(); from += MAX_KEYS_PER_SELECT) {
+            List<String> part = keys.subList(from, Math.min(keys.size(), from + MAX_KEYS_PER_SELECT));
+            String placeholders = String.join(",", Collections.nCopies(part.size(), "?"));
+            try (PreparedStatement stmt = con.prepareStatement("SELECT counter_key, requests FROM %s WHERE time_window = ? AND counter_key IN (%s)".formatted(tableName, placeholders))) {
+                stmt.setQueryTimeout(QUERY_TIMEOUT_SECONDS);
+                stmt.setLong(1, window);
+                for (int i = 0; i < part.size(); i++)
+                    stmt.setString(i + 2, part.get(i));
+                try (ResultSet rs = stmt.executeQuery()) {
+                    while (rs.next())
+                        totals.put(rs.getString(1), rs.getLong(2));
+                }
+            }
+        }
+        return totals;
+    }
+
+    private void deleteExpired(Connection con, long interval) throws SQLException {
+        long now = System.currentTimeMillis();
+        if (now - lastCleanup < interval / 2)
+            return;
+        lastCleanup = now;
+        try (PreparedStatement stmt = con.prepareStatement("DELETE FROM %s WHERE expires_at < ?".formatted(tableName))) {
+            stmt.setQueryTimeout(QUERY_TIMEOUT_SECONDS);
+            stmt.setLong(1, now);
+            stmt.executeUpdate();
+        }
+    }
+
+    private void createTableIfNotExists() {
+        if (!autoCreate)
+            return;
+        try (Connection connection = getDatasource().getConnection()) {
+            if (tableExists(connection))
+                return;
+            try (Statement stmt = connection.createStatement()) {
+                stmt.executeUpdate(CREATE_TABLE.formatted(tableName));
+            }
+        } catch (Exception e) {
+            throw new ConfigurationException("Failed to create table %s for rate limit counters: ".formatted(tableName), e);
+        }
+    }
+
+    private boolean tableExists(Connection connection) throws SQLException {
+        try (ResultSet rs = connection.getMetaData().getTables(null, connection.getSchema(), "%", new String[]{"TABLE"})) {
+            while (rs.next()) {
+                if (tableName.equalsIgnoreCase(rs.getString("TABLE_NAME")))
+                    return true;
+            }
+        }
+        return false;
+    }
+
+    public String getTableName() {
+        return tableName;
+    }
+
+    /**
+     * @description Name of the table holding the counters.
+     * @default rate_limit_counter
+     */
+    @MCAttribute
+    public void setTableName(String tableName) {
+        this.tableName = tableName;
+    }
+
+    public boolean isAutoCreate() {
+        return autoCreate;
+    }
+
+    /**
+     * @description Whether the table should be created automatically if it does not exist.
+     * @default true
+     * @example false
+     */
+    @MCAttribute
+    public void setAutoCreate(boolean autoCreate) {
+        this.autoCreate = autoCreate;
+    }
+}
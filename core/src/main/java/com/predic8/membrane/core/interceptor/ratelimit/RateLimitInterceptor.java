@@ -20,6 +20,7 @@ import com.predic8.membrane.core.http.*;
 import com.predic8.membrane.core.interceptor.*;
 import com.predic8.membrane.core.interceptor.lang.*;
 import com.predic8.membrane.core.lang.*;
+import com.predic8.membrane.core.util.*;
 import org.slf4j.*;
 import org.springframework.expression.spel.*;
 
@@ -67,7 +68,28 @@ public class RateLimitInterceptor extends AbstractExchangeExpressionInterceptor
      */
     public static final String X_RATELIMIT_RESET = "X-RateLimit-Reset";
 
-    private final RateLimitStrategy strategy;
+    public enum Algorithm {
+        /**
+         * Counts the requests per fixed period. Allows up to twice the limit around the end of a period.
+         */
+        FIXED_WINDOW,
+        /**
+         * Weighs the count of the previous period by its overlap with a period ending now.
+         */
+        SLIDING_WINDOW,
+        /**
+         * Allows bursts of up to <tt>requestLimit</tt> requests, refilled evenly over <tt>requestLimitDuration</tt>.
+         */
+        TOKEN_BUCKET
+    }
+
+    private Algorithm algorithm = Algorithm.FIXED_WINDOW;
+
+    private RateLimitStrategy strategy;
+
+    private RateLimitStore store;
+    private int syncInterval = 100;
+    private ClusterRateLimit cluster;
 
     private List<String> trustedProxyList;
 
@@ -84,11 +106,39 @@ public class RateLimitInterceptor extends AbstractExchangeExpressionInterceptor
     }
 
     public RateLimitInterceptor(Duration requestLimitDuration, int requestLimit) {
-        strategy = new LazyRateLimit(requestLimitDuration, requestLimit);
+        strategy = createStrategy(algorithm, requestLimitDuration, requestLimit);
         name = "rate limiter";
         setAppliedFlow(REQUEST_FLOW);
     }
 
+    private static RateLimitStrategy createStrategy(Algorithm algorithm, Duration requestLimitDuration, int requestLimit) {
+        return switch (algorithm) {
+            case FIXED_WINDOW -> new LazyRateLimit(requestLimitDuration, requestLimit);
+            case SLIDING_WINDOW -> new SlidingWindowRateLimit(requestLimitDuration, requestLimit);
+            case TOKEN_BUCKET -> new TokenBucketRateLimit(requestLimitDuration, requestLimit);
+        };
+    }
+
+    @Override
+    public void init() {
+        super.init();
+        if (store == null)
+            return;
+        if (algorithm == Algorithm.TOKEN_BUCKET)
+            throw new ConfigurationException("The rate limiter does not support algorithm token_bucket together with a store.");
+        store.init(router);
+        stop();
+        cluster = new ClusterRateLimit(strategy.getRequestLimitDuration(), strategy.getRequestLimit(), store, algorithm == Algorithm.SLIDING_WINDOW);
+        cluster.start(syncInterval);
+        strategy = cluster;
+    }
+
+    @Override
+    public void stop() {
+        if (cluster != null)
+            cluster.stop();
+    }
+
     @Override
     protected ExchangeExpression getExchangeExpression() {
         // If there is no expression use the client IP
@@ -99,8 +149,10 @@ public class RateLimitInterceptor extends AbstractExchangeExpressionInterceptor
 
     @Override
     public Outcome handleRequest(Exchange exc) {
+        String key;
         try {
-            if (!strategy.isRequestLimitReached(getKey(exc)))
+            key = getKey(exc);
+            if (!strategy.isRequestLimitReached(key))
                 return CONTINUE;
         } catch (SpelEvaluationException e) {
             log.info("Cannot evaluate keyExpression {} cause is {}", expression, e.getCause());
@@ -111,16 +163,16 @@ public class RateLimitInterceptor extends AbstractExchangeExpressionInterceptor
             return RETURN;
         }
 
-        log.info("{} limit: {} duration: {} is exceeded. (clientIp: {})", getKey(exc), getRequestLimit(), getRequestLimitDuration(), exc.getRemoteAddrIp());
+        log.info("{} limit: {} duration: {} is exceeded. (clientIp: {})", key, getRequestLimit(), getRequestLimitDuration(), exc.getRemoteAddrIp());
         user(false, getDisplayName())
                 .status(429)
                 .title("Rate limit is exceeded.")
                 .addSubType("rate-limit")
-                .detail("The quota of the rate limit is exceeded. Try again in %s seconds.".formatted(strategy.getLimitReset(exc.getRemoteAddrIp())))
+                .detail("The quota of the rate limit is exceeded. Try again in %s seconds.".formatted(strategy.getLimitReset(key)))
                 .internal("limit", getRequestLimit())
                 .internal("duration", getRequestLimitDuration())
                 .buildAndSetResponse(exc);
-        setHeaderRateLimitFieldsOnResponse(exc);
+        setHeaderRateLimitFieldsOnResponse(exc, key);
 
         return RETURN;
     }
@@ -214,11 +266,11 @@ public class RateLimitInterceptor extends AbstractExchangeExpressionInterceptor
         return l.get(l.size() - count - 1).trim();
     }
 
-    private void setHeaderRateLimitFieldsOnResponse(Exchange exc) {
+    private void setHeaderRateLimitFieldsOnResponse(Exchange exc, String key) {
         Header h = exc.getResponse().getHeader();
         h.add(X_RATELIMIT_DURATION, strategy.getLimitDurationPeriod());
         h.add(X_RATELIMIT_LIMIT, Integer.toString(strategy.requestLimit));
-        h.add(X_RATELIMIT_RESET, strategy.getLimitReset(exc.getRemoteAddrIp()));
+        h.add(X_RATELIMIT_RESET, strategy.getLimitReset(key));
     }
 
     @SuppressWarnings("unused")
@@ -254,6 +306,52 @@ public class RateLimitInterceptor extends AbstractExchangeExpressionInterceptor
         strategy.setRequestLimitDuration(duration);
     }
 
+    public Algorithm getAlgorithm() {
+        return algorithm;
+    }
+
+    /**
+     * @description How requests are counted. <tt>fixed_window</tt> counts per period and resets all counters at
+     * the end of it. <tt>sliding_window</tt> also takes the previous period into account, weighted by its overlap
+     * with a period ending now. <tt>token_bucket</tt> allows bursts of up to <tt>requestLimit</tt> requests and
+     * refills the quota evenly over <tt>requestLimitDuration</tt>.
+     * @default fixed_window
+     * @example token_bucket
+     */
+    @MCAttribute
+    public void setAlgorithm(Algorithm algorithm) {
+        this.algorithm = algorithm;
+        strategy = createStrategy(algorithm, strategy.getRequestLimitDuration(), strategy.getRequestLimit());
+    }
+
+    public RateLimitStore getStore() {
+        return store;
+    }
+
+    /**
+     * @description Store shared by all gateway instances of a cluster. With a store, the limit applies to the
+     * requests of all instances together instead of to each instance. Requests are counted locally and synchronized
+     * with the store in the background. If the store is not reachable, each instance limits on its own.
+     */
+    @MCChildElement(allowForeign = true)
+    public void setStore(RateLimitStore store) {
+        this.store = store;
+    }
+
+    public int getSyncInterval() {
+        return syncInterval;
+    }
+
+    /**
+     * @description Milliseconds between two synchronizations with the <tt>store</tt>. Shorter intervals are more
+     * accurate, longer ones cause less load on the store.
+     * @default 100
+     */
+    @MCAttribute
+    public void setSyncInterval(int syncInterval) {
+        this.syncInterval = syncInterval;
+    }
+
     /**
      * @description The expression the ratelimiter should use to group the requests before counting. The Spring Expression Language (SpEL)
      * is used as language. In the expression the build-in variables request, header, properties can be used.
@@ -0,0 +1,45 @@
+/* Copyright 2026 predic8 GmbH, www.predic8.com
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+   http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License. */
+
+package com.predic8.membrane.core.interceptor.ratelimit;
+
+import com.predic8.membrane.core.router.*;
+
+import java.util.*;
+
+/**
+ * Request counters shared by all gateway instances of a cluster, see {@link ClusterRateLimit}.
+ * <p>
+ * A counter is identified by a key and a window. Windows are numbered by all instances in the same way, so the
+ * counters of the same key and window are summed up over the cluster.
+ */
+public interface RateLimitStore {
+
+    /**
+     * Lifecycle hook invoked once to provide the {@link Router} context.
+     */
+    default void init(Router router) {
+    }
+
+    /**
+     * Adds the increments to the counters of the window. Is not called on the request path.
+     *
+     * @param window           index of the window
+     * @param increments       number of requests to add per key
+     * @param expireAfterMillis the counters are not needed anymore after this time
+     * @return the cluster-wide counts of the keys after adding
+     * @throws Exception if the store is not reachable. The caller falls back to local counting.
+     */
+    Map<String, Long> add(long window, Map<String, Long> increments, long expireAfterMillis) throws Exception;
+}
@@ -0,0 +1,84 @@
+/* Copyright 2026 predic8 GmbH, www.predic8.com
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+   http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License. */
+
+package com.predic8.membrane.core.interceptor.ratelimit;
+
+import com.predic8.membrane.annot.*;
+import com.predic8.membrane.core.util.*;
+import redis.clients.jedis.*;
+
+import java.util.*;
+
+/**
+ * @description Keeps the counters of a cluster-wide rate limit in Redis. All increments of a sync are sent in one
+ * pipeline using <tt>INCRBY</tt> and <tt>PEXPIRE</tt>.
+ * @yaml <pre><code>
+ * rateLimiter:
+ *   requestLimit: 100
+ *   requestLimitDuration: PT1M
+ *   store:
+ *     redisRateLimitStore:
+ *       connector: redis
+ * </code></pre>
+ * @topic 3. Security and Validation
+ */
+@MCElement(name = "redisRateLimitStore")
+public class RedisRateLimitStore implements RateLimitStore {
+
+    private RedisConnector connector;
+    private String prefix = "membrane:ratelimit:";
+
+    @Override
+    public Map<String, Long> add(long window, Map<String, Long> increments, long expireAfterMillis) {
+        Map<String, Response<Long>> responses = new HashMap<>();
+        try (Jedis jedis = connector.getJedisWithDb()) {
+            Pipeline pipeline = jedis.pipelined();
+            for (Map.Entry<String, Long> e : increments.entrySet()) {
+                String key = prefix + window + ":" + e.getKey();
+                responses.put(e.getKey(), pipeline.incrBy(key, e.getValue()));
+                pipeline.pexpire(key, expireAfterMillis);
+            }
+            pipeline.sync();
+        }
+        Map<String, Long> totals = new HashMap<>();
+        responses.forEach((key, response) -> totals.put(key, response.get()));
+        return totals;
+    }
+
+    public RedisConnector getConnector() {
+        return connector;
+    }
+
+    /**
+     * @description Reference to a <tt>redis</tt> connector.
+     */
+    @Required
+    @MCAttribute
+    public void setConnector(RedisConnector connector) {
+        this.connector = connector;
+    }
+
+    public String getPrefix() {
+        return prefix;
+    }
+
+    /**
+     * @description Prefix of the keys in Redis.
+     * @default membrane:ratelimit:
+     */
+    @MCAttribute
+    public void setPrefix(String prefix) {
+        this.prefix = prefix;
+    }
+}
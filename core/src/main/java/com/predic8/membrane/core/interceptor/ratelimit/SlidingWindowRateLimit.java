@@ -0,0 +1,122 @@
+/* Copyright 2026 predic8 GmbH, www.predic8.com
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+   http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License. */
+
+package com.predic8.membrane.core.interceptor.ratelimit;
+
+import java.time.*;
+import java.util.concurrent.atomic.*;
+import java.util.function.*;
+
+import static java.lang.Math.*;
+
+/**
+ * Sliding window counter: The number of requests of the current fixed window is added to the number of the previous
+ * window, weighted by the part of the previous window still covered by a window ending now. Unlike a fixed window,
+ * this does not allow bursts of twice the limit at the edge of a window.
+ * <p>
+ * Rejected requests are not counted.
+ */
+public class SlidingWindowRateLimit extends AbstractKeyedRateLimit<AtomicReference<SlidingWindowRateLimit.Window>> {
+
+    /**
+     * Requests counted in the window with the given index. The object is replaced when the next window starts.
+     */
+    static final class Window {
+        final long index;
+        final int previous;
+        final AtomicInteger count = new AtomicInteger();
+
+        Window(long index, int previous) {
+            this.index = index;
+            this.previous = previous;
+        }
+    }
+
+    public SlidingWindowRateLimit(Duration requestLimitDuration, int requestLimit) {
+        this(requestLimitDuration, requestLimit, System::nanoTime);
+    }
+
+    SlidingWindowRateLimit(Duration requestLimitDuration, int requestLimit, LongSupplier nanoTime) {
+        super(requestLimitDuration, requestLimit, nanoTime);
+    }
+
+    @Override
+    protected AtomicReference<Window> newState(long now) {
+        return new AtomicReference<>(new Window(floorDiv(now, windowNanos), 0));
+    }
+
+    @Override
+    protected boolean tryAcquire(AtomicReference<Window> state, long now) {
+        long index = floorDiv(now, windowNanos);
+        Window window = current(state, index);
+        int count = window.count.incrementAndGet();
+        if (estimate(window.previous, count, floorMod(now, windowNanos)) <= requestLimit)
+            return true;
+        window.count.decrementAndGet();
+        return false;
+    }
+
+    /**
+     * @return the window with the index, starting it if necessary
+     */
+    private static Window current(AtomicReference<Window> state, long index) {
+        while (true) {
+            Window window = state.get();
+            if (window.index >= index)
+                return window;
+            Window next = new Window(index, window.index == index - 1 ? window.count.get() : 0);
+            if (state.compareAndSet(window, next))
+                return next;
+        }
+    }
+
+    private double estimate(int previous, int current, long elapsed) {
+        return previous * (1 - (double) elapsed / windowNanos) + current;
+    }
+
+    @Override
+    protected boolean isIdle(AtomicReference<Window> state, long now) {
+        return floorDiv(now, windowNanos) - state.get().index >= 2;
+    }
+
+    @Override
+    protected long getNanosUntilAvailable(AtomicReference<Window> state, long now) {
+        long index = floorDiv(now, windowNanos);
+        long elapsed = floorMod(now, windowNanos);
+        Window window = state.get();
+        if (window.index < index - 1)
+            return 0;
+        int previous = window.index == index - 1 ? window.count.get() : window.previous;
+        int current = window.index == index - 1 ? 0 : window.count.get();
+        return getTimeUntilAvailable(previous, current, elapsed, windowNanos, requestLimit);
+    }
+
+    /**
+     * Estimates when the next request will be accepted, assuming no further requests are made. All times are in
+     * the same unit.
+     *
+     * @param elapsed time since the start of the current window
+     */
+    static long getTimeUntilAvailable(long previous, long current, long elapsed, long window, int requestLimit) {
+        if (requestLimit <= 0)
+            return window - elapsed;
+        // the next request is accepted once previous * weight + current + 1 <= requestLimit
+        if (current < requestLimit) {
+            if (previous == 0)
+                return 0;
+            return (long) ceil(window * (1 - (double) (requestLimit - 1 - current) / previous)) - elapsed;
+        }
+        return window - elapsed + max(0, (long) ceil(window * (1 - (double) (requestLimit - 1) / current)));
+    }
+}
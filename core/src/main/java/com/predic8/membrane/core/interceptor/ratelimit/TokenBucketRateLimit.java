@@ -0,0 +1,88 @@
+/* Copyright 2026 predic8 GmbH, www.predic8.com
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+   http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License. */
+
+package com.predic8.membrane.core.interceptor.ratelimit;
+
+import java.time.*;
+import java.util.concurrent.atomic.*;
+import java.util.function.*;
+
+import static java.lang.Math.*;
+
+/**
+ * Token bucket holding up to <tt>requestLimit</tt> tokens, refilled continuously at <tt>requestLimit</tt> tokens per
+ * <tt>requestLimitDuration</tt>. Every accepted request takes one token, rejected requests take none.
+ * <p>
+ * Implemented as the generic cell rate algorithm: The state of a key is a single number, the time at which the
+ * bucket would be full again. It is updated using compare-and-set.
+ */
+public class TokenBucketRateLimit extends AbstractKeyedRateLimit<AtomicLong> {
+
+    /**
+     * Time to refill one token.
+     */
+    private volatile long intervalNanos;
+
+    public TokenBucketRateLimit(Duration requestLimitDuration, int requestLimit) {
+        this(requestLimitDuration, requestLimit, System::nanoTime);
+    }
+
+    TokenBucketRateLimit(Duration requestLimitDuration, int requestLimit, LongSupplier nanoTime) {
+        super(requestLimitDuration, requestLimit, nanoTime);
+    }
+
+    @Override
+    public void updateAfterConfigChange() {
+        super.updateAfterConfigChange();
+        intervalNanos = requestLimit <= 0 ? Long.MAX_VALUE : max(1, windowNanos / requestLimit);
+    }
+
+    @Override
+    protected AtomicLong newState(long now) {
+        return new AtomicLong(now);
+    }
+
+    @Override
+    protected boolean tryAcquire(AtomicLong state, long now) {
+        if (requestLimit <= 0)
+            return false;
+        while (true) {
+            long full = state.get();
+            long start = max(full, now);
+            if (start - now > getBurstNanos())
+                return false;
+            if (state.compareAndSet(full, start + intervalNanos))
+                return true;
+        }
+    }
+
+    /**
+     * How far the bucket may be from full: all tokens but one.
+     */
+    private long getBurstNanos() {
+        return (requestLimit - 1) * intervalNanos;
+    }
+
+    @Override
+    protected boolean isIdle(AtomicLong state, long now) {
+        return state.get() - now <= 0;
+    }
+
+    @Override
+    protected long getNanosUntilAvailable(AtomicLong state, long now) {
+        if (requestLimit <= 0)
+            return windowNanos;
+        return state.get() - now - getBurstNanos();
+    }
+}
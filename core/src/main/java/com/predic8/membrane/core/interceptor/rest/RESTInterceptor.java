@@ -43,7 +43,7 @@ public abstract class RESTInterceptor extends AbstractInterceptor {
 	public Outcome handleRequest(Exchange exc) {
 		log.debug("request: {}", exc.getOriginalRequestUri());
 
-		exc.setTimeReqSent(System.currentTimeMillis());
+		exc.requestSent();
 
         Outcome o;
         try {
@@ -57,7 +57,7 @@ public abstract class RESTInterceptor extends AbstractInterceptor {
         }
 
         exc.setReceived();
-		exc.setTimeResReceived(System.currentTimeMillis());
+		exc.responseReceived();
 
 		return o;
 	}
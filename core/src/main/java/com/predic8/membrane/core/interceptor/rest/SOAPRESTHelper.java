@@ -38,8 +38,7 @@ abstract class SOAPRESTHelper extends AbstractInterceptor {
 		String key = ss == null ? "null" : ss;
 		XSLTTransformer t = xsltTransformers.get(key);
 		if (t == null) {
-			int concurrency = 2 * Runtime.getRuntime().availableProcessors();
-			t = new XSLTTransformer(ss, router, getBeanBaseLocation(), concurrency);
+			t = new XSLTTransformer(ss, router, getBeanBaseLocation());
 			XSLTTransformer t2 = xsltTransformers.putIfAbsent(key, t);
 			if (t2 != null)
 				return t2;
@@ -38,7 +38,6 @@ import static com.predic8.membrane.core.resolver.ResolverMap.combine;
 import static com.predic8.membrane.core.util.HttpUtil.*;
 import static com.predic8.membrane.core.util.WebServerUtil.getContentType;
 import static com.predic8.membrane.core.util.text.TextUtil.*;
-import static java.lang.System.currentTimeMillis;
 
 /**
  * @description Serves static files based on the request's path.
@@ -127,10 +126,10 @@ public class WebServerInterceptor extends AbstractInterceptor {
         }
 
         try {
-            exc.setTimeReqSent(currentTimeMillis());
+            exc.requestSent();
             exc.setResponse(createResponseInternal(router.getResolverMap(), combine(getBeanBaseLocation(), docBase, uri)));
             exc.setReceived();
-            exc.setTimeResReceived(currentTimeMillis());
+            exc.responseReceived();
             return RETURN;
         } catch (Exception e) {
             if (tryToReceiveResource(exc, uri))
@@ -197,7 +196,7 @@ public class WebServerInterceptor extends AbstractInterceptor {
                     continue;
                 exc.setResponse(response);
                 exc.setReceived();
-                exc.setTimeResReceived(currentTimeMillis());
+                exc.responseReceived();
                 return true;
             } catch (ResourceRetrievalException ignored) {}
         }
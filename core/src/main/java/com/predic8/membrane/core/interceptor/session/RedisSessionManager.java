@@ -11,11 +11,11 @@
    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
    See the License for the specific language governing permissions and
    limitations under the License. */
-
 package com.predic8.membrane.core.interceptor.session;
 
 import com.fasterxml.jackson.core.*;
 import com.fasterxml.jackson.databind.*;
+import com.google.common.cache.*;
 import com.predic8.membrane.annot.*;
 import com.predic8.membrane.core.exchange.*;
 import com.predic8.membrane.core.http.*;
@@ -23,45 +23,75 @@ import com.predic8.membrane.core.router.*;
 import com.predic8.membrane.core.util.*;
 import org.slf4j.*;
 import redis.clients.jedis.*;
+import redis.clients.jedis.params.*;
 
+import java.time.*;
 import java.util.*;
+import java.util.concurrent.*;
 import java.util.stream.*;
 
+import static java.util.Collections.*;
+
 /**
- * For testing, the class FakeSyncSessionStoreManager is used instead.
+ * @description Stores sessions in Redis. A lookup costs a single <tt>GETEX</tt>, which reads the session and
+ * refreshes its expiry at the same time. Sessions are only written back if they were modified, and all writes of an
+ * exchange are sent in one pipeline.
+ * <p>
+ * Every write stamps the session with a new random version. A local cache remembers the last version seen for each
+ * session, so a reread returning the same stamp does not have to be deserialized again. If <tt>nearCacheSeconds</tt>
+ * is set, sessions read or written within that time are served from the cache without asking Redis at all.
+ * </p>
  */
 @MCElement(name = "redisSessionManager")
 public class RedisSessionManager extends SessionManager{
 
     private static final Logger log = LoggerFactory.getLogger(RedisSessionManager.class);
 
+    static final String ID_NAME = "_in_memory_session_id";
+    static final String VERSION = Session.INTERNAL_PREFIX + "version";
+
+    /**
+     * Sessions written by this class start with their version stamp, so it can be compared without parsing.
+     */
+    private static final String STAMP_PREFIX = "{\"content\":{\"" + VERSION + "\":\"";
+
     protected String cookieNamePrefix = UUID.randomUUID().toString().substring(0,8);
     private final ObjectMapper objMapper;
     private RedisConnector connector;
-    static final String ID_NAME = "_in_memory_session_id";
+    private int nearCacheSeconds = 0;
+    private long nearCacheSize = 10000;
+    private volatile Cache<String, Entry> versions;
 
+    private record Entry(String version, Map<String, Object> attributes, long loaded) {}
 
     public RedisSessionManager(){
         objMapper = new ObjectMapper();
     }
 
-
     @Override
     public void init(Router router) throws Exception {
-        //Nothing to do
+        if (versions != null)
+            return;
+        versions = CacheBuilder.newBuilder()
+                .maximumSize(nearCacheSize)
+                .expireAfterAccess(Duration.ofSeconds(Math.max(expiresAfterSeconds, nearCacheSeconds)))
+                .build();
     }
 
     @Override
     protected Map<String, Object> cookieValueToAttributes(String cookie) {
-        try {
-            try (Jedis jedis = connector.getJedisWithDb()) {
-                return (!jedis.get(getKeyOfCookie(cookie)).equals("nil")) ?
-                        jsonStringtoSession(jedis.getEx(getKeyOfCookie(cookie), connector.getParams())).get() : new Session(usernameKeyName, new HashMap<>()).get();
-            }
-        } catch (JsonProcessingException e) {
-            log.debug("Cannot parse JSON in Cookie.",e);
-        }
-        return Collections.emptyMap();
+        Entry entry = read(getKeyOfCookie(cookie));
+        return entry != null ? entry.attributes() : new Session(usernameKeyName, new HashMap<>()).get();
+    }
+
+    /**
+     * Validates the cookie and reads its session with a single round trip.
+     */
+    @Override
+    protected Optional<Map<String, Object>> lookUpCookie(String cookie) {
+        if (!cookie.startsWith(cookieNamePrefix))
+            return Optional.empty();
+        return Optional.ofNullable(read(getKeyOfCookie(cookie))).map(Entry::attributes);
     }
 
     @Override
@@ -77,16 +107,28 @@ public class RedisSessionManager extends SessionManager{
                 .collect(Collectors.toMap(s -> s, s -> s.get(ID_NAME)));
     }
 
+    /**
+     * Writes the modified sessions in one pipeline. Unmodified sessions keep the expiry refreshed by the last read.
+     */
     private void addSessionToRedis(Session[] session) {
-        Arrays.stream(session).forEach(s -> {
-            try {
-                try (Jedis jedis = connector.getJedisWithDb()) {
-                    jedis.setex(s.get(ID_NAME), getExpiresAfterSeconds(), sessionToJsonString(s));
+        Map<String, Entry> written = new HashMap<>();
+        try (Jedis jedis = connector.getJedisWithDb()) {
+            Pipeline pipeline = jedis.pipelined();
+            for (Session s : session) {
+                if (!s.isDirty())
+                    continue;
+                try {
+                    Entry entry = new Entry(newVersion(), unmodifiableMap(new HashMap<>(s.get())), System.nanoTime());
+                    pipeline.setex((String) s.get(ID_NAME), getExpiresAfterSeconds(), toJson(entry));
+                    written.put(s.get(ID_NAME), entry);
+                } catch (JsonProcessingException e) {
+                    log.debug("Cannot process JSON.",e);
                 }
-            } catch (JsonProcessingException e) {
-                log.debug("Cannot process JSON.",e);
             }
-        });
+            if (!written.isEmpty())
+                pipeline.sync();
+        }
+        versions().putAll(written);
     }
 
     private void createSessionIdsForNewSessions(Session[] session) {
@@ -99,12 +141,67 @@ public class RedisSessionManager extends SessionManager{
                 .forEach(s -> s.put(ID_NAME, cookieNamePrefix + "-" +UUID.randomUUID()));
     }
 
-    private String sessionToJsonString(Session session) throws JsonProcessingException {
-        return objMapper.writeValueAsString(session);
+    /**
+     * @return the session stored under the key or null, if there is none
+     */
+    private Entry read(String key) {
+        Entry cached = versions().getIfPresent(key);
+        if (cached != null && System.nanoTime() - cached.loaded() < TimeUnit.SECONDS.toNanos(nearCacheSeconds))
+            return cached;
+
+        String json;
+        try (Jedis jedis = connector.getJedisWithDb()) {
+            json = ttlExpiryRefreshOnAccess ? jedis.getEx(key, new GetExParams().ex(getExpiresAfterSeconds())) : jedis.get(key);
+        }
+        if (json == null) {
+            versions().invalidate(key);
+            return null;
+        }
+
+        String version = getVersion(json);
+        if (cached != null && version != null && version.equals(cached.version())) {
+            Entry entry = new Entry(version, cached.attributes(), System.nanoTime());
+            versions().put(key, entry);
+            return entry;
+        }
+        try {
+            Map<String, Object> attributes = new HashMap<>(objMapper.readValue(json, Session.class).get());
+            attributes.remove(VERSION);
+            Entry entry = new Entry(version, unmodifiableMap(attributes), System.nanoTime());
+            if (version != null)
+                versions().put(key, entry);
+            return entry;
+        } catch (JsonProcessingException e) {
+            log.debug("Cannot parse JSON of session {}.", key, e);
+            return null;
+        }
+    }
+
+    private String toJson(Entry entry) throws JsonProcessingException {
+        Map<String, Object> content = new LinkedHashMap<>();
+        content.put(VERSION, entry.version());
+        content.putAll(entry.attributes());
+        return objMapper.writeValueAsString(Map.of("content", content));
     }
 
-    private Session jsonStringtoSession(String session) throws JsonProcessingException {
-        return objMapper.readValue(session, Session.class);
+    /**
+     * @return the version stamp, or null for sessions written by older versions of this class
+     */
+    static String getVersion(String json) {
+        if (!json.startsWith(STAMP_PREFIX))
+            return null;
+        int end = json.indexOf('"', STAMP_PREFIX.length());
+        return end == -1 ? null : json.substring(STAMP_PREFIX.length(), end);
+    }
+
+    private static String newVersion() {
+        return Long.toHexString(ThreadLocalRandom.current().nextLong());
+    }
+
+    private Cache<String, Entry> versions() {
+        if (versions == null)
+            throw new IllegalStateException("RedisSessionManager has not been initialized.");
+        return versions;
     }
 
     @Override
@@ -120,25 +217,23 @@ public class RedisSessionManager extends SessionManager{
 
     @Override
     protected boolean isValidCookieForThisSessionManager(String cookie) {
-        try (Jedis jedis = connector.getJedisWithDb()) {
-            return cookie.startsWith(cookieNamePrefix) && !jedis.get(getKeyOfCookie(cookie)).equals("nil");
-        }
+        return cookie.startsWith(cookieNamePrefix) && read(getKeyOfCookie(cookie)) != null;
     }
 
     @Override
     protected boolean cookieRenewalNeeded(String originalCookie) {
-        try (Jedis jedis = connector.getJedisWithDb()) {
-            return !jedis.get(originalCookie).equals("nil");
-        }
+        return read(getKeyOfCookie(originalCookie)) != null;
     }
 
     @Override
     public void removeSession(Exchange exc) {
-        getInvalidCookies(exc, UUID.randomUUID().toString()).forEach(key -> {
+        List<String> keys = getInvalidCookies(exc, UUID.randomUUID().toString());
+        if (!keys.isEmpty()) {
             try (Jedis jedis = connector.getJedisWithDb()) {
-                jedis.del(key);
+                jedis.del(keys.toArray(new String[0]));
             }
-        });
+            versions().invalidateAll(keys);
+        }
         super.removeSession(exc);
     }
 
@@ -165,4 +260,32 @@ public class RedisSessionManager extends SessionManager{
         this.cookieNamePrefix = cookiePrefix;
     }
 
+    public int getNearCacheSeconds() {
+        return nearCacheSeconds;
+    }
+
+    /**
+     * @description Serves sessions read or written during the last seconds from a local cache without asking Redis.
+     * While a session is served locally, changes made by other instances are not seen and its expiry in Redis is not
+     * refreshed. Keep this short when running multiple instances.
+     * @default 0 (always ask Redis)
+     */
+    @MCAttribute
+    public void setNearCacheSeconds(int nearCacheSeconds) {
+        this.nearCacheSeconds = nearCacheSeconds;
+    }
+
+    public long getNearCacheSize() {
+        return nearCacheSize;
+    }
+
+    /**
+     * @description Maximum number of sessions whose version is remembered locally.
+     * @default 10000
+     */
+    @MCAttribute
+    public void setNearCacheSize(long nearCacheSize) {
+        this.nearCacheSize = nearCacheSize;
+    }
+
 }
@@ -111,6 +111,15 @@ public abstract class SessionManager {
      */
     protected abstract boolean isValidCookieForThisSessionManager(String cookie);
 
+    /**
+     * Checks the cookie and transforms it into its attributes. Managers that read the session from a store to validate
+     * it can override this to do both with one read.
+     * @return the attributes, or empty if the cookie is not valid for this manager
+     */
+    protected Optional<Map<String, Object>> lookUpCookie(String cookie) {
+        return isValidCookieForThisSessionManager(cookie) ? Optional.of(cookieValueToAttributes(cookie)) : Optional.empty();
+    }
+
 
     /**
      * Gets called when session was not modified. Should check, if session needs to be renewed (e.g. jwt expiration).
@@ -291,8 +300,8 @@ public abstract class SessionManager {
 
     private Map<String,Map<String, Object>> convertValidCookiesToAttributes(Exchange exc) {
         return getCookies(exc)
-                .filter(this::isValidCookieForThisSessionManager)
-                .collect(toMap(cookie -> cookie, this::cookieValueToAttributes, (c1, c2) -> c1));
+                .flatMap(cookie -> lookUpCookie(cookie).map(attributes -> Map.entry(cookie, attributes)).stream())
+                .collect(toMap(Map.Entry::getKey, Map.Entry::getValue, (c1, c2) -> c1));
     }
 
     @NotNull
@@ -126,10 +126,6 @@ public class ServerSentEventsDemoStreamInterceptor extends AbstractInterceptor {
         protected void writeAlreadyRead(AbstractBodyTransferer out) {
         }
 
-        @Override
-        protected void writeNotRead(AbstractBodyTransferer out) {
-        }
-
         @Override
         protected void writeStreamed(AbstractBodyTransferer out) {
 
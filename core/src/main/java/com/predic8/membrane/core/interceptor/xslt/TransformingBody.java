@@ -0,0 +1,115 @@
+/* Copyright 2026 predic8 GmbH, www.predic8.com
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+   http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License. */
+
+package com.predic8.membrane.core.interceptor.xslt;
+
+import com.predic8.membrane.core.http.*;
+
+import javax.xml.transform.*;
+import javax.xml.transform.stream.*;
+import java.io.*;
+import java.util.*;
+
+/**
+ * A body that is the result of an XSLT transformation. The transformation runs when the body is sent, and writes
+ * straight into the connection, so the result is never held in memory. Only if the body is read before, e.g. by
+ * another interceptor, the result is collected into chunks.
+ * <p>
+ * An error during the transformation surfaces as {@link WritingBodyException} or {@link ReadingBodyException}.
+ */
+class TransformingBody extends AbstractBody {
+
+    private static final int BUFFER_SIZE = 8192;
+
+    private final XSLTTransformer transformer;
+    private final InputStream xml;
+    private final Map<String, String> parameters;
+
+    private long streamedLength;
+
+    TransformingBody(XSLTTransformer transformer, InputStream xml, Map<String, String> parameters) {
+        this.transformer = transformer;
+        this.xml = xml;
+        this.parameters = parameters;
+    }
+
+    @Override
+    protected void readLocal() throws IOException {
+        transformTo(new OutputStream() {
+            @Override
+            public void write(int b) {
+                write(new byte[]{(byte) b}, 0, 1);
+            }
+
+            @Override
+            public void write(byte[] b, int off, int len) {
+                chunks.add(new Chunk(Arrays.copyOfRange(b, off, off + len)));
+            }
+        });
+    }
+
+    @Override
+    protected void writeAlreadyRead(AbstractBodyTransferer out) throws IOException {
+        for (Chunk chunk : chunks)
+            out.write(chunk.content(), 0, chunk.getLength());
+        out.finish(null);
+    }
+
+    @Override
+    protected void writeStreamed(AbstractBodyTransferer out) {
+        boolean passThrough = isPassThrough();
+        try {
+            transformTo(new OutputStream() {
+                @Override
+                public void write(int b) throws IOException {
+                    write(new byte[]{(byte) b}, 0, 1);
+                }
+
+                @Override
+                public void write(byte[] b, int off, int len) throws IOException {
+                    out.write(b, off, len);
+                    streamedLength += len;
+                    if (passThrough)
+                        return;
+                    for (MessageObserver observer : observers)
+                        observer.bodyChunk(b, off, len);
+                }
+            });
+            out.finish(null);
+        } catch (IOException e) {
+            throw new WritingBodyException(e);
+        }
+        markAsRead();
+    }
+
+    private void transformTo(OutputStream out) throws IOException {
+        try (OutputStream buffered = new BufferedOutputStream(out, BUFFER_SIZE)) {
+            transformer.transform(new StreamSource(xml), parameters, buffered);
+        } catch (TransformerException e) {
+            throw new IOException("XSLT transformation failed.", e);
+        }
+    }
+
+    @Override
+    public long getLength() {
+        if (wasStreamed())
+            return streamedLength;
+        return super.getLength();
+    }
+
+    @Override
+    protected byte[] getRawLocal() {
+        return getContent();
+    }
+}
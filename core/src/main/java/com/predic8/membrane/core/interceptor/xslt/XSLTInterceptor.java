@@ -29,10 +29,15 @@ import org.xml.sax.SAXException;
 
 import javax.xml.transform.TransformerException;
 import javax.xml.transform.stream.StreamSource;
+import java.io.InputStream;
 import java.util.Map;
 import java.util.regex.Pattern;
 
 import static com.predic8.membrane.core.exceptions.ProblemDetails.internal;
+import static com.predic8.membrane.core.http.Header.CHUNKED;
+import static com.predic8.membrane.core.http.Header.CONTENT_ENCODING;
+import static com.predic8.membrane.core.http.Header.CONTENT_LENGTH;
+import static com.predic8.membrane.core.http.Header.TRANSFER_ENCODING;
 import static com.predic8.membrane.core.exceptions.ProblemDetails.user;
 import static com.predic8.membrane.core.interceptor.Interceptor.Flow.REQUEST;
 import static com.predic8.membrane.core.interceptor.Interceptor.Flow.RESPONSE;
@@ -80,6 +85,7 @@ public class XSLTInterceptor extends AbstractInterceptor {
     private static final Logger log = LoggerFactory.getLogger(XSLTInterceptor.class.getName());
 
     private String xslt;
+    private boolean stream;
     private volatile XSLTTransformer xsltTransformer;
     private final XOPReconstitutor xopr = new XOPReconstitutor();
 
@@ -91,7 +97,7 @@ public class XSLTInterceptor extends AbstractInterceptor {
     public void init() {
         super.init();
         try {
-            xsltTransformer = new XSLTTransformer(xslt, router, getBeanBaseLocation(), getConcurrency());
+            xsltTransformer = new XSLTTransformer(xslt, router, getBeanBaseLocation());
         } catch (Exception e) {
             log.debug("", e);
             throw new ConfigurationException("Could not create XSLT transformer from: %s".formatted(xslt), e);
@@ -222,12 +228,24 @@ public class XSLTInterceptor extends AbstractInterceptor {
     private void transformMsg(Message msg, Map<String, String> parameter) throws Exception {
         if (msg.isBodyEmpty())
             return;
+        if (stream && !msg.isHTTP10()) {
+            streamTransformation(msg, parameter);
+            return;
+        }
         msg.setBodyContent(xsltTransformer.transform(
                 new StreamSource(xopr.reconstituteIfNecessary(msg)), parameter));
     }
 
-    private static int getConcurrency() {
-        return Runtime.getRuntime().availableProcessors() * 2;
+    /**
+     * Replaces the body with one that is transformed while it is sent. As the length of the result is not known in
+     * advance, the message is sent chunked.
+     */
+    private void streamTransformation(Message msg, Map<String, String> parameter) {
+        InputStream xml = xopr.reconstituteIfNecessary(msg);
+        msg.setBody(new TransformingBody(xsltTransformer, xml, parameter));
+        msg.getHeader().removeFields(CONTENT_LENGTH);
+        msg.getHeader().removeFields(CONTENT_ENCODING);
+        msg.getHeader().setValue(TRANSFER_ENCODING, CHUNKED);
     }
 
     public String getXslt() {
@@ -244,6 +262,22 @@ public class XSLTInterceptor extends AbstractInterceptor {
         this.xsltTransformer = null;
     }
 
+    public boolean isStream() {
+        return stream;
+    }
+
+    /**
+     * @description If true, the stylesheet is applied while the message is sent and the result is written straight
+     * to the connection instead of being buffered. This saves memory for large messages. As the response status
+     * and header are already sent by then, errors in the transformation can no longer be reported to the client;
+     * the connection is closed instead.
+     * @default false
+     */
+    @MCAttribute
+    public void setStream(boolean stream) {
+        this.stream = stream;
+    }
+
     @Override
     public String getShortDescription() {
         return "Applies an XSLT transformation.";
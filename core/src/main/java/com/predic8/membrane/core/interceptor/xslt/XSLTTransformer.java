@@ -21,71 +21,72 @@ import javax.xml.transform.*;
 import javax.xml.transform.stream.*;
 import java.io.*;
 import java.util.*;
-import java.util.concurrent.*;
 
 import static com.predic8.membrane.core.util.text.TextUtil.*;
 
+/**
+ * Applies an XSLT stylesheet. The stylesheet is compiled once into {@link Templates}, from which every
+ * transformation gets a fresh {@link Transformer}. So transformations run in parallel without waiting for each
+ * other.
+ */
 public class XSLTTransformer {
 	private static final Logger log = LoggerFactory.getLogger(XSLTTransformer.class.getName());
 
 	private final TransformerFactory fac;
-	private final ArrayBlockingQueue<Transformer> transformers;
+	private final Templates templates;
 	private final String styleSheet;
 
-	public XSLTTransformer(String styleSheet, final Router router, final String baseLocation, final int concurrency) throws Exception {
+	public XSLTTransformer(String styleSheet, final Router router, final String baseLocation) throws Exception {
 		fac = TransformerFactory.newInstance();
-
 		this.styleSheet = styleSheet;
-		log.debug("using {} parallel transformer instances for {}",concurrency, styleSheet);
-		transformers = new ArrayBlockingQueue<>(concurrency);
-		createOneTransformer(router.getResolverMap(), baseLocation);
-		Thread.ofVirtual().start(() -> {
-			try {
-				for (int i = 1; i < concurrency; i++)
-					createOneTransformer(router.getResolverMap(), baseLocation);
-			} catch (Exception e) {
-				log.error("Error creating XSLT transformer:", e);
-			}
-		});
+		templates = compile(router.getResolverMap(), baseLocation);
 	}
 
-	private void createOneTransformer(ResolverMap rr, String baseLocation) throws TransformerConfigurationException, InterruptedException, ResourceRetrievalException {
-		Transformer t;
+	/**
+	 * @return null, if there is no stylesheet and the identity transformation is used
+	 */
+	private Templates compile(ResolverMap rr, String baseLocation) throws TransformerConfigurationException, ResourceRetrievalException, IOException {
 		if (isNullOrEmpty(styleSheet))
-			t = fac.newTransformer();
-		else {
-			String resolved = ResolverMap.combine(baseLocation, styleSheet);
-			StreamSource source = new StreamSource(rr.resolve(resolved));
+			return null;
+		String resolved = ResolverMap.combine(baseLocation, styleSheet);
+		log.debug("compiling stylesheet {}", resolved);
+		try (InputStream is = rr.resolve(resolved)) {
+			StreamSource source = new StreamSource(is);
 			source.setSystemId(resolved);
-			t = fac.newTransformer(source);
+			return fac.newTemplates(source);
 		}
-		transformers.put(t);
 	}
 
 	public byte[] transform(Source xml) throws Exception {
 		return transform(xml, new HashMap<>());
 	}
 
-	public byte[] transform(Source xml, Map<String, String> parameters)
-			throws Exception {
+	public byte[] transform(Source xml, Map<String, String> parameters) throws Exception {
+		ByteArrayOutputStream baos = new ByteArrayOutputStream();
+		transform(xml, parameters, baos);
+		return baos.toByteArray();
+	}
+
+	/**
+	 * Writes the result of the transformation to <code>out</code> as it is produced.
+	 */
+	public void transform(Source xml, Map<String, String> parameters, OutputStream out) throws TransformerException {
 		log.debug("applying transformation: {}", styleSheet);
 
-		ByteArrayOutputStream baos = new ByteArrayOutputStream();
-		Transformer t = transformers.take();
-		try {
-			try {
-				t.clearParameters();
-			} catch (NullPointerException e) {
-				// do nothing
-			}
-			for (Map.Entry<String, String> e : parameters.entrySet()) {
-				t.setParameter(e.getKey(), e.getValue());
-			}
-			t.transform(xml, new StreamResult(baos));
-		} finally {
-			transformers.put(t);
+		Transformer t = newTransformer();
+		for (Map.Entry<String, String> e : parameters.entrySet()) {
+			t.setParameter(e.getKey(), e.getValue());
+		}
+		t.transform(xml, new StreamResult(out));
+	}
+
+	private Transformer newTransformer() throws TransformerConfigurationException {
+		if (templates != null)
+			return templates.newTransformer();
+		// Unlike Templates, a TransformerFactory is not thread-safe.
+		synchronized (fac) {
+			return fac.newTransformer();
 		}
-		return baos.toByteArray();
 	}
 
 }
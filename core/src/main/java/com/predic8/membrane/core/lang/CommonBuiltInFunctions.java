@@ -14,7 +14,6 @@
 
 package com.predic8.membrane.core.lang;
 
-import com.fasterxml.jackson.databind.*;
 import com.jayway.jsonpath.*;
 import com.predic8.membrane.core.config.xml.*;
 import com.predic8.membrane.core.exchange.*;
@@ -24,7 +23,6 @@ import com.predic8.membrane.core.interceptor.Interceptor.Flow;
 import com.predic8.membrane.core.security.*;
 import com.predic8.membrane.core.util.text.*;
 import com.predic8.membrane.core.util.xml.*;
-import com.predic8.membrane.core.util.xml.parser.*;
 import org.jetbrains.annotations.*;
 import org.slf4j.*;
 import org.slf4j.Logger;
@@ -52,13 +50,9 @@ public class CommonBuiltInFunctions {
 
     private static final Logger log = LoggerFactory.getLogger(CommonBuiltInFunctions.class);
 
-    private static final ObjectMapper objectMapper = new ObjectMapper();
-
-    private static final XmlParser parser = HardenedXmlParser.getInstance();
-
     public static Object jsonPath(String jsonPath, Message msg) {
         try {
-            return JsonPath.read(objectMapper.readValue(msg.getBodyAsStringDecoded(), Map.class), jsonPath);
+            return JsonPath.read(msg.getParsedBody(BodyRepresentation.JSON), jsonPath);
         } catch (Exception ignored) {
             return null;
         }
@@ -71,7 +65,8 @@ public class CommonBuiltInFunctions {
     /**
      * <p>
      * The message body is parsed into a DOM {@link org.w3c.dom.Document} and the
-     * XPath expression is evaluated against that document as the root context.
+     * XPath expression is evaluated against that document as the root context. The
+     * document is cached on the message, see {@link XmlDomBody}.
      * </p>
      * <p>
      * This variant is intended for full-document XPath expressions such as
@@ -89,15 +84,13 @@ public class CommonBuiltInFunctions {
      * if the expression is invalid or cannot be evaluated
      */
     public static Object xpath(String expression, Message message, XmlConfig cfg) {
-        try {
-            return XPathUtil.newXPath(cfg).evaluate(
-                    expression,
-                    parser.parse(XMLUtil.getInputSource(message)),
-                    guessReturnType(expression)
-            );
-        } catch (XPathExpressionException ignored) {
-            return null;
-        }
+        return XmlDomBody.read(message, doc -> {
+            try {
+                return XPathUtil.newXPath(cfg).evaluate(expression, doc, guessReturnType(expression));
+            } catch (XPathExpressionException ignored) {
+                return null;
+            }
+        });
     }
 
     /**
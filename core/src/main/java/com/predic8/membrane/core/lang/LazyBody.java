@@ -15,6 +15,8 @@ package com.predic8.membrane.core.lang;
 
 import com.predic8.membrane.core.http.*;
 
+import java.io.*;
+
 /**
  * Enables the use of ${body} in scripting environments without reading the body from InputStream when it is not needed.
  */
@@ -34,10 +36,15 @@ public class LazyBody {
     }
 
     /**
-     * This method is called in an expression like "Body ${body}".
+     * This method is called in an expression like "Body ${body}". The string is cached on the message, so several
+     * expressions decode the body only once.
      */
     @Override
     public String toString() {
-        return message.getBodyAsStringDecoded();
+        try {
+            return message.getParsedBody(BodyRepresentation.TEXT);
+        } catch (IOException e) {
+            throw new ReadingBodyException(e);
+        }
     }
 }
@@ -14,7 +14,6 @@
 
 package com.predic8.membrane.core.lang.jsonpath;
 
-import com.fasterxml.jackson.databind.*;
 import com.fasterxml.jackson.databind.exc.*;
 import com.jayway.jsonpath.*;
 import com.predic8.membrane.core.exchange.*;
@@ -30,6 +29,7 @@ import org.slf4j.*;
 import java.io.*;
 import java.util.*;
 
+import static com.predic8.membrane.core.http.BodyRepresentation.*;
 import static java.lang.Boolean.*;
 import static java.nio.charset.StandardCharsets.*;
 
@@ -37,11 +37,12 @@ public class JsonpathExchangeExpression extends AbstractExchangeExpression {
 
     private static final Logger log = LoggerFactory.getLogger(JsonpathExchangeExpression.class);
 
-    private final ObjectMapper om = new ObjectMapper();
+    private final JsonPath jsonPath;
 
     public JsonpathExchangeExpression(String source, Router router) {
         super(source, router);
         syntaxCheckJsonpath(source);
+        jsonPath = JsonPath.compile(source);
     }
 
     private static void syntaxCheckJsonpath(String source) {
@@ -146,6 +147,6 @@ public class JsonpathExchangeExpression extends AbstractExchangeExpression {
     }
 
     private Object execute(Exchange exchange, Flow flow) throws IOException {
-        return JsonPath.read(om.readValue(exchange.getMessage(flow).getBodyAsStreamDecoded(), Object.class), expression);
+        return jsonPath.read(exchange.getMessage(flow).getParsedBody(JSON));
     }
 }
@@ -14,7 +14,6 @@
 
 package com.predic8.membrane.core.lang.spel;
 
-import com.fasterxml.jackson.databind.*;
 import com.predic8.membrane.core.exchange.*;
 import com.predic8.membrane.core.http.*;
 import com.predic8.membrane.core.interceptor.Interceptor.*;
@@ -37,8 +36,6 @@ public class SpELExchangeEvaluationContext extends StandardEvaluationContext {
 
     private static final Logger log = LoggerFactory.getLogger(SpELExchangeEvaluationContext.class);
 
-    private static final ObjectMapper om = new ObjectMapper();
-
     private final Exchange exchange;
     private final Message message;
     private final LazyBody body; // Is used by SpEL in scripts
@@ -223,7 +220,11 @@ public class SpELExchangeEvaluationContext extends StandardEvaluationContext {
         return pathParam;
     }
 
+    @SuppressWarnings("unchecked")
     public SpELMap<String, Object> getJson() throws IOException {
-        return new SpELMap<String, Object>(om.readValue(message.getBodyAsStreamDecoded(), Map.class));
+        if (!(message.getParsedBody(BodyRepresentation.JSON) instanceof Map<?, ?> json))
+            throw new IOException("Body is not a JSON object.");
+        // The parsed body is shared with other expressions, so it is copied before it is modified.
+        return new CopyOnWriteSpELMap((Map<String, Object>) json);
     }
 }
@@ -0,0 +1,81 @@
+/* Copyright 2026 predic8 GmbH, www.predic8.com
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+   http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License. */
+package com.predic8.membrane.core.lang.spel.spelable;
+
+import org.springframework.expression.*;
+
+import java.util.*;
+
+/**
+ * A map of JSON values shared with other users, e.g. a body parsed by
+ * {@link com.predic8.membrane.core.http.Message#getParsedBody}. Values are read from the shared map. Before the map
+ * is modified, or a nested object or array is handed out that the caller could modify, the map is copied, so that
+ * the shared one stays unchanged.
+ */
+public class CopyOnWriteSpELMap extends SpELMap<String, Object> {
+
+    private boolean copied;
+
+    public CopyOnWriteSpELMap(Map<String, Object> shared) {
+        super(shared);
+    }
+
+    @Override
+    public TypedValue read(EvaluationContext context, Object target, String name) {
+        return new TypedValue(get(name));
+    }
+
+    @Override
+    public Object getValue() {
+        return writable();
+    }
+
+    @Override
+    public Object get(Object key) {
+        Object value = data.get(key);
+        if (value instanceof Map || value instanceof List)
+            return writable().get(key);
+        return value;
+    }
+
+    @Override public Object put(String key, Object value) { return writable().put(key, value); }
+    @Override public Object remove(Object key) { return writable().remove(key); }
+    @Override public void putAll(Map<? extends String, ?> m) { writable().putAll(m); }
+    @Override public void clear() { writable().clear(); }
+    @Override public Set<String> keySet() { return writable().keySet(); }
+    @Override public Collection<Object> values() { return writable().values(); }
+    @Override public Set<Map.Entry<String, Object>> entrySet() { return writable().entrySet(); }
+
+    private Map<String, Object> writable() {
+        if (!copied) {
+            data = copyMap(data);
+            copied = true;
+        }
+        return data;
+    }
+
+    private static Map<String, Object> copyMap(Map<?, ?> map) {
+        Map<String, Object> copy = new LinkedHashMap<>();
+        map.forEach((key, value) -> copy.put((String) key, copy(value)));
+        return copy;
+    }
+
+    private static Object copy(Object value) {
+        if (value instanceof Map<?, ?> map)
+            return copyMap(map);
+        if (value instanceof List<?> list)
+            return new ArrayList<>(list.stream().map(CopyOnWriteSpELMap::copy).toList());
+        return value;
+    }
+}
@@ -18,7 +18,7 @@ import org.springframework.expression.*;
 import java.util.*;
 
 public class SpELMap<K, V> implements SpELLablePropertyAware, Map<K, V> {
-    protected final Map<K, V> data;
+    protected Map<K, V> data;
 
     public SpELMap(Map<K, V> data) {
         this.data = data;
@@ -17,15 +17,13 @@ package com.predic8.membrane.core.lang.xpath;
 import com.predic8.membrane.core.config.xml.XmlConfig;
 import com.predic8.membrane.core.exchange.Exchange;
 import com.predic8.membrane.core.http.Message;
+import com.predic8.membrane.core.http.XmlDomBody;
 import com.predic8.membrane.core.interceptor.Interceptor;
 import com.predic8.membrane.core.interceptor.XMLSupport;
 import com.predic8.membrane.core.lang.AbstractExchangeExpression;
 import com.predic8.membrane.core.lang.ExchangeExpressionException;
 import com.predic8.membrane.core.router.Router;
-import com.predic8.membrane.core.util.xml.XMLUtil;
 import com.predic8.membrane.core.util.xml.XPathUtil;
-import com.predic8.membrane.core.util.xml.parser.HardenedXmlParser;
-import com.predic8.membrane.core.util.xml.parser.XmlParser;
 import org.jetbrains.annotations.NotNull;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -34,7 +32,10 @@ import org.w3c.dom.NodeList;
 import javax.xml.namespace.QName;
 import javax.xml.xpath.XPathConstants;
 import javax.xml.xpath.XPathEvaluationResult;
+import javax.xml.xpath.XPathExpression;
 import javax.xml.xpath.XPathExpressionException;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
 
 import static com.predic8.membrane.core.util.text.StringUtil.tail;
 import static com.predic8.membrane.core.util.text.StringUtil.truncateAfter;
@@ -44,10 +45,15 @@ public class XPathExchangeExpression extends AbstractExchangeExpression {
 
     private static final Logger log = LoggerFactory.getLogger(XPathExchangeExpression.class.getName());
 
-    private static final XmlParser parser = HardenedXmlParser.getInstance();
-
     private XmlConfig xmlConfig;
 
+    /**
+     * The expression compiled against the namespaces of {@link #xmlConfig}. A compiled expression is not thread-safe,
+     * so an evaluation takes one out of the queue and puts it back afterwards. The queue only grows to the number of
+     * concurrent evaluations.
+     */
+    private final Queue<XPathExpression> compiled = new ConcurrentLinkedQueue<>();
+
     public XPathExchangeExpression(Interceptor interceptor, String xpath, Router router) {
         super(xpath, router);
 
@@ -107,20 +113,18 @@ public class XPathExchangeExpression extends AbstractExchangeExpression {
             log.debug("Body: {}", msg.getBodyAsStringDecoded()); // is expensive!
         }
 
-        // XPath is not thread safe!
-        var xPath = XPathUtil.newXPath(xmlConfig);
-
+        var xpe = acquire();
         try {
             if (xmlType == null) {
-                return xPath.evaluateExpression(expression, parser.parse(XMLUtil.getInputSource(msg)));
+                return XmlDomBody.xpath(msg, xpe);
             }
             try {
                 // Depending on the xpath it is not always possible to set it to specified xmlType
                 // e.g., xmlType=NodeSet xpath=string(//city)
-                return xPath.evaluate(expression, parser.parse(XMLUtil.getInputSource(msg)), xmlType);
+                return XmlDomBody.xpath(msg, xpe, xmlType);
             } catch (XPathExpressionException e) {
                 log.debug("XPath expression failed. Trying again without type.", e);
-                return xPath.evaluateExpression(expression, parser.parse(XMLUtil.getInputSource(msg)));
+                return XmlDomBody.xpath(msg, xpe);
             }
         } catch (RuntimeException e) {
             // Parser errors may escape as unchecked exceptions.
@@ -140,9 +144,18 @@ public class XPathExchangeExpression extends AbstractExchangeExpression {
                         .excludeException();
             }
             throw e;
+        } finally {
+            compiled.offer(xpe);
         }
     }
 
+    private XPathExpression acquire() throws XPathExpressionException {
+        var xpe = compiled.poll();
+        if (xpe != null)
+            return xpe;
+        return XPathUtil.newXPath(xmlConfig).compile(expression);
+    }
+
     private static boolean causeMessageContains(Throwable t, String fragment) {
         for (Throwable c = t; c != null; c = c.getCause()) {
             String m = c.getMessage();
@@ -154,5 +167,6 @@ public class XPathExchangeExpression extends AbstractExchangeExpression {
 
     public void setXmlConfig(XmlConfig xmlConfig) {
         this.xmlConfig = xmlConfig;
+        compiled.clear();
     }
 }
@@ -105,6 +105,10 @@ public class APIProxyKey extends ServiceProxyKey {
         basePaths.addAll(paths);
     }
 
+    public List<String> getBasePaths() {
+        return basePaths;
+    }
+
     public String getKeyId() {
         return (
                 getMethod() + "-"
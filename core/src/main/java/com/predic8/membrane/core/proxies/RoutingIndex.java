@@ -0,0 +1,305 @@
+/* Copyright 2026 predic8 GmbH, www.predic8.com
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+   http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License. */
+package com.predic8.membrane.core.proxies;
+
+import com.predic8.membrane.core.openapi.serviceproxy.*;
+
+import java.util.*;
+import java.util.function.*;
+
+import static java.util.Locale.*;
+
+/**
+ * Narrows down the proxies that can match a request by port, host and path prefix, so that
+ * {@link RuleManager#getMatchingRule(com.predic8.membrane.core.exchange.Exchange)} does not have to evaluate the
+ * host and path patterns of every proxy.
+ * <p>
+ * The index only prunes: Every candidate is still checked against its complete {@link RuleKey}, and candidates are
+ * returned in the order of the proxy list, so the first match is the same as with a linear scan. Whenever a key
+ * cannot be analyzed (e.g. a true regular expression or an unknown key class), the proxy is returned as candidate
+ * for every request.
+ * <p>
+ * An index is immutable once built. The RuleManager replaces it when the proxies change.
+ */
+final class RoutingIndex {
+
+    private static final String REGEX_META_CHARS = "\\^$.|?*+()[]{}";
+
+    private final int version;
+    private final List<Proxy> proxies;
+
+    /**
+     * Used, if the port of the request is not known (e.g. when running in a servlet container).
+     */
+    private final HostIndex allPorts = new HostIndex();
+
+    /**
+     * Used for ports no proxy is explicitly bound to.
+     */
+    private final HostIndex anyPort = new HostIndex();
+    private final Map<Integer, HostIndex> byPort = new HashMap<>();
+
+    RoutingIndex(int version, List<Proxy> proxies) {
+        this.version = version;
+        this.proxies = proxies;
+
+        for (Proxy proxy : proxies) {
+            int port = getPort(proxy);
+            if (port != -1)
+                byPort.computeIfAbsent(port, p -> new HostIndex());
+        }
+
+        for (int i = 0; i < proxies.size(); i++) {
+            Proxy proxy = proxies.get(i);
+            RuleKey key = proxy.getKey();
+            List<String> hosts = getExactHosts(key);
+            List<String> paths = getPathPrefixes(key);
+
+            allPorts.add(i, hosts, paths);
+            int port = getPort(proxy);
+            if (port != -1) {
+                byPort.get(port).add(i, hosts, paths);
+                continue;
+            }
+            anyPort.add(i, hosts, paths);
+            for (HostIndex hi : byPort.values())
+                hi.add(i, hosts, paths);
+        }
+    }
+
+    int getVersion() {
+        return version;
+    }
+
+    int size() {
+        return proxies.size();
+    }
+
+    /**
+     * @param port       the local port of the request or -1, if it is not known
+     * @param hostHeader the value of the Host header, may be null
+     * @param uri        the request URI
+     * @return the proxies which might match, in the order of the proxy list
+     */
+    List<Proxy> getCandidates(int port, String hostHeader, String uri) {
+        HostIndex hi = port == -1 ? allPorts : byPort.getOrDefault(port, anyPort);
+        Candidates candidates = new Candidates();
+        hi.collect(hostHeader, uri, candidates);
+        return candidates.toProxies(proxies);
+    }
+
+    private static int getPort(Proxy proxy) {
+        if (proxy instanceof InternalProxy)
+            return -1; // internal proxies are matched regardless of the port
+        return proxy.getKey().getPort();
+    }
+
+    /**
+     * @return the lower case host names and wildcard patterns (starting with '*') of the key, or null, if any host matches
+     */
+    static List<String> getExactHosts(RuleKey key) {
+        if (!hasServiceProxyKeySemantics(key) || ((ServiceProxyKey) key).isHostWildcard())
+            return null;
+        List<String> hosts = new ArrayList<>();
+        for (String host : key.getHost().split(" ")) {
+            if (host.isEmpty())
+                continue;
+            int wildcard = host.indexOf('*');
+            if (wildcard > 0 || (wildcard == 0 && host.indexOf('*', 1) != -1))
+                return null; // not a simple suffix pattern
+            hosts.add(host.toLowerCase(ROOT));
+        }
+        return hosts.isEmpty() ? null : hosts;
+    }
+
+    /**
+     * @return literal prefixes, one of which every matching path starts with
+     */
+    static List<String> getPathPrefixes(RuleKey key) {
+        if (!key.isUsePathPattern() || key.getPath() == null)
+            return List.of("");
+        if (key.getClass() == ServiceProxyKey.class)
+            return List.of(key.isPathRegExp() ? getLiteralPrefix(key.getPath()) : key.getPath());
+        if (key.getClass() == APIProxyKey.class) {
+            List<String> prefixes = new ArrayList<>(((APIProxyKey) key).getBasePaths());
+            String prefix = getLiteralPrefix(key.getPath());
+            // The template matcher adds a trailing slash to the request path
+            if (prefix.endsWith("/"))
+                prefix = prefix.substring(0, prefix.length() - 1);
+            prefixes.add(prefix);
+            return prefixes;
+        }
+        return List.of("");
+    }
+
+    private static boolean hasServiceProxyKeySemantics(RuleKey key) {
+        return key.getClass() == ServiceProxyKey.class || key.getClass() == APIProxyKey.class;
+    }
+
+    /**
+     * @return the longest literal string every match of the (anchored) regular expression starts with
+     */
+    static String getLiteralPrefix(String regex) {
+        if (regex.indexOf('|') != -1)
+            return "";
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < regex.length(); i++) {
+            char c = regex.charAt(i);
+            if (REGEX_META_CHARS.indexOf(c) == -1) {
+                sb.append(c);
+                continue;
+            }
+            // the preceding character might be optional
+            if ((c == '?' || c == '*' || c == '{') && !sb.isEmpty())
+                sb.setLength(sb.length() - 1);
+            break;
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Proxies of one port, indexed by host.
+     */
+    private static class HostIndex {
+        private final Map<String, PathIndex> exactHosts = new HashMap<>();
+
+        /**
+         * Reversed suffixes of host patterns like <tt>*.example.com</tt>.
+         */
+        private final PrefixTree<PathIndex> hostSuffixes = new PrefixTree<>();
+        private final PathIndex anyHost = new PathIndex();
+
+        void add(int index, List<String> hosts, List<String> paths) {
+            if (hosts == null) {
+                anyHost.add(index, paths);
+                return;
+            }
+            for (String host : hosts) {
+                if (host.startsWith("*"))
+                    hostSuffixes.computeIfAbsent(new StringBuilder(host.substring(1)).reverse(), PathIndex::new).add(index, paths);
+                else
+                    exactHosts.computeIfAbsent(host, h -> new PathIndex()).add(index, paths);
+            }
+        }
+
+        void collect(String hostHeader, String uri, Candidates candidates) {
+            anyHost.collect(uri, candidates);
+            if (hostHeader == null)
+                return;
+            String host = getRequestHost(hostHeader).toLowerCase(ROOT);
+            PathIndex pi = exactHosts.get(host);
+            if (pi != null)
+                pi.collect(uri, candidates);
+            if (!hostSuffixes.isEmpty())
+                hostSuffixes.forEachPrefixOf(new StringBuilder(host).reverse(), p -> p.collect(uri, candidates));
+        }
+
+        /**
+         * Same as {@link ServiceProxyKey#matchesHostHeader(String)}.
+         */
+        private static String getRequestHost(String hostHeader) {
+            int colon = hostHeader.indexOf(':');
+            return colon == -1 ? hostHeader : hostHeader.substring(0, colon);
+        }
+    }
+
+    /**
+     * Proxies indexed by path prefix.
+     */
+    private static class PathIndex {
+        private final PrefixTree<Candidates> prefixes = new PrefixTree<>();
+
+        void add(int index, List<String> paths) {
+            for (String path : paths)
+                prefixes.computeIfAbsent(path, Candidates::new).add(index);
+        }
+
+        void collect(String uri, Candidates candidates) {
+            prefixes.forEachPrefixOf(uri, candidates::addAll);
+        }
+    }
+
+    /**
+     * Character trie holding one value per key.
+     */
+    static class PrefixTree<V> {
+        private final Node<V> root = new Node<>();
+        private boolean empty = true;
+
+        private static class Node<V> {
+            private final Map<Character, Node<V>> children = new HashMap<>(4);
+            private V value;
+        }
+
+        V computeIfAbsent(CharSequence key, Supplier<V> factory) {
+            Node<V> node = root;
+            for (int i = 0; i < key.length(); i++)
+                node = node.children.computeIfAbsent(key.charAt(i), c -> new Node<>());
+            if (node.value == null)
+                node.value = factory.get();
+            empty = false;
+            return node.value;
+        }
+
+        /**
+         * Calls the consumer for the values of all keys that are a prefix of s, shortest key first.
+         */
+        void forEachPrefixOf(CharSequence s, Consumer<V> consumer) {
+            Node<V> node = root;
+            for (int i = 0; ; i++) {
+                if (node.value != null)
+                    consumer.accept(node.value);
+                if (i == s.length())
+                    return;
+                node = node.children.get(s.charAt(i));
+                if (node == null)
+                    return;
+            }
+        }
+
+        boolean isEmpty() {
+            return empty;
+        }
+    }
+
+    /**
+     * Indexes into the proxy list.
+     */
+    private static class Candidates {
+        private int[] indexes = new int[8];
+        private int size;
+
+        void add(int index) {
+            if (size == indexes.length)
+                indexes = Arrays.copyOf(indexes, size * 2);
+            indexes[size++] = index;
+        }
+
+        void addAll(Candidates other) {
+            for (int i = 0; i < other.size; i++)
+                add(other.indexes[i]);
+        }
+
+        List<Proxy> toProxies(List<Proxy> proxies) {
+            Arrays.sort(indexes, 0, size);
+            List<Proxy> result = new ArrayList<>(size);
+            for (int i = 0; i < size; i++) {
+                if (i > 0 && indexes[i] == indexes[i - 1])
+                    continue;
+                result.add(proxies.get(indexes[i]));
+            }
+            return result;
+        }
+    }
+}
@@ -17,6 +17,7 @@ package com.predic8.membrane.core.proxies;
 import com.predic8.membrane.core.exchange.*;
 import com.predic8.membrane.core.exchangestore.*;
 import com.predic8.membrane.core.http.*;
+import com.predic8.membrane.core.interceptor.*;
 import com.predic8.membrane.core.model.*;
 import com.predic8.membrane.core.router.*;
 import com.predic8.membrane.core.transport.http.*;
@@ -39,6 +40,16 @@ public class RuleManager {
 
     protected final List<Proxy> proxies = new Vector<>();
 
+    /**
+     * Incremented whenever the proxies change. Guarded by this, read without lock.
+     */
+    private volatile int version;
+
+    /**
+     * Rebuilt lazily on the first request after a change.
+     */
+    private volatile RoutingIndex routingIndex;
+
     public enum RuleDefinitionSource {
         /**
          * rule defined in the spring context that created the router
@@ -75,6 +86,7 @@ public class RuleManager {
         router.getTransport().openPort(proxy);
 
         proxies.add(proxy);
+        version++;
     }
 
     public synchronized void addProxy(Proxy proxy, RuleDefinitionSource source) {
@@ -82,6 +94,7 @@ public class RuleManager {
             return;
 
         proxies.add(proxy);
+        version++;
     }
 
     public synchronized void openPorts() throws IOException {
@@ -154,11 +167,24 @@ public class RuleManager {
         return proxies;
     }
 
+    /**
+     * Has to be called when the key of a proxy was changed after the proxy was added.
+     */
     public void ruleChanged(Proxy proxy) {
+        synchronized (this) {
+            version++;
+        }
         getExchangeStore().refreshExchangeStoreListeners();
     }
 
     public Proxy getMatchingRule(Exchange exc) {
+        return getMatchingRule(exc, true);
+    }
+
+    /**
+     * @param useRoutingIndex false to check every proxy, e.g. to verify the {@link RoutingIndex} or to compare its cost
+     */
+    public Proxy getMatchingRule(Exchange exc, boolean useRoutingIndex) {
         Request request = exc.getRequest();
 
         String hostHeader = request.getHeader().getHost();
@@ -170,7 +196,8 @@ public class RuleManager {
         int port = getPort(handler);
         String localIP = getLocalIP(handler);
 
-        for (Proxy proxy : proxies) {
+        List<Proxy> candidates = useRoutingIndex ? getRoutingIndex().getCandidates(port, hostHeader, uri) : proxies;
+        for (Proxy proxy : candidates) {
             RuleKey key = proxy.getKey();
 
             log.debug("Host from rule: {} Host from parameter rule key: {}", key.getHost(), hostHeader);
@@ -208,6 +235,17 @@ public class RuleManager {
         return findProxyRule(exc);
     }
 
+    private RoutingIndex getRoutingIndex() {
+        RoutingIndex index = routingIndex;
+        int v = version;
+        if (index != null && index.getVersion() == v && index.size() == proxies.size())
+            return index;
+        // A change while copying leads to a version mismatch and another rebuild on the next request
+        index = new RoutingIndex(v, new ArrayList<>(proxies));
+        routingIndex = index;
+        return index;
+    }
+
     private static String getLocalIP(AbstractHttpHandler handler) {
         if (handler == null)
             return null;
@@ -244,6 +282,8 @@ public class RuleManager {
     public synchronized void removeRule(Proxy proxy) {
         getExchangeStore().removeAllExchanges(proxy);
         proxies.remove(proxy);
+        version++;
+        InterceptorUtil.stop(proxy.getFlow());
     }
 
     public synchronized void replaceRule(Proxy proxy, Proxy newProxy) {
@@ -252,6 +292,17 @@ public class RuleManager {
         int i = proxies.indexOf(proxy);
         newProxy.init(router);
         proxies.set(i, newProxy);
+        version++;
+        // A clone shares the interceptors of the proxy it replaces.
+        InterceptorUtil.stop(proxy.getFlow().stream().filter(old -> newProxy.getFlow().stream().noneMatch(n -> n == old)).toList());
+    }
+
+    /**
+     * Stops the interceptors of all proxies, when the router stops.
+     */
+    public synchronized void stopInterceptors() {
+        for (Proxy proxy : proxies)
+            InterceptorUtil.stop(proxy.getFlow());
     }
 
     public synchronized void removeAllRules() {
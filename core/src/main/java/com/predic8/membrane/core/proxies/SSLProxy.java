@@ -189,7 +189,7 @@ public class SSLProxy implements Proxy {
     @Override
     public void init(Router router) {
         this.router = router;
-        cm = new ConnectionManager(connectionConfiguration.getKeepAliveTimeout(), router.getTimerManager());
+        cm = new ConnectionManager(connectionConfiguration, router.getTimerManager());
         for (SSLInterceptor i : sslInterceptors)
             i.init(router);
     }
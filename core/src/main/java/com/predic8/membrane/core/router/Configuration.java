@@ -35,6 +35,8 @@ public class Configuration {
 
     private boolean hotDeploy = true;
 
+    private boolean interceptorLatency;
+
     private int retryInitInterval = 5 * 60 * 1000; // 5 minutes
 
     private boolean retryInit = false;
@@ -134,6 +136,22 @@ public class Configuration {
         return production;
     }
 
+    /**
+     * @description <p>Whether the time spent in every interceptor of a proxy should be recorded. The latencies are
+     * reported by the prometheus interceptor as <tt>membrane_interceptor_latency_seconds</tt>.</p>
+     * <p>Every interceptor then keeps a histogram for requests and one for responses, which takes a few kilobytes of
+     * heap per interceptor. The latency of the proxies is recorded in any case.</p>
+     * @default false
+     */
+    @MCAttribute
+    public void setInterceptorLatency(boolean interceptorLatency) {
+        this.interceptorLatency = interceptorLatency;
+    }
+
+    public boolean isInterceptorLatency() {
+        return interceptorLatency;
+    }
+
     /**
      * @description Sets the URI factory used by the router. Use this only, if you need to allow
      * special (off-spec) characters in URLs which are not supported by java.net.URI .
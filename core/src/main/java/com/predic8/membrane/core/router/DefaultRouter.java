@@ -25,6 +25,7 @@ import com.predic8.membrane.core.exchangestore.LimitedMemoryExchangeStore;
 import com.predic8.membrane.core.interceptor.ExchangeStoreInterceptor;
 import com.predic8.membrane.core.interceptor.FlowController;
 import com.predic8.membrane.core.interceptor.GlobalInterceptor;
+import com.predic8.membrane.core.interceptor.InterceptorUtil;
 import com.predic8.membrane.core.interceptor.administration.AdminConsoleInterceptor;
 import com.predic8.membrane.core.jmx.JmxExporter;
 import com.predic8.membrane.core.kubernetes.KubernetesWatcher;
@@ -306,7 +307,11 @@ public class DefaultRouter extends AbstractRouter implements ApplicationContextA
             reinitializer.stop();
         if (mainComponents.getTransport() != null)
             mainComponents.getTransport().closeAll();
+        getRuleManager().stopInterceptors();
+        if (mainComponents.getTransport() != null)
+            InterceptorUtil.stop(mainComponents.getTransport().getFlow());
         mainComponents.getTimerManager().shutdown();
+        getRegistry().getBean(ExchangeStore.class).ifPresent(ExchangeStore::stop);
         closeRegistryIfSupported();
 
         synchronized (lock) {
@@ -0,0 +1,169 @@
+/* Copyright 2026 predic8 GmbH, www.predic8.com
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+   http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License. */
+package com.predic8.membrane.core.stats;
+
+import java.util.concurrent.atomic.*;
+
+import static java.lang.Long.*;
+
+/**
+ * Lock-free latency histogram with microsecond resolution.
+ * <p>
+ * Values are counted in log-linear buckets in the manner of an HDR histogram: below 64&micro;s every microsecond has
+ * its own bucket, above that every power of two is divided into 32 buckets, so the relative error of a reported value
+ * is below 3.2%. Values up to 2<sup>32</sup>&micro;s (about 71 minutes) are tracked, larger values are clamped.
+ * <p>
+ * Recording threads are spread over up to four stripes chosen by thread id, so concurrent requests rarely update the
+ * same counters. A stripe takes 7 KB and is allocated when it is first used, so a histogram recorded by few threads
+ * stays small. Readers merge the stripes into a {@link Snapshot}.
+ */
+public class LatencyHistogram {
+
+    private static final int SUB_BUCKET_BITS = 5;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int LINEAR_LIMIT = 2 * SUB_BUCKETS;
+    private static final int MAX_MAGNITUDE = 31;
+
+    static final long MAX_TRACKABLE_MICROS = (1L << (MAX_MAGNITUDE + 1)) - 1;
+    static final int BUCKETS = indexOf(MAX_TRACKABLE_MICROS) + 1;
+
+    private static final int STRIPES = Math.min(4, Integer.highestOneBit(Math.max(1, Runtime.getRuntime().availableProcessors() - 1)) << 1);
+
+    private final AtomicReferenceArray<AtomicLongArray> stripes = new AtomicReferenceArray<>(STRIPES);
+    private final LongAdder count = new LongAdder();
+    private final LongAdder sum = new LongAdder();
+    private final AtomicLong max = new AtomicLong();
+
+    public void recordNanos(long nanos) {
+        record(nanos / 1000);
+    }
+
+    public void record(long micros) {
+        if (micros < 0)
+            micros = 0;
+        stripe().incrementAndGet(indexOf(Math.min(micros, MAX_TRACKABLE_MICROS)));
+        count.increment();
+        sum.add(micros);
+        if (micros > max.get())
+            max.accumulateAndGet(micros, Math::max);
+    }
+
+    public long getCount() {
+        return count.sum();
+    }
+
+    public Snapshot snapshot() {
+        long[] counts = new long[BUCKETS];
+        for (int i = 0; i < STRIPES; i++) {
+            AtomicLongArray stripe = stripes.get(i);
+            if (stripe == null)
+                continue;
+            for (int j = 0; j < BUCKETS; j++)
+                counts[j] += stripe.get(j);
+        }
+        long total = 0;
+        for (long c : counts)
+            total += c;
+        return new Snapshot(counts, total, sum.sum(), max.get());
+    }
+
+    private AtomicLongArray stripe() {
+        int i = (int) (Thread.currentThread().threadId() * 0x9E3779B97F4A7C15L >>> 32) & (STRIPES - 1);
+        AtomicLongArray stripe = stripes.get(i);
+        if (stripe != null)
+            return stripe;
+        stripes.compareAndSet(i, null, new AtomicLongArray(BUCKETS));
+        return stripes.get(i);
+    }
+
+    static int indexOf(long micros) {
+        if (micros < LINEAR_LIMIT)
+            return (int) micros;
+        int shift = 63 - numberOfLeadingZeros(micros) - SUB_BUCKET_BITS;
+        return LINEAR_LIMIT + (shift - 1) * SUB_BUCKETS + (int) (micros >>> shift) - SUB_BUCKETS;
+    }
+
+    /**
+     * @return the largest value counted in the bucket with the given index
+     */
+    static long highestValueOf(int index) {
+        if (index < LINEAR_LIMIT)
+            return index;
+        int shift = (index - LINEAR_LIMIT) / SUB_BUCKETS + 1;
+        long sub = (index - LINEAR_LIMIT) % SUB_BUCKETS + SUB_BUCKETS;
+        return ((sub + 1) << shift) - 1;
+    }
+
+    /**
+     * Consistent view of a {@link LatencyHistogram}. All values are in microseconds.
+     */
+    public static class Snapshot {
+
+        private final long[] counts;
+        private final long count;
+        private final long sum;
+        private final long max;
+
+        private Snapshot(long[] counts, long count, long sum, long max) {
+            this.counts = counts;
+            this.count = count;
+            this.sum = sum;
+            this.max = max;
+        }
+
+        public long getCount() {
+            return count;
+        }
+
+        public long getSum() {
+            return sum;
+        }
+
+        public long getMax() {
+            return max;
+        }
+
+        /**
+         * @param percentile between 0 and 100
+         * @return the value below or at which the given percentage of the recorded values lie, 0 if nothing was
+         * recorded
+         */
+        public long getValueAtPercentile(double percentile) {
+            if (count == 0)
+                return 0;
+            long rank = Math.max(1, (long) Math.ceil(Math.min(100, percentile) / 100 * count));
+            long seen = 0;
+            for (int i = 0; i < counts.length; i++) {
+                seen += counts[i];
+                if (seen >= rank)
+                    return Math.min(highestValueOf(i), max);
+            }
+            return max;
+        }
+
+        /**
+         * Cumulative count as needed for the <tt>le</tt> buckets of a Prometheus histogram. Values sharing a histogram
+         * bucket with the boundary are counted as well.
+         */
+        public long getCountAtOrBelow(long micros) {
+            if (micros < 0)
+                return 0;
+            int last = indexOf(Math.min(micros, MAX_TRACKABLE_MICROS));
+            long c = 0;
+            for (int i = 0; i <= last; i++)
+                c += counts[i];
+            return c;
+        }
+    }
+}
@@ -0,0 +1,112 @@
+/* Copyright 2026 predic8 GmbH, www.predic8.com
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+   http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License. */
+package com.predic8.membrane.core.stats;
+
+import com.predic8.membrane.core.exchange.*;
+import com.predic8.membrane.core.interceptor.*;
+import com.predic8.membrane.core.interceptor.Interceptor.Flow;
+
+import java.util.*;
+import java.util.concurrent.*;
+
+import static com.predic8.membrane.core.interceptor.Interceptor.Flow.REQUEST;
+
+/**
+ * Latency histograms of a proxy.
+ * <ul>
+ *     <li><i>total</i>: from receiving the request head until the response is sent</li>
+ *     <li><i>backend</i>: from sending the request to the backend until its response head arrived</li>
+ *     <li><i>overhead</i>: total minus backend, i.e. the time spent in the gateway</li>
+ * </ul>
+ * In addition, the time spent in each invocation of an interceptor is recorded per interceptor for the request and response flow. Interceptor
+ * times are inclusive: the time of an interceptor running a nested chain, e.g. the <tt>HTTPClientInterceptor</tt>
+ * calling the backend, contains the time of the nested chain.
+ */
+public class LatencyStatistics {
+
+    private final LatencyHistogram total = new LatencyHistogram();
+    private final LatencyHistogram backend = new LatencyHistogram();
+    private final LatencyHistogram overhead = new LatencyHistogram();
+
+    /**
+     * Keyed by instance, as several interceptors of a flow may share a display name.
+     */
+    private final ConcurrentHashMap<Interceptor, InterceptorLatency> interceptors = new ConcurrentHashMap<>();
+
+    public void collect(AbstractExchange exc) {
+        long received = exc.getNanoReqReceived();
+        long sent = exc.getNanoResSent();
+        if (received == 0 || sent == 0)
+            return;
+        long totalNanos = sent - received;
+        total.recordNanos(totalNanos);
+
+        long backendNanos = 0;
+        if (exc.getNanoReqSent() != 0 && exc.getNanoResReceived() != 0) {
+            backendNanos = exc.getNanoResReceived() - exc.getNanoReqSent();
+            backend.recordNanos(backendNanos);
+        }
+        overhead.recordNanos(totalNanos - backendNanos);
+    }
+
+    public void recordInterceptor(Interceptor interceptor, Flow flow, long nanos) {
+        InterceptorLatency il = interceptors.get(interceptor);
+        if (il == null)
+            il = interceptors.computeIfAbsent(interceptor, InterceptorLatency::new);
+        (flow == REQUEST ? il.request : il.response).recordNanos(nanos);
+    }
+
+    public LatencyHistogram getTotal() {
+        return total;
+    }
+
+    public LatencyHistogram getBackend() {
+        return backend;
+    }
+
+    public LatencyHistogram getOverhead() {
+        return overhead;
+    }
+
+    public Collection<InterceptorLatency> getInterceptors() {
+        return interceptors.values();
+    }
+
+    public InterceptorLatency getInterceptor(Interceptor interceptor) {
+        return interceptors.get(interceptor);
+    }
+
+    public static class InterceptorLatency {
+
+        private final Interceptor interceptor;
+        private final LatencyHistogram request = new LatencyHistogram();
+        private final LatencyHistogram response = new LatencyHistogram();
+
+        private InterceptorLatency(Interceptor interceptor) {
+            this.interceptor = interceptor;
+        }
+
+        public Interceptor getInterceptor() {
+            return interceptor;
+        }
+
+        public LatencyHistogram getRequest() {
+            return request;
+        }
+
+        public LatencyHistogram getResponse() {
+            return response;
+        }
+    }
+}
@@ -27,6 +27,7 @@ public class RuleStatisticCollector {
      */
     private final ConcurrentHashMap<Integer, StatisticCollector> statusCodes = new ConcurrentHashMap<>();
     private final ConcurrentHashMap<Integer, TimeCollector> timeCollector = new ConcurrentHashMap<>();
+    private final LatencyStatistics latency = new LatencyStatistics();
 
     private StatisticCollector getStatisticCollectorByStatusCode(int code) {
         return statusCodes.computeIfAbsent(code, c -> new StatisticCollector(true));
@@ -45,7 +46,13 @@ public class RuleStatisticCollector {
         return timeCollector;
     }
 
+    public LatencyStatistics getLatency() {
+        return latency;
+    }
+
     public void collect(Exchange exc) {
+        latency.collect(exc);
+
         StatisticCollector sc = getStatisticCollectorByStatusCode(exc
                 .getResponse().getStatusCode());
         synchronized (sc) {
@@ -0,0 +1,82 @@
+/* Copyright 2026 predic8 GmbH, www.predic8.com
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+   http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License. */
+
+package com.predic8.membrane.core.transport.http;
+
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * Runs at most <tt>limit</tt> tasks of the wrapped executor at the same time. Further tasks are rejected, like the
+ * platform thread pool does when <tt>maxThreadPoolSize</tt> is reached.
+ */
+class BoundedExecutorService extends AbstractExecutorService {
+
+    private final ExecutorService delegate;
+    private final int limit;
+    private final Semaphore permits;
+
+    BoundedExecutorService(ExecutorService delegate, int limit) {
+        this.delegate = delegate;
+        this.limit = limit;
+        this.permits = new Semaphore(limit);
+    }
+
+    @Override
+    public void execute(Runnable command) {
+        if (!permits.tryAcquire())
+            throw new RejectedExecutionException("All " + limit + " threads are busy.");
+        try {
+            delegate.execute(() -> {
+                try {
+                    command.run();
+                } finally {
+                    permits.release();
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    int getActiveCount() {
+        return limit - permits.availablePermits();
+    }
+
+    @Override
+    public void shutdown() {
+        delegate.shutdown();
+    }
+
+    @Override
+    public List<Runnable> shutdownNow() {
+        return delegate.shutdownNow();
+    }
+
+    @Override
+    public boolean isShutdown() {
+        return delegate.isShutdown();
+    }
+
+    @Override
+    public boolean isTerminated() {
+        return delegate.isTerminated();
+    }
+
+    @Override
+    public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+        return delegate.awaitTermination(timeout, unit);
+    }
+}
@@ -25,6 +25,7 @@ import javax.net.ssl.*;
 import java.io.*;
 import java.net.*;
 import java.util.Random;
+import java.util.concurrent.atomic.*;
 
 import static com.predic8.membrane.annot.Constants.*;
 import static com.predic8.membrane.core.transport.http.ByteStreamLogging.wrapConnectionInputStream;
@@ -82,6 +83,13 @@ public class Connection implements Closeable, MessageObserver, NonRelevantBodyOb
 	 */
 	private boolean tunneled;
 
+	/**
+	 * Bookkeeping of the {@link ConnectionManager}: The per-host pool this connection belongs to and whether it is
+	 * currently leased, idle in the pool or closed.
+	 */
+	ConnectionManager.HostPool pool;
+	final AtomicReference<ConnectionManager.PoolState> poolState = new AtomicReference<>(ConnectionManager.PoolState.LEASED);
+
 	public static Connection open(String host, int port, String localHost, SSLProvider sslProvider, int connectTimeout) throws IOException {
 		return open(host, port, localHost, sslProvider, null, connectTimeout);
 	}
@@ -50,7 +50,7 @@ public class ConnectionFactory {
         this.http2ClientPool = getHttp2ClientPool(config);
         this.proxySSLContext = getProxySSLContext(config.getProxy());
         this.sslContext = getSSLContext(config);
-        connectionManager = new ConnectionManager(config.getConnection().getKeepAliveTimeout(), timerManager);
+        connectionManager = new ConnectionManager(config.getConnection(), timerManager);
     }
 
     public OutgoingConnectionType getConnection(Exchange exc, HostColonPort target, int attempts) throws IOException {
@@ -21,8 +21,12 @@ import org.slf4j.*;
 import javax.annotation.*;
 import java.io.*;
 import java.util.*;
+import java.util.concurrent.*;
 import java.util.concurrent.atomic.*;
 
+import static com.predic8.membrane.core.transport.http.ConnectionManager.PoolState.*;
+import static java.util.concurrent.TimeUnit.*;
+
 /**
  * Pools TCP/IP connections, holding them open for a configurable number of milliseconds.
  * <p>
@@ -40,18 +44,29 @@ import java.util.concurrent.atomic.*;
  * <p>
  * Note that you should call {@link Connection#release()} exactly once, or alternatively
  * {@link Connection#close()} at least once.
+ * <p>
+ * Connections are pooled per {@link ConnectionKey} without a global lock. Idle connections are reused LIFO, so the
+ * most recently used (and least likely to be closed by the server) connection is taken first. If
+ * <tt>maxConnectionsPerHost</tt> is set, callers wait up to <tt>leaseTimeout</tt> milliseconds for a connection to
+ * become available instead of opening new ones.
  */
 public class ConnectionManager {
 
 	private static final Logger log = LoggerFactory.getLogger(ConnectionManager.class.getName());
 
 	private final long keepAliveTimeout;
+	private final int maxConnectionsPerHost;
+	private final int maxIdleConnectionsPerHost;
+	private final long leaseTimeout;
 	private final AtomicInteger numberInPool = new AtomicInteger();
-	private final HashMap<ConnectionKey, ArrayList<OldConnection>> availableConnections =
-            new HashMap<>(); // guarded by this
+	private final ConcurrentHashMap<ConnectionKey, HostPool> pools = new ConcurrentHashMap<>();
 	private volatile boolean shutdownWhenDone = false;
 	private TimerManager selfCreatedTimerManager;
 
+	enum PoolState {
+		LEASED, IDLE, CLOSED
+	}
+
 	private static class OldConnection {
 		public final Connection connection;
 		public final long deathTime;
@@ -74,13 +89,134 @@ public class ConnectionManager {
 		}
 	}
 
+	/**
+	 * The connections to one {@link ConnectionKey}.
+	 */
+	static class HostPool {
+		private final ConnectionKey key;
+
+		/**
+		 * Idle connections, the most recently released first.
+		 */
+		private final ConcurrentLinkedDeque<OldConnection> idle = new ConcurrentLinkedDeque<>();
+		private final AtomicInteger idleCount = new AtomicInteger();
+
+		/**
+		 * Callers holding or waiting for a lease. -1, if the pool has been retired and must not be used anymore.
+		 */
+		private final AtomicInteger users = new AtomicInteger();
+		private final AtomicInteger leased = new AtomicInteger();
+		private final AtomicInteger pending = new AtomicInteger();
+		private final AtomicLong opened = new AtomicLong();
+		private final AtomicLong closed = new AtomicLong();
+
+		/**
+		 * Limits the number of leased connections. Fair, so waiting callers are served in order. null, if unlimited.
+		 */
+		@Nullable
+		private final Semaphore leases;
+
+		HostPool(ConnectionKey key, int maxConnections) {
+			this.key = key;
+			this.leases = maxConnections > 0 ? new Semaphore(maxConnections, true) : null;
+		}
+
+		private boolean tryUse() {
+			while (true) {
+				int n = users.get();
+				if (n < 0)
+					return false;
+				if (users.compareAndSet(n, n + 1))
+					return true;
+			}
+		}
+
+		private void lease(long timeout) throws IOException {
+			if (leases != null && !leases.tryAcquire()) {
+				pending.incrementAndGet();
+				try {
+					if (!leases.tryAcquire(timeout, MILLISECONDS)) {
+						users.decrementAndGet();
+						throw new IOException("Timed out after " + timeout + "ms waiting for a connection to " + key + ".");
+					}
+				} catch (InterruptedException e) {
+					users.decrementAndGet();
+					Thread.currentThread().interrupt();
+					throw new InterruptedIOException("Interrupted while waiting for a connection to " + key + ".");
+				} finally {
+					pending.decrementAndGet();
+				}
+			}
+			leased.incrementAndGet();
+		}
+
+		private void endLease() {
+			leased.decrementAndGet();
+			if (leases != null)
+				leases.release();
+			users.decrementAndGet();
+		}
+
+		private boolean retireIfUnused() {
+			return idle.isEmpty() && users.compareAndSet(0, -1);
+		}
+
+		@Nullable
+		private OldConnection pollIdle() {
+			OldConnection o = idle.pollFirst();
+			if (o != null)
+				idleCount.decrementAndGet();
+			return o;
+		}
+
+		private boolean removeIdle(OldConnection o) {
+			if (!idle.removeFirstOccurrence(o))
+				return false;
+			idleCount.decrementAndGet();
+			return true;
+		}
+
+		private PoolStatistics getStatistics() {
+			return new PoolStatistics(idleCount.get(), leased.get(), pending.get(), opened.get(), closed.get());
+		}
+	}
+
+	/**
+	 * Snapshot of the connections to one host.
+	 *
+	 * @param idle    connections waiting in the pool for reuse
+	 * @param leased  connections currently in use
+	 * @param pending callers waiting for a connection because <tt>maxConnectionsPerHost</tt> is reached
+	 * @param opened  connections opened since the pool for this host was created
+	 * @param closed  connections closed since the pool for this host was created
+	 */
+	public record PoolStatistics(int idle, int leased, int pending, long opened, long closed) {
+	}
+
 	/**
 	 * @param keepAliveTimeout milliseconds to keep idle connections around for
 	 * @param timerManager a TimerManager instance to use to close idle connections. Providing a TimerManager instance
 	 *                     prevents the ConnectionManager from creating its own Timer (and TimerManager). Can be null.
 	 */
 	public ConnectionManager(long keepAliveTimeout, @Nullable TimerManager timerManager) {
+		this(keepAliveTimeout, -1, -1, 0, timerManager);
+	}
+
+	/**
+	 * @param configuration keep-alive timeout and per-host limits
+	 * @param timerManager a TimerManager instance to use to close idle connections. Can be null.
+	 */
+	public ConnectionManager(ConnectionConfiguration configuration, @Nullable TimerManager timerManager) {
+		this(configuration.getKeepAliveTimeout(), configuration.getMaxConnectionsPerHost(),
+				configuration.getMaxIdleConnectionsPerHost(), configuration.getLeaseTimeout(), timerManager);
+	}
+
+	private ConnectionManager(long keepAliveTimeout, int maxConnectionsPerHost, int maxIdleConnectionsPerHost,
+							  long leaseTimeout, @Nullable TimerManager timerManager) {
 		this.keepAliveTimeout = keepAliveTimeout;
+		this.maxConnectionsPerHost = maxConnectionsPerHost;
+		this.maxIdleConnectionsPerHost = maxIdleConnectionsPerHost;
+		this.leaseTimeout = leaseTimeout;
 		var autoCloseInterval = keepAliveTimeout * 2;
 		if (timerManager == null) {
 			selfCreatedTimerManager = timerManager = new TimerManager();
@@ -114,95 +250,125 @@ public class ConnectionManager {
 			cachePort = 0;
 		}
 
-		ConnectionKey key = new ConnectionKey(cacheHost, cachePort, sslProvider, sniServerName, proxy, proxySSLContext);
-		long now = System.currentTimeMillis();
+		HostPool pool = usePool(new ConnectionKey(cacheHost, cachePort, sslProvider, sniServerName, proxy, proxySSLContext));
+		pool.lease(leaseTimeout);
 
-		synchronized(this) {
-			ArrayList<OldConnection> l = availableConnections.get(key);
-			if (l != null) {
-				int i = l.size() - 1;
-				while(i >= 0) {
-					OldConnection c = l.get(i);
-					if (c.deathTime > now && !c.connection.isClosed()) {
-						l.remove(i);
-						return c.connection;
-					}
-					Collections.swap(l, 0, i);
-					i--;
-				}
-			}
+		long now = System.currentTimeMillis();
+		OldConnection o;
+		while ((o = pool.pollIdle()) != null) {
+			if (o.deathTime > now && !o.connection.isClosed() && o.connection.poolState.compareAndSet(IDLE, LEASED))
+				return o.connection;
+			closeQuietly(o.connection);
 		}
 
-		Connection result = Connection.open(host, port, localHost, sslProvider, this, connectTimeout,
-				sniServerName, proxy, proxySSLContext, applicationProtocols);
-		numberInPool.incrementAndGet();
-		return result;
+		try {
+			Connection result = Connection.open(host, port, localHost, sslProvider, this, connectTimeout,
+					sniServerName, proxy, proxySSLContext, applicationProtocols);
+			result.pool = pool;
+			pool.opened.incrementAndGet();
+			numberInPool.incrementAndGet();
+			return result;
+		} catch (IOException | RuntimeException e) {
+			pool.endLease();
+			throw e;
+		}
 	}
 
 	public Connection getConnection(String host, int port, String localHost, SSLProvider sslProvider, int connectTimeout) throws IOException {
 		return getConnection(host,port,localHost,sslProvider,connectTimeout,null,null,null,null);
 	}
 
+	/**
+	 * @return the pool for the key, registered as being used by the caller
+	 */
+	private HostPool usePool(ConnectionKey key) {
+		while (true) {
+			HostPool pool = pools.computeIfAbsent(key, k -> new HostPool(k, maxConnectionsPerHost));
+			if (pool.tryUse())
+				return pool;
+			pools.remove(key, pool); // retired concurrently by the closer
+		}
+	}
+
 	public void releaseConnection(Connection connection) {
 		if (connection == null)
 			return;
 
+		HostPool pool = connection.pool;
+		if (pool == null)
+			return; // not opened by this manager
+
 		if (connection.isClosed()) {
+			PoolState previous = connection.poolState.getAndSet(CLOSED);
+			if (previous == CLOSED)
+				return;
 			numberInPool.decrementAndGet();
+			pool.closed.incrementAndGet();
+			if (previous == LEASED)
+				pool.endLease();
 			return;
 		}
 
-		ConnectionKey key = new ConnectionKey(connection.getHost(), connection.socket.getPort(),
-				connection.getSslProvider(), connection.getSniServerName(), connection.getProxyConfiguration(),
-				connection.getProxySSLProvider());
-		OldConnection o = new OldConnection(connection, keepAliveTimeout);
-		ArrayList<OldConnection> l;
-		synchronized(this) {
-			l = availableConnections.computeIfAbsent(key, k -> new ArrayList<>());
-			l.add(o);
+		if (!connection.poolState.compareAndSet(LEASED, IDLE)) {
+			log.debug("Connection released more than once: {}", connection);
+			return;
+		}
+
+		if (maxIdleConnectionsPerHost == 0) {
+			// return the lease first, the connection is closed as idle connection
+			pool.endLease();
+			closeQuietly(connection);
+			return;
+		}
+
+		pool.idle.offerFirst(new OldConnection(connection, keepAliveTimeout));
+		pool.idleCount.incrementAndGet();
+		pool.endLease();
+
+		if (maxIdleConnectionsPerHost > 0) {
+			while (pool.idleCount.get() > maxIdleConnectionsPerHost) {
+				OldConnection oldest = pool.idle.peekLast();
+				if (oldest == null)
+					break;
+				if (pool.removeIdle(oldest))
+					closeQuietly(oldest.connection);
+			}
 		}
 	}
 
 	private int closeOldConnections() {
-		ArrayList<ConnectionKey> toRemove = new ArrayList<>();
-		ArrayList<Connection> toClose = new ArrayList<>();
 		long now = System.currentTimeMillis();
 		log.trace("closing old connections");
-		int closed = 0, remaining;
-		synchronized(this) {
+		int closed = 0;
+		for (HostPool pool : pools.values()) {
 			// close connections after their timeout
-			for (Map.Entry<ConnectionKey, ArrayList<OldConnection>> e : availableConnections.entrySet()) {
-				ArrayList<OldConnection> l = e.getValue();
-				for (int i = 0; i < l.size(); i++) {
-					OldConnection o = l.get(i);
-					if (o.deathTime < now) {
-						// replace [i] by [last]
-						if (i == l.size() - 1)
-							l.remove(i);
-						else
-							l.set(i, l.removeLast());
-						--i;
-						closed++;
-						toClose.add(o.connection);
-					}
+			for (OldConnection o : pool.idle) {
+				if (o.deathTime < now && pool.removeIdle(o)) {
+					closeQuietly(o.connection);
+					closed++;
 				}
-				if (l.isEmpty())
-					toRemove.add(e.getKey());
 			}
-			for (ConnectionKey remove : toRemove)
-				availableConnections.remove(remove);
-			remaining = availableConnections.size();
-		}
-		for (Connection c : toClose) {
-			try {
-				c.close();
-			} catch (Exception e) {
-				// do nothing
+			if (pool.retireIfUnused()) {
+				pools.remove(pool.key, pool);
+				// a connection might have been released between the check and the retirement
+				OldConnection o;
+				while ((o = pool.pollIdle()) != null) {
+					closeQuietly(o.connection);
+					closed++;
+				}
 			}
 		}
 		if (closed != 0)
 			log.debug("closed " + closed + " connections");
-		return remaining;
+		return pools.size();
+	}
+
+	private static void closeQuietly(Connection connection) {
+		try {
+			connection.close();
+		} catch (Exception e) {
+			// do nothing
+		}
 	}
 
 	public void shutdownWhenDone() {
@@ -213,15 +379,20 @@ public class ConnectionManager {
 		return numberInPool.get();
 	}
 
+	/**
+	 * @return the state of the connections per host
+	 */
+	public Map<ConnectionKey, PoolStatistics> getPoolStatistics() {
+		Map<ConnectionKey, PoolStatistics> result = new HashMap<>();
+		pools.forEach((key, pool) -> result.put(key, pool.getStatistics()));
+		return result;
+	}
+
 	@Override
 	public String toString() {
 		StringBuilder sb = new StringBuilder();
 		sb.append("Number in pool: " + numberInPool.get() + "\n");
-		synchronized(this) {
-			for (Map.Entry<ConnectionKey, ArrayList<OldConnection>> e : availableConnections.entrySet()) {
-				sb.append("To " + e.getKey() + ": " + e.getValue().size() + "\n");
-			}
-		}
+		pools.forEach((key, pool) -> sb.append("To " + key + ": " + pool.idleCount.get() + "\n"));
 		return sb.toString();
 	}
 
@@ -17,9 +17,9 @@ import com.predic8.membrane.core.transport.http.client.HttpClientConfiguration;
 import com.predic8.membrane.core.util.TimerManager;
 
 import javax.annotation.Nullable;
-import java.util.Objects;
-import java.util.WeakHashMap;
+import java.util.*;
 
+import static java.util.Collections.newSetFromMap;
 import static java.util.Objects.hash;
 
 /**
@@ -33,6 +33,10 @@ public class HttpClientFactory {
     @Nullable
     private final TimerManager timerManager;
     private final WeakHashMap<Config, HttpClient> clients = new WeakHashMap<>();
+    /**
+     * The cache above forgets clients as soon as their key is collected. This keeps track of all clients still in use.
+     */
+    private final Set<HttpClient> created = newSetFromMap(new WeakHashMap<>());
 
     public HttpClientFactory(@Nullable TimerManager timerManager) {
         this.timerManager = timerManager;
@@ -46,9 +50,17 @@ public class HttpClientFactory {
 
         hc = new HttpClient(hcc, timerManager);
         clients.put(config, hc);
+        created.add(hc);
         return hc;
     }
 
+    /**
+     * @return the clients created so far and not yet garbage collected
+     */
+    public synchronized List<HttpClient> getClients() {
+        return new ArrayList<>(created);
+    }
+
     private static class Config {
         final HttpClientConfiguration httpClientConfiguration;
         final TimerManager timerManager;
@@ -0,0 +1,301 @@
+/* Copyright 2026 predic8 GmbH, www.predic8.com
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+   http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License. */
+
+package com.predic8.membrane.core.transport.http;
+
+import org.slf4j.Logger;
+import org.slf4j.*;
+
+import java.io.*;
+import java.net.*;
+import java.nio.*;
+import java.nio.channels.*;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.ConcurrentHashMap.KeySetView;
+
+import static java.lang.System.*;
+import static java.nio.channels.SelectionKey.*;
+
+/**
+ * Watches the client connections of an {@link HttpEndpointListener} running with <tt>ioModel="nio"</tt> while no
+ * request is in progress.
+ * <p>
+ * Incoming bytes are collected on the selector thread until a complete request head has arrived. Only then the
+ * connection is switched back to blocking mode and handed to a {@link HttpServerHandler} on the executor of the
+ * transport. After the exchange, the handler parks the connection here again, so idle keep-alive connections do not
+ * occupy a thread.
+ */
+public class HttpConnectionSelector extends Thread {
+
+    private static final Logger log = LoggerFactory.getLogger(HttpConnectionSelector.class.getName());
+
+    /**
+     * Heads larger than this are handed over as they are. The regular parser will then reject them.
+     */
+    static final int MAX_HEAD_SIZE = 64 * 1024;
+
+    private static final int INITIAL_BUFFER_SIZE = 2048;
+    private static final long SELECT_TIMEOUT_MS = 1000;
+
+    private final HttpEndpointListener endpointListener;
+    private final Selector selector;
+    private final Queue<Socket> pending = new ConcurrentLinkedQueue<>();
+
+    /**
+     * Connections owned by the selector. Whoever removes a socket from this set is responsible for it.
+     */
+    private final KeySetView<Socket, Boolean> parked = ConcurrentHashMap.newKeySet();
+
+    private volatile boolean closed;
+    private long lastTimeoutCheck = currentTimeMillis();
+
+    public HttpConnectionSelector(HttpEndpointListener endpointListener, String name) throws IOException {
+        this.endpointListener = endpointListener;
+        this.selector = Selector.open();
+        setName("Connection Selector " + name);
+        setDaemon(true);
+    }
+
+    /**
+     * Hands a connection without a running request over to the selector. May be called from any thread.
+     */
+    public void park(Socket socket) {
+        parked.add(socket);
+        if (closed) {
+            // the selector thread might have finished its final cleanup already
+            if (parked.remove(socket))
+                release(socket);
+            return;
+        }
+        pending.add(socket);
+        selector.wakeup();
+    }
+
+    public void close() {
+        closed = true;
+        selector.wakeup();
+    }
+
+    public int getNumberOfParkedConnections() {
+        return parked.size();
+    }
+
+    @Override
+    public void run() {
+        List<SelectionKey> complete = new ArrayList<>();
+        try {
+            while (!closed) {
+                if (selector.selectedKeys().isEmpty())
+                    selector.select(SELECT_TIMEOUT_MS);
+                else
+                    selector.selectNow();
+
+                registerPending();
+                readSelected(complete);
+                closeTimedOut();
+
+                if (complete.isEmpty())
+                    continue;
+
+                // Deregister the cancelled keys, so that the channels can be switched to blocking mode.
+                selector.selectNow();
+                for (SelectionKey key : complete)
+                    dispatch(key);
+                complete.clear();
+            }
+        } catch (IOException | ClosedSelectorException e) {
+            log.error("Connection selector terminated.", e);
+        } finally {
+            for (Socket socket : parked) {
+                if (parked.remove(socket))
+                    release(socket);
+            }
+            try {
+                selector.close();
+            } catch (IOException e) {
+                log.debug("Could not close selector.", e);
+            }
+        }
+    }
+
+    private void registerPending() {
+        Socket socket;
+        while ((socket = pending.poll()) != null) {
+            try {
+                SocketChannel channel = socket.getChannel();
+                channel.configureBlocking(false);
+                channel.register(selector, OP_READ, new RequestHead());
+                endpointListener.setIdleStatus(socket, true);
+            } catch (IOException e) {
+                log.debug("Could not park connection.", e);
+                if (parked.remove(socket))
+                    release(socket);
+            }
+        }
+    }
+
+    private void readSelected(List<SelectionKey> complete) {
+        for (Iterator<SelectionKey> it = selector.selectedKeys().iterator(); it.hasNext(); ) {
+            SelectionKey key = it.next();
+            it.remove();
+            if (!key.isValid())
+                continue;
+            if (readHead(key)) {
+                key.cancel();
+                complete.add(key);
+            }
+        }
+    }
+
+    /**
+     * @return true, if the request head is complete (or too large to be collected here)
+     */
+    private boolean readHead(SelectionKey key) {
+        SocketChannel channel = (SocketChannel) key.channel();
+        RequestHead head = (RequestHead) key.attachment();
+        try {
+            int read = channel.read(head.buffer);
+            if (read == -1) {
+                log.debug("client socket closed");
+                cancelAndRelease(key);
+                return false;
+            }
+            if (read == 0)
+                return false;
+            if (head.lastActivity == 0)
+                endpointListener.setIdleStatus(channel.socket(), false);
+            head.lastActivity = currentTimeMillis();
+            return head.isComplete();
+        } catch (IOException e) {
+            log.debug("client socket closed");
+            cancelAndRelease(key);
+            return false;
+        }
+    }
+
+    /**
+     * Parked connections time out like blocked reads do in the thread-per-connection model.
+     */
+    private void closeTimedOut() {
+        long now = currentTimeMillis();
+        if (now - lastTimeoutCheck < SELECT_TIMEOUT_MS)
+            return;
+        lastTimeoutCheck = now;
+
+        int timeout = endpointListener.getTransport().getSocketTimeout();
+        if (timeout <= 0)
+            return;
+        for (SelectionKey key : selector.keys()) {
+            if (!key.isValid())
+                continue;
+            RequestHead head = (RequestHead) key.attachment();
+            if (now - head.getLastActivity() > timeout) {
+                log.debug("Parked connection timed out.");
+                cancelAndRelease(key);
+            }
+        }
+    }
+
+    private void dispatch(SelectionKey key) {
+        SocketChannel channel = (SocketChannel) key.channel();
+        Socket socket = channel.socket();
+        if (!parked.remove(socket))
+            return; // closed concurrently
+        try {
+            channel.configureBlocking(true);
+            RequestHead head = (RequestHead) key.attachment();
+            endpointListener.getTransport().getExecutorService().execute(new HttpServerHandler(socket, endpointListener, head.toByteArray()));
+        } catch (RejectedExecutionException e) {
+            log.error("HttpServerHandler execution rejected. Might be due to a proxies.xml hot deployment in progress or a low"
+                    + " value for <transport maxThreadPoolSize=\"...\">.");
+            release(socket);
+        } catch (IOException e) {
+            log.debug("Could not hand over connection.", e);
+            release(socket);
+        }
+    }
+
+    private void cancelAndRelease(SelectionKey key) {
+        key.cancel();
+        Socket socket = ((SocketChannel) key.channel()).socket();
+        if (parked.remove(socket))
+            release(socket);
+    }
+
+    private void release(Socket socket) {
+        try {
+            socket.close();
+        } catch (IOException e) {
+            log.debug("Could not close connection.", e);
+        }
+        try {
+            endpointListener.setIdleStatus(socket, false);
+        } catch (IOException ignored) {
+            // not thrown when marking a connection as busy
+        }
+        endpointListener.setOpenStatus(socket);
+    }
+
+    /**
+     * Bytes of a request head received so far.
+     */
+    private static class RequestHead {
+
+        private final long created = currentTimeMillis();
+        private ByteBuffer buffer = ByteBuffer.allocate(INITIAL_BUFFER_SIZE);
+        private long lastActivity;
+        private int scanned;
+
+        long getLastActivity() {
+            return lastActivity == 0 ? created : lastActivity;
+        }
+
+        /**
+         * Looks for the empty line terminating the head. Like {@link com.predic8.membrane.core.util.HttpUtil#readLine(InputStream)},
+         * a single LF is accepted as line terminator.
+         */
+        boolean isComplete() {
+            byte[] b = buffer.array();
+            int end = buffer.position();
+            for (int i = Math.max(0, scanned - 2); i < end - 1; i++) {
+                if (b[i] != '\n')
+                    continue;
+                if (b[i + 1] == '\n' || (b[i + 1] == '\r' && i + 2 < end && b[i + 2] == '\n'))
+                    return true;
+            }
+            scanned = end;
+            return !grow();
+        }
+
+        /**
+         * @return false, if the maximum head size is reached
+         */
+        private boolean grow() {
+            if (buffer.hasRemaining())
+                return true;
+            if (buffer.capacity() >= MAX_HEAD_SIZE)
+                return false;
+            ByteBuffer larger = ByteBuffer.allocate(Math.min(buffer.capacity() * 2, MAX_HEAD_SIZE));
+            buffer.flip();
+            larger.put(buffer);
+            buffer = larger;
+            return true;
+        }
+
+        byte[] toByteArray() {
+            return Arrays.copyOf(buffer.array(), buffer.position());
+        }
+    }
+}
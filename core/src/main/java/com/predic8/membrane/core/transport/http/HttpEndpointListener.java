@@ -22,12 +22,14 @@ import org.slf4j.*;
 
 import java.io.*;
 import java.net.*;
+import java.nio.channels.*;
 import java.util.*;
 import java.util.concurrent.*;
 import java.util.concurrent.ConcurrentHashMap.KeySetView;
 import java.util.concurrent.atomic.*;
 
 import static com.predic8.membrane.core.exceptions.ProblemDetails.*;
+import static com.predic8.membrane.core.transport.http.HttpTransport.IoModel.*;
 import static com.predic8.membrane.core.util.TimerTaskUtil.createTimerTask;
 import static com.predic8.membrane.core.util.text.TerminalColors.*;
 import static java.lang.System.*;
@@ -42,6 +44,7 @@ public class HttpEndpointListener extends Thread {
     private final ServerSocket serverSocket;
     private final HttpTransport transport;
     private final SSLProvider sslProvider;
+    private final HttpConnectionSelector connectionSelector;
     private final KeySetView<Socket, Boolean> idleSockets = ConcurrentHashMap.newKeySet();
     private final KeySetView<Socket, Boolean> openSockets = ConcurrentHashMap.newKeySet();
     private final ConcurrentHashMap<InetAddress, ClientInfo> ipConnectionCount = new ConcurrentHashMap<>();
@@ -82,6 +85,7 @@ public class HttpEndpointListener extends Thread {
 
             final String s = p.toShortString();
             setName("Connection Acceptor " + s);
+            connectionSelector = isNio() ? new HttpConnectionSelector(this, s) : null;
             log.info("listening at {}{}{}", BRIGHT_MAGENTA(), s, RESET());
         } catch (BindException e) {
             throw new PortOccupiedException(p);
@@ -97,11 +101,46 @@ public class HttpEndpointListener extends Thread {
         if (sslProvider != null)
             return sslProvider.createServerSocket(p.port(), transport.getBacklog(), p.ip());
 
+        if (isNio())
+            return getServerSocketChannel(p).socket();
+
         return new ServerSocket(p.port(), transport.getBacklog(), p.ip());
     }
 
+    /**
+     * Accepted sockets of a channel based server socket can be parked in a {@link HttpConnectionSelector}.
+     */
+    private ServerSocketChannel getServerSocketChannel(IpPort p) throws IOException {
+        ServerSocketChannel channel = ServerSocketChannel.open();
+        try {
+            channel.setOption(StandardSocketOptions.SO_REUSEADDR, true);
+            channel.bind(new InetSocketAddress(p.ip(), p.port()), transport.getBacklog());
+            return channel;
+        } catch (IOException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * TLS connections are always served in blocking mode.
+     */
+    private boolean isNio() {
+        return transport.getIoModel() == NIO && sslProvider == null;
+    }
+
     @Override
     public void run() {
+        if (connectionSelector != null)
+            connectionSelector.start();
+        try {
+            acceptConnections();
+        } finally {
+            stopConnectionSelector();
+        }
+    }
+
+    private void acceptConnections() {
         while (!closed) {
             try {
                 Socket socket = serverSocket.accept();
@@ -113,6 +152,10 @@ public class HttpEndpointListener extends Thread {
                     try {
                         if (log.isDebugEnabled())
                             log.debug("Accepted connection from {}", socket.getRemoteSocketAddress());
+                        if (connectionSelector != null) {
+                            connectionSelector.park(socket);
+                            continue;
+                        }
                         transport.getExecutorService().execute(new HttpServerHandler(socket, this));
                     } catch (RejectedExecutionException e) {
                         connectionCount.decrementAndGet();
@@ -124,7 +167,7 @@ public class HttpEndpointListener extends Thread {
                 }
             } catch (SocketException e) {
                 String message = e.getMessage();
-                if (message != null && (message.endsWith("socket closed") || message.endsWith("Socket closed"))) {
+                if (closed || message != null && (message.endsWith("socket closed") || message.endsWith("Socket closed"))) {
                     log.debug("socket closed.");
                     break;
                 } else {
@@ -150,6 +193,17 @@ public class HttpEndpointListener extends Thread {
         }
     }
 
+    private void stopConnectionSelector() {
+        if (connectionSelector == null)
+            return;
+        connectionSelector.close();
+        try {
+            connectionSelector.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
     private ClientInfo getClientInfo(InetAddress remoteIp) {
         return ipConnectionCount.computeIfAbsent(remoteIp, k -> new ClientInfo());
     }
@@ -179,6 +233,8 @@ public class HttpEndpointListener extends Thread {
 
     public void closePort() throws IOException {
         closed = true;
+        if (connectionSelector != null)
+            connectionSelector.close();
         if (serverSocket != null && !serverSocket.isClosed())
             serverSocket.close();
         if (sslProvider != null)
@@ -219,6 +275,18 @@ public class HttpEndpointListener extends Thread {
         }
     }
 
+    /**
+     * Hands a connection between two requests back to the {@link HttpConnectionSelector}.
+     *
+     * @return false, if this listener does not park connections
+     */
+    boolean park(Socket socket) {
+        if (connectionSelector == null)
+            return false;
+        connectionSelector.park(socket);
+        return true;
+    }
+
     void setOpenStatus(Socket socket) {
         openSockets.remove(socket);
 
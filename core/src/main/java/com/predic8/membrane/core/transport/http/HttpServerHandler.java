@@ -60,6 +60,7 @@ public class HttpServerHandler extends AbstractHttpHandler implements Runnable,
 
     private final HttpEndpointListener endpointListener;
     private final Socket rawSourceSocket;
+    private final byte[] receivedHead;
     private Socket sourceSocket;
     private InputStream srcIn;
     private OutputStream srcOut;
@@ -69,10 +70,18 @@ public class HttpServerHandler extends AbstractHttpHandler implements Runnable,
 
 
     public HttpServerHandler(Socket socket, HttpEndpointListener endpointListener) {
+        this(socket, endpointListener, null);
+    }
+
+    /**
+     * @param receivedHead bytes already read from the socket by a {@link HttpConnectionSelector}
+     */
+    public HttpServerHandler(Socket socket, HttpEndpointListener endpointListener, byte[] receivedHead) {
         super(endpointListener.getTransport());
         this.endpointListener = endpointListener;
         this.sourceSocket = socket;
         this.rawSourceSocket = socket;
+        this.receivedHead = receivedHead;
     }
 
     @Override
@@ -96,16 +105,23 @@ public class HttpServerHandler extends AbstractHttpHandler implements Runnable,
     private void setupInAndOut() throws IOException {
         if (ByteStreamLogging.isLoggingEnabled()) {
             String c = "s-" + new Random().nextInt();
-            srcIn = new BufferedInputStream(wrapConnectionInputStream(sourceSocket.getInputStream(), c + " in"), BUFFER_SIZE);
+            srcIn = new BufferedInputStream(wrapConnectionInputStream(getSocketInputStream(), c + " in"), BUFFER_SIZE);
             srcOut = new BufferedOutputStream(wrapConnectionOutputStream(sourceSocket.getOutputStream(), c + " out"), BUFFER_SIZE);
             return;
         }
-        srcIn = new BufferedInputStream(sourceSocket.getInputStream(), BUFFER_SIZE);
+        srcIn = new BufferedInputStream(getSocketInputStream(), BUFFER_SIZE);
         srcOut = new BufferedOutputStream(sourceSocket.getOutputStream(), BUFFER_SIZE);
     }
 
+    private InputStream getSocketInputStream() throws IOException {
+        if (receivedHead == null)
+            return sourceSocket.getInputStream();
+        return new SequenceInputStream(new ByteArrayInputStream(receivedHead), sourceSocket.getInputStream());
+    }
+
     public void run() {
         Connection boundConnection = null; // see Request.isBindTargetConnectionToIncoming()
+        boolean parked = false;
         try {
             updateThreadName(true);
             setup();
@@ -117,6 +133,12 @@ public class HttpServerHandler extends AbstractHttpHandler implements Runnable,
                 if (result.shouldTerminate()) {
                     break;
                 }
+
+                if (canBeParked(boundConnection)) {
+                    parked = endpointListener.park(rawSourceSocket);
+                    if (parked)
+                        break;
+                }
             }
         } catch (SocketTimeoutException e) {
             log.debug("Socket of thread {} timed out", counter);
@@ -155,16 +177,18 @@ public class HttpServerHandler extends AbstractHttpHandler implements Runnable,
         } catch (Exception e) {
             log.error("", e);
         } finally {
-            endpointListener.setOpenStatus(rawSourceSocket);
+            if (!parked) {
+                endpointListener.setOpenStatus(rawSourceSocket);
 
-            if (boundConnection != null)
-                try {
-                    boundConnection.close();
-                } catch (IOException e) {
-                    log.debug("Closing bound connection.", e);
-                }
+                if (boundConnection != null)
+                    try {
+                        boundConnection.close();
+                    } catch (IOException e) {
+                        log.debug("Closing bound connection.", e);
+                    }
 
-            closeConnections();
+                closeConnections();
+            }
 
             exchange.detach();
 
@@ -172,6 +196,14 @@ public class HttpServerHandler extends AbstractHttpHandler implements Runnable,
         }
     }
 
+    /**
+     * A connection can be handed back to the {@link HttpConnectionSelector} between two requests, if it was
+     * received from one, and no bytes of the next request are buffered yet.
+     */
+    private boolean canBeParked(Connection boundConnection) throws IOException {
+        return receivedHead != null && boundConnection == null && srcIn.available() == 0;
+    }
+
     private static @NotNull String getLineMaskedAndTruncated(EOFWhileReadingLineException e) {
         return maskNonPrintableCharacters(truncateAfter(e.getLineSoFar(), 80));
     }
@@ -392,7 +424,7 @@ public class HttpServerHandler extends AbstractHttpHandler implements Runnable,
             res.getHeader().setConnection(Header.CLOSE);
         res.write(srcOut, false);
         srcOut.flush();
-        exchange.setTimeResSent(System.currentTimeMillis());
+        exchange.responseSent();
         exchange.collectStatistics();
     }
 
@@ -54,6 +54,31 @@ public class HttpTransport extends Transport {
 	private int forceSocketCloseOnHotDeployAfter = 30000;
 	private boolean tcpNoDelay = true;
 	private int backlog = 50;
+	private IoModel ioModel = IoModel.BLOCKING;
+	private ExecutionModel executionModel = ExecutionModel.PLATFORM;
+
+	public enum IoModel {
+		/**
+		 * One thread per connection, also while the connection is idle.
+		 */
+		BLOCKING,
+		/**
+		 * Idle connections are watched by a selector. A worker thread is only used once a complete request head
+		 * has arrived.
+		 */
+		NIO
+	}
+
+	public enum ExecutionModel {
+		/**
+		 * Connections are handled by threads of a pool, see <tt>coreThreadPoolSize</tt> and <tt>maxThreadPoolSize</tt>.
+		 */
+		PLATFORM,
+		/**
+		 * Every connection is handled by a new virtual thread.
+		 */
+		VIRTUAL
+	}
 
 	private final Map<Integer, Map<IpPort, HttpEndpointListener>> portListenerMapping = new HashMap<>();
 	private final List<WeakReference<HttpEndpointListener>> stillRunning = new ArrayList<>();
@@ -62,9 +87,21 @@ public class HttpTransport extends Transport {
 			MAX_VALUE, 60L, SECONDS,
 			new SynchronousQueue<>(), new HttpServerThreadFactory());
 
+	private ExecutorService virtualThreadExecutor;
+
 	@Override
 	public void init(Router router) {
 		super.init(router);
+		if (executionModel == ExecutionModel.VIRTUAL && virtualThreadExecutor == null) {
+			virtualThreadExecutor = Executors.newThreadPerTaskExecutor(
+					Thread.ofVirtual().name(HttpServerThreadFactory.DEFAULT_THREAD_NAME + "-", 0).factory());
+			if (getMaxThreadPoolSize() != MAX_VALUE) {
+				virtualThreadExecutor = new BoundedExecutorService(virtualThreadExecutor, getMaxThreadPoolSize());
+				log.info("Handling connections using at most {} virtual threads.", getMaxThreadPoolSize());
+			} else {
+				log.info("Handling connections using virtual threads.");
+			}
+		}
 	}
 
 	/**
@@ -114,11 +151,12 @@ public class HttpTransport extends Transport {
 		if (waitForCompletion) {
 			long now = System.currentTimeMillis();
 			log.debug("Waiting for running exchanges to finish.");
-			executorService.shutdown();
+			ExecutorService executor = getExecutorService();
+			executor.shutdown();
 			try {
 				while (true) {
                     closeConnections(closeOnlyIdleConnections(now));
-					if (executorService.awaitTermination(5, SECONDS))
+					if (executor.awaitTermination(5, SECONDS))
 						break;
 					log.warn("Still waiting for running exchanges to finish. (Set <transport forceSocketCloseOnHotDeployAfter=\"{}\"> to a lower value to forcibly close connections more quickly.",forceSocketCloseOnHotDeployAfter);
 				}
@@ -224,6 +262,7 @@ public class HttpTransport extends Transport {
 
 	/**
 	 * @description Maximum number of threads to handle incoming connections. (Membrane uses 1 thread per incoming connection.)
+	 *              With <tt>executionModel="virtual"</tt> this limits the number of virtual threads.
 	 * @default <i>no limit</i>
 	 * @example 300
 	 */
@@ -232,10 +271,34 @@ public class HttpTransport extends Transport {
 		executorService.setMaximumPoolSize(value);
 	}
 
+	/**
+	 * @return the executor running the {@link HttpServerHandler}s, depending on the <tt>executionModel</tt>
+	 */
 	public ExecutorService getExecutorService() {
+		if (virtualThreadExecutor != null)
+			return virtualThreadExecutor;
 		return executorService;
 	}
 
+	public ExecutionModel getExecutionModel() {
+		return executionModel;
+	}
+
+	/**
+	 * @description <p>Which kind of threads handle incoming connections. <tt>platform</tt> uses a pool of operating
+	 *              system threads configured by <tt>coreThreadPoolSize</tt> and <tt>maxThreadPoolSize</tt>.
+	 *              <tt>virtual</tt> starts a virtual thread per connection. Outgoing calls to backends are made on the
+	 *              same thread, so slow backends do not exhaust the pool. In this mode
+	 *              <tt>coreThreadPoolSize</tt> is ignored and <tt>maxThreadPoolSize</tt> limits the number of
+	 *              virtual threads.</p>
+	 * @default platform
+	 * @example virtual
+	 */
+	@MCAttribute
+	public void setExecutionModel(ExecutionModel executionModel) {
+		this.executionModel = executionModel;
+	}
+
 	public int getSocketTimeout() {
 		return socketTimeout;
 	}
@@ -266,6 +329,24 @@ public class HttpTransport extends Transport {
 		this.tcpNoDelay = tcpNoDelay;
 	}
 
+	public IoModel getIoModel() {
+		return ioModel;
+	}
+
+	/**
+	 * @description <p>How client connections are served. With <tt>blocking</tt> every connection occupies a thread
+	 *              from the pool, even while it is idle between keep-alive requests. With <tt>nio</tt> idle connections are
+	 *              parked in a selector and the request head is collected without a worker thread. A thread is only
+	 *              taken from the pool when a complete request head has been received.</p>
+	 *              <p>Ports using TLS are always served in blocking mode.</p>
+	 * @default blocking
+	 * @example nio
+	 */
+	@MCAttribute
+	public void setIoModel(IoModel ioModel) {
+		this.ioModel = ioModel;
+	}
+
 	@Override
 	public boolean isOpeningPorts() {
 		return true;
@@ -24,14 +24,15 @@ import java.util.Objects;
  *              Typically used as a child of &lt;httpClientConfig&gt;.
  *
  *              XML Example:
- *              &lt;connection keepAliveTimeout="30000" timeout="10000" soTimeout="5000" localAddr="192.168.1.100"/&gt;
+ *              &lt;connection keepAliveTimeout="30000" timeout="10000" soTimeout="5000" localAddr="192.168.1.100" maxConnectionsPerHost="100"/&gt;
  *
  *              YAML (experimental):
  *              <pre><code>connection:
  *                keepAliveTimeout: 30000
  *                timeout: 10000
  *                soTimeout: 5000
- *                localAddr: "192.168.1.100"</code></pre>
+ *                localAddr: "192.168.1.100"
+ *                maxConnectionsPerHost: 100</code></pre>
  *
  * @topic 4. Transports and Clients
  */
@@ -42,6 +43,9 @@ public class ConnectionConfiguration {
 	private int connectTimeout = 10000;
 	private int soTimeout = 0;
 	private String localAddr;
+	private int maxConnectionsPerHost = -1;
+	private int maxIdleConnectionsPerHost = -1;
+	private long leaseTimeout = 10000;
 
 	@Override
 	public boolean equals(Object o) {
@@ -51,12 +55,15 @@ public class ConnectionConfiguration {
 		return keepAliveTimeout == that.keepAliveTimeout
 				&& connectTimeout == that.connectTimeout
 				&& soTimeout == that.soTimeout
+				&& maxConnectionsPerHost == that.maxConnectionsPerHost
+				&& maxIdleConnectionsPerHost == that.maxIdleConnectionsPerHost
+				&& leaseTimeout == that.leaseTimeout
 				&& Objects.equals(localAddr, that.localAddr);
 	}
 
 	@Override
 	public int hashCode() {
-		return Objects.hash(keepAliveTimeout, connectTimeout, soTimeout, localAddr);
+		return Objects.hash(keepAliveTimeout, connectTimeout, soTimeout, localAddr, maxConnectionsPerHost, maxIdleConnectionsPerHost, leaseTimeout);
 	}
 
 	public long getKeepAliveTimeout() {
@@ -120,4 +127,49 @@ public class ConnectionConfiguration {
 	public void setLocalAddr(String localAddr) {
 		this.localAddr = localAddr;
 	}
+
+	public int getMaxConnectionsPerHost() {
+		return maxConnectionsPerHost;
+	}
+
+	/**
+	 * @description Maximum number of connections in use to one host at the same time. Further requests wait up to
+	 *              <i>leaseTimeout</i> milliseconds for a connection to become available. -1 means unlimited.
+	 * @default -1
+	 * @example 100
+	 */
+	@MCAttribute
+	public void setMaxConnectionsPerHost(int maxConnectionsPerHost) {
+		this.maxConnectionsPerHost = maxConnectionsPerHost;
+	}
+
+	public int getMaxIdleConnectionsPerHost() {
+		return maxIdleConnectionsPerHost;
+	}
+
+	/**
+	 * @description Maximum number of idle connections kept open per host. Connections released beyond this number
+	 *              are closed, starting with the least recently used one. -1 means unlimited.
+	 * @default -1
+	 * @example 20
+	 */
+	@MCAttribute
+	public void setMaxIdleConnectionsPerHost(int maxIdleConnectionsPerHost) {
+		this.maxIdleConnectionsPerHost = maxIdleConnectionsPerHost;
+	}
+
+	public long getLeaseTimeout() {
+		return leaseTimeout;
+	}
+
+	/**
+	 * @description Time in milliseconds to wait for a connection when <i>maxConnectionsPerHost</i> is reached.
+	 *              If no connection becomes available in time, the request fails.
+	 * @default 10000
+	 * @example 2000
+	 */
+	@MCAttribute
+	public void setLeaseTimeout(long leaseTimeout) {
+		this.leaseTimeout = leaseTimeout;
+	}
 }
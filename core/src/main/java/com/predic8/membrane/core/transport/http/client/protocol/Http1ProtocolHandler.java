@@ -42,7 +42,6 @@ import static com.predic8.membrane.core.transport.http.MessageTracer.trace;
 import static com.predic8.membrane.core.transport.http.client.protocol.TcpProtocolHandler.TCP;
 import static com.predic8.membrane.core.transport.http.client.protocol.WebSocketProtocolHandler.WEBSOCKET;
 import static java.lang.Boolean.TRUE;
-import static java.lang.System.currentTimeMillis;
 
 public class Http1ProtocolHandler extends AbstractProtocolHandler {
 
@@ -70,7 +69,7 @@ public class Http1ProtocolHandler extends AbstractProtocolHandler {
         exchange.getRequest().write(ct.con().out, configuration.getRetryHandler().getRetries() > 1);
 
         // TODO only for HTTP1 ?
-        exchange.setTimeReqSent(currentTimeMillis());
+        exchange.requestSent();
 
         http10ShutDown(exchange, ct.con());
 
@@ -83,7 +82,7 @@ public class Http1ProtocolHandler extends AbstractProtocolHandler {
 
         // Only HTTP 1?
         exchange.setReceived();
-        exchange.setTimeResReceived(currentTimeMillis());
+        exchange.responseReceived();
 
         // Only HTTP 1?
         checkUpgradeResponse(exchange);
@@ -57,7 +57,9 @@ public class Http2ProtocolHandler extends AbstractProtocolHandler {
                     connectionFactory.getProxySSLContext(),
                     h2c);
         }
+        exchange.requestSent();
         exchange.setResponse(h2c.doCall(exchange));
+        exchange.responseReceived();
         exchange.setProperty(HTTP2_PROTOCOL, true);
     }
 
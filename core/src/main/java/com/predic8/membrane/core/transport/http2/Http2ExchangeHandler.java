@@ -200,7 +200,7 @@ public class Http2ExchangeHandler implements Runnable {
 
         writeMessageBody(streamId, streamInfo, sender, peerSettings, peerFlowControl, res);
 
-        exchange.setTimeResSent(System.currentTimeMillis());
+        exchange.responseSent();
         exchange.collectStatistics();
     }
 
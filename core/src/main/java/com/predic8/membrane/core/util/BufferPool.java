@@ -0,0 +1,129 @@
+/* Copyright 2026 predic8 GmbH, www.predic8.com
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+   http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License. */
+
+package com.predic8.membrane.core.util;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
+
+/**
+ * A pool of byte arrays for buffers which are used within a single method, e.g. to copy a message body from one
+ * stream to another.
+ * <p>
+ * Arrays are grouped into size classes (powers of two from {@link #MIN_SIZE} to {@link #MAX_SIZE}). Each class keeps
+ * a bounded number of free arrays, larger requests are not pooled. An array obtained by {@link #acquire(int)} has to
+ * be handed back using {@link #release(byte[])} and must not be used afterward. Its content is not cleared.
+ * <p>
+ * {@link #getOutstanding()} counts the pooled arrays not yet released, which allows tests to detect leaks. Arrays
+ * are tracked by identity: Releasing an array the pool did not hand out, or releasing it twice, has no effect.
+ * <p>
+ * The chunks of a {@link com.predic8.membrane.core.http.AbstractBody} are not taken from the pool, as they are
+ * referenced beyond the lifetime of an exchange, e.g. by exchange stores and message observers.
+ */
+public final class BufferPool {
+
+    static final int MIN_SIZE = 4 * 1024;
+    static final int MAX_SIZE = 64 * 1024;
+
+    private static final BufferPool DEFAULT = new BufferPool(32);
+
+    private final SizeClass[] classes;
+
+    /**
+     * The pooled arrays handed out and not yet released. Arrays do not override <tt>equals</tt> and <tt>hashCode</tt>,
+     * so they are compared by identity.
+     */
+    private final Set<byte[]> outstanding = ConcurrentHashMap.newKeySet();
+
+    BufferPool(int maxFreePerClass) {
+        classes = new SizeClass[Integer.numberOfTrailingZeros(MAX_SIZE) - Integer.numberOfTrailingZeros(MIN_SIZE) + 1];
+        for (int i = 0; i < classes.length; i++)
+            classes[i] = new SizeClass(MIN_SIZE << i, maxFreePerClass);
+    }
+
+    public static BufferPool getDefault() {
+        return DEFAULT;
+    }
+
+    /**
+     * @return an array of at least <tt>minSize</tt> bytes
+     */
+    public byte[] acquire(int minSize) {
+        if (minSize > MAX_SIZE)
+            return new byte[minSize];
+        byte[] buffer = classes[indexFor(minSize)].acquire();
+        outstanding.add(buffer);
+        return buffer;
+    }
+
+    public void release(byte[] buffer) {
+        if (!outstanding.remove(buffer))
+            return;
+        classes[indexOf(buffer.length)].release(buffer);
+    }
+
+    public long getOutstanding() {
+        return outstanding.size();
+    }
+
+    /**
+     * @return the smallest size class holding <tt>size</tt> bytes
+     */
+    private static int indexFor(int size) {
+        if (size <= MIN_SIZE)
+            return 0;
+        return 32 - Integer.numberOfLeadingZeros(size - 1) - Integer.numberOfTrailingZeros(MIN_SIZE);
+    }
+
+    /**
+     * @return the size class of an array handed out by the pool
+     */
+    private static int indexOf(int length) {
+        return Integer.numberOfTrailingZeros(length) - Integer.numberOfTrailingZeros(MIN_SIZE);
+    }
+
+    private static class SizeClass {
+
+        private final int size;
+        private final int maxFree;
+
+        /**
+         * Used as a stack, so recently used arrays, which are likely still cached, are handed out first.
+         */
+        private final ConcurrentLinkedDeque<byte[]> free = new ConcurrentLinkedDeque<>();
+        private final AtomicInteger freeCount = new AtomicInteger();
+
+        SizeClass(int size, int maxFree) {
+            this.size = size;
+            this.maxFree = maxFree;
+        }
+
+        byte[] acquire() {
+            byte[] buffer = free.pollFirst();
+            if (buffer == null)
+                return new byte[size];
+            freeCount.decrementAndGet();
+            return buffer;
+        }
+
+        void release(byte[] buffer) {
+            if (freeCount.incrementAndGet() > maxFree) {
+                freeCount.decrementAndGet();
+                return;
+            }
+            free.offerFirst(buffer);
+        }
+    }
+}
@@ -39,11 +39,15 @@ public class ByteUtil {
 	}
 
 	public static void readStream(InputStream stream) throws IOException {
-		byte[] buffer = new byte[2048];
-		while (true) {
-			int read = stream.read(buffer);
-			if (read < 0)
-				break;
+		byte[] buffer = BufferPool.getDefault().acquire(2048);
+		try {
+			while (true) {
+				int read = stream.read(buffer);
+				if (read < 0)
+					break;
+			}
+		} finally {
+			BufferPool.getDefault().release(buffer);
 		}
 	}
 
@@ -33,6 +33,11 @@ public class TimerManager {
         timer.schedule(task, period, period);
     }
 
+    public void schedulePeriodicTask(TimerTask task, long delay, long period, String title) {
+        log.debug("Scheduling periodic task {} every {} ms starting in {} ms.", title, period, delay);
+        timer.schedule(task, delay, period);
+    }
+
     public void schedule(TimerTask task, long delay, String title) {
         log.debug("Scheduling task {} in {} ms.", title, delay);
         timer.schedule(task, delay);
@@ -24,8 +24,6 @@ import org.slf4j.LoggerFactory;
 import javax.net.ssl.SSLSocket;
 import java.io.IOException;
 import java.io.InputStreamReader;
-import java.lang.reflect.InvocationTargetException;
-import java.lang.reflect.Method;
 import java.net.Socket;
 import java.util.ArrayList;
 import java.util.Arrays;
@@ -86,35 +84,17 @@ public class Util {
 		return values;
 	}
 
-	private static Method newVirtualThreadPerTaskExecutor;
 	private static final AtomicBoolean loggedVirtualThreads = new AtomicBoolean();
 
-	static {
-		try {
-			if (!"false".equals(System.getProperty("membrane.virtualthreads"))) {
-				newVirtualThreadPerTaskExecutor = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
-			}
-		} catch (NoSuchMethodException ignored) {
-		}
-	}
-
+	/**
+	 * Creates an executor starting a virtual thread per task. Use <tt>-Dmembrane.virtualthreads=false</tt> to
+	 * fall back to a cached pool of platform threads.
+	 */
 	public static ExecutorService createNewThreadPool() {
-		if (newVirtualThreadPerTaskExecutor != null) {
-			try {
-				ExecutorService executorService = (ExecutorService) newVirtualThreadPerTaskExecutor.invoke(null, new Object[0]);
-				if (loggedVirtualThreads.compareAndSet(false, true))
-					LOG.info("Using virtual threads. (Use -Dmembrane.virtualthreads=false to disable.)");
-				return executorService;
-			} catch (IllegalAccessException e) {
-				throw new RuntimeException(e);
-			} catch (InvocationTargetException e) {
-				if (e.getCause() instanceof UnsupportedOperationException) {
-					LOG.warn("Using traditional threads instead of virtual threads. Use the JVM option --enable-preview to enable virtual threads. (Or use -Dmembrane.virtualthreads=false to disable this warning.)");
-					newVirtualThreadPerTaskExecutor = null;
-				} else {
-					throw new RuntimeException(e);
-				}
-			}
+		if (!"false".equals(System.getProperty("membrane.virtualthreads"))) {
+			if (loggedVirtualThreads.compareAndSet(false, true))
+				LOG.info("Using virtual threads. (Use -Dmembrane.virtualthreads=false to disable.)");
+			return Executors.newVirtualThreadPerTaskExecutor();
 		}
 		return Executors.newCachedThreadPool();
 	}
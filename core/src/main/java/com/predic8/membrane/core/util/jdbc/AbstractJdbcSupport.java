@@ -77,7 +77,7 @@ public abstract class AbstractJdbcSupport {
         Map<String, DataSource> beans = router.getBeanFactory().getBeansOfType(DataSource.class);
 
         DataSource[] datasources = beans.values().toArray(new DataSource[0]);
-        if (datasources.length == 0) {
+        if (datasources.length == 1) {
             datasource = datasources[0];
             return;
         }
@@ -152,9 +152,13 @@ public class SerializationUtil {
         if (value == null) return "";
 
         String s = toText(value);
-        var out = new StringBuilder(s.length());
+        int first = firstCharToEncode(s);
+        if (first == -1)
+            return s;
 
-        for (int i = 0; i < s.length(); i++) {
+        var out = new StringBuilder(s.length() + 8);
+        out.append(s, 0, first);
+        for (int i = first; i < s.length(); i++) {
             char c = s.charAt(i);
             switch (c) {
                 case '\r' -> out.append("\\r");
@@ -166,4 +170,13 @@ public class SerializationUtil {
 
         return out.toString();
     }
+
+    private static int firstCharToEncode(String s) {
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            if (c == '\r' || c == '\n' || c == '\0')
+                return i;
+        }
+        return -1;
+    }
 }
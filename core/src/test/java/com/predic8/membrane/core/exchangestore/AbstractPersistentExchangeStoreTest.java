@@ -0,0 +1,225 @@
+/* Copyright 2026 predic8 GmbH, www.predic8.com
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+   http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License. */
+package com.predic8.membrane.core.exchangestore;
+
+import com.predic8.membrane.core.exchange.*;
+import com.predic8.membrane.core.exchange.snapshots.*;
+import com.predic8.membrane.core.exchangestore.AbstractPersistentExchangeStore.*;
+import com.predic8.membrane.core.http.*;
+import com.predic8.membrane.core.openapi.serviceproxy.*;
+import com.predic8.membrane.core.proxies.*;
+import org.junit.jupiter.api.*;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
+
+import static com.predic8.membrane.core.http.BodyCollectingMessageObserver.Strategy.*;
+import static com.predic8.membrane.core.interceptor.Interceptor.Flow.REQUEST;
+import static com.predic8.membrane.core.interceptor.Interceptor.Flow.RESPONSE;
+import static java.util.concurrent.TimeUnit.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+class AbstractPersistentExchangeStoreTest {
+
+    RecordingStore store;
+
+    @BeforeEach
+    void setUp() {
+        store = new RecordingStore();
+        store.setUpdateIntervalMs(200);
+        store.setRetryBackoffMs(10);
+    }
+
+    @Test
+    void updatesOfWaitingExchangeAreMerged() throws Exception {
+        // The writer waits this long for the batch to fill up, so both snapshots arrive before it writes.
+        store.setUpdateIntervalMs(1000);
+        store.init(null);
+        Exchange exc = exchange("/merge");
+        Response response = Response.ok().build();
+        store.snap(exc, REQUEST);
+        exc.setResponse(response);
+        store.snap(exc, RESPONSE);
+
+        assertTrue(store.flush(5000));
+        assertEquals(1, store.batches.size());
+        assertEquals(1, store.batches.getFirst().size());
+        assertEquals(200, store.batches.getFirst().getFirst().getResponse().getStatusCode());
+        assertEquals(1, store.getWrittenSnapshots());
+    }
+
+    @Test
+    void failedBatchIsRetried() throws Exception {
+        store.failures.set(2);
+        store.init(null);
+        store.snap(exchange("/retry"), REQUEST);
+
+        assertTrue(store.flush(5000));
+        assertEquals(1, store.getWrittenSnapshots());
+        assertEquals(2, store.getFailedWrites());
+        assertEquals(0, store.getDroppedSnapshots());
+    }
+
+    @Test
+    void batchIsDroppedAfterMaxRetries() throws Exception {
+        store.failures.set(Integer.MAX_VALUE);
+        store.setMaxRetries(1);
+        store.init(null);
+        store.snap(exchange("/fail"), REQUEST);
+
+        assertTrue(store.flush(5000));
+        assertEquals(0, store.getWrittenSnapshots());
+        assertEquals(2, store.getFailedWrites());
+        assertEquals(1, store.getDroppedSnapshots());
+    }
+
+    @Test
+    void newestIsDroppedWhenQueueIsFull() throws Exception {
+        assertEquals(List.of("/1", "/2", "/3"), fillQueue(DropPolicy.NEWEST));
+    }
+
+    @Test
+    void oldestIsDroppedWhenQueueIsFull() throws Exception {
+        assertEquals(List.of("/1", "/3", "/4"), fillQueue(DropPolicy.OLDEST));
+    }
+
+    @Test
+    void concurrentUpdatesOfDroppedExchangeAreNotStuck() throws Exception {
+        store.setQueueSize(2);
+        store.setUpdateIntervalMs(0);
+        store.setBatchSize(1);
+        store.blocked = new CountDownLatch(1);
+        store.init(null);
+
+        add("/1");
+        assertTrue(store.writing.await(5, SECONDS));
+        add("/2");
+        add("/3");
+
+        try (ExecutorService es = Executors.newFixedThreadPool(8)) {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < 8; t++) {
+                futures.add(es.submit(() -> {
+                    for (int i = 0; i < 1000; i++)
+                        store.addForStorage(snapshot("/dropped", 4711));
+                    return null;
+                }));
+            }
+            for (Future<?> future : futures)
+                future.get();
+        }
+        assertFalse(store.shortTermMemoryForBatching.containsKey(4711L));
+
+        store.blocked.countDown();
+        assertTrue(store.flush(5000));
+        store.addForStorage(snapshot("/later", 4711));
+        assertTrue(store.flush(5000));
+        assertEquals("/later", store.batches.getLast().getFirst().getRequest().getUri());
+    }
+
+    /**
+     * Blocks the writer with the first exchange, then adds three more to a queue holding two.
+     *
+     * @return the paths written
+     */
+    private List<String> fillQueue(DropPolicy policy) throws Exception {
+        store.setDropPolicy(policy);
+        store.setQueueSize(2);
+        store.setUpdateIntervalMs(0);
+        store.setBatchSize(1);
+        store.blocked = new CountDownLatch(1);
+        store.init(null);
+
+        add("/1");
+        assertTrue(store.writing.await(5, SECONDS));
+        for (int i = 2; i <= 4; i++)
+            add("/" + i);
+
+        assertEquals(2, store.getQueueDepth());
+        assertEquals(1, store.getDroppedSnapshots());
+
+        store.blocked.countDown();
+        assertTrue(store.flush(5000));
+        return store.batches.stream().flatMap(List::stream).map(exc -> exc.getRequest().getUri()).toList();
+    }
+
+    /**
+     * Adds a single snapshot. (<tt>snap()</tt> adds it once more when the body is complete.)
+     */
+    private void add(String path) throws Exception {
+        store.addForStorage(new DynamicAbstractExchangeSnapshot(exchange(path), REQUEST, exc -> {}, TRUNCATE, 100_000));
+    }
+
+    private static AbstractExchangeSnapshot snapshot(String path, long id) throws Exception {
+        AbstractExchangeSnapshot snapshot = new DynamicAbstractExchangeSnapshot(exchange(path), REQUEST, exc -> {}, TRUNCATE, 100_000);
+        snapshot.setId(id);
+        return snapshot;
+    }
+
+    private static Exchange exchange(String path) throws Exception {
+        Exchange exc = Request.get(path).buildExchange();
+        exc.setProxy(new APIProxy());
+        return exc;
+    }
+
+    static class RecordingStore extends AbstractPersistentExchangeStore {
+
+        final List<List<AbstractExchangeSnapshot>> batches = new CopyOnWriteArrayList<>();
+        final AtomicInteger failures = new AtomicInteger();
+        final CountDownLatch writing = new CountDownLatch(1);
+        volatile CountDownLatch blocked;
+
+        @Override
+        protected void writeToStore(List<AbstractExchangeSnapshot> exchanges) throws Exception {
+            writing.countDown();
+            if (blocked != null)
+                blocked.await();
+            if (failures.getAndDecrement() > 0)
+                throw new RuntimeException("store not available");
+            batches.add(List.copyOf(exchanges));
+        }
+
+        @Override
+        public void collect(ExchangeCollector collector) {
+        }
+
+        @Override
+        public AbstractExchangeSnapshot getFromStoreById(long id) {
+            return null;
+        }
+
+        @Override
+        public void remove(AbstractExchange exchange) {
+        }
+
+        @Override
+        public void removeAllExchanges(Proxy proxy) {
+        }
+
+        @Override
+        public void removeAllExchanges(AbstractExchange[] exchanges) {
+        }
+
+        @Override
+        public AbstractExchange[] getExchanges(RuleKey ruleKey) {
+            return new AbstractExchange[0];
+        }
+
+        @Override
+        public List<AbstractExchange> getAllExchangesAsList() {
+            return List.of();
+        }
+    }
+}
@@ -202,18 +202,7 @@ class ElasticSearchExchangeStoreTest {
     }
 
     private void waitForExchangeStoreToFlush() {
-        while (true) {
-            synchronized (es.shortTermMemoryForBatching) {
-                int size = es.shortTermMemoryForBatching.size();
-                if (size == 0 && !es.updateThreadWorking) return;
-            }
-            try {
-                //noinspection BusyWait
-                Thread.sleep(50);
-            } catch (InterruptedException e) {
-                Thread.currentThread().interrupt();
-            }
-        }
+        assertTrue(es.flush(10_000));
     }
 
 }
\ No newline at end of file
@@ -16,14 +16,22 @@ package com.predic8.membrane.core.exchangestore;
 
 import com.predic8.membrane.core.exchange.*;
 import com.predic8.membrane.core.http.*;
-import com.predic8.membrane.core.interceptor.Interceptor.*;
+import com.predic8.membrane.core.interceptor.Interceptor.Flow;
 import org.junit.jupiter.api.*;
+import org.slf4j.*;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
 
 import static com.predic8.membrane.core.http.Response.ok;
+import static java.util.concurrent.TimeUnit.*;
 import static org.junit.jupiter.api.Assertions.*;
 
 public class LimitedMemoryExchangeStoreTest {
 
+	private static final Logger log = LoggerFactory.getLogger(LimitedMemoryExchangeStoreTest.class);
+
 	private static LimitedMemoryExchangeStore store;
 
 	@BeforeAll
@@ -54,6 +62,124 @@ public class LimitedMemoryExchangeStoreTest {
 
 	}
 
+	@Test
+	void lookupAndRemove() throws Exception {
+		LimitedMemoryExchangeStore s = new LimitedMemoryExchangeStore();
+		Exchange exc = getExchange("x");
+		s.snap(exc, Flow.REQUEST);
+		assertEquals(exc.getId(), s.getExchangeById(exc.getId()).getId());
+		assertEquals(0, s.getAllExchanges().length);
+		assertEquals(1, s.getAllExchangesAsList().size());
+
+		s.snap(exc, Flow.RESPONSE);
+		AbstractExchange stored = s.getExchangeById(exc.getId());
+		assertEquals(1, s.getAllExchanges().length);
+		assertEquals(stored.getHeapSizeEstimation(), s.getCurrentSize());
+
+		s.remove(stored);
+		assertNull(s.getExchangeById(exc.getId()));
+		assertEquals(0, s.getCurrentSize());
+	}
+
+	@Test
+	void waitForModificationReturnsOnChange() throws Exception {
+		LimitedMemoryExchangeStore s = new LimitedMemoryExchangeStore();
+		s.waitForModification(0); // returns at once for clients which have not seen a value yet
+
+		long lastModified = s.getLastModified();
+		CompletableFuture<Void> waiting = CompletableFuture.runAsync(() -> {
+			try {
+				s.waitForModification(lastModified);
+			} catch (InterruptedException e) {
+				throw new RuntimeException(e);
+			}
+		});
+		Thread.sleep(100);
+		assertFalse(waiting.isDone());
+
+		s.snap(getExchange("y"), Flow.RESPONSE);
+		waiting.get(2, SECONDS);
+		assertTrue(s.getLastModified() > lastModified);
+	}
+
+	@Test
+	void lastModifiedFollowsTheClock() throws Exception {
+		LimitedMemoryExchangeStore s = new LimitedMemoryExchangeStore();
+		long last = s.getLastModified();
+		for (int i = 0; i < 100; i++) {
+			s.snap(getExchange("z" + i), Flow.RESPONSE);
+			assertTrue(s.getLastModified() > last);
+			last = s.getLastModified();
+		}
+
+		// a burst of changes is ahead of the clock by at most one millisecond per change, afterwards the time is used again
+		while (System.currentTimeMillis() <= last + 10)
+			Thread.sleep(10);
+		s.snap(getExchange("later"), Flow.RESPONSE);
+		assertTrue(s.getLastModified() > last + 10);
+		assertTrue(s.getLastModified() <= System.currentTimeMillis() + 5); // a snap may change the store a few times
+	}
+
+	/**
+	 * 64 threads snap exchanges while 4 threads long-poll for modifications, as the admin console does. Logs the
+	 * throughput and checks that the size accounting stays exact under eviction.
+	 */
+	@Test
+	void concurrentWritersAndPollers() throws Exception {
+		int writers = 64, exchangesPerWriter = 500, pollers = 4;
+		LimitedMemoryExchangeStore s = new LimitedMemoryExchangeStore();
+		s.setMaxSize(2_000_000);
+
+		AtomicBoolean done = new AtomicBoolean();
+		AtomicLong wakeUps = new AtomicLong();
+		ExecutorService pollerPool = Executors.newFixedThreadPool(pollers);
+		for (int i = 0; i < pollers; i++) {
+			pollerPool.execute(() -> {
+				try {
+					while (!done.get()) {
+						s.waitForModification(s.getLastModified());
+						wakeUps.incrementAndGet();
+					}
+				} catch (InterruptedException ignored) {
+				}
+			});
+		}
+
+		ExecutorService writerPool = Executors.newFixedThreadPool(writers);
+		CountDownLatch start = new CountDownLatch(1);
+		List<Future<?>> results = new ArrayList<>();
+		for (int i = 0; i < writers; i++) {
+			results.add(writerPool.submit(() -> {
+				start.await();
+				for (int j = 0; j < exchangesPerWriter; j++) {
+					Exchange exc = Request.get("/test/" + j).buildExchange();
+					s.snap(exc, Flow.REQUEST);
+					exc.setResponse(ok().body("<xml />").build());
+					s.snap(exc, Flow.RESPONSE);
+				}
+				return null;
+			}));
+		}
+		long t = System.nanoTime();
+		start.countDown();
+		for (Future<?> result : results)
+			result.get(60, SECONDS);
+		long nanos = System.nanoTime() - t;
+		writerPool.shutdown();
+
+		done.set(true);
+		pollerPool.shutdownNow();
+		assertTrue(pollerPool.awaitTermination(10, SECONDS));
+
+		int snaps = 2 * writers * exchangesPerWriter;
+		log.info("{} snaps by {} writers with {} pollers in {} ms ({} snaps/s), {} poller wake-ups.", snaps, writers, pollers,
+				NANOSECONDS.toMillis(nanos), snaps * 1_000_000_000L / nanos, wakeUps.get());
+
+		assertTrue(wakeUps.get() > 0);
+		assertTrue(s.getCurrentSize() <= s.getMaxSize());
+		assertEquals(s.getAllExchangesAsList().stream().mapToInt(AbstractExchange::getHeapSizeEstimation).sum(), s.getCurrentSize());
+	}
+
 	private void assertStore(int pos, String value) {
 		assertEquals(value, store.getAllExchangesAsList().get(pos).getProperty("id"));
 	}
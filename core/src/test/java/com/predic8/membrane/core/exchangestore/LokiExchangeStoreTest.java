@@ -200,17 +200,6 @@ class LokiExchangeStoreTest {
     }
 
     private void waitForExchangeStoreToFlush() {
-        while (true) {
-            synchronized (store.shortTermMemoryForBatching) {
-                if (store.shortTermMemoryForBatching.isEmpty() && !store.updateThreadWorking)
-                    return;
-            }
-            try {
-                //noinspection BusyWait
-                Thread.sleep(50);
-            } catch (InterruptedException e) {
-                Thread.currentThread().interrupt();
-            }
-        }
+        assertTrue(store.flush(10_000));
     }
 }
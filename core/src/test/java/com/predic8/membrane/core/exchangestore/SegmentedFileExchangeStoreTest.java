@@ -0,0 +1,201 @@
+/* Copyright 2026 predic8 GmbH, www.predic8.com
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+   http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License. */
+package com.predic8.membrane.core.exchangestore;
+
+import com.predic8.membrane.core.exchange.*;
+import com.predic8.membrane.core.http.*;
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.io.*;
+
+import java.nio.file.*;
+import java.util.*;
+
+import static com.predic8.membrane.core.interceptor.Interceptor.Flow.REQUEST;
+import static com.predic8.membrane.core.interceptor.Interceptor.Flow.RESPONSE;
+import static java.util.concurrent.TimeUnit.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+class SegmentedFileExchangeStoreTest {
+
+    @TempDir
+    Path dir;
+
+    SegmentedFileExchangeStore store;
+
+    @BeforeEach
+    void setUp() {
+        store = createStore();
+    }
+
+    @AfterEach
+    void tearDown() {
+        store.stop();
+    }
+
+    private SegmentedFileExchangeStore createStore() {
+        SegmentedFileExchangeStore s = new SegmentedFileExchangeStore();
+        s.setDir(dir.toString());
+        return s;
+    }
+
+    @Test
+    void lookupById() throws Exception {
+        store.init(null);
+        Exchange exc = snap("/foo", "<xml/>", 1000);
+
+        AbstractExchange stored = store.getExchangeById(exc.getId());
+        assertNotNull(stored);
+        assertEquals("/foo", stored.getRequest().getUri());
+        assertEquals("POST", stored.getRequest().getMethod());
+        assertEquals("request /foo", stored.getRequest().getBodyAsStringDecoded());
+        assertEquals(200, stored.getResponse().getStatusCode());
+        assertEquals("<xml/>", stored.getResponse().getBodyAsStringDecoded());
+        assertEquals(1000, stored.getTime().getTimeInMillis());
+        assertNull(store.getExchangeById(exc.getId() + 1));
+    }
+
+    @Test
+    void requestOnly() throws Exception {
+        store.init(null);
+        Exchange exc = Request.get("/only").buildExchange();
+        store.snap(exc, REQUEST);
+        exc.getRequest().readBody(); // completes the body, as the transport would
+        assertTrue(store.flush(5000));
+
+        AbstractExchange stored = store.getExchangeById(exc.getId());
+        assertEquals("/only", stored.getRequest().getUri());
+        assertNull(stored.getResponse());
+    }
+
+    @Test
+    void lookupByTime() throws Exception {
+        store.init(null);
+        Exchange a = snap("/a", "a", 1000);
+        Exchange b = snap("/b", "b", 2000);
+        Exchange c = snap("/c", "c", 3000);
+
+        assertEquals(List.of(a.getId(), b.getId(), c.getId()), store.getExchangeIds(0, 5000));
+        assertEquals(List.of(b.getId()), store.getExchangeIds(1500, 2500));
+        assertEquals(List.of("/b", "/c"), store.getExchanges(2000, 3000).stream().map(e -> e.getRequest().getUri()).toList());
+    }
+
+    @Test
+    void rollsSegmentsAndKeepsNewest() throws Exception {
+        store.setSegmentSize(1);
+        store.setMaxSegments(2);
+        store.init(null);
+        List<Exchange> exchanges = new ArrayList<>();
+        for (int i = 0; i < 5; i++)
+            exchanges.add(snap("/" + i, "body " + i, 1000 + i));
+
+        assertEquals(2, store.getNumberOfSegments());
+        try (var files = Files.list(dir)) {
+            assertEquals(4, files.count()); // segment and index each
+        }
+        assertNull(store.getExchangeById(exchanges.getFirst().getId()));
+        // request and response of the last exchange are in different segments
+        AbstractExchange last = store.getExchangeById(exchanges.getLast().getId());
+        assertEquals("/4", last.getRequest().getUri());
+        assertEquals("body 4", last.getResponse().getBodyAsStringDecoded());
+    }
+
+    @Test
+    void deletesSegmentsOlderThanMaxDays() throws Exception {
+        store.setSegmentSize(1);
+        store.setMaxDays(1);
+        store.init(null);
+        long now = System.currentTimeMillis();
+        Exchange old = snap("/old", "old", now - DAYS.toMillis(3));
+        Exchange recent = snap("/recent", "recent", now);
+
+        store.applyRetention(now);
+
+        assertNull(store.getExchangeById(old.getId()));
+        assertEquals("/recent", store.getExchangeById(recent.getId()).getRequest().getUri());
+    }
+
+    @Test
+    void indexIsLoadedOnRestart() throws Exception {
+        store.init(null);
+        Exchange exc = snap("/restart", "before", 1000);
+
+        SegmentedFileExchangeStore restarted = createStore();
+        restarted.init(null);
+        assertEquals("before", restarted.getExchangeById(exc.getId()).getResponse().getBodyAsStringDecoded());
+        assertEquals(List.of(exc.getId()), restarted.getExchangeIds(0, 2000));
+        restarted.stop();
+    }
+
+    @Test
+    void initIsIdempotentAndStopEndsWriter() throws Exception {
+        store.init(null);
+        store.init(null);
+        assertEquals(1, countWriterThreads());
+        Exchange exc = snap("/stop", "stopped", 1000);
+
+        store.stop();
+        store.stop();
+        assertEquals(0, countWriterThreads());
+        store.snap(Request.get("/dropped").buildExchange(), REQUEST);
+
+        store.init(null);
+        assertEquals(1, countWriterThreads());
+        assertEquals("stopped", store.getExchangeById(exc.getId()).getResponse().getBodyAsStringDecoded());
+    }
+
+    @Test
+    void segmentWithoutIndexIsKeptByMaxDays() throws Exception {
+        Path segment = dir.resolve("%016d%s".formatted(0, SegmentedFileExchangeStore.SEGMENT_SUFFIX));
+        Files.write(segment, new byte[]{0x4d, 0x42, 0x58, 0x53, 1});
+        store.setMaxDays(1);
+        store.init(null);
+
+        store.applyRetention(System.currentTimeMillis());
+        assertTrue(Files.exists(segment));
+        store.applyRetention(System.currentTimeMillis() + DAYS.toMillis(2));
+        assertFalse(Files.exists(segment));
+    }
+
+    @Test
+    void bodyIsTruncated() throws Exception {
+        store.setMaxBodySize(3);
+        store.init(null);
+        Exchange exc = snap("/truncated", "abcdef", 1000);
+
+        assertEquals("abc", store.getExchangeById(exc.getId()).getResponse().getBodyAsStringDecoded());
+    }
+
+    @Test
+    void dirIsRequired() {
+        assertThrows(RuntimeException.class, () -> new SegmentedFileExchangeStore().init(null));
+    }
+
+    private long countWriterThreads() {
+        return Thread.getAllStackTraces().keySet().stream()
+                .filter(t -> t.getName().equals("Exchange Store Writer " + dir))
+                .count();
+    }
+
+    private Exchange snap(String path, String responseBody, long time) throws Exception {
+        Exchange exc = Request.post(path).body("request " + path).buildExchange();
+        Calendar cal = Calendar.getInstance();
+        cal.setTimeInMillis(time);
+        exc.setTime(cal);
+        store.snap(exc, REQUEST);
+        exc.setResponse(Response.ok(responseBody).build());
+        store.snap(exc, RESPONSE);
+        assertTrue(store.flush(5000));
+        return exc;
+    }
+}
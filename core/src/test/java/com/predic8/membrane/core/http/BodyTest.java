@@ -13,10 +13,12 @@
    limitations under the License. */
 package com.predic8.membrane.core.http;
 
+import com.predic8.membrane.core.util.BufferPool;
 import org.junit.jupiter.api.*;
 
 import java.io.*;
 import java.util.*;
+import java.util.concurrent.atomic.*;
 
 import static java.nio.charset.StandardCharsets.*;
 import static org.junit.jupiter.api.Assertions.*;
@@ -143,7 +145,6 @@ public class BodyTest {
 			@Override public long getLength() { return length; }
 			@Override protected void readLocal() {}
 			@Override protected void writeAlreadyRead(AbstractBodyTransferer out) {}
-			@Override protected void writeNotRead(AbstractBodyTransferer out) {}
 			@Override protected void writeStreamed(AbstractBodyTransferer out) {}
 			@Override protected byte[] getRawLocal() { return new byte[0]; }
 		};
@@ -158,6 +159,88 @@ public class BodyTest {
 		assertTrue(unchunkedBody.hasRelevantObservers());
 	}
 
+	@Test
+	void passThroughStopsAtEndOfBody() throws IOException {
+		InputStream in = new ByteArrayInputStream("helloNEXT".getBytes(UTF_8));
+		Body body = new Body(in, 5);
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		body.addObserver(new NonRelevantObserver());
+		body.write(new PlainBodyTransferer(out), false);
+		assertEquals("hello", out.toString(UTF_8));
+		assertEquals(5, body.getLength());
+		assertEquals(4, in.available());
+	}
+
+	@Test
+	void chunkedPassThroughKeepsChunkBoundaries() throws IOException {
+		InputStream in = new ByteArrayInputStream((chunk2 + "NEXT").getBytes(UTF_8));
+		ChunkedBody body = new ChunkedBody(in);
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		body.write(new ChunkedBodyTransferer(out), false);
+		assertEquals(chunk2, out.toString(UTF_8));
+		assertEquals(5, body.getLength());
+		assertEquals(4, in.available());
+	}
+
+	@Test
+	void chunkedPassThroughToPlainOutput() {
+		ChunkedBody body = new ChunkedBody(new ByteArrayInputStream(chunk2.getBytes(UTF_8)));
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		body.write(new PlainBodyTransferer(out), false);
+		assertEquals(chunk2Body, out.toString(UTF_8));
+	}
+
+	@Test
+	void chunkedPassThroughGrowsBufferForLargerChunks() {
+		String large = "x".repeat(60_000);
+		String chunked = "1\r\na\r\n" + Integer.toHexString(large.length()) + "\r\n" + large + "\r\n0\r\n\r\n";
+		AtomicInteger largestRead = new AtomicInteger();
+		InputStream in = new ByteArrayInputStream(chunked.getBytes(UTF_8)) {
+			@Override
+			public synchronized int read(byte[] b, int off, int len) {
+				largestRead.accumulateAndGet(len, Math::max);
+				return super.read(b, off, len);
+			}
+		};
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		long outstanding = BufferPool.getDefault().getOutstanding();
+		new ChunkedBody(in).write(new PlainBodyTransferer(out), false);
+		assertEquals("a" + large, out.toString(UTF_8));
+		assertEquals(large.length(), largestRead.get());
+		assertEquals(outstanding, BufferPool.getDefault().getOutstanding());
+	}
+
+	@Test
+	void relevantObserversStillSeeStreamedChunks() {
+		List<String> seen = new ArrayList<>();
+		ChunkedBody body = new ChunkedBody(new ByteArrayInputStream(chunk2.getBytes(UTF_8)));
+		body.addObserver(new AbstractMessageObserver() {
+			@Override
+			public void bodyChunk(Chunk chunk) {
+				seen.add(new String(chunk.content(), UTF_8));
+			}
+		});
+		body.write(new ChunkedBodyTransferer(new ByteArrayOutputStream()), false);
+		assertEquals(List.of("aa", "bbb"), seen);
+	}
+
+	@Test
+	void streamingReleasesBuffers() throws IOException {
+		long outstanding = BufferPool.getDefault().getOutstanding();
+		new Body(new ByteArrayInputStream(msg2), msg2.length).write(new PlainBodyTransferer(new ByteArrayOutputStream()), false);
+		new ChunkedBody(new ByteArrayInputStream(chunk2.getBytes(UTF_8))).write(new ChunkedBodyTransferer(new ByteArrayOutputStream()), false);
+		Body observed = new Body(new ByteArrayInputStream(msg2), msg2.length);
+		observed.addObserver(new AbstractMessageObserver() {});
+		observed.write(new PlainBodyTransferer(new ByteArrayOutputStream()), false);
+		assertEquals(outstanding, BufferPool.getDefault().getOutstanding());
+	}
+
+	@Test
+	void bodyAsStringFromSingleChunk() {
+		Response response = Response.ok().body("\u00e4\u00f6\u00fc".getBytes(UTF_8)).contentType("text/plain; charset=utf-8").build();
+		assertEquals("\u00e4\u00f6\u00fc", response.getBodyAsStringDecoded());
+	}
+
 	private static class NonRelevantObserver extends AbstractMessageObserver implements NonRelevantBodyObserver {}
 
 }
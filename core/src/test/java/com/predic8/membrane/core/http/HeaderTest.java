@@ -23,12 +23,17 @@ import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.CsvSource;
 import org.junit.jupiter.params.provider.ValueSource;
 
+import com.predic8.membrane.core.transport.http.EOFWhileReadingLineException;
+
+import java.io.*;
 import java.util.HashSet;
 import java.util.List;
 
 import static com.predic8.membrane.core.http.Header.*;
 import static com.predic8.membrane.core.http.MimeType.TEXT_XML;
 import static com.predic8.membrane.core.http.MimeType.isBinary;
+import static com.predic8.membrane.core.util.HttpUtil.readLine;
+import static java.nio.charset.StandardCharsets.ISO_8859_1;
 import static java.nio.charset.StandardCharsets.UTF_8;
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -440,4 +445,81 @@ class HeaderTest {
         h.add("X-Normal", "regular value");
         assertEquals("regular value", h.getFirstValue("X-Normal"));
     }
+
+    @Nested
+    class Parsing {
+
+        @ParameterizedTest
+        @ValueSource(strings = {
+                "Host: localhost\r\nContent-Length: 5\r\n\r\nhello",
+                "Host: localhost\nContent-Length: 5\n\nhello",
+                "host:localhost\r\nX-Custom:  a b  \r\n\r\n",
+                "Host: localhost\r\nno colon\r\nAccept: */*\r\n\r\nrest",
+                "X-Empty:\r\nX-Latin: \u00e4\u00f6\u00fc\r\n\r\n"
+        })
+        void sameAsLineBasedParsing(String message) throws Exception {
+            byte[] bytes = message.getBytes(ISO_8859_1);
+            InputStream reference = new ByteArrayInputStream(bytes);
+            Header expected = parseLineByLine(reference);
+            String expectedRest = new String(reference.readAllBytes(), ISO_8859_1);
+
+            for (InputStream in : List.of(new ByteArrayInputStream(bytes), withoutMark(bytes), new BufferedInputStream(new ByteArrayInputStream(bytes), 7))) {
+                Header actual = new Header(in);
+                assertEquals(expected.toString(), actual.toString());
+                assertEquals(expectedRest, new String(in.readAllBytes(), ISO_8859_1));
+            }
+        }
+
+        @Test
+        void headerLargerThanBlock() throws Exception {
+            StringBuilder sb = new StringBuilder();
+            for (int i = 0; i < 100; i++)
+                sb.append("X-Field-").append(i).append(": value ").append(i).append("\r\n");
+            sb.append("\r\nbody");
+            Header h = new Header(new ByteArrayInputStream(sb.toString().getBytes(ISO_8859_1)));
+            assertEquals(100, h.getAllHeaderFields().length);
+            assertEquals("value 99", h.getFirstValue("x-field-99"));
+        }
+
+        @Test
+        void wellKnownNamesAreShared() throws Exception {
+            Header h = new Header(new ByteArrayInputStream("Content-Type: text/plain\r\n\r\n".getBytes(ISO_8859_1)));
+            Header h2 = new Header(new ByteArrayInputStream("Content-Type: text/xml\r\n\r\n".getBytes(ISO_8859_1)));
+            assertSame(h.getAllHeaderFields()[0].getHeaderName(), h2.getAllHeaderFields()[0].getHeaderName());
+        }
+
+        @Test
+        void eofBeforeEndOfHeader() {
+            assertThrows(EOFWhileReadingLineException.class, () -> new Header(new ByteArrayInputStream("Host: localhost\r\n".getBytes(ISO_8859_1))));
+        }
+
+        @Test
+        void writeRoundTrip() throws Exception {
+            Header h = new Header();
+            h.add(HOST, "localhost");
+            h.add("X-Unicode", "\u20ac");
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            h.write(out);
+            assertEquals("Host: localhost\r\nX-Unicode: ?\r\n", out.toString(ISO_8859_1));
+        }
+
+        private static Header parseLineByLine(InputStream in) throws Exception {
+            Header h = new Header();
+            String line;
+            while (!(line = readLine(in)).isEmpty()) {
+                if (line.contains(":"))
+                    h.add(new HeaderField(line));
+            }
+            return h;
+        }
+
+        private static InputStream withoutMark(byte[] bytes) {
+            return new FilterInputStream(new ByteArrayInputStream(bytes)) {
+                @Override
+                public boolean markSupported() {
+                    return false;
+                }
+            };
+        }
+    }
 }
@@ -0,0 +1,184 @@
+/* Copyright 2026 predic8 GmbH, www.predic8.com
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+   http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License. */
+package com.predic8.membrane.core.interceptor.apikey.stores;
+
+import com.predic8.membrane.core.router.*;
+import com.predic8.membrane.core.util.*;
+import org.junit.jupiter.api.*;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CachingApiKeyStoreTest {
+
+    private CountingStore backing;
+    private CachingApiKeyStore cache;
+
+    @BeforeEach
+    void setUp() {
+        backing = new CountingStore();
+        backing.keys.put("k1", Optional.of(Set.of("read")));
+        cache = new CachingApiKeyStore();
+        cache.setStore(backing);
+    }
+
+    @Test
+    void hitsDoNotReachStore() throws Exception {
+        cache.init(new DummyTestRouter());
+        for (int i = 0; i < 5; i++)
+            assertEquals(Optional.of(Set.of("read")), cache.getScopes("k1"));
+        assertEquals(1, backing.calls.get());
+        assertEquals(4, cache.getStats().hitCount());
+        assertEquals(1, cache.getLoadLatency().getCount());
+    }
+
+    @Test
+    void unknownKeysAreCachedNegatively() {
+        cache.init(new DummyTestRouter());
+        assertThrows(UnauthorizedApiKeyException.class, () -> cache.getScopes("unknown"));
+        assertThrows(UnauthorizedApiKeyException.class, () -> cache.getScopes("unknown"));
+        assertEquals(1, backing.calls.get());
+    }
+
+    @Test
+    void unknownKeysAreAskedForAgainAfterNegativeTtl() throws Exception {
+        cache.setNegativeTtlSeconds(0);
+        cache.init(new DummyTestRouter());
+        assertThrows(UnauthorizedApiKeyException.class, () -> cache.getScopes("k2"));
+        backing.keys.put("k2", Optional.empty());
+        Thread.sleep(1);
+        assertEquals(Optional.empty(), cache.getScopes("k2"));
+        assertEquals(2, backing.calls.get());
+    }
+
+    @Test
+    void refreshesInBackground() throws Exception {
+        cache.setRefreshAfterSeconds(1);
+        cache.init(new DummyTestRouter());
+        assertEquals(Optional.of(Set.of("read")), cache.getScopes("k1"));
+
+        backing.keys.put("k1", Optional.of(Set.of("write")));
+        backing.delay = new CountDownLatch(1);
+        Thread.sleep(1100);
+
+        // the stale scopes are returned while the refresh is blocked
+        assertEquals(Optional.of(Set.of("read")), cache.getScopes("k1"));
+        backing.delay.countDown();
+        for (int i = 0; i < 100 && !cache.getScopes("k1").equals(Optional.of(Set.of("write"))); i++)
+            Thread.sleep(10);
+        assertEquals(Optional.of(Set.of("write")), cache.getScopes("k1"));
+    }
+
+    @Test
+    void revokedKeyIsRejectedAfterRefresh() throws Exception {
+        cache.setRefreshAfterSeconds(1);
+        cache.init(new DummyTestRouter());
+        cache.getScopes("k1");
+
+        backing.keys.remove("k1");
+        Thread.sleep(1100);
+        try {
+            cache.getScopes("k1"); // triggers the refresh
+        } catch (UnauthorizedApiKeyException ignored) {
+            // the refresh may complete before the call returns
+        }
+        for (int i = 0; i < 100 && backing.calls.get() < 2; i++)
+            Thread.sleep(10);
+        Thread.sleep(50);
+        assertThrows(UnauthorizedApiKeyException.class, () -> cache.getScopes("k1"));
+    }
+
+    @Test
+    void storeErrorsAreNotCached() throws Exception {
+        cache.init(new DummyTestRouter());
+        backing.failure = new RuntimeException("database down");
+        assertThrows(RuntimeException.class, () -> cache.getScopes("k1"));
+        backing.failure = null;
+        assertEquals(Optional.of(Set.of("read")), cache.getScopes("k1"));
+    }
+
+    @Test
+    void preload() throws Exception {
+        backing.keys.put("k2", Optional.empty());
+        cache.setPreload(true);
+        cache.init(new DummyTestRouter());
+
+        assertEquals(2, cache.getSize());
+        assertEquals(Optional.of(Set.of("read")), cache.getScopes("k1"));
+        assertEquals(Optional.empty(), cache.getScopes("k2"));
+        assertEquals(0, backing.calls.get());
+
+        backing.keys.remove("k2");
+        cache.preload();
+        assertEquals(1, cache.getSize());
+    }
+
+    @Test
+    void periodicPreloadEndsOnStop() throws Exception {
+        cache.setPreload(true);
+        cache.setPreloadIntervalSeconds(1);
+        cache.init(new DummyTestRouter());
+
+        backing.keys.put("k2", Optional.empty());
+        for (int i = 0; i < 300 && cache.getSize() < 2; i++)
+            Thread.sleep(10);
+        assertEquals(2, cache.getSize());
+
+        cache.stop();
+        cache.stop();
+        backing.keys.put("k3", Optional.empty());
+        Thread.sleep(1500);
+        assertEquals(2, cache.getSize());
+    }
+
+    @Test
+    void refreshMustBeShorterThanTtl() {
+        cache.setRefreshAfterSeconds(600);
+        assertThrows(ConfigurationException.class, () -> cache.init(new DummyTestRouter()));
+    }
+
+    private static class CountingStore implements ApiKeyStore {
+
+        final Map<String, Optional<Set<String>>> keys = new ConcurrentHashMap<>();
+        final AtomicInteger calls = new AtomicInteger();
+        volatile RuntimeException failure;
+        volatile CountDownLatch delay;
+
+        @Override
+        public Optional<Set<String>> getScopes(String apiKey) throws UnauthorizedApiKeyException {
+            calls.incrementAndGet();
+            if (delay != null) {
+                try {
+                    delay.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            if (failure != null)
+                throw failure;
+            Optional<Set<String>> scopes = keys.get(apiKey);
+            if (scopes == null)
+                throw new UnauthorizedApiKeyException();
+            return scopes;
+        }
+
+        @Override
+        public Optional<Map<String, Optional<Set<String>>>> getAllScopes() {
+            return Optional.of(new HashMap<>(keys));
+        }
+    }
+}
@@ -0,0 +1,94 @@
+/* Copyright 2026 predic8 GmbH, www.predic8.com
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+   http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License. */
+package com.predic8.membrane.core.interceptor.balancer;
+
+import com.predic8.membrane.core.proxies.*;
+import com.predic8.membrane.core.router.*;
+import org.junit.jupiter.api.*;
+
+import java.net.*;
+import java.util.*;
+
+import static com.predic8.membrane.core.interceptor.balancer.Node.Status.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+class BalancerHealthMonitorTest {
+
+    private TestRouter router;
+    private BalancerHealthMonitor monitor;
+    private ServerSocket hanging;
+    private ServerSocket listening;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        hanging = new ServerSocket(0);
+        listening = new ServerSocket(0);
+
+        router = new TestRouter();
+        LoadBalancingInterceptor lb = new LoadBalancingInterceptor();
+        lb.setName("monitored");
+        ServiceProxy sp = new ServiceProxy(new ServiceProxyKey(3719), null, 0);
+        sp.getFlow().add(lb);
+        router.add(sp);
+        router.start();
+
+        Node hangingNode = new Node("localhost", hanging.getLocalPort());
+        hangingNode.setHealthUrl("http://localhost:" + hanging.getLocalPort() + "/health");
+        Node down = new Node("localhost", closedPort());
+        down.setStatus(UP);
+        Cluster cluster = new Cluster("nodes");
+        cluster.setNodes(List.of(hangingNode, down, new Node("localhost", listening.getLocalPort())));
+        lb.setClusters(List.of(cluster));
+
+        monitor = new BalancerHealthMonitor();
+        monitor.setJitter(0);
+        monitor.setMaxParallelChecks(2);
+        monitor.getHttpClientConfig().getConnection().setSoTimeout(10_000);
+        monitor.setRegistry(router.getRegistry());
+        monitor.afterPropertiesSet();
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        monitor.destroy();
+        router.stop();
+        hanging.close();
+        listening.close();
+    }
+
+    @Test
+    void hangingNodeDoesNotDelayOthers() throws Exception {
+        Cluster cluster = BalancerUtil.collectClusters(router).getFirst();
+        List<Node> nodes = cluster.getNodes();
+
+        monitor.checkAll();
+        for (int i = 0; i < 50 && cluster.getHealthCheckLatency().getCount() < 2; i++)
+            Thread.sleep(100);
+
+        assertEquals(2, cluster.getHealthCheckLatency().getCount());
+        assertEquals(DOWN, nodes.get(1).getStatus());
+        assertEquals(UP, nodes.get(2).getStatus());
+
+        // the hanging check is still running and is not started again
+        monitor.checkAll();
+        Thread.sleep(500);
+        assertEquals(4, cluster.getHealthCheckLatency().getCount());
+    }
+
+    private static int closedPort() throws Exception {
+        try (ServerSocket s = new ServerSocket(0)) {
+            return s.getLocalPort();
+        }
+    }
+}
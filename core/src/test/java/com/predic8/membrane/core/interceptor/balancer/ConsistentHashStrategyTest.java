@@ -0,0 +1,169 @@
+/* Copyright 2026 predic8 GmbH, www.predic8.com
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+   http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License. */
+package com.predic8.membrane.core.interceptor.balancer;
+
+import com.predic8.membrane.core.exchange.*;
+import com.predic8.membrane.core.router.*;
+import com.predic8.membrane.core.util.*;
+import org.junit.jupiter.api.*;
+
+import java.util.*;
+
+import static com.predic8.membrane.core.http.Request.*;
+import static com.predic8.membrane.core.interceptor.balancer.Node.Status.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+class ConsistentHashStrategyTest {
+
+    private static final int KEYS = 1000;
+
+    private LoadBalancingInterceptor lb;
+    private Cluster cluster;
+    private List<Node> nodes;
+    private ConsistentHashStrategy strategy;
+
+    @BeforeEach
+    void setUp() {
+        nodes = new ArrayList<>();
+        for (int i = 0; i < 5; i++)
+            nodes.add(new Node("node" + i, 80));
+        cluster = new Cluster();
+        cluster.setNodes(nodes);
+        lb = new LoadBalancingInterceptor();
+        lb.setClusters(List.of(cluster));
+
+        strategy = new ConsistentHashStrategy();
+        strategy.setHeader("X-Tenant");
+        strategy.init(new DefaultRouter());
+    }
+
+    @Test
+    void sameKeySameNode() throws Exception {
+        Map<String, Node> first = dispatchAll();
+        assertEquals(first, dispatchAll());
+        assertEquals(nodes.size(), new HashSet<>(first.values()).size());
+    }
+
+    @Test
+    void onlyKeysOfRemovedNodeMove() throws Exception {
+        Map<String, Node> before = dispatchAll();
+        Node down = nodes.get(2);
+        down.setStatus(DOWN);
+        Map<String, Node> after = dispatchAll();
+
+        for (String key : before.keySet()) {
+            if (before.get(key).equals(down))
+                assertNotEquals(down, after.get(key));
+            else
+                assertEquals(before.get(key), after.get(key), key);
+        }
+
+        down.setStatus(UP);
+        assertEquals(before, dispatchAll());
+    }
+
+    @Test
+    void recreatedNodeIsDispatched() throws Exception {
+        Map<String, Node> before = dispatchAll();
+
+        // removed and added again, e.g. through the admin console
+        Node recreated = new Node("node2", 80);
+        nodes.set(2, recreated);
+        cluster.setNodes(nodes);
+        Map<String, Node> after = dispatchAll();
+
+        assertEquals(before, after);
+        assertTrue(after.values().stream().anyMatch(n -> n == recreated));
+        assertTrue(after.values().stream().noneMatch(n -> n.getHost().equals("node2") && n != recreated));
+    }
+
+    @Test
+    void keysAreSpreadEvenly() throws Exception {
+        Map<Node, Integer> counts = new HashMap<>();
+        dispatchAll().values().forEach(n -> counts.merge(n, 1, Integer::sum));
+        for (int count : counts.values())
+            assertTrue(count > KEYS / nodes.size() / 2 && count < KEYS / nodes.size() * 2, counts.toString());
+    }
+
+    @Test
+    void hotKeyOverflowsToNextNode() throws Exception {
+        Map<Node, Integer> counts = new HashMap<>();
+        for (int i = 0; i < 40; i++)
+            counts.merge(strategy.dispatch(lb, exchange("hot")), 1, Integer::sum);
+
+        // at most 1.25 times the average of 8 outstanding requests per node
+        assertTrue(counts.size() > 1);
+        for (int count : counts.values())
+            assertTrue(count <= 10, counts.toString());
+    }
+
+    @Test
+    void unboundedLoad() throws Exception {
+        strategy.setLoadFactor(0);
+        Set<Node> used = new HashSet<>();
+        for (int i = 0; i < 40; i++)
+            used.add(strategy.dispatch(lb, exchange("hot")));
+        assertEquals(1, used.size());
+    }
+
+    @Test
+    void keySources() throws Exception {
+        Exchange exc = get("/tenants/acme/orders?limit=10").header("X-Tenant", "t1").header("Cookie", "tenant=t2").buildExchange();
+        assertEquals("t1", strategy.getKey(exc));
+
+        ConsistentHashStrategy cookie = new ConsistentHashStrategy();
+        cookie.setCookie("tenant");
+        cookie.init(new DefaultRouter());
+        assertEquals("t2", cookie.getKey(exc));
+
+        ConsistentHashStrategy path = new ConsistentHashStrategy();
+        path.setPathSegment(2);
+        path.init(new DefaultRouter());
+        assertEquals("acme", path.getKey(exc));
+        path.setPathSegment(4);
+        assertNull(path.getKey(exc));
+
+        ConsistentHashStrategy expression = new ConsistentHashStrategy();
+        expression.setExpression("headers['X-Tenant'] + '-x'");
+        expression.init(new DefaultRouter());
+        assertEquals("t1-x", expression.getKey(exc));
+    }
+
+    @Test
+    void missingKeyIsDispatched() throws Exception {
+        assertNotNull(strategy.dispatch(lb, get("/").buildExchange()));
+    }
+
+    @Test
+    void onlyOneKeySource() {
+        ConsistentHashStrategy s = new ConsistentHashStrategy();
+        s.setHeader("X-Tenant");
+        s.setCookie("tenant");
+        assertThrows(ConfigurationException.class, () -> s.init(new DefaultRouter()));
+    }
+
+    private Map<String, Node> dispatchAll() throws Exception {
+        Map<String, Node> result = new HashMap<>();
+        for (int i = 0; i < KEYS; i++) {
+            Exchange exc = exchange("tenant" + i);
+            result.put("tenant" + i, strategy.dispatch(lb, exc));
+            strategy.done(exc);
+        }
+        return result;
+    }
+
+    private static Exchange exchange(String key) throws Exception {
+        return get("/").header("X-Tenant", key).buildExchange();
+    }
+}
@@ -0,0 +1,167 @@
+/* Copyright 2026 predic8 GmbH, www.predic8.com
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+   http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License. */
+package com.predic8.membrane.core.interceptor.balancer;
+
+import com.predic8.membrane.core.exchange.*;
+import com.predic8.membrane.core.interceptor.*;
+import com.predic8.membrane.core.proxies.*;
+import com.predic8.membrane.core.router.*;
+import com.predic8.membrane.core.transport.http.*;
+import org.junit.jupiter.api.*;
+
+import java.util.*;
+
+import static com.predic8.membrane.core.http.Request.*;
+import static com.predic8.membrane.core.http.Response.*;
+import static com.predic8.membrane.core.interceptor.Outcome.*;
+import static java.lang.System.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+class OutlierDetectionTest {
+
+    private OutlierDetection detection;
+    private Node a, b, c;
+    private List<Node> nodes;
+
+    @BeforeEach
+    void setUp() {
+        detection = new OutlierDetection();
+        detection.setConsecutiveErrors(3);
+        detection.setBaseEjectionTime(100);
+        detection.setMaxEjectionTime(250);
+        detection.init();
+        a = new Node("a", 80);
+        b = new Node("b", 80);
+        c = new Node("c", 80);
+        nodes = List.of(a, b, c);
+    }
+
+    @Test
+    void ejectsAfterConsecutiveErrors() {
+        detection.failure(a, nodes);
+        detection.failure(a, nodes);
+        assertFalse(a.isEjected());
+        detection.failure(a, nodes);
+        assertTrue(a.isEjected());
+        assertEquals(1, a.getEjections());
+        assertEquals(List.of(b, c), detection.filter(nodes));
+    }
+
+    @Test
+    void successResetsErrors() {
+        detection.failure(a, nodes);
+        detection.failure(a, nodes);
+        a.clearConsecutiveFailures();
+        detection.failure(a, nodes);
+        assertFalse(a.isEjected());
+    }
+
+    @Test
+    void ejectionTimeDoubles() throws InterruptedException {
+        assertEquals(100, eject(a), 20);
+        assertEquals(200, eject(a), 20);
+        assertEquals(250, eject(a), 20);
+    }
+
+    private long eject(Node node) throws InterruptedException {
+        while (node.isEjected())
+            Thread.sleep(10);
+        for (int i = 0; i < 3; i++)
+            detection.failure(node, nodes);
+        assertTrue(node.isEjected());
+        return node.getEjectedUntil() - currentTimeMillis();
+    }
+
+    @Test
+    void maxEjectionPercent() {
+        for (int i = 0; i < 3; i++)
+            detection.failure(a, nodes);
+        for (int i = 0; i < 3; i++)
+            detection.failure(b, nodes);
+        assertTrue(a.isEjected());
+        assertFalse(b.isEjected());
+    }
+
+    @Test
+    void allEjectedUsesAllNodes() {
+        detection.setMaxEjectionPercent(100);
+        for (Node node : nodes)
+            for (int i = 0; i < 3; i++)
+                detection.failure(node, nodes);
+        assertEquals(nodes, detection.filter(nodes));
+    }
+
+    @Test
+    void collectsFromTracker() {
+        Exchange exc = new Exchange(null);
+        exc.setNodeStatusTracker(new ExchangeNodeStatusTracker(3));
+        exc.getNodeStatusTracker().setNodeStatusCode(0, 503);
+        exc.getNodeStatusTracker().trackNodeException(1, new RuntimeException());
+        exc.getNodeStatusTracker().setNodeStatusCode(2, 200);
+        for (int i = 0; i < 3; i++)
+            detection.collect(exc, nodes, nodes);
+        assertTrue(a.isEjected());
+        assertFalse(b.isEjected()); // maxEjectionPercent
+        assertFalse(c.isEjected());
+    }
+
+    @Test
+    void failingNodeIsEjectedFromLiveTraffic() throws Exception {
+        Router failing = backend(3716, 500);
+        Router healthy = backend(3717, 200);
+
+        Router gateway = new TestRouter();
+        LoadBalancingInterceptor lb = new LoadBalancingInterceptor();
+        lb.setName("outliers");
+        OutlierDetection od = new OutlierDetection();
+        od.setConsecutiveErrors(2);
+        lb.setOutlierDetection(od);
+        ServiceProxy sp = new ServiceProxy(new ServiceProxyKey(3718), null, 0);
+        sp.getFlow().add(lb);
+        gateway.add(sp);
+        gateway.start();
+        BalancerUtil.lookupBalancer(gateway, "outliers").up(Cluster.DEFAULT_NAME, "localhost", 3716);
+        BalancerUtil.lookupBalancer(gateway, "outliers").up(Cluster.DEFAULT_NAME, "localhost", 3717);
+
+        try (HttpClient client = new HttpClient()) {
+            List<Integer> codes = new ArrayList<>();
+            for (int i = 0; i < 10; i++) {
+                Exchange exc = get("http://localhost:3718/").buildExchange();
+                client.call(exc);
+                codes.add(exc.getResponse().getStatusCode());
+            }
+            assertEquals(List.of(500, 200, 500, 200, 200, 200, 200, 200, 200, 200), codes);
+            assertTrue(lb.getClusters().getFirst().getNodes().getFirst().isEjected());
+        } finally {
+            gateway.stop();
+            failing.stop();
+            healthy.stop();
+        }
+    }
+
+    private static Router backend(int port, int status) throws Exception {
+        Router router = new TestRouter();
+        ServiceProxy sp = new ServiceProxy(new ServiceProxyKey(port), null, 0);
+        sp.getFlow().add(new AbstractInterceptor() {
+            @Override
+            public Outcome handleRequest(Exchange exc) {
+                exc.setResponse(statusCode(status).body("status " + status).build());
+                return RETURN;
+            }
+        });
+        router.add(sp);
+        router.start();
+        return router;
+    }
+}
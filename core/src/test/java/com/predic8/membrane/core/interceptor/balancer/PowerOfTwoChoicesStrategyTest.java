@@ -0,0 +1,159 @@
+/* Copyright 2026 predic8 GmbH, www.predic8.com
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+   http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License. */
+package com.predic8.membrane.core.interceptor.balancer;
+
+import com.predic8.membrane.core.exchange.*;
+import org.junit.jupiter.api.*;
+
+import java.util.*;
+
+import static com.predic8.membrane.core.http.Response.*;
+import static com.predic8.membrane.core.interceptor.balancer.Node.Status.*;
+import static java.lang.System.*;
+import static java.util.concurrent.TimeUnit.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+class PowerOfTwoChoicesStrategyTest {
+
+    private LoadBalancingInterceptor lb;
+    private Cluster cluster;
+    private Node a, b;
+
+    @BeforeEach
+    void setUp() {
+        a = new Node("a", 80);
+        b = new Node("b", 80);
+        cluster = new Cluster();
+        cluster.setNodes(List.of(a, b));
+        lb = new LoadBalancingInterceptor();
+        lb.setClusters(List.of(cluster));
+    }
+
+    @Test
+    void leastRequestsAvoidsBusyNode() throws Exception {
+        LeastRequestsStrategy strategy = new LeastRequestsStrategy();
+        strategy.setSlowStart(0);
+
+        Exchange first = new Exchange(null);
+        Node busy = strategy.dispatch(lb, first);
+        for (int i = 0; i < 10; i++) {
+            Exchange exc = new Exchange(null);
+            assertNotEquals(busy, strategy.dispatch(lb, exc));
+            done(strategy, exc);
+        }
+
+        done(strategy, first);
+        done(strategy, first);
+        assertEquals(0, strategy.getLoad(busy).getOutstanding());
+    }
+
+    @Test
+    void dispatchesCurrentNodeInstances() throws Exception {
+        LeastRequestsStrategy strategy = new LeastRequestsStrategy();
+        for (int i = 0; i < 10; i++)
+            done(strategy, dispatched(strategy));
+
+        // removed and added again, e.g. through the admin console
+        Node a2 = new Node("a", 80);
+        cluster.setNodes(List.of(a2, b));
+        for (int i = 0; i < 10; i++) {
+            Exchange exc = new Exchange(null);
+            Node node = strategy.dispatch(lb, exc);
+            assertTrue(node == a2 || node == b);
+            done(strategy, exc);
+        }
+    }
+
+    @Test
+    void loadsOfRemovedNodesAreDropped() throws Exception {
+        LeastRequestsStrategy strategy = new LeastRequestsStrategy();
+        for (int i = 0; i < 10; i++)
+            done(strategy, dispatched(strategy));
+        assertEquals(2, strategy.loads.size());
+
+        Exchange running = dispatched(strategy);
+        cluster.setNodes(List.of(b));
+        done(strategy, dispatched(strategy));
+        assertEquals(Set.of(new PowerOfTwoChoicesStrategy.Address("b", 80)), strategy.loads.keySet());
+
+        // an exchange still running on a removed node does not bring its load back
+        done(strategy, running);
+        assertEquals(1, strategy.loads.size());
+    }
+
+    @Test
+    void slowStart() throws Exception {
+        LeastRequestsStrategy strategy = new LeastRequestsStrategy();
+        strategy.setSlowStart(500);
+        Thread.sleep(600);
+        a.setStatus(DOWN);
+        a.setStatus(UP);
+
+        // a has a weight of 0.1 now, so b is preferred until it has about 10 requests in flight
+        for (int i = 0; i < 9; i++)
+            assertEquals(b, strategy.dispatch(lb, new Exchange(null)));
+        Set<Node> next = new HashSet<>();
+        for (int i = 0; i < 3; i++)
+            next.add(strategy.dispatch(lb, new Exchange(null)));
+        assertTrue(next.contains(a));
+    }
+
+    @Test
+    void peakEwmaPrefersFastNode() throws Exception {
+        PeakEwmaStrategy strategy = new PeakEwmaStrategy();
+        strategy.setSlowStart(0);
+        long now = nanoTime();
+        strategy.observe(strategy.getLoad(a), SECONDS.toNanos(2), false, now);
+        strategy.observe(strategy.getLoad(b), MILLISECONDS.toNanos(200), false, now);
+
+        for (int i = 0; i < 10; i++) {
+            Exchange exc = new Exchange(null);
+            assertEquals(b, strategy.dispatch(lb, exc));
+            done(strategy, exc);
+        }
+    }
+
+    @Test
+    void peakEwmaFollowsPeaksAndDecays() {
+        PeakEwmaStrategy strategy = new PeakEwmaStrategy();
+        strategy.setDecayTime(1000);
+        PowerOfTwoChoicesStrategy.NodeLoad load = strategy.getLoad(a);
+        long now = nanoTime();
+
+        strategy.observe(load, 10, false, now);
+        strategy.observe(load, 100, false, now);
+        assertEquals(100, strategy.getCost(load, now), 0.001);
+
+        double decayed = 100 / Math.E + 10 * (1 - 1 / Math.E);
+        strategy.observe(load, 10, false, now + MILLISECONDS.toNanos(1000));
+        assertEquals(decayed, strategy.getCost(load, now + MILLISECONDS.toNanos(1000)), 0.001);
+
+        // a failure counts twice as slow as the estimate
+        strategy.observe(load, 10, true, now + MILLISECONDS.toNanos(1000));
+        assertEquals(2 * decayed, strategy.getCost(load, now + MILLISECONDS.toNanos(1000)), 0.001);
+
+        assertTrue(strategy.getCost(load, now + SECONDS.toNanos(10)) < 1);
+    }
+
+    private Exchange dispatched(DispatchingStrategy strategy) throws Exception {
+        Exchange exc = new Exchange(null);
+        strategy.dispatch(lb, exc);
+        return exc;
+    }
+
+    private static void done(DispatchingStrategy strategy, Exchange exc) {
+        exc.setResponse(ok().build());
+        strategy.done(exc);
+    }
+}
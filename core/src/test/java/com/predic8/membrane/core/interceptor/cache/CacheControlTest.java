@@ -0,0 +1,47 @@
+/* Copyright 2026 predic8 GmbH, www.predic8.com
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+   http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License. */
+
+package com.predic8.membrane.core.interceptor.cache;
+
+import org.junit.jupiter.api.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CacheControlTest {
+
+    @Test
+    void directives() {
+        CacheControl cc = CacheControl.parse("public, Max-Age=60, s-maxage=\"120\", no-cache=\"Set-Cookie, X-Foo\", max-stale");
+        assertTrue(cc.has("public"));
+        assertEquals(60, cc.getSeconds("max-age"));
+        assertEquals(120, cc.getSeconds("s-maxage"));
+        assertTrue(cc.has("no-cache"));
+        assertEquals(Integer.MAX_VALUE, cc.getSecondsOrDefault("max-stale", Integer.MAX_VALUE));
+        assertEquals(-1, cc.getSeconds("min-fresh"));
+    }
+
+    @Test
+    void invalidValues() {
+        CacheControl cc = CacheControl.parse("max-age=abc, s-maxage=-5, min-fresh=99999999999999999999");
+        assertEquals(-1, cc.getSeconds("max-age"));
+        assertEquals(-1, cc.getSeconds("s-maxage"));
+        assertEquals(Integer.MAX_VALUE, cc.getSeconds("min-fresh"));
+    }
+
+    @Test
+    void empty() {
+        assertFalse(CacheControl.parse(null).has("no-store"));
+        assertFalse(CacheControl.parse(" , ").has(""));
+    }
+}
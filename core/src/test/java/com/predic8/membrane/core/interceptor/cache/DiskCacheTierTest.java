@@ -0,0 +1,101 @@
+/* Copyright 2026 predic8 GmbH, www.predic8.com
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+   http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License. */
+
+package com.predic8.membrane.core.interceptor.cache;
+
+import com.predic8.membrane.core.http.*;
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.io.*;
+
+import java.nio.file.*;
+import java.util.*;
+
+import static java.nio.charset.StandardCharsets.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+class DiskCacheTierTest {
+
+    @TempDir
+    Path dir;
+
+    private static CachedResponse response(String body) {
+        return new CachedResponse(200, "Ok", List.of(new HeaderField("Cache-Control", "max-age=60"), new HeaderField("ETag", "\"1\"")),
+                body.getBytes(UTF_8), 1000, 2000, Map.of("accept", "text/plain"));
+    }
+
+    @Test
+    void roundTrip() throws Exception {
+        DiskCacheTier disk = new DiskCacheTier(dir, 1024 * 1024);
+        disk.put("http://localhost/a", new Variants(List.of(response("a"))));
+
+        Variants variants = disk.get("http://localhost/a");
+        assertNotNull(variants);
+        CachedResponse r = variants.responses().getFirst();
+        assertEquals("a", new String(r.getBody(), UTF_8));
+        assertEquals("\"1\"", r.getETag());
+        assertEquals(60_000, r.getFreshnessLifetime(true));
+        assertEquals(Map.of("accept", "text/plain"), r.getSelectingHeaders());
+        assertNull(disk.get("http://localhost/b"));
+    }
+
+    @Test
+    void sizeIsBounded() throws Exception {
+        DiskCacheTier disk = new DiskCacheTier(dir, 2000);
+        for (int i = 0; i < 20; i++)
+            disk.put("key" + i, new Variants(List.of(response("x".repeat(500)))));
+        assertTrue(disk.getSize() <= 2000);
+        try (var files = Files.list(dir)) {
+            assertTrue(files.count() <= 3);
+        }
+    }
+
+    @Test
+    void spillWritesInBackground() throws Exception {
+        DiskCacheTier disk = new DiskCacheTier(dir, 1024 * 1024);
+        disk.spill("a", new Variants(List.of(response("a"))));
+        assertNotNull(disk.get("a"));
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (disk.getSize() == 0 && System.currentTimeMillis() < deadline)
+            Thread.sleep(10);
+        assertTrue(disk.getSize() > 0);
+        disk.close();
+    }
+
+    @Test
+    void removedEntryIsNotWrittenLater() throws Exception {
+        DiskCacheTier disk = new DiskCacheTier(dir, 1024 * 1024);
+        for (int i = 0; i < 100; i++) {
+            disk.spill("key" + i, new Variants(List.of(response("x".repeat(500)))));
+            disk.remove("key" + i);
+        }
+        disk.spill("last", new Variants(List.of(response("last"))));
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (disk.getSize() == 0 && System.currentTimeMillis() < deadline) // "last" is written after the others
+            Thread.sleep(10);
+        for (int i = 0; i < 100; i++)
+            assertNull(disk.get("key" + i));
+        disk.close();
+    }
+
+    @Test
+    void storeSpillsToDisk() throws Exception {
+        HttpCacheStore store = new HttpCacheStore(4000, new DiskCacheTier(dir, 1024 * 1024));
+        Request request = new Request.Builder().header("Accept", "text/plain").build();
+        for (int i = 0; i < 20; i++)
+            store.put("key" + i, response("x".repeat(500)));
+        for (int i = 0; i < 20; i++)
+            assertNotNull(store.get("key" + i, request), "key" + i);
+        store.close();
+    }
+}
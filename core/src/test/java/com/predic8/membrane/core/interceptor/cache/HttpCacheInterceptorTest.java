@@ -0,0 +1,260 @@
+/* Copyright 2026 predic8 GmbH, www.predic8.com
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+   http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License. */
+
+package com.predic8.membrane.core.interceptor.cache;
+
+import com.predic8.membrane.core.exchange.*;
+import com.predic8.membrane.core.http.*;
+import com.predic8.membrane.core.interceptor.*;
+import com.predic8.membrane.core.proxies.*;
+import com.predic8.membrane.core.router.*;
+import com.predic8.membrane.core.transport.http.*;
+import org.junit.jupiter.api.*;
+
+import java.io.*;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
+
+import static com.predic8.membrane.core.http.Header.*;
+import static com.predic8.membrane.core.http.Request.*;
+import static com.predic8.membrane.core.interceptor.Outcome.*;
+import static java.nio.charset.StandardCharsets.*;
+import static java.util.concurrent.TimeUnit.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+class HttpCacheInterceptorTest {
+
+    private static final int BACKEND_PORT = 3721;
+    private static final int GATEWAY_PORT = 3722;
+
+    private static TestRouter backend;
+    private static TestRouter gateway;
+    private static HttpCacheInterceptor cache;
+    private static HttpClient client;
+
+    private static final AtomicLong now = new AtomicLong(1_000_000_000_000L);
+    private static final Map<String, AtomicInteger> calls = new ConcurrentHashMap<>();
+
+    @BeforeAll
+    static void setUp() throws Exception {
+        backend = new TestRouter();
+        ServiceProxy sp = new ServiceProxy(new ServiceProxyKey(BACKEND_PORT), null, 0);
+        sp.getFlow().add(new AbstractInterceptor() {
+            @Override
+            public Outcome handleRequest(Exchange exc) {
+                exc.setResponse(respond(exc.getRequest()));
+                return RETURN;
+            }
+        });
+        backend.add(sp);
+        backend.start();
+
+        gateway = new TestRouter();
+        ServiceProxy gsp = new ServiceProxy(new ServiceProxyKey(GATEWAY_PORT), "localhost", BACKEND_PORT);
+        cache = new HttpCacheInterceptor();
+        cache.setClock(now::get);
+        gsp.getFlow().add(cache);
+        gateway.add(gsp);
+        gateway.start();
+
+        client = new HttpClient();
+    }
+
+    @AfterAll
+    static void tearDown() {
+        client.close();
+        gateway.stop();
+        backend.stop();
+    }
+
+    private static Response respond(Request request) {
+        String path = request.getUri();
+        int n = calls.computeIfAbsent(request.getMethod() + " " + path, k -> new AtomicInteger()).incrementAndGet();
+        Response.ResponseBuilder builder = Response.ok().body("%s %d".formatted(path, n));
+        if (path.startsWith("/fresh"))
+            return builder.header(CACHE_CONTROL, "max-age=60").build();
+        if (path.startsWith("/etag")) {
+            if ("\"v1\"".equals(request.getHeader().getFirstValue(IF_NONE_MATCH)))
+                return Response.statusCode(304).header(CACHE_CONTROL, "max-age=10").header(ETAG, "\"v1\"").bodyEmpty().build();
+            return builder.header(CACHE_CONTROL, "max-age=10").header(ETAG, "\"v1\"").build();
+        }
+        if (path.startsWith("/swr"))
+            return builder.header(CACHE_CONTROL, "max-age=1, stale-while-revalidate=60").build();
+        if (path.startsWith("/vary"))
+            return Response.ok().body(request.getHeader().getAccept() + " " + n).header(CACHE_CONTROL, "max-age=60").header(VARY, "Accept").build();
+        if (path.startsWith("/private"))
+            return builder.header(CACHE_CONTROL, "private, max-age=60").build();
+        if (path.startsWith("/no-store"))
+            return builder.header(CACHE_CONTROL, "no-store").build();
+        if (path.startsWith("/chunked")) {
+            String body = "%s %d".formatted(path, n) + (path.contains("large") ? "x".repeat(2 * 1024 * 1024) : "");
+            return Response.ok().body(new ByteArrayInputStream(body.getBytes(UTF_8)), false).header(CACHE_CONTROL, "max-age=60").build();
+        }
+        if (path.startsWith("/slow")) {
+            try {
+                Thread.sleep(300);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return builder.header(CACHE_CONTROL, "max-age=60").build();
+        }
+        return builder.build();
+    }
+
+    private static Response call(Request.Builder builder) throws Exception {
+        Exchange exc = builder.buildExchange();
+        client.call(exc);
+        exc.getResponse().getBody().read();
+        return exc.getResponse();
+    }
+
+    private static String get(String path) throws Exception {
+        return call(Request.get("http://localhost:" + GATEWAY_PORT + path)).getBodyAsStringDecoded();
+    }
+
+    private static int calls(String path) {
+        AtomicInteger n = calls.get("GET " + path);
+        return n == null ? 0 : n.get();
+    }
+
+    @Test
+    void freshResponseIsServedFromCache() throws Exception {
+        assertEquals("/fresh 1", get("/fresh"));
+        now.addAndGet(30_000);
+        Response response = call(Request.get("http://localhost:" + GATEWAY_PORT + "/fresh"));
+        assertEquals("/fresh 1", response.getBodyAsStringDecoded());
+        assertEquals("30", response.getHeader().getFirstValue(AGE));
+        assertEquals(1, calls("/fresh"));
+
+        now.addAndGet(31_000);
+        assertEquals("/fresh 2", get("/fresh"));
+    }
+
+    @Test
+    void requestMaxAge() throws Exception {
+        get("/fresh-max-age");
+        now.addAndGet(10_000);
+        assertEquals("/fresh-max-age 2", call(Request.get("http://localhost:" + GATEWAY_PORT + "/fresh-max-age").header(CACHE_CONTROL, "max-age=5")).getBodyAsStringDecoded());
+    }
+
+    @Test
+    void revalidation() throws Exception {
+        assertEquals("/etag 1", get("/etag"));
+        now.addAndGet(20_000);
+
+        // The backend answers 304, so the stored body is sent.
+        assertEquals("/etag 1", get("/etag"));
+        assertEquals(2, calls("/etag"));
+
+        // Freshness was renewed by the 304.
+        assertEquals("/etag 1", get("/etag"));
+        assertEquals(2, calls("/etag"));
+    }
+
+    @Test
+    void clientConditionalRequest() throws Exception {
+        get("/etag-conditional");
+        Response response = call(Request.get("http://localhost:" + GATEWAY_PORT + "/etag-conditional").header(IF_NONE_MATCH, "\"v1\""));
+        assertEquals(304, response.getStatusCode());
+        assertEquals("\"v1\"", response.getHeader().getFirstValue(ETAG));
+    }
+
+    @Test
+    void staleWhileRevalidate() throws Exception {
+        assertEquals("/swr 1", get("/swr"));
+        now.addAndGet(5_000);
+        assertEquals("/swr 1", get("/swr"));
+
+        for (int i = 0; i < 50 && calls("/swr") < 2; i++)
+            Thread.sleep(20);
+        assertEquals(2, calls("/swr"));
+        for (int i = 0; i < 50 && !get("/swr").equals("/swr 2"); i++)
+            Thread.sleep(20);
+        assertEquals("/swr 2", get("/swr"));
+    }
+
+    @Test
+    void vary() throws Exception {
+        assertEquals("text/plain 1", call(Request.get("http://localhost:" + GATEWAY_PORT + "/vary").header(ACCEPT, "text/plain")).getBodyAsStringDecoded());
+        assertEquals("application/json 2", call(Request.get("http://localhost:" + GATEWAY_PORT + "/vary").header(ACCEPT, "application/json")).getBodyAsStringDecoded());
+        assertEquals("text/plain 1", call(Request.get("http://localhost:" + GATEWAY_PORT + "/vary").header(ACCEPT, "text/plain")).getBodyAsStringDecoded());
+        assertEquals(2, calls("/vary"));
+    }
+
+    @Test
+    void notStored() throws Exception {
+        get("/private");
+        get("/private");
+        assertEquals(2, calls("/private"));
+
+        get("/no-store");
+        get("/no-store");
+        assertEquals(2, calls("/no-store"));
+
+        get("/no-cache-headers");
+        get("/no-cache-headers");
+        assertEquals(2, calls("/no-cache-headers"));
+    }
+
+    @Test
+    void requestNoCache() throws Exception {
+        get("/fresh-no-cache");
+        assertEquals("/fresh-no-cache 2", call(Request.get("http://localhost:" + GATEWAY_PORT + "/fresh-no-cache").header(CACHE_CONTROL, "no-cache")).getBodyAsStringDecoded());
+    }
+
+    @Test
+    void onlyIfCached() throws Exception {
+        assertEquals(504, call(Request.get("http://localhost:" + GATEWAY_PORT + "/fresh-only-if-cached").header(CACHE_CONTROL, "only-if-cached")).getStatusCode());
+        assertEquals(0, calls("/fresh-only-if-cached"));
+    }
+
+    @Test
+    void unsafeMethodInvalidates() throws Exception {
+        get("/fresh-post");
+        call(Request.post("http://localhost:" + GATEWAY_PORT + "/fresh-post").body("x"));
+        assertEquals("/fresh-post 2", get("/fresh-post"));
+    }
+
+    @Test
+    void chunkedResponseIsStoredAfterStreaming() throws Exception {
+        assertEquals("/chunked-small 1", get("/chunked-small"));
+        // stored when the gateway has finished streaming, which may be just after the client got the body
+        Request request = new Request.Builder().build();
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (cache.getStore().get("http://localhost:" + BACKEND_PORT + "/chunked-small", request) == null && System.currentTimeMillis() < deadline)
+            Thread.sleep(10);
+        assertEquals("/chunked-small 1", get("/chunked-small"));
+        assertEquals(1, calls("/chunked-small"));
+    }
+
+    @Test
+    void largeChunkedResponseIsNotStored() throws Exception {
+        assertTrue(get("/chunked-large").startsWith("/chunked-large 1xxx"));
+        assertTrue(get("/chunked-large").startsWith("/chunked-large 2xxx"));
+        assertEquals(2, calls("/chunked-large"));
+    }
+
+    @Test
+    void concurrentMissesAreCoalesced() throws Exception {
+        List<Future<String>> results = new ArrayList<>();
+        try (ExecutorService es = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < 10; i++)
+                results.add(es.submit(() -> get("/slow")));
+            for (Future<String> result : results)
+                assertEquals("/slow 1", result.get(10, SECONDS));
+        }
+        assertEquals(1, calls("/slow"));
+    }
+}
@@ -0,0 +1,251 @@
+/* Copyright 2026 predic8 GmbH, www.predic8.com
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+   http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License. */
+
+package com.predic8.membrane.core.interceptor.jwt;
+
+import com.predic8.membrane.core.exchange.*;
+import com.predic8.membrane.core.http.*;
+import com.predic8.membrane.core.router.*;
+import org.jose4j.jwk.*;
+import org.jose4j.jws.*;
+import org.jose4j.jwt.*;
+import org.junit.jupiter.api.*;
+
+import java.math.*;
+import java.security.interfaces.*;
+import java.util.*;
+import java.util.concurrent.atomic.*;
+
+import static com.predic8.membrane.core.interceptor.Outcome.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+class JwtAuthInterceptorCacheTest {
+
+    private static final String KID = "membrane";
+    private static final String AUDIENCE = "aud";
+
+    private static RsaJsonWebKey privateKey;
+
+    private Jwks jwks;
+    private JwtAuthInterceptor interceptor;
+
+    @BeforeAll
+    static void generateKey() throws Exception {
+        privateKey = RsaJwkGenerator.generateJwk(2048);
+        privateKey.setKeyId(KID);
+    }
+
+    @BeforeEach
+    void setUp() {
+        interceptor = createInterceptor(10_000);
+    }
+
+    private JwtAuthInterceptor createInterceptor(int cacheSize) {
+        JwtAuthInterceptor interceptor = new JwtAuthInterceptor();
+        jwks = new Jwks();
+        jwks.setJwks(List.of(publicJwk(privateKey)));
+        interceptor.setJwks(jwks);
+        interceptor.setExpectedAud(AUDIENCE);
+        interceptor.setVerifiedJwtCacheSize(cacheSize);
+        interceptor.init(new DummyTestRouter());
+        return interceptor;
+    }
+
+    private static Jwks.Jwk publicJwk(RsaJsonWebKey key) {
+        RsaJsonWebKey publicOnly = new RsaJsonWebKey(key.getRsaPublicKey());
+        publicOnly.setKeyId(key.getKeyId());
+        Jwks.Jwk jwk = new Jwks.Jwk();
+        jwk.setContent(publicOnly.toJson());
+        return jwk;
+    }
+
+    private static String sign(RsaJsonWebKey key) throws Exception {
+        JwtClaims claims = new JwtClaims();
+        claims.setExpirationTimeMinutesInTheFuture(10);
+        claims.setIssuedAtToNow();
+        claims.setGeneratedJwtId(); // tokens signed within the same second differ
+        claims.setSubject("alice");
+        claims.setAudience(AUDIENCE);
+        claims.setStringListClaim("roles", "reader");
+        claims.setClaim("address", Map.of("city", "Bonn"));
+        JsonWebSignature jws = new JsonWebSignature();
+        jws.setPayload(claims.toJson());
+        jws.setKey(key.getPrivateKey());
+        jws.setAlgorithmHeaderValue(AlgorithmIdentifiers.RSA_USING_SHA256);
+        jws.setKeyIdHeaderValue(key.getKeyId());
+        return jws.getCompactSerialization();
+    }
+
+    private Exchange call(String jwt) {
+        Exchange exc = new Request.Builder().header("Authorization", "Bearer " + jwt).buildExchange();
+        assertEquals(CONTINUE, interceptor.handleRequest(exc), () -> exc.getResponse().toString());
+        return exc;
+    }
+
+    private Exchange reject(String jwt) {
+        Exchange exc = new Request.Builder().header("Authorization", "Bearer " + jwt).buildExchange();
+        assertEquals(RETURN, interceptor.handleRequest(exc));
+        assertEquals(401, exc.getResponse().getStatusCode());
+        return exc;
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void claimsOfCachedToken() throws Exception {
+        String jwt = sign(privateKey);
+        Map<String, Object> first = (Map<String, Object>) call(jwt).getProperty("jwt");
+        first.put("sub", "mallory");
+
+        Map<String, Object> second = (Map<String, Object>) call(jwt).getProperty("jwt");
+        assertEquals("alice", second.get("sub"));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void nestedClaimsOfCachedToken() throws Exception {
+        String jwt = sign(privateKey);
+        for (int i = 0; i < 2; i++) {
+            Map<String, Object> claims = (Map<String, Object>) call(jwt).getProperty("jwt");
+            assertEquals(List.of("reader"), claims.get("roles"));
+            assertEquals(Map.of("city", "Bonn"), claims.get("address"));
+            ((List<Object>) claims.get("roles")).add("admin");
+            ((Map<String, Object>) claims.get("address")).clear();
+        }
+        Map<String, Object> claims = (Map<String, Object>) call(jwt).getProperty("jwt");
+        assertEquals(List.of("reader"), claims.get("roles"));
+        assertEquals(Map.of("city", "Bonn"), claims.get("address"));
+    }
+
+    @Test
+    void keyRotation() throws Exception {
+        String jwt = sign(privateKey);
+        call(jwt);
+
+        RsaJsonWebKey newKey = RsaJwkGenerator.generateJwk(2048);
+        newKey.setKeyId(KID);
+        jwks.setJwks(List.of(publicJwk(newKey)));
+        reject(jwt);
+        call(sign(newKey));
+    }
+
+    @Test
+    void refreshWithSameKey() throws Exception {
+        String jwt = sign(privateKey);
+        call(jwt);
+        jwks.setJwks(List.of(publicJwk(privateKey)));
+        call(jwt);
+    }
+
+    @Test
+    void expiredTokenIsVerifiedAgain() throws Exception {
+        String jwt = sign(privateKey);
+        call(jwt);
+        interceptor.clock = () -> System.currentTimeMillis() + 3_600_000;
+        // The entry is dropped; the signature is still valid at the real time.
+        call(jwt);
+    }
+
+    @Test
+    void tamperedTokenIsRejected() throws Exception {
+        String jwt = sign(privateKey);
+        call(jwt);
+        String[] parts = jwt.split("\\.");
+        String tampered = parts[0] + "." + parts[1] + "." + new StringBuilder(parts[2]).reverse();
+        reject(tampered);
+        reject(tampered);
+    }
+
+    @Test
+    void cachedTokenIsNotVerifiedAgain() throws Exception {
+        CountingKey key = useCountingKey(interceptor);
+        String jwt = sign(privateKey);
+        call(jwt);
+        int verified = key.uses.get();
+        assertTrue(verified > 0);
+
+        for (int i = 0; i < 10; i++)
+            call(jwt);
+        assertEquals(verified, key.uses.get());
+
+        call(sign(privateKey));
+        assertTrue(key.uses.get() > verified);
+    }
+
+    @Test
+    void withoutCacheEveryTokenIsVerified() throws Exception {
+        interceptor = createInterceptor(0);
+        CountingKey key = useCountingKey(interceptor);
+        String jwt = sign(privateKey);
+        call(jwt);
+        int verified = key.uses.get();
+        call(jwt);
+        assertTrue(key.uses.get() > verified);
+    }
+
+    /**
+     * Lets the interceptor verify signatures with a public key that counts how often it is used.
+     */
+    private static CountingKey useCountingKey(JwtAuthInterceptor interceptor) throws Exception {
+        CountingKey counting = new CountingKey(privateKey.getRsaPublicKey());
+        RsaJsonWebKey key = new RsaJsonWebKey(counting);
+        key.setKeyId(KID);
+        Jwks jwks = new Jwks() {
+            @Override
+            public Optional<RsaJsonWebKey> getKeyByKid(String kid) {
+                return KID.equals(kid) ? Optional.of(key) : Optional.empty();
+            }
+        };
+        jwks.setJwks(List.of(publicJwk(privateKey)));
+        interceptor.setJwks(jwks);
+        interceptor.init(new DummyTestRouter());
+        counting.uses.set(0);
+        return counting;
+    }
+
+    private static final class CountingKey implements RSAPublicKey {
+
+        private final RSAPublicKey delegate;
+        private final AtomicInteger uses = new AtomicInteger();
+
+        CountingKey(RSAPublicKey delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public BigInteger getModulus() {
+            uses.incrementAndGet();
+            return delegate.getModulus();
+        }
+
+        @Override
+        public BigInteger getPublicExponent() {
+            return delegate.getPublicExponent();
+        }
+
+        @Override
+        public String getAlgorithm() {
+            return delegate.getAlgorithm();
+        }
+
+        @Override
+        public String getFormat() {
+            return delegate.getFormat();
+        }
+
+        @Override
+        public byte[] getEncoded() {
+            return delegate.getEncoded();
+        }
+    }
+}
@@ -14,10 +14,18 @@
 package com.predic8.membrane.core.interceptor.log;
 
 import com.predic8.membrane.core.http.*;
+import com.predic8.membrane.core.router.*;
+import com.predic8.membrane.core.util.*;
 import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.io.*;
 
+import java.io.*;
+import java.nio.channels.*;
+import java.nio.file.*;
 import java.util.*;
 
+import static org.junit.jupiter.api.Assertions.*;
+
 public class AccessLogInterceptorTest {
 
     AccessLogInterceptor interceptor;
@@ -45,4 +53,82 @@ public class AccessLogInterceptorTest {
         interceptor.handleResponse(Request.get("/foo").header("foo","bar").header("X-Forwarded-For","bazf").buildExchange());
     }
 
+    @Test
+    void writeToFile(@TempDir Path dir) throws Exception {
+        Path file = dir.resolve("access.log");
+        var i = new AccessLogInterceptor();
+        i.setOutput(AccessLogInterceptor.Output.FILE);
+        i.setFile(file.toString());
+        i.setFormat("%X{http.method} %X{uri} %X{statusCode}");
+        i.init(new DummyTestRouter());
+
+        for (int n = 0; n < 100; n++) {
+            var exc = Request.get("/" + n).buildExchange();
+            exc.setOriginalRequestUri("/" + n);
+            exc.setResponse(Response.ok().build());
+            i.handleResponse(exc);
+        }
+
+        i.stop();
+        List<String> lines = Files.readAllLines(file);
+        assertEquals(100, lines.size());
+        assertEquals("GET /0 200", lines.getFirst());
+        assertEquals("GET /99 200", lines.getLast());
+    }
+
+    @Test
+    void writerIsClosedAfterLastRelease(@TempDir Path dir) throws Exception {
+        String file = dir.resolve("shared.log").toString();
+        AccessLogWriter first = AccessLogWriter.file(file);
+        AccessLogWriter second = AccessLogWriter.file(file);
+        assertSame(first, second);
+
+        first.release();
+        first.write("still open");
+        second.release();
+        second.write("closed");
+
+        assertEquals(List.of("still open"), Files.readAllLines(Path.of(file)));
+        AccessLogWriter reopened = AccessLogWriter.file(file);
+        assertNotSame(first, reopened);
+        reopened.release();
+    }
+
+    @Test
+    void movedFileIsReopened(@TempDir Path dir) throws Exception {
+        Path file = dir.resolve("rotate.log");
+        AccessLogWriter writer = AccessLogWriter.file(file.toString());
+        try {
+            writer.write("before");
+            assertTrue(writer.flush(10_000));
+            Files.move(file, dir.resolve("rotate.log.1"));
+
+            Thread.sleep(AccessLogWriter.REOPEN_CHECK_INTERVAL_MS + 100);
+            writer.write("after");
+            assertTrue(writer.flush(10_000));
+
+            assertEquals(List.of("before"), Files.readAllLines(dir.resolve("rotate.log.1")));
+            assertEquals(List.of("after"), Files.readAllLines(file));
+        } finally {
+            writer.release();
+        }
+    }
+
+    @Test
+    void fileIsRequired() {
+        var i = new AccessLogInterceptor();
+        i.setOutput(AccessLogInterceptor.Output.FILE);
+        assertThrows(ConfigurationException.class, () -> i.init(new DummyTestRouter()));
+    }
+
+    @Test
+    void droppedWhenBufferIsFull() throws Exception {
+        var out = new ByteArrayOutputStream();
+        var writer = new AccessLogWriter("test", Channels.newChannel(out), 10);
+        writer.write("12345");
+        writer.write("1234567890");
+        assertTrue(writer.flush(10_000));
+        assertEquals("12345\n", out.toString());
+    }
+
 }
\ No newline at end of file
@@ -0,0 +1,104 @@
+/* Copyright 2026 predic8 GmbH, www.predic8.com
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+   http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License. */
+
+package com.predic8.membrane.core.interceptor.log.access;
+
+import com.predic8.membrane.core.exchange.*;
+import com.predic8.membrane.core.interceptor.log.*;
+import com.predic8.membrane.core.router.*;
+import com.predic8.membrane.core.util.*;
+import org.junit.jupiter.api.*;
+
+import java.util.*;
+
+import static com.predic8.membrane.core.http.Request.*;
+import static com.predic8.membrane.core.http.Response.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+class AccessLogInterceptorServiceTest {
+
+    private Exchange exc;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        exc = get("/foo").header("X-Forwarded-Proto", "https").header("foo", "bar").buildExchange();
+        exc.setOriginalRequestUri("/foo?q=\"x\"");
+        exc.setRemoteAddrIp("192.168.0.1");
+        exc.setResponse(ok("Hello").build());
+        exc.setTimeReqReceived(1_700_000_000_123L);
+    }
+
+    private AccessLogInterceptorService service(String format, AdditionalVariable... additional) {
+        return new AccessLogInterceptorService("yyyy-MM-dd'T'HH:mm:ss", "-", List.of(additional), false, new DummyTestRouter(), format, null);
+    }
+
+    @Test
+    void render() {
+        assertEquals("192.168.0.1 \"GET /foo?q=\\\"x\\\" HTTPS/1.1\" 200 5",
+                service("%X{ip} \"%X{http.method} %X{uri} %X{proto}/%X{http.version}\" %X{statusCode} %X{res.payload.size}").render(exc));
+    }
+
+    @Test
+    void commonLogFormat() {
+        String line = service(AccessLogFormat.COMMON_LOG_FORMAT).render(exc);
+        assertTrue(line.startsWith("192.168.0.1 - - ["), line);
+        assertTrue(line.endsWith("] \"GET /foo?q=\\\"x\\\" HTTP/1.1\" 200 5"), line);
+    }
+
+    @Test
+    void defaultValue() {
+        exc.setResponse(null);
+        assertEquals("- - 100%", service("%X{statusCode} %X{res.payload.size} 100%%").render(exc));
+    }
+
+    @Test
+    void additionalVariable() {
+        AdditionalVariable foo = new AdditionalVariable();
+        foo.setName("foo");
+        foo.setExpression("headers.foo");
+        AdditionalVariable missing = new AdditionalVariable();
+        missing.setName("missing");
+        missing.setExpression("headers.missing");
+        missing.setDefaultValue("none");
+        assertEquals("bar none", service("%X{foo} %X{missing}", foo, missing).render(exc));
+    }
+
+    @Test
+    void unknownVariable() {
+        assertThrows(ConfigurationException.class, () -> service("%X{unknown}"));
+    }
+
+    @Test
+    void renderRepeatedly() {
+        var service = service("%X{uri}");
+        for (int i = 0; i < 3; i++)
+            assertEquals("/foo?q=\\\"x\\\"", service.render(exc));
+    }
+
+    @Test
+    void timestampOfSameSecondIsReused() {
+        var formatter = new TimestampFormatter("HH:mm:ss");
+        assertSame(formatter.format(1_700_000_000_123L), formatter.format(1_700_000_000_999L));
+        assertNotEquals(formatter.format(1_700_000_000_999L), formatter.format(1_700_000_001_000L));
+    }
+
+    @Test
+    void fractionsAreNotCached() {
+        assertTrue(TimestampFormatter.showsFractionOfSecond("HH:mm:ss.SSS"));
+        assertFalse(TimestampFormatter.showsFractionOfSecond("dd/MM/yyyy:HH:mm:ss Z"));
+        assertFalse(TimestampFormatter.showsFractionOfSecond("HH:mm:ss 'SSS'"));
+        var formatter = new TimestampFormatter("ss.SSS");
+        assertNotEquals(formatter.format(1_700_000_000_123L), formatter.format(1_700_000_000_999L));
+    }
+}
@@ -0,0 +1,166 @@
+/* Copyright 2026 predic8 GmbH, www.predic8.com
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+   http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License. */
+
+package com.predic8.membrane.core.interceptor.oauth2.tokenvalidation;
+
+import com.google.common.base.*;
+import com.predic8.membrane.core.exchange.*;
+import com.predic8.membrane.core.http.*;
+import com.predic8.membrane.core.interceptor.*;
+import com.predic8.membrane.core.proxies.*;
+import com.predic8.membrane.core.router.*;
+import org.junit.jupiter.api.*;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
+
+import static com.predic8.membrane.core.http.Header.*;
+import static com.predic8.membrane.core.interceptor.Outcome.*;
+import static java.util.concurrent.TimeUnit.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+class OAuth2TokenValidatorInterceptorTest {
+
+    private static final int PORT = 3723;
+
+    private static TestRouter validationServer;
+    private static final Map<String, AtomicInteger> calls = new ConcurrentHashMap<>();
+    private static final AtomicInteger inFlight = new AtomicInteger();
+    private static final AtomicInteger maxInFlight = new AtomicInteger();
+    private static volatile CountDownLatch allArrived = new CountDownLatch(0);
+
+    private final AtomicLong nanos = new AtomicLong();
+    private TestRouter router;
+    private OAuth2TokenValidatorInterceptor validator;
+
+    @BeforeAll
+    static void startValidationServer() throws Exception {
+        validationServer = new TestRouter();
+        ServiceProxy sp = new ServiceProxy(new ServiceProxyKey(PORT), null, 0);
+        sp.getFlow().add(new AbstractInterceptor() {
+            @Override
+            public Outcome handleRequest(Exchange exc) {
+                String token = exc.getRequest().getHeader().getFirstValue(AUTHORIZATION);
+                calls.computeIfAbsent(token, t -> new AtomicInteger()).incrementAndGet();
+                maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+                try {
+                    Thread.sleep(100);
+                    // concurrent validations are held until all of them have arrived
+                    allArrived.countDown();
+                    allArrived.await(5, SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    inFlight.decrementAndGet();
+                }
+                exc.setResponse(switch (token) {
+                    case "Bearer valid" -> Response.ok().build();
+                    case "Bearer broken" -> Response.internalServerError().build();
+                    default -> Response.unauthorized().build();
+                });
+                return RETURN;
+            }
+        });
+        validationServer.add(sp);
+        validationServer.start();
+    }
+
+    @AfterAll
+    static void stopValidationServer() {
+        validationServer.stop();
+    }
+
+    @BeforeEach
+    void setUp() {
+        calls.clear();
+        router = new TestRouter();
+        validator = new OAuth2TokenValidatorInterceptor();
+        validator.setEndpoint("http://localhost:%d/validate".formatted(PORT));
+        validator.setTicker(new Ticker() {
+            @Override
+            public long read() {
+                return nanos.get();
+            }
+        });
+        validator.init(router);
+    }
+
+    @AfterEach
+    void tearDown() {
+        router.stop();
+    }
+
+    private Outcome call(String token) throws Exception {
+        Exchange exc = new Request.Builder().get("/resource").header(AUTHORIZATION, token).buildExchange();
+        return validator.handleRequest(exc);
+    }
+
+    @Test
+    void validTokenIsCached() throws Exception {
+        assertEquals(CONTINUE, call("Bearer valid"));
+        assertEquals(CONTINUE, call("Bearer valid"));
+        assertEquals(1, calls.get("Bearer valid").get());
+
+        nanos.addAndGet(SECONDS.toNanos(61));
+        assertEquals(CONTINUE, call("Bearer valid"));
+        assertEquals(2, calls.get("Bearer valid").get());
+    }
+
+    @Test
+    void invalidTokenIsCachedShorter() throws Exception {
+        assertEquals(RETURN, call("Bearer invalid"));
+        assertEquals(RETURN, call("Bearer invalid"));
+        assertEquals(1, calls.get("Bearer invalid").get());
+
+        nanos.addAndGet(SECONDS.toNanos(11));
+        assertEquals(RETURN, call("Bearer invalid"));
+        assertEquals(2, calls.get("Bearer invalid").get());
+    }
+
+    @Test
+    void errorsAreNotCached() throws Exception {
+        assertEquals(RETURN, call("Bearer broken"));
+        assertEquals(RETURN, call("Bearer broken"));
+        assertEquals(2, calls.get("Bearer broken").get());
+    }
+
+    @Test
+    void concurrentValidationsOfOneToken() throws Exception {
+        List<Future<Outcome>> outcomes = new ArrayList<>();
+        try (ExecutorService es = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < 20; i++)
+                outcomes.add(es.submit(() -> call("Bearer valid")));
+            for (Future<Outcome> outcome : outcomes)
+                assertEquals(CONTINUE, outcome.get(10, SECONDS));
+        }
+        assertEquals(1, calls.get("Bearer valid").get());
+    }
+
+    @Test
+    void differentTokensAreValidatedConcurrently() throws Exception {
+        allArrived = new CountDownLatch(10);
+        maxInFlight.set(0);
+        List<Future<Outcome>> outcomes = new ArrayList<>();
+        try (ExecutorService es = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < 10; i++) {
+                String token = "Bearer other" + i;
+                outcomes.add(es.submit(() -> call(token)));
+            }
+            for (Future<Outcome> outcome : outcomes)
+                assertEquals(RETURN, outcome.get(10, SECONDS));
+        }
+        assertEquals(10, maxInFlight.get());
+    }
+}
@@ -0,0 +1,123 @@
+/* Copyright 2026 predic8 GmbH, www.predic8.com
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+   http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License. */
+package com.predic8.membrane.core.interceptor.prometheus;
+
+import com.predic8.membrane.core.exchange.*;
+import com.predic8.membrane.core.proxies.*;
+import com.predic8.membrane.core.router.*;
+import org.junit.jupiter.api.*;
+
+import java.io.*;
+import java.util.*;
+import java.util.regex.*;
+import java.util.zip.*;
+
+import static com.predic8.membrane.core.http.Header.*;
+import static com.predic8.membrane.core.http.Request.*;
+import static com.predic8.membrane.core.http.Response.*;
+import static java.nio.charset.StandardCharsets.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+class PrometheusInterceptorTest {
+
+    private static final Pattern TYPE_LINE = Pattern.compile("^# TYPE (\\S+) ", Pattern.MULTILINE);
+
+    private TestRouter router;
+    private PrometheusInterceptor prometheus;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        router = new TestRouter();
+        router.add(proxy("orders", 3081));
+        router.add(proxy("payments", 3082));
+        router.init();
+        prometheus = new PrometheusInterceptor();
+        prometheus.init(router);
+    }
+
+    @AfterEach
+    void tearDown() {
+        router.stop();
+    }
+
+    @Test
+    void familiesAreTypedOnce() throws Exception {
+        for (Proxy p : router.getRuleManager().getRules()) {
+            collect(p, 200);
+            collect(p, 404);
+        }
+
+        String metrics = scrape(get("/metrics").buildExchange());
+
+        assertTrue(metrics.contains("membrane_count{rule=\"orders\",code=\"200\"} 1\n"));
+        assertTrue(metrics.contains("membrane_count{rule=\"payments\",code=\"404\"} 1\n"));
+        assertTrue(metrics.contains("membrane_rule_active{rule=\"payments\"} "));
+        assertTrue(metrics.contains("membrane_total_time_bucket{rule=\"orders\",code=\"2\",le=\"500\"} 1\n"));
+
+        List<String> types = new ArrayList<>();
+        Matcher m = TYPE_LINE.matcher(metrics);
+        while (m.find())
+            types.add(m.group(1));
+        assertEquals(new HashSet<>(types).size(), types.size(), "duplicate TYPE line in " + types);
+        assertTrue(types.contains("membrane_count"));
+        assertTrue(types.contains("membrane_total_time"));
+    }
+
+    @Test
+    void renamedProxy() throws Exception {
+        Proxy orders = router.getRuleManager().getRules().getFirst();
+        collect(orders, 200);
+        assertTrue(scrape(get("/metrics").buildExchange()).contains("{rule=\"orders\",code=\"200\"}"));
+
+        orders.setName("Orders V2");
+        assertTrue(scrape(get("/metrics").buildExchange()).contains("{rule=\"orders_v2\",code=\"200\"}"));
+    }
+
+    @Test
+    void gzip() throws Exception {
+        collect(router.getRuleManager().getRules().getFirst(), 200);
+        String plain = scrape(get("/metrics").buildExchange());
+
+        Exchange exc = get("/metrics").header(ACCEPT_ENCODING, "gzip, deflate").buildExchange();
+        prometheus.handleRequest(exc);
+
+        assertEquals("gzip", exc.getResponse().getHeader().getFirstValue(CONTENT_ENCODING));
+        try (InputStream in = new GZIPInputStream(new ByteArrayInputStream(exc.getResponse().getBody().getContent()))) {
+            assertEquals(plain, new String(in.readAllBytes(), UTF_8));
+        }
+    }
+
+    private String scrape(Exchange exc) {
+        prometheus.handleRequest(exc);
+        assertNull(exc.getResponse().getHeader().getFirstValue(CONTENT_ENCODING));
+        return exc.getResponse().getBodyAsStringDecoded();
+    }
+
+    private static ServiceProxy proxy(String name, int port) {
+        ServiceProxy sp = new ServiceProxy(new ServiceProxyKey(port), "localhost", 80);
+        sp.setName(name);
+        return sp;
+    }
+
+    private static void collect(Proxy proxy, int status) throws Exception {
+        Exchange exc = get("/").buildExchange();
+        exc.setResponse(statusCode(status).build());
+        exc.setProxy(proxy);
+        exc.setTimeReqReceived(1000);
+        exc.setTimeReqSent(1010);
+        exc.setTimeResReceived(1100);
+        exc.setTimeResSent(1110);
+        proxy.getStatisticCollector().collect(exc);
+    }
+}
@@ -0,0 +1,192 @@
+/* Copyright 2026 predic8 GmbH, www.predic8.com
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+   http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License. */
+
+package com.predic8.membrane.core.interceptor.ratelimit;
+
+import org.junit.jupiter.api.*;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
+
+import static java.time.Duration.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+class ClusterRateLimitTest {
+
+    private final AtomicLong now = new AtomicLong(1_000_000);
+    private final InMemoryStore store = new InMemoryStore();
+
+    private final ClusterRateLimit node1 = new ClusterRateLimit(ofSeconds(10), 10, store, false, now::get);
+    private final ClusterRateLimit node2 = new ClusterRateLimit(ofSeconds(10), 10, store, false, now::get);
+
+    @Test
+    void limitAppliesToCluster() {
+        for (int i = 0; i < 6; i++)
+            assertFalse(node1.isRequestLimitReached("a"));
+        node1.sync();
+        node2.sync();
+
+        for (int i = 0; i < 4; i++)
+            assertFalse(node2.isRequestLimitReached("a"));
+        node2.sync();
+        assertTrue(node2.isRequestLimitReached("a"));
+
+        node1.sync();
+        assertTrue(node1.isRequestLimitReached("a"));
+        assertFalse(node1.isRequestLimitReached("b"));
+        assertEquals(10, store.get(100, "a"));
+    }
+
+    @Test
+    void newWindow() {
+        for (int i = 0; i < 10; i++)
+            node1.isRequestLimitReached("a");
+        node1.sync();
+        assertTrue(node1.isRequestLimitReached("a"));
+        assertEquals("10", node1.getLimitReset("a"));
+
+        now.addAndGet(10_000);
+        assertFalse(node1.isRequestLimitReached("a"));
+        node1.sync();
+        assertEquals(1, store.get(101, "a"));
+    }
+
+    @Test
+    void requestsOfPreviousWindowAreSent() {
+        node1.isRequestLimitReached("a");
+        now.addAndGet(10_000);
+        node1.isRequestLimitReached("a");
+        node1.sync();
+        assertEquals(1, store.get(100, "a"));
+        assertEquals(1, store.get(101, "a"));
+    }
+
+    @Test
+    void lateRequestsOfRetiredCountersAreSent() {
+        node1.isRequestLimitReached("a");
+        node1.sync();
+        ClusterRateLimit.Counter old = node1.counters.get("a");
+        now.addAndGet(10_000);
+        node1.isRequestLimitReached("a");
+
+        // requests that fetched the counter of the previous window just before it was replaced
+        old.pending.incrementAndGet();
+        node1.sync();
+        old.pending.incrementAndGet();
+        node1.sync();
+        assertEquals(3, store.get(100, "a"));
+        assertEquals(1, store.get(101, "a"));
+    }
+
+    @Test
+    void slidingWindow() {
+        ClusterRateLimit sliding = new ClusterRateLimit(ofSeconds(10), 10, store, true, now::get);
+        now.addAndGet(9_000);
+        for (int i = 0; i < 10; i++)
+            assertFalse(sliding.isRequestLimitReached("a"));
+        sliding.sync();
+
+        now.addAndGet(1_000);
+        assertTrue(sliding.isRequestLimitReached("a"));
+
+        now.addAndGet(5_000);
+        for (int i = 0; i < 5; i++)
+            assertFalse(sliding.isRequestLimitReached("a"));
+        assertTrue(sliding.isRequestLimitReached("a"));
+    }
+
+    @Test
+    void fallbackToLocalCounting() {
+        store.available = false;
+        for (int i = 0; i < 10; i++)
+            assertFalse(node1.isRequestLimitReached("a"));
+        node1.sync();
+        assertFalse(node1.isStoreAvailable());
+        assertTrue(node1.isRequestLimitReached("a"));
+
+        store.available = true;
+        node1.sync();
+        assertTrue(node1.isStoreAvailable());
+        assertEquals(10, store.get(100, "a"));
+        assertTrue(node1.isRequestLimitReached("a"));
+    }
+
+    @Test
+    void oldCountersAreEvicted() {
+        for (int i = 0; i < 100; i++)
+            node1.isRequestLimitReached("key" + i);
+        node1.sync();
+        now.addAndGet(30_000);
+        node1.sync();
+        assertTrue(node1.counters.isEmpty());
+    }
+
+    @Test
+    void concurrentRequests() throws Exception {
+        ClusterRateLimit limiter = new ClusterRateLimit(ofSeconds(10), 1000, store, false, now::get);
+        AtomicInteger accepted = new AtomicInteger();
+        try (ExecutorService es = Executors.newFixedThreadPool(8)) {
+            for (int t = 0; t < 8; t++) {
+                es.submit(() -> {
+                    for (int i = 0; i < 500; i++) {
+                        if (!limiter.isRequestLimitReached("a"))
+                            accepted.incrementAndGet();
+                        if (i % 50 == 0)
+                            limiter.sync();
+                    }
+                });
+            }
+        }
+        limiter.sync();
+        assertEquals(1000, accepted.get());
+        assertEquals(1000, store.get(100, "a"));
+    }
+
+    @Test
+    void syncRunsInBackgroundUntilStopped() throws Exception {
+        node1.start(10);
+        try {
+            assertFalse(node1.isRequestLimitReached("a"));
+            for (int i = 0; i < 100 && store.get(100, "a") == 0; i++)
+                Thread.sleep(10);
+            assertEquals(1, store.get(100, "a"));
+        } finally {
+            node1.stop();
+        }
+
+        assertFalse(node1.isRequestLimitReached("a"));
+        Thread.sleep(100);
+        assertEquals(1, store.get(100, "a"));
+    }
+
+    static class InMemoryStore implements RateLimitStore {
+
+        private final Map<String, Long> counters = new ConcurrentHashMap<>();
+        volatile boolean available = true;
+
+        @Override
+        public synchronized Map<String, Long> add(long window, Map<String, Long> increments, long expireAfterMillis) throws Exception {
+            if (!available)
+                throw new Exception("not available");
+            Map<String, Long> totals = new HashMap<>();
+            increments.forEach((key, n) -> totals.put(key, counters.merge(window + ":" + key, n, Long::sum)));
+            return totals;
+        }
+
+        long get(long window, String key) {
+            return counters.getOrDefault(window + ":" + key, 0L);
+        }
+    }
+}
@@ -0,0 +1,87 @@
+/* Copyright 2026 predic8 GmbH, www.predic8.com
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+   http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License. */
+
+package com.predic8.membrane.core.interceptor.ratelimit;
+
+import com.predic8.membrane.core.router.*;
+import org.h2.jdbcx.*;
+import org.junit.jupiter.api.*;
+
+import java.sql.*;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JdbcRateLimitStoreTest {
+
+    private JdbcDataSource dataSource;
+    private JdbcRateLimitStore store;
+
+    @BeforeEach
+    void setUp() {
+        dataSource = new JdbcDataSource();
+        dataSource.setURL("jdbc:h2:mem:ratelimit;DB_CLOSE_DELAY=-1");
+        dataSource.setUser("sa");
+        dataSource.setPassword("");
+
+        store = new JdbcRateLimitStore();
+        store.setDatasource(dataSource);
+        store.init(new DefaultRouter());
+    }
+
+    @AfterEach
+    void tearDown() throws SQLException {
+        try (Connection con = dataSource.getConnection();
+             Statement stmt = con.createStatement()) {
+            stmt.execute("DROP TABLE IF EXISTS rate_limit_counter");
+        }
+    }
+
+    @Test
+    void addReturnsTotals() throws Exception {
+        assertEquals(Map.of("a", 3L, "b", 1L), store.add(7, Map.of("a", 3L, "b", 1L), 60_000));
+        assertEquals(Map.of("a", 5L), store.add(7, Map.of("a", 2L), 60_000));
+        assertEquals(Map.of("a", 1L), store.add(8, Map.of("a", 1L), 60_000));
+    }
+
+    @Test
+    void twoInstancesShareCounters() throws Exception {
+        JdbcRateLimitStore other = new JdbcRateLimitStore();
+        other.setDatasource(dataSource);
+        other.init(new DefaultRouter());
+
+        store.add(1, Map.of("a", 4L), 60_000);
+        assertEquals(Map.of("a", 10L), other.add(1, Map.of("a", 6L), 60_000));
+        assertEquals(Map.of("a", 10L), store.add(1, Map.of("a", 0L), 60_000));
+    }
+
+    @Test
+    void manyKeys() throws Exception {
+        Map<String, Long> increments = new HashMap<>();
+        for (int i = 0; i < 250; i++)
+            increments.put("key" + i, (long) i);
+        assertEquals(increments, store.add(1, increments, 60_000));
+    }
+
+    @Test
+    void expiredRowsAreDeleted() throws Exception {
+        store.add(1, Map.of("a", 1L), -1);
+        store.add(2, Map.of("b", 1L), 60_000);
+        try (Connection con = dataSource.getConnection();
+             ResultSet rs = con.createStatement().executeQuery("SELECT COUNT(*) FROM rate_limit_counter")) {
+            rs.next();
+            assertEquals(1, rs.getInt(1));
+        }
+    }
+}
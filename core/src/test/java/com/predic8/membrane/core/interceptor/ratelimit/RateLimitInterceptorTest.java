@@ -90,6 +90,25 @@ public class RateLimitInterceptorTest {
 		assertTrue(parseLong(h1.getFirstValue(X_RATELIMIT_RESET)) > 0);
 	}
 
+	@ParameterizedTest
+	@EnumSource(Algorithm.class)
+	void algorithms(Algorithm algorithm) throws Exception {
+		RateLimitInterceptor interceptor = new RateLimitInterceptor(ofSeconds(10), 3);
+		interceptor.setAlgorithm(algorithm);
+		interceptor.init();
+		assertEquals(algorithm, interceptor.getAlgorithm());
+		assertEquals("PT10S", interceptor.getRequestLimitDuration());
+
+		for (int i = 0; i < 3; i++)
+			assertEquals(CONTINUE, interceptor.handleRequest(getExchange()));
+		Exchange exc = getExchange();
+		assertEquals(RETURN, interceptor.handleRequest(exc));
+
+		Header h = exc.getResponse().getHeader();
+		assertEquals("3", h.getFirstValue(X_RATELIMIT_LIMIT));
+		assertTrue(parseLong(h.getFirstValue(X_RATELIMIT_RESET)) > 0);
+	}
+
 	@Test
 	void jsonpathExpression() throws URISyntaxException {
 		Exchange excA = createJsonExchange("a");
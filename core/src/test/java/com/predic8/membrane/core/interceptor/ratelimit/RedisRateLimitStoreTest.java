@@ -0,0 +1,66 @@
+/* Copyright 2026 predic8 GmbH, www.predic8.com
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+   http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License. */
+
+package com.predic8.membrane.core.interceptor.ratelimit;
+
+import com.predic8.membrane.core.util.*;
+import com.predic8.membrane.test.*;
+import org.junit.jupiter.api.*;
+
+import java.io.*;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Runs against {@link FakeRedis}, so no Redis server is needed.
+ */
+class RedisRateLimitStoreTest {
+
+    private static FakeRedis redis;
+    private static RedisRateLimitStore store;
+
+    @BeforeAll
+    static void setUp() throws Exception {
+        redis = new FakeRedis();
+        redis.start();
+
+        RedisConnector connector = new RedisConnector();
+        connector.setHost("localhost");
+        connector.setPort(redis.getPort());
+        connector.afterPropertiesSet();
+
+        store = new RedisRateLimitStore();
+        store.setConnector(connector);
+    }
+
+    @AfterAll
+    static void tearDown() throws IOException {
+        store.getConnector().getPool().close();
+        redis.close();
+    }
+
+    @Test
+    void addReturnsTotals() {
+        assertEquals(Map.of("a", 3L, "b", 1L), store.add(7, Map.of("a", 3L, "b", 1L), 60_000));
+        assertEquals(Map.of("a", 5L), store.add(7, Map.of("a", 2L), 60_000));
+        assertEquals(Map.of("a", 1L), store.add(8, Map.of("a", 1L), 60_000));
+    }
+
+    @Test
+    void keysExpire() {
+        store.add(9, Map.of("c", 1L), 20_000);
+        assertEquals(20_000L, redis.expiries.get("membrane:ratelimit:9:c"));
+    }
+}
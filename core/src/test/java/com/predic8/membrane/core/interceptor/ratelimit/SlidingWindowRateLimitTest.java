@@ -0,0 +1,87 @@
+/* Copyright 2026 predic8 GmbH, www.predic8.com
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+   http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License. */
+
+package com.predic8.membrane.core.interceptor.ratelimit;
+
+import org.junit.jupiter.api.*;
+
+import java.util.concurrent.atomic.*;
+
+import static java.time.Duration.*;
+import static java.util.concurrent.TimeUnit.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+class SlidingWindowRateLimitTest {
+
+    private final AtomicLong now = new AtomicLong(SECONDS.toNanos(1000));
+    private final SlidingWindowRateLimit limiter = new SlidingWindowRateLimit(ofSeconds(10), 10, now::get);
+
+    @Test
+    void limitWithinWindow() {
+        for (int i = 0; i < 10; i++)
+            assertFalse(limiter.isRequestLimitReached("a"));
+        assertTrue(limiter.isRequestLimitReached("a"));
+        assertFalse(limiter.isRequestLimitReached("b"));
+    }
+
+    @Test
+    void noDoubleBurstAtWindowEdge() {
+        advance(9);
+        for (int i = 0; i < 10; i++)
+            assertFalse(limiter.isRequestLimitReached("a"));
+
+        // A fixed window would accept 10 more requests now.
+        advance(1);
+        assertTrue(limiter.isRequestLimitReached("a"));
+
+        // Half of the previous window is still covered: 5 requests are counted.
+        advance(5);
+        for (int i = 0; i < 5; i++)
+            assertFalse(limiter.isRequestLimitReached("a"));
+        assertTrue(limiter.isRequestLimitReached("a"));
+    }
+
+    @Test
+    void rejectedRequestsAreNotCounted() {
+        for (int i = 0; i < 100; i++)
+            limiter.isRequestLimitReached("a");
+        advance(20);
+        assertFalse(limiter.isRequestLimitReached("a"));
+    }
+
+    @Test
+    void limitReset() {
+        for (int i = 0; i < 10; i++)
+            limiter.isRequestLimitReached("a");
+        advance(4);
+        assertEquals("7", limiter.getLimitReset("a"));
+        assertEquals("0", limiter.getLimitReset("unknown"));
+    }
+
+    @Test
+    void idleKeysAreEvicted() {
+        for (int i = 0; i < 100; i++)
+            limiter.isRequestLimitReached("key" + i);
+        assertEquals(100, limiter.getNumberOfKeys());
+
+        advance(30);
+        for (int i = 0; i < 100; i++)
+            limiter.isRequestLimitReached("active");
+        assertEquals(1, limiter.getNumberOfKeys());
+    }
+
+    private void advance(int seconds) {
+        now.addAndGet(SECONDS.toNanos(seconds));
+    }
+}
@@ -0,0 +1,87 @@
+/* Copyright 2026 predic8 GmbH, www.predic8.com
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+   http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License. */
+
+package com.predic8.membrane.core.interceptor.ratelimit;
+
+import org.junit.jupiter.api.*;
+
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
+
+import static java.time.Duration.*;
+import static java.util.concurrent.TimeUnit.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+class TokenBucketRateLimitTest {
+
+    private final AtomicLong now = new AtomicLong(-SECONDS.toNanos(5));
+    private final TokenBucketRateLimit limiter = new TokenBucketRateLimit(ofSeconds(10), 10, now::get);
+
+    @Test
+    void burstUpToLimit() {
+        for (int i = 0; i < 10; i++)
+            assertFalse(limiter.isRequestLimitReached("a"));
+        assertTrue(limiter.isRequestLimitReached("a"));
+        assertFalse(limiter.isRequestLimitReached("b"));
+    }
+
+    @Test
+    void refill() {
+        for (int i = 0; i < 10; i++)
+            limiter.isRequestLimitReached("a");
+
+        now.addAndGet(MILLISECONDS.toNanos(999));
+        assertTrue(limiter.isRequestLimitReached("a"));
+        now.addAndGet(MILLISECONDS.toNanos(1));
+        assertFalse(limiter.isRequestLimitReached("a"));
+        assertTrue(limiter.isRequestLimitReached("a"));
+
+        now.addAndGet(SECONDS.toNanos(3));
+        for (int i = 0; i < 3; i++)
+            assertFalse(limiter.isRequestLimitReached("a"));
+        assertTrue(limiter.isRequestLimitReached("a"));
+    }
+
+    @Test
+    void limitReset() {
+        for (int i = 0; i < 11; i++)
+            limiter.isRequestLimitReached("a");
+        assertEquals("1", limiter.getLimitReset("a"));
+        assertEquals("0", limiter.getLimitReset("b"));
+    }
+
+    @Test
+    void concurrentRequestsDoNotExceedLimit() throws Exception {
+        TokenBucketRateLimit limiter = new TokenBucketRateLimit(ofHours(1), 1000);
+        AtomicInteger accepted = new AtomicInteger();
+        try (ExecutorService es = Executors.newFixedThreadPool(8)) {
+            for (int i = 0; i < 5000; i++)
+                es.execute(() -> {
+                    if (!limiter.isRequestLimitReached("a"))
+                        accepted.incrementAndGet();
+                });
+        }
+        assertEquals(1000, accepted.get());
+    }
+
+    @Test
+    void fullBucketsAreEvicted() {
+        for (int i = 0; i < 100; i++)
+            limiter.isRequestLimitReached("key" + i);
+        now.addAndGet(SECONDS.toNanos(2));
+        for (int i = 0; i < 100; i++)
+            limiter.isRequestLimitReached("active");
+        assertEquals(1, limiter.getNumberOfKeys());
+    }
+}
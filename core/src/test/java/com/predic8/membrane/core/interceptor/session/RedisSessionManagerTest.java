@@ -0,0 +1,167 @@
+/* Copyright 2026 predic8 GmbH, www.predic8.com
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+   http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License. */
+package com.predic8.membrane.core.interceptor.session;
+
+import com.predic8.membrane.core.exchange.*;
+import com.predic8.membrane.core.util.*;
+import com.predic8.membrane.test.*;
+import org.junit.jupiter.api.*;
+
+import java.io.*;
+import java.net.*;
+import java.util.*;
+
+import static com.predic8.membrane.core.http.Header.*;
+import static com.predic8.membrane.core.http.Request.*;
+import static com.predic8.membrane.core.http.Response.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Runs against {@link FakeRedis}, so no Redis server is needed.
+ */
+class RedisSessionManagerTest {
+
+    private static FakeRedis redis;
+    private static RedisConnector connector;
+
+    private RedisSessionManager manager;
+
+    @BeforeAll
+    static void startRedis() throws Exception {
+        redis = new FakeRedis();
+        redis.start();
+
+        connector = new RedisConnector();
+        connector.setHost("localhost");
+        connector.setPort(redis.getPort());
+        connector.afterPropertiesSet();
+    }
+
+    @AfterAll
+    static void stopRedis() throws IOException {
+        connector.getPool().close();
+        redis.close();
+    }
+
+    @BeforeEach
+    void setUp() throws Exception {
+        manager = createManager(0);
+        redis.commands.clear();
+    }
+
+    private static RedisSessionManager createManager(int nearCacheSeconds) throws Exception {
+        RedisSessionManager manager = new RedisSessionManager();
+        manager.setConnector(connector);
+        manager.setCookiePrefix("test");
+        manager.setIssuer("http://localhost/");
+        manager.setNearCacheSeconds(nearCacheSeconds);
+        manager.init(null);
+        return manager;
+    }
+
+    @Test
+    void lookupIsOneRoundTrip() throws Exception {
+        String cookie = createSession(manager);
+        redis.commands.clear();
+
+        assertEquals("blue", manager.getSession(exchangeWithCookie(cookie)).get("color"));
+        assertEquals(List.of("GETEX " + getKey(cookie) + " ex 900"), redis.commands);
+    }
+
+    @Test
+    void unmodifiedSessionIsNotWrittenBack() throws Exception {
+        String cookie = createSession(manager);
+        redis.commands.clear();
+
+        Exchange exc = exchangeWithCookie(cookie);
+        manager.getSession(exc).get("color");
+        exc.setResponse(ok().build());
+        manager.postProcess(exc);
+
+        assertTrue(redis.commands.stream().noneMatch(c -> c.startsWith("SETEX")), redis.commands.toString());
+    }
+
+    @Test
+    void modifiedSessionIsWrittenWithNewVersion() throws Exception {
+        String cookie = createSession(manager);
+        String key = getKey(cookie);
+        String version = RedisSessionManager.getVersion(redis.values.get(key));
+
+        Exchange exc = exchangeWithCookie(cookie);
+        manager.getSession(exc).put("color", "green");
+        exc.setResponse(ok().build());
+        manager.postProcess(exc);
+
+        assertNotNull(version);
+        assertNotEquals(version, RedisSessionManager.getVersion(redis.values.get(key)));
+        assertEquals("green", manager.getSession(exchangeWithCookie(cookie)).get("color"));
+    }
+
+    @Test
+    void changesOfOtherInstancesAreSeen() throws Exception {
+        String cookie = createSession(manager);
+
+        RedisSessionManager other = createManager(0);
+        Exchange exc = exchangeWithCookie(cookie);
+        other.getSession(exc).put("color", "red");
+        exc.setResponse(ok().build());
+        other.postProcess(exc);
+
+        assertEquals("red", manager.getSession(exchangeWithCookie(cookie)).get("color"));
+    }
+
+    @Test
+    void nearCacheAvoidsRoundTrips() throws Exception {
+        RedisSessionManager cached = createManager(60);
+        String cookie = createSession(cached);
+        redis.commands.clear();
+
+        assertEquals("blue", cached.getSession(exchangeWithCookie(cookie)).get("color"));
+        assertEquals(List.of(), redis.commands);
+    }
+
+    @Test
+    void sessionsOfOlderVersionsAreRead() throws Exception {
+        redis.values.put("test-old", "{\"usernameKeyName\":\"username\",\"content\":{\"color\":\"yellow\",\"_in_memory_session_id\":\"test-old\"}}");
+        assertNull(RedisSessionManager.getVersion(redis.values.get("test-old")));
+        assertEquals("yellow", manager.getSession(exchangeWithCookie("test-old=true")).get("color"));
+    }
+
+    @Test
+    void unknownSessionStartsNewOne() {
+        Session session = manager.getSession(exchangeWithCookie("test-unknown=true"));
+        assertNull(session.get("color"));
+        assertEquals(List.of("GETEX test-unknown ex 900"), redis.commands);
+    }
+
+    private static String createSession(RedisSessionManager manager) throws Exception {
+        Exchange exc = get("/").buildExchange();
+        manager.getSession(exc).put("color", "blue");
+        exc.setResponse(ok().build());
+        manager.postProcess(exc);
+        return exc.getResponse().getHeader().getFirstValue(SET_COOKIE).split(";")[0];
+    }
+
+    private static Exchange exchangeWithCookie(String cookie) {
+        try {
+            return get("/").header(COOKIE, cookie).buildExchange();
+        } catch (URISyntaxException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    private static String getKey(String cookie) {
+        return cookie.split("=true")[0];
+    }
+}
@@ -14,6 +14,7 @@
 package com.predic8.membrane.core.interceptor.xslt;
 
 import com.predic8.membrane.core.exchange.Exchange;
+import com.predic8.membrane.core.http.Header;
 import com.predic8.membrane.core.router.DummyTestRouter;
 import org.junit.jupiter.api.Test;
 import org.xml.sax.InputSource;
@@ -21,12 +22,23 @@ import org.xml.sax.InputSource;
 import javax.xml.xpath.XPath;
 import javax.xml.xpath.XPathExpressionException;
 import javax.xml.xpath.XPathFactory;
-
+import java.io.ByteArrayOutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static com.predic8.membrane.core.http.Header.CONTENT_LENGTH;
 import static com.predic8.membrane.core.http.Request.get;
 import static com.predic8.membrane.core.http.Response.ok;
 import static com.predic8.membrane.core.interceptor.Outcome.ABORT;
+import static com.predic8.membrane.core.interceptor.Outcome.CONTINUE;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.concurrent.TimeUnit.SECONDS;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 public class XSLTInterceptorTest {
@@ -114,6 +126,69 @@ public class XSLTInterceptorTest {
         assertFalse(body.contains("XML parsing failed"));
     }
 
+    @Test
+    void streamedTransformation() throws Exception {
+        exc = new Exchange(null);
+        exc.setResponse(ok().body(getClass().getResourceAsStream("/customer.xml"), true).build());
+        exc.setProperty("XSLT_COMPANY", "predic8");
+
+        XSLTInterceptor i = new XSLTInterceptor();
+        i.setXslt("classpath:/customer2personAddCompany.xsl");
+        i.setStream(true);
+        i.init(new DummyTestRouter());
+        assertEquals(CONTINUE, i.handleResponse(exc));
+
+        Header header = exc.getResponse().getHeader();
+        assertTrue(header.isChunked());
+        assertNull(header.getFirstValue(CONTENT_LENGTH));
+
+        ByteArrayOutputStream wire = new ByteArrayOutputStream();
+        exc.getResponse().write(wire, false);
+        assertTrue(exc.getResponse().getBody().wasStreamed());
+        String written = wire.toString(UTF_8);
+        assertTrue(written.contains("<company>predic8</company>"), written);
+        assertTrue(written.endsWith("0\r\n\r\n"), written);
+    }
+
+    @Test
+    void streamedTransformationCanBeRead() throws Exception {
+        exc = new Exchange(null);
+        exc.setResponse(ok().body(getClass().getResourceAsStream("/customer.xml"), true).build());
+
+        XSLTInterceptor i = new XSLTInterceptor();
+        i.setXslt("classpath:/customer2person.xsl");
+        i.setStream(true);
+        i.init(new DummyTestRouter());
+        i.handleResponse(exc);
+
+        assertXPath("/person/name/first", "Rick");
+        assertXPath("/person/address/city", "Omaha");
+    }
+
+    @Test
+    void concurrentTransformations() throws Exception {
+        XSLTInterceptor i = new XSLTInterceptor();
+        i.setXslt("classpath:/customer2personAddCompany.xsl");
+        i.init(new DummyTestRouter());
+        byte[] customer = getClass().getResourceAsStream("/customer.xml").readAllBytes();
+
+        try (ExecutorService es = Executors.newFixedThreadPool(8)) {
+            List<Future<?>> results = new ArrayList<>();
+            for (int n = 0; n < 200; n++) {
+                String company = "company" + n;
+                results.add(es.submit(() -> {
+                    Exchange e = get("http://localhost/").body(customer).buildExchange();
+                    e.setProperty("XSLT_COMPANY", company);
+                    assertEquals(CONTINUE, i.handleRequest(e));
+                    assertEquals(company, xpath.evaluate("/person/company", new InputSource(e.getRequest().getBodyAsStream())));
+                    return null;
+                }));
+            }
+            for (Future<?> result : results)
+                result.get(30, SECONDS);
+        }
+    }
+
     private void assertXPath(String xpathExpr, String expected)
             throws XPathExpressionException {
         assertEquals(expected, xpath.evaluate(xpathExpr, new InputSource(exc
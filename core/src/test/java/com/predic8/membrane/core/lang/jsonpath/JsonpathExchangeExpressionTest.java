@@ -163,4 +163,20 @@ class JsonpathExchangeExpressionTest extends AbstractExchangeExpressionTest {
     private <T> T evaluateWithEmptyBodyFor(Class<T> type) throws URISyntaxException {
         return expression(new InterceptorAdapter(router), JSONPATH, "$").evaluate(get("/foo").buildExchange(), REQUEST, type);
     }
+
+    @Test
+    void bodyIsParsedOnce() throws Exception {
+        assertEquals("Jelly Fish", evalString("$.name"));
+        Object parsed = exchange.getRequest().getParsedBody(BodyRepresentation.JSON);
+        assertEquals("US", evalString("$.world.country"));
+        assertSame(parsed, exchange.getRequest().getParsedBody(BodyRepresentation.JSON));
+    }
+
+    @Test
+    void changedBodyIsParsedAgain() {
+        assertEquals("Jelly Fish", evalString("$.name"));
+        exchange.getRequest().setBodyContent("""
+                {"name": "Octopus"}""".getBytes());
+        assertEquals("Octopus", evalString("$.name"));
+    }
 }
\ No newline at end of file
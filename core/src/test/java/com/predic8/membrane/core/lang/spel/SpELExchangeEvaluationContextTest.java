@@ -157,6 +157,20 @@ public class SpELExchangeEvaluationContextTest {
         assertNull(keyExpression("json['unknown']"));
     }
 
+    @Test
+    void jsonIsModifiableWithoutChangingTheParsedBody() {
+        assertEquals("Snake oil", keyExpression("json.put('product', 'Hair tonic')"));
+        assertEquals("Snake oil", keyExpression("json['product']"));
+    }
+
+    @Test
+    void nestedJsonIsModifiableWithoutChangingTheParsedBody() {
+        exc.getRequest().setBodyContent("""
+                {"product": {"name": "Snake oil"}}""".getBytes());
+        assertEquals("Snake oil", keyExpression("json['product'].put('name', 'Hair tonic')"));
+        assertEquals("Snake oil", keyExpression("json['product']['name']"));
+    }
+
     @Test
     void body() {
         assertTrue(keyExpression("body").contains("Snake oil"));
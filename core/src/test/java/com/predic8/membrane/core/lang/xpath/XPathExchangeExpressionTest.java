@@ -16,6 +16,7 @@ package com.predic8.membrane.core.lang.xpath;
 
 import com.predic8.membrane.core.exceptions.*;
 import com.predic8.membrane.core.exchange.*;
+import com.predic8.membrane.core.http.*;
 import com.predic8.membrane.core.lang.*;
 import com.predic8.membrane.core.lang.ExchangeExpression.*;
 import org.jetbrains.annotations.*;
@@ -24,6 +25,7 @@ import org.w3c.dom.*;
 
 import java.net.*;
 import java.util.*;
+import java.util.concurrent.*;
 
 import static com.predic8.membrane.core.exceptions.ProblemDetails.*;
 import static com.predic8.membrane.core.http.MimeType.*;
@@ -183,4 +185,31 @@ class XPathExchangeExpressionTest extends AbstractExchangeExpressionTest {
             return pd;
         }
     }
+
+    @Test
+    void documentIsParsedOnce() {
+        assertEquals("John Doe", evalString("/persons/name[1]"));
+        AbstractBody body = exchange.getRequest().getBody();
+        assertInstanceOf(XmlDomBody.class, body);
+        assertEquals("7", evalString("//persons/@id"));
+        assertSame(body, exchange.getRequest().getBody());
+    }
+
+    @Test
+    void compiledExpressionIsReusedConcurrently() throws Exception {
+        var expr = expression(new InterceptorAdapter(router), XPATH, "string(/persons/@id)");
+        try (ExecutorService es = Executors.newFixedThreadPool(8)) {
+            List<Future<?>> results = new ArrayList<>();
+            for (int i = 0; i < 200; i++) {
+                String id = String.valueOf(i);
+                results.add(es.submit(() -> {
+                    Exchange exc = post("/foo").contentType(APPLICATION_XML).body("<persons id='%s'/>".formatted(id)).buildExchange();
+                    assertEquals(id, expr.evaluate(exc, REQUEST, String.class));
+                    return null;
+                }));
+            }
+            for (Future<?> result : results)
+                result.get(30, TimeUnit.SECONDS);
+        }
+    }
 }
\ No newline at end of file
@@ -0,0 +1,178 @@
+/* Copyright 2026 predic8 GmbH, www.predic8.com
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+   http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License. */
+package com.predic8.membrane.core.proxies;
+
+import com.predic8.membrane.core.exchange.*;
+import com.predic8.membrane.core.openapi.serviceproxy.*;
+import com.predic8.membrane.core.router.*;
+import org.junit.jupiter.api.*;
+
+import java.net.*;
+import java.util.*;
+
+import static com.predic8.membrane.core.proxies.RoutingIndex.*;
+import static com.predic8.membrane.core.proxies.RuleManager.RuleDefinitionSource.*;
+import static com.predic8.membrane.test.TestUtil.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+class RoutingIndexTest {
+
+    private static final String[] METHODS = {"GET", "POST", "PUT", "DELETE"};
+
+    private RuleManager manager;
+
+    @BeforeEach
+    void setUp() {
+        manager = new RuleManager();
+        manager.setRouter(new TestRouter());
+    }
+
+    @Test
+    void literalPrefix() {
+        assertEquals("/foo/", getLiteralPrefix("/foo/.*"));
+        assertEquals("/foo", getLiteralPrefix("/foo"));
+        assertEquals("/fo", getLiteralPrefix("/foo?"));
+        assertEquals("/fo", getLiteralPrefix("/foo*"));
+        assertEquals("/fo", getLiteralPrefix("/foo{2}"));
+        assertEquals("/foo", getLiteralPrefix("/foo+"));
+        assertEquals("", getLiteralPrefix("/(a|b)"));
+        assertEquals("", getLiteralPrefix("/a|/b"));
+        assertEquals("", getLiteralPrefix("^/a"));
+        assertEquals("", getLiteralPrefix(".*"));
+    }
+
+    @Test
+    void exactHosts() {
+        assertNull(getExactHosts(new ServiceProxyKey(80)));
+        assertEquals(List.of("a.example.com", "b"), getExactHosts(new ServiceProxyKey("A.example.com  b", "*", null, 80)));
+        assertEquals(List.of("*.example.com"), getExactHosts(new ServiceProxyKey("*.example.com", "*", null, 80)));
+        assertNull(getExactHosts(new ServiceProxyKey("api.*", "*", null, 80)));
+    }
+
+    @Test
+    void firstMatchWins() throws Exception {
+        Proxy wildcard = add(key("*", "*", "/", false, 2000));
+        Proxy exact = add(key("localhost", "*", "/", false, 2000));
+
+        assertSame(wildcard, route("localhost", "GET", "/a", 2000));
+
+        manager.removeRule(wildcard);
+        assertSame(exact, route("localhost", "GET", "/a", 2000));
+    }
+
+    @Test
+    void sameResultAsLinearScan() throws Exception {
+        Random random = new Random(42);
+        for (int i = 0; i < 300; i++)
+            add(randomKey(random));
+
+        int matched = 0;
+        for (int i = 0; i < 20000; i++) {
+            Exchange exc = randomExchange(random);
+            Proxy expected = manager.getMatchingRule(exc, false);
+            assertSame(expected, manager.getMatchingRule(exc, true),
+                    () -> exc.getRequest().getHeader().getHost() + " " + exc.getRequest().getUri());
+            if (!(expected instanceof NullProxy))
+                matched++;
+        }
+        assertTrue(matched > 5000);
+    }
+
+    /**
+     * With many host based proxies, a request is only checked against the proxies for its host instead of all of them.
+     */
+    @Test
+    void indexNarrowsCandidates() throws Exception {
+        List<Proxy> proxies = new ArrayList<>();
+        for (int i = 0; i < 10000; i++)
+            proxies.add(add(key("api" + i + ".example.com", "*", "/service" + i + "/.*", true, 2000)));
+        Proxy fallback = add(key("*", "*", "/.*", true, 2000));
+        proxies.add(fallback);
+
+        RoutingIndex index = new RoutingIndex(0, proxies);
+        for (int i = 0; i < 10000; i += 997) {
+            assertEquals(List.of(proxies.get(i), fallback), index.getCandidates(2000, "api" + i + ".example.com", "/service" + i + "/op"));
+            assertSame(proxies.get(i), route("api" + i + ".example.com", "GET", "/service" + i + "/op", 2000));
+        }
+        assertEquals(List.of(fallback), index.getCandidates(2000, "api1.example.com", "/other"));
+        assertEquals(List.of(fallback), index.getCandidates(2000, "unknown.example.com", "/service1/op"));
+    }
+
+    private ServiceProxyKey randomKey(Random random) {
+        int port = 2000 + random.nextInt(3);
+        String method = random.nextInt(3) == 0 ? METHODS[random.nextInt(METHODS.length)] : "*";
+        String host = switch (random.nextInt(5)) {
+            case 0 -> "*";
+            case 1 -> "*.h" + random.nextInt(5) + ".example.com";
+            case 2 -> "h" + random.nextInt(5) + " H" + random.nextInt(5) + ".example.com";
+            default -> "h" + random.nextInt(5);
+        };
+        String path = "/p" + random.nextInt(10);
+        return switch (random.nextInt(6)) {
+            case 0 -> key(host, method, path, false, port);
+            case 1 -> key(host, method, path + "/.*", true, port);
+            case 2 -> key(host, method, path + "?/x.*", true, port);
+            case 3 -> key(host, method, "(" + path + "|/q)/.*", true, port);
+            case 4 -> {
+                APIProxyKey key = new APIProxyKey(null, host, port, path + "/{id}/", method, null, false);
+                if (random.nextBoolean())
+                    key.addBasePaths(new ArrayList<>(List.of("/base" + random.nextInt(3))));
+                yield key;
+            }
+            default -> new ServiceProxyKey(host, method, null, random.nextBoolean() ? port : -1);
+        };
+    }
+
+    private static Exchange randomExchange(Random random) throws UnknownHostException {
+        String host = switch (random.nextInt(5)) {
+            case 0 -> null;
+            case 1 -> "x.h" + random.nextInt(5) + ".example.com";
+            case 2 -> "H" + random.nextInt(5) + ".EXAMPLE.com:" + 2000;
+            default -> "h" + random.nextInt(6);
+        };
+        String path = switch (random.nextInt(5)) {
+            case 0 -> "/q/" + random.nextInt(3);
+            case 1 -> "/base" + random.nextInt(3) + "/x";
+            case 2 -> "/p" + random.nextInt(10);
+            default -> "/p" + random.nextInt(10) + "/" + (random.nextBoolean() ? "x" : "") + random.nextInt(3) + "/";
+        };
+        return exchange(host, METHODS[random.nextInt(METHODS.length)], path, 2000 + random.nextInt(4));
+    }
+
+    private static ServiceProxyKey key(String host, String method, String path, boolean regExp, int port) {
+        ServiceProxyKey key = new ServiceProxyKey(host, method, path, port);
+        key.setUsePathPattern(true);
+        key.setPathRegExp(regExp);
+        return key;
+    }
+
+    private Proxy add(ServiceProxyKey key) {
+        Proxy proxy = new ServiceProxy(key, "localhost", 80) {
+            @Override
+            public boolean isActive() {
+                return true;
+            }
+        };
+        manager.addProxy(proxy, MANUAL);
+        return proxy;
+    }
+
+    private Proxy route(String host, String method, String uri, int port) throws UnknownHostException {
+        return manager.getMatchingRule(exchange(host, method, uri, port));
+    }
+
+    private static Exchange exchange(String host, String method, String uri, int port) throws UnknownHostException {
+        return assembleExchange(host, method, uri, "1.1", port, "127.0.0.1");
+    }
+}
@@ -0,0 +1,75 @@
+/* Copyright 2026 predic8 GmbH, www.predic8.com
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+   http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License. */
+package com.predic8.membrane.core.proxies;
+
+import com.predic8.membrane.core.interceptor.*;
+import com.predic8.membrane.core.router.*;
+import org.junit.jupiter.api.*;
+
+import java.util.*;
+
+import static com.predic8.membrane.core.proxies.RuleManager.RuleDefinitionSource.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+class RuleManagerTest {
+
+    private RuleManager manager;
+
+    @BeforeEach
+    void setUp() {
+        manager = new RuleManager();
+        manager.setRouter(new TestRouter());
+    }
+
+    @Test
+    void interceptorsOfRemovedProxyAreStopped() {
+        StoppableInterceptor interceptor = new StoppableInterceptor();
+        Proxy proxy = proxy(interceptor);
+        manager.addProxy(proxy, MANUAL);
+
+        manager.removeRule(proxy);
+        assertEquals(1, interceptor.stopped);
+    }
+
+    @Test
+    void interceptorsSharedWithReplacementAreNotStopped() throws Exception {
+        StoppableInterceptor shared = new StoppableInterceptor();
+        Proxy proxy = proxy(shared);
+        manager.addProxy(proxy, MANUAL);
+
+        manager.replaceRule(proxy, proxy.clone());
+        assertEquals(0, shared.stopped);
+
+        StoppableInterceptor replaced = new StoppableInterceptor();
+        Proxy current = manager.getRules().getFirst();
+        manager.replaceRule(current, proxy(replaced));
+        assertEquals(1, shared.stopped);
+    }
+
+    private static Proxy proxy(Interceptor interceptor) {
+        ServiceProxy proxy = new ServiceProxy(new ServiceProxyKey(3721), "localhost", 80);
+        proxy.setFlow(new ArrayList<>(List.of(interceptor)));
+        return proxy;
+    }
+
+    private static class StoppableInterceptor extends AbstractInterceptor {
+
+        int stopped;
+
+        @Override
+        public void stop() {
+            stopped++;
+        }
+    }
+}
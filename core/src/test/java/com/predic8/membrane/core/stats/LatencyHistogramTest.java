@@ -0,0 +1,106 @@
+/* Copyright 2026 predic8 GmbH, www.predic8.com
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+   http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License. */
+package com.predic8.membrane.core.stats;
+
+import org.junit.jupiter.api.*;
+
+import java.util.*;
+import java.util.concurrent.*;
+
+import static com.predic8.membrane.core.stats.LatencyHistogram.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+class LatencyHistogramTest {
+
+    @Test
+    void bucketBoundaries() {
+        for (long v : new long[]{0, 1, 63, 64, 65, 127, 128, 1000, 20_000, 1_000_000, MAX_TRACKABLE_MICROS}) {
+            int index = indexOf(v);
+            assertTrue(highestValueOf(index) >= v, "upper bound of " + v);
+            assertTrue(index == 0 || highestValueOf(index - 1) < v, "lower bound of " + v);
+            assertTrue(highestValueOf(index) - v <= v / 32, "precision of " + v);
+        }
+        assertEquals(BUCKETS - 1, indexOf(MAX_TRACKABLE_MICROS));
+        assertEquals(896, BUCKETS);
+    }
+
+    @Test
+    void percentiles() {
+        LatencyHistogram h = new LatencyHistogram();
+        for (int i = 1; i <= 1000; i++)
+            h.record(i * 100L);
+        h.record(5_000_000);
+
+        Snapshot s = h.snapshot();
+        assertEquals(1001, s.getCount());
+        assertEquals(5_000_000, s.getMax());
+        assertEquals(50_050_000L + 5_000_000, s.getSum());
+        assertWithinPrecision(50_100, s.getValueAtPercentile(50));
+        assertWithinPrecision(99_100, s.getValueAtPercentile(99));
+        assertEquals(5_000_000, s.getValueAtPercentile(100));
+    }
+
+    @Test
+    void countAtOrBelow() {
+        LatencyHistogram h = new LatencyHistogram();
+        h.record(500);
+        h.record(9_000);
+        h.record(20_000);
+        h.record(30_000);
+
+        Snapshot s = h.snapshot();
+        assertEquals(0, s.getCountAtOrBelow(100));
+        assertEquals(1, s.getCountAtOrBelow(1_000));
+        assertEquals(2, s.getCountAtOrBelow(10_000));
+        assertEquals(3, s.getCountAtOrBelow(25_000));
+        assertEquals(4, s.getCountAtOrBelow(Long.MAX_VALUE));
+    }
+
+    @Test
+    void emptyAndClamped() {
+        LatencyHistogram h = new LatencyHistogram();
+        assertEquals(0, h.snapshot().getValueAtPercentile(99));
+
+        h.recordNanos(-5);
+        h.record(Long.MAX_VALUE / 2);
+        Snapshot s = h.snapshot();
+        assertEquals(2, s.getCount());
+        assertEquals(0, s.getValueAtPercentile(50));
+        assertEquals(Long.MAX_VALUE / 2, s.getMax());
+        assertEquals(2, s.getCountAtOrBelow(MAX_TRACKABLE_MICROS));
+    }
+
+    @Test
+    void concurrentRecording() throws Exception {
+        LatencyHistogram h = new LatencyHistogram();
+        int threads = 16, perThread = 10_000;
+        try (ExecutorService es = Executors.newVirtualThreadPerTaskExecutor()) {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < threads; t++)
+                futures.add(es.submit(() -> {
+                    for (int i = 0; i < perThread; i++)
+                        h.record(i % 1000);
+                }));
+            for (Future<?> f : futures)
+                f.get();
+        }
+        assertEquals((long) threads * perThread, h.getCount());
+        assertEquals((long) threads * perThread, h.snapshot().getCount());
+        assertEquals(999, h.snapshot().getMax());
+    }
+
+    private static void assertWithinPrecision(long expected, long actual) {
+        assertTrue(Math.abs(actual - expected) <= expected / 32, "expected about " + expected + " but was " + actual);
+    }
+}
@@ -0,0 +1,127 @@
+/* Copyright 2026 predic8 GmbH, www.predic8.com
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+   http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License. */
+package com.predic8.membrane.core.stats;
+
+import com.predic8.membrane.core.exchange.*;
+import com.predic8.membrane.core.interceptor.*;
+import com.predic8.membrane.core.interceptor.prometheus.*;
+import com.predic8.membrane.core.proxies.*;
+import com.predic8.membrane.core.router.*;
+import com.predic8.membrane.core.transport.http.*;
+import org.junit.jupiter.api.*;
+
+import static com.predic8.membrane.core.http.Request.*;
+import static com.predic8.membrane.core.http.Response.*;
+import static com.predic8.membrane.core.interceptor.Outcome.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+class LatencyStatisticsTest {
+
+    private static final int BACKEND_PORT = 3714;
+    private static final int GATEWAY_PORT = 3715;
+
+    private static TestRouter backend;
+    private static TestRouter gateway;
+    private static ServiceProxy proxy;
+    private static final AbstractInterceptor slowInterceptor = new AbstractInterceptor() {
+        @Override
+        public Outcome handleRequest(Exchange exc) {
+            sleep(30);
+            return CONTINUE;
+        }
+    };
+
+    @BeforeAll
+    static void setUp() throws Exception {
+        backend = new TestRouter();
+        ServiceProxy target = new ServiceProxy(new ServiceProxyKey(BACKEND_PORT), null, 0);
+        target.getFlow().add(new AbstractInterceptor() {
+            @Override
+            public Outcome handleRequest(Exchange exc) {
+                sleep(50);
+                exc.setResponse(ok("backend").build());
+                return RETURN;
+            }
+        });
+        backend.add(target);
+        backend.start();
+
+        gateway = new TestRouter();
+        gateway.getConfiguration().setInterceptorLatency(true);
+        proxy = new ServiceProxy(new ServiceProxyKey(GATEWAY_PORT), "localhost", BACKEND_PORT);
+        proxy.getFlow().add(slowInterceptor);
+        gateway.add(proxy);
+        gateway.start();
+    }
+
+    @AfterAll
+    static void tearDown() {
+        gateway.stop();
+        backend.stop();
+    }
+
+    @Test
+    void recordsPhasesAndInterceptors() throws Exception {
+        try (HttpClient client = new HttpClient()) {
+            for (int i = 0; i < 3; i++) {
+                Exchange exc = get("http://localhost:" + GATEWAY_PORT + "/").buildExchange();
+                client.call(exc);
+                assertEquals("backend", exc.getResponse().getBodyAsStringDecoded());
+            }
+        }
+
+        LatencyStatistics latency = proxy.getStatisticCollector().getLatency();
+        waitForCount(latency.getTotal(), 3);
+
+        LatencyHistogram.Snapshot backendTime = latency.getBackend().snapshot();
+        LatencyHistogram.Snapshot overhead = latency.getOverhead().snapshot();
+        LatencyHistogram.Snapshot total = latency.getTotal().snapshot();
+        assertEquals(3, backendTime.getCount());
+        assertTrue(backendTime.getValueAtPercentile(50) >= 50_000, "backend includes the sleeping backend");
+        assertTrue(overhead.getValueAtPercentile(50) >= 30_000, "overhead includes the slow interceptor");
+        assertTrue(total.getValueAtPercentile(50) >= 80_000);
+
+        LatencyStatistics.InterceptorLatency il = latency.getInterceptor(slowInterceptor);
+        assertNotNull(il);
+        assertEquals(3, il.getRequest().getCount());
+        assertTrue(il.getRequest().snapshot().getValueAtPercentile(50) >= 30_000);
+
+        PrometheusInterceptor prometheus = new PrometheusInterceptor();
+        prometheus.setSloBuckets("20, 2.5, 1000");
+        prometheus.init(gateway);
+        Exchange scrape = get("/metrics").buildExchange();
+        prometheus.handleRequest(scrape);
+        String metrics = scrape.getResponse().getBodyAsStringDecoded();
+        assertTrue(metrics.contains("# TYPE membrane_latency_seconds histogram\n"));
+        assertTrue(metrics.contains("phase=\"backend\",le=\"0.0025\"} 0\n"));
+        assertTrue(metrics.contains("phase=\"backend\",le=\"1\"} 3\n"));
+        assertTrue(metrics.contains("phase=\"total\",le=\"+Inf\"} 3\n"));
+        assertTrue(metrics.contains("# TYPE membrane_interceptor_latency_seconds histogram\n"));
+        assertEquals("2.5,20,1000", prometheus.getSloBuckets());
+    }
+
+    private static void waitForCount(LatencyHistogram histogram, long count) throws InterruptedException {
+        // statistics are collected after the response has been written
+        for (int i = 0; i < 100 && histogram.getCount() < count; i++)
+            Thread.sleep(20);
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
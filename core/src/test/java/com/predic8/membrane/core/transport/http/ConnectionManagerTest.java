@@ -0,0 +1,178 @@
+/* Copyright 2026 predic8 GmbH, www.predic8.com
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+   http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License. */
+package com.predic8.membrane.core.transport.http;
+
+import com.predic8.membrane.core.transport.http.ConnectionManager.*;
+import com.predic8.membrane.core.transport.http.client.*;
+import com.predic8.membrane.core.util.*;
+import org.junit.jupiter.api.*;
+
+import java.io.*;
+import java.net.*;
+import java.util.*;
+import java.util.concurrent.*;
+
+import static java.util.concurrent.TimeUnit.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+class ConnectionManagerTest {
+
+    private static ServerSocket server;
+    private TimerManager timerManager;
+
+    @BeforeAll
+    static void startServer() throws IOException {
+        // connections are accepted by the backlog, the tests never send data
+        server = new ServerSocket(0, 50, InetAddress.getLoopbackAddress());
+    }
+
+    @AfterAll
+    static void stopServer() throws IOException {
+        server.close();
+    }
+
+    @BeforeEach
+    void setUp() {
+        timerManager = new TimerManager();
+    }
+
+    @AfterEach
+    void tearDown() {
+        timerManager.shutdown();
+    }
+
+    @Test
+    void idleConnectionsAreReusedLifo() throws Exception {
+        ConnectionManager cm = createManager(new ConnectionConfiguration());
+        Connection c1 = get(cm);
+        Connection c2 = get(cm);
+        c1.release();
+        c2.release();
+
+        assertSame(c2, get(cm));
+        assertSame(c1, get(cm));
+        assertEquals(new PoolStatistics(0, 2, 0, 2, 0), getStatistics(cm));
+    }
+
+    @Test
+    void closedConnectionIsNotReused() throws Exception {
+        ConnectionManager cm = createManager(new ConnectionConfiguration());
+        Connection c1 = get(cm);
+        c1.close();
+        c1.close();
+
+        Connection c2 = get(cm);
+        assertNotSame(c1, c2);
+        assertEquals(1, cm.getNumberInPool());
+        assertEquals(new PoolStatistics(0, 1, 0, 2, 1), getStatistics(cm));
+    }
+
+    @Test
+    void waitsForConnectionWhenLimitIsReached() throws Exception {
+        ConnectionConfiguration config = new ConnectionConfiguration();
+        config.setMaxConnectionsPerHost(1);
+        ConnectionManager cm = createManager(config);
+        Connection c1 = get(cm);
+
+        try (ExecutorService es = Executors.newSingleThreadExecutor()) {
+            Future<Connection> waiting = es.submit(() -> get(cm));
+            for (int i = 0; i < 50 && getStatistics(cm).pending() == 0; i++)
+                Thread.sleep(20);
+            assertEquals(new PoolStatistics(0, 1, 1, 1, 0), getStatistics(cm));
+
+            c1.release();
+            assertSame(c1, waiting.get(5, SECONDS));
+        }
+        assertEquals(1, cm.getNumberInPool());
+    }
+
+    @Test
+    void leaseTimeout() throws Exception {
+        ConnectionConfiguration config = new ConnectionConfiguration();
+        config.setMaxConnectionsPerHost(1);
+        config.setLeaseTimeout(100);
+        ConnectionManager cm = createManager(config);
+        Connection c1 = get(cm);
+
+        assertThrows(IOException.class, () -> get(cm));
+        assertEquals(0, getStatistics(cm).pending());
+
+        c1.close();
+        get(cm);
+    }
+
+    @Test
+    void surplusIdleConnectionsAreClosed() throws Exception {
+        ConnectionConfiguration config = new ConnectionConfiguration();
+        config.setMaxIdleConnectionsPerHost(1);
+        ConnectionManager cm = createManager(config);
+        Connection c1 = get(cm);
+        Connection c2 = get(cm);
+        c1.release();
+        c2.release();
+
+        assertTrue(c1.isClosed());
+        assertFalse(c2.isClosed());
+        assertEquals(new PoolStatistics(1, 0, 0, 2, 1), getStatistics(cm));
+    }
+
+    @Test
+    void noIdleConnections() throws Exception {
+        ConnectionConfiguration config = new ConnectionConfiguration();
+        config.setMaxIdleConnectionsPerHost(0);
+        ConnectionManager cm = createManager(config);
+        Connection c1 = get(cm);
+        c1.release();
+
+        assertTrue(c1.isClosed());
+        assertEquals(0, cm.getNumberInPool());
+    }
+
+    @Test
+    void concurrentLeases() throws Exception {
+        ConnectionConfiguration config = new ConnectionConfiguration();
+        config.setMaxConnectionsPerHost(4);
+        ConnectionManager cm = createManager(config);
+
+        try (ExecutorService es = Executors.newFixedThreadPool(16)) {
+            List<Future<Void>> leases = new ArrayList<>();
+            for (int i = 0; i < 1000; i++) {
+                leases.add(es.submit(() -> {
+                    Connection c = get(cm);
+                    assertTrue(getStatistics(cm).leased() <= 4);
+                    c.release();
+                    return null;
+                }));
+            }
+            for (Future<Void> lease : leases)
+                lease.get(30, SECONDS); // rethrows failed assertions
+        }
+        PoolStatistics stats = getStatistics(cm);
+        assertEquals(0, stats.leased());
+        assertTrue(stats.opened() <= 4);
+        assertEquals(stats.opened(), stats.idle());
+    }
+
+    private ConnectionManager createManager(ConnectionConfiguration config) {
+        return new ConnectionManager(config, timerManager);
+    }
+
+    private static Connection get(ConnectionManager cm) throws IOException {
+        return cm.getConnection(server.getInetAddress().getHostAddress(), server.getLocalPort(), null, null, 1000);
+    }
+
+    private static PoolStatistics getStatistics(ConnectionManager cm) {
+        return cm.getPoolStatistics().values().iterator().next();
+    }
+}
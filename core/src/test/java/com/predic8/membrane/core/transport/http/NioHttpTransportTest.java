@@ -0,0 +1,154 @@
+/* Copyright 2026 predic8 GmbH, www.predic8.com
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+   http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License. */
+
+package com.predic8.membrane.core.transport.http;
+
+import com.predic8.membrane.core.exchange.*;
+import com.predic8.membrane.core.interceptor.*;
+import com.predic8.membrane.core.proxies.*;
+import com.predic8.membrane.core.router.*;
+import org.junit.jupiter.api.*;
+
+import java.io.*;
+import java.net.*;
+import java.util.concurrent.*;
+
+import static com.predic8.membrane.core.http.Response.*;
+import static com.predic8.membrane.core.interceptor.Outcome.*;
+import static com.predic8.membrane.core.transport.http.HttpTransport.IoModel.*;
+import static java.nio.charset.StandardCharsets.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class NioHttpTransportTest {
+
+    private static final int PORT = 3041;
+
+    private TestRouter router;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        router = new TestRouter();
+        router.getTransport().setIoModel(NIO);
+        router.getTransport().setSocketTimeout(2000);
+
+        ServiceProxy sp = new ServiceProxy(new ServiceProxyKey("*", "*", ".*", PORT), "", -1);
+        sp.getFlow().add(new AbstractInterceptor() {
+            @Override
+            public Outcome handleRequest(Exchange exc) {
+                exc.setResponse(ok(exc.getRequest().getUri()).build());
+                return RETURN;
+            }
+        });
+        router.add(sp);
+        router.start();
+    }
+
+    @AfterEach
+    void tearDown() {
+        router.stop();
+    }
+
+    @Test
+    void keepAliveRequestsOnOneConnection() throws Exception {
+        try (Socket s = new Socket("localhost", PORT)) {
+            BufferedInputStream in = new BufferedInputStream(s.getInputStream());
+            for (int i = 0; i < 3; i++) {
+                s.getOutputStream().write(get("/" + i));
+                assertEquals("/" + i, readResponseBody(in));
+                Thread.sleep(100);
+            }
+        }
+    }
+
+    @Test
+    void pipelinedRequests() throws Exception {
+        try (Socket s = new Socket("localhost", PORT)) {
+            s.getOutputStream().write(concat(get("/a"), get("/b")));
+            BufferedInputStream in = new BufferedInputStream(s.getInputStream());
+            assertEquals("/a", readResponseBody(in));
+            assertEquals("/b", readResponseBody(in));
+        }
+    }
+
+    @Test
+    void requestHeadInFragments() throws Exception {
+        try (Socket s = new Socket("localhost", PORT)) {
+            s.setTcpNoDelay(true);
+            byte[] request = get("/fragmented");
+            for (byte b : request) {
+                s.getOutputStream().write(b);
+                s.getOutputStream().flush();
+            }
+            assertEquals("/fragmented", readResponseBody(new BufferedInputStream(s.getInputStream())));
+        }
+    }
+
+    @Test
+    void idleConnectionDoesNotOccupyThread() throws Exception {
+        ThreadPoolExecutor executor = (ThreadPoolExecutor) router.getTransport().getExecutorService();
+        try (Socket s = new Socket("localhost", PORT)) {
+            s.getOutputStream().write(get("/idle"));
+            assertEquals("/idle", readResponseBody(new BufferedInputStream(s.getInputStream())));
+            waitUntil(() -> executor.getActiveCount() == 0);
+            assertEquals(0, executor.getActiveCount());
+        }
+    }
+
+    @Test
+    void idleConnectionTimesOut() throws Exception {
+        try (Socket s = new Socket("localhost", PORT)) {
+            s.setSoTimeout(10000);
+            assertEquals(-1, s.getInputStream().read());
+        }
+    }
+
+    private static byte[] get(String path) {
+        return "GET %s HTTP/1.1\r\nHost: localhost\r\n\r\n".formatted(path).getBytes(US_ASCII);
+    }
+
+    private static byte[] concat(byte[] a, byte[] b) {
+        byte[] r = new byte[a.length + b.length];
+        System.arraycopy(a, 0, r, 0, a.length);
+        System.arraycopy(b, 0, r, a.length, b.length);
+        return r;
+    }
+
+    private static String readResponseBody(InputStream in) throws IOException {
+        int contentLength = -1;
+        String line;
+        while (!(line = readLine(in)).isEmpty()) {
+            if (line.toLowerCase().startsWith("content-length:"))
+                contentLength = Integer.parseInt(line.substring(15).trim());
+        }
+        assertTrue(contentLength >= 0);
+        return new String(in.readNBytes(contentLength), UTF_8);
+    }
+
+    private static String readLine(InputStream in) throws IOException {
+        StringBuilder sb = new StringBuilder();
+        int c;
+        while ((c = in.read()) != '\n') {
+            if (c == -1)
+                throw new EOFException();
+            if (c != '\r')
+                sb.append((char) c);
+        }
+        return sb.toString();
+    }
+
+    private static void waitUntil(Callable<Boolean> condition) throws Exception {
+        for (int i = 0; i < 50 && !condition.call(); i++)
+            Thread.sleep(100);
+    }
+}
@@ -0,0 +1,189 @@
+/* Copyright 2026 predic8 GmbH, www.predic8.com
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+   http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License. */
+
+package com.predic8.membrane.core.transport.http;
+
+import com.predic8.membrane.core.exchange.*;
+import com.predic8.membrane.core.exchangestore.*;
+import com.predic8.membrane.core.interceptor.*;
+import com.predic8.membrane.core.proxies.*;
+import com.predic8.membrane.core.router.*;
+import jdk.jfr.consumer.*;
+import org.junit.jupiter.api.*;
+import org.slf4j.*;
+
+import java.io.*;
+import java.time.*;
+import java.util.*;
+import java.util.concurrent.*;
+
+import static com.predic8.membrane.core.http.Request.*;
+import static com.predic8.membrane.core.http.Response.*;
+import static com.predic8.membrane.core.interceptor.Outcome.*;
+import static com.predic8.membrane.core.transport.http.HttpTransport.ExecutionModel.*;
+import static java.util.concurrent.TimeUnit.*;
+import static java.util.stream.Collectors.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Runs the gateway with <tt>executionModel="virtual"</tt> and records a JFR summary of virtual threads pinning their
+ * carrier thread.
+ */
+class VirtualThreadExecutionTest {
+
+    private static final Logger log = LoggerFactory.getLogger(VirtualThreadExecutionTest.class);
+
+    private static final int BACKEND_PORT = 3712;
+    private static final int GATEWAY_PORT = 3713;
+    private static final int REQUESTS = 400;
+
+    /**
+     * Classes reworked to avoid monitors on the request path.
+     */
+    private static final List<String> NON_PINNING_CLASSES = List.of(
+            ConnectionManager.class.getName(),
+            "com.predic8.membrane.core.interceptor.balancer.RoundRobinStrategy",
+            "com.predic8.membrane.core.interceptor.balancer.faultmonitoring.FaultMonitoringStrategy",
+            LimitedMemoryExchangeStore.class.getName());
+
+    private static TestRouter backend;
+    private static TestRouter gateway;
+    private static final Set<Boolean> handledOnVirtualThread = ConcurrentHashMap.newKeySet();
+
+    @BeforeAll
+    static void setUp() throws Exception {
+        backend = new TestRouter();
+        ServiceProxy slow = new ServiceProxy(new ServiceProxyKey(BACKEND_PORT), null, 0);
+        slow.getFlow().add(new AbstractInterceptor() {
+            @Override
+            public Outcome handleRequest(Exchange exc) {
+                try {
+                    Thread.sleep(20);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                exc.setResponse(ok().body(exc.getRequest().getUri()).build());
+                return RETURN;
+            }
+        });
+        backend.add(slow);
+        backend.getTransport().setConcurrentConnectionLimitPerIp(REQUESTS);
+        backend.getTransport().setBacklog(REQUESTS);
+        backend.start();
+
+        gateway = new TestRouter();
+        gateway.setExchangeStore(new LimitedMemoryExchangeStore());
+        gateway.getTransport().setExecutionModel(VIRTUAL);
+        gateway.getTransport().setBacklog(REQUESTS);
+        ServiceProxy sp = new ServiceProxy(new ServiceProxyKey(GATEWAY_PORT), "localhost", BACKEND_PORT);
+        sp.getFlow().add(new AbstractInterceptor() {
+            @Override
+            public Outcome handleRequest(Exchange exc) {
+                handledOnVirtualThread.add(Thread.currentThread().isVirtual());
+                return CONTINUE;
+            }
+        });
+        gateway.add(sp);
+        gateway.start();
+    }
+
+    @AfterAll
+    static void tearDown() {
+        gateway.stop();
+        backend.stop();
+    }
+
+    @Test
+    void handlersRunOnVirtualThreads() throws Exception {
+        try (HttpClient client = new HttpClient()) {
+            Exchange exc = get("http://localhost:" + GATEWAY_PORT + "/virtual").buildExchange();
+            client.call(exc);
+            assertEquals("/virtual", exc.getResponse().getBodyAsStringDecoded());
+        }
+        assertEquals(Set.of(true), handledOnVirtualThread);
+    }
+
+    @Test
+    void maxThreadPoolSizeLimitsVirtualThreads() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        try (BoundedExecutorService es = new BoundedExecutorService(Executors.newVirtualThreadPerTaskExecutor(), 2)) {
+            List<Future<?>> running = new ArrayList<>();
+            for (int i = 0; i < 2; i++)
+                running.add(es.submit(() -> {
+                    release.await();
+                    return null;
+                }));
+            assertEquals(2, es.getActiveCount());
+            assertThrows(RejectedExecutionException.class, () -> es.execute(() -> {}));
+
+            release.countDown();
+            for (Future<?> f : running)
+                f.get(10, SECONDS);
+            // the permit is returned right after the future completes
+            while (es.getActiveCount() > 0)
+                Thread.sleep(1);
+            es.submit(() -> {}).get(10, SECONDS);
+        }
+    }
+
+    @Test
+    void pinningReport() throws Exception {
+        List<RecordedEvent> pinned = new CopyOnWriteArrayList<>();
+        try (RecordingStream rs = new RecordingStream()) {
+            rs.enable("jdk.VirtualThreadPinned").withThreshold(Duration.ZERO).withStackTrace();
+            rs.onEvent("jdk.VirtualThreadPinned", pinned::add);
+            rs.startAsync();
+
+            runFanOut();
+
+            rs.stop();
+        }
+
+        Map<String, Long> summary = pinned.stream().collect(groupingBy(VirtualThreadExecutionTest::firstMembraneFrame, TreeMap::new, counting()));
+        log.info("Virtual thread pinning report: {} events during {} requests.", pinned.size(), REQUESTS);
+        summary.forEach((frame, count) -> log.info("  {} x {}", count, frame));
+
+        for (String frame : summary.keySet())
+            for (String clazz : NON_PINNING_CLASSES)
+                assertFalse(frame.startsWith(clazz + "."), "Virtual thread pinned in " + frame);
+    }
+
+    private static void runFanOut() throws Exception {
+        try (HttpClient client = new HttpClient();
+             ExecutorService es = Executors.newVirtualThreadPerTaskExecutor()) {
+            List<Future<Integer>> results = new ArrayList<>();
+            for (int i = 0; i < REQUESTS; i++) {
+                String path = "/fan-out/" + i;
+                results.add(es.submit(() -> {
+                    Exchange exc = get("http://localhost:" + GATEWAY_PORT + path).buildExchange();
+                    client.call(exc);
+                    return exc.getResponse().getStatusCode();
+                }));
+            }
+            for (Future<Integer> result : results)
+                assertEquals(200, result.get(60, SECONDS));
+        }
+    }
+
+    private static String firstMembraneFrame(RecordedEvent event) {
+        RecordedStackTrace stackTrace = event.getStackTrace();
+        if (stackTrace == null)
+            return "<no stack trace>";
+        return stackTrace.getFrames().stream()
+                .filter(f -> f.getMethod().getType().getName().startsWith("com.predic8."))
+                .findFirst()
+                .map(f -> f.getMethod().getType().getName() + "." + f.getMethod().getName() + ":" + f.getLineNumber())
+                .orElse("<outside of membrane>");
+    }
+}
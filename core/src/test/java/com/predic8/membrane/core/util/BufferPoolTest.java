@@ -0,0 +1,75 @@
+/* Copyright 2026 predic8 GmbH, www.predic8.com
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+   http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License. */
+
+package com.predic8.membrane.core.util;
+
+import org.junit.jupiter.api.*;
+
+import static com.predic8.membrane.core.util.BufferPool.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+class BufferPoolTest {
+
+    private final BufferPool pool = new BufferPool(2);
+
+    @Test
+    void sizeClasses() {
+        assertEquals(MIN_SIZE, pool.acquire(1).length);
+        assertEquals(MIN_SIZE, pool.acquire(MIN_SIZE).length);
+        assertEquals(2 * MIN_SIZE, pool.acquire(MIN_SIZE + 1).length);
+        assertEquals(MAX_SIZE, pool.acquire(MAX_SIZE).length);
+        assertEquals(MAX_SIZE + 1, pool.acquire(MAX_SIZE + 1).length);
+    }
+
+    @Test
+    void releasedBuffersAreReused() {
+        byte[] buffer = pool.acquire(8000);
+        pool.release(buffer);
+        assertSame(buffer, pool.acquire(5000));
+        assertNotSame(buffer, pool.acquire(5000));
+    }
+
+    @Test
+    void freeBuffersAreBounded() {
+        byte[] a = pool.acquire(MIN_SIZE), b = pool.acquire(MIN_SIZE), c = pool.acquire(MIN_SIZE);
+        pool.release(a);
+        pool.release(b);
+        pool.release(c);
+        assertSame(b, pool.acquire(MIN_SIZE));
+        assertSame(a, pool.acquire(MIN_SIZE));
+        assertNotSame(c, pool.acquire(MIN_SIZE));
+    }
+
+    @Test
+    void outstanding() {
+        byte[] pooled = pool.acquire(100);
+        byte[] large = pool.acquire(MAX_SIZE * 2);
+        assertEquals(1, pool.getOutstanding());
+        pool.release(large);
+        pool.release(pooled);
+        assertEquals(0, pool.getOutstanding());
+    }
+
+    @Test
+    void foreignAndDoubleReleasesAreIgnored() {
+        byte[] pooled = pool.acquire(MIN_SIZE);
+        pool.release(new byte[MIN_SIZE]);
+        assertEquals(1, pool.getOutstanding());
+        pool.release(pooled);
+        pool.release(pooled);
+        assertEquals(0, pool.getOutstanding());
+        assertSame(pooled, pool.acquire(MIN_SIZE));
+        assertNotSame(pooled, pool.acquire(MIN_SIZE));
+    }
+}
@@ -0,0 +1,110 @@
+/* Copyright 2026 predic8 GmbH, www.predic8.com
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+   http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License. */
+
+package com.predic8.membrane.evaluation;
+
+import com.predic8.membrane.core.exchange.*;
+import com.predic8.membrane.core.interceptor.balancer.*;
+import org.junit.jupiter.api.*;
+import org.slf4j.*;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.function.*;
+
+import static com.predic8.membrane.core.http.Response.*;
+import static java.util.concurrent.TimeUnit.*;
+
+/**
+ * Simulates nodes with skewed latency and limited capacity and compares the latency of the requests for the
+ * strategies. The numbers are only logged.
+ */
+class DispatchingStrategyComparisonTest {
+
+    private static final Logger log = LoggerFactory.getLogger(DispatchingStrategyComparisonTest.class);
+
+    private static final int CLIENTS = 32;
+    private static final int REQUESTS_PER_CLIENT = 50;
+    private static final int NODE_CAPACITY = 4;
+
+    /**
+     * Service time of the nodes in milliseconds. The first node is ten times slower than the others.
+     */
+    private static final int[] SERVICE_TIME = {20, 2, 2, 2};
+
+    @Test
+    void skewedLatency() throws Exception {
+        run("round robin", RoundRobinStrategy::new);
+        run("least requests", () -> {
+            LeastRequestsStrategy s = new LeastRequestsStrategy();
+            s.setSlowStart(0);
+            return s;
+        });
+        run("peak EWMA", () -> {
+            PeakEwmaStrategy s = new PeakEwmaStrategy();
+            s.setSlowStart(0);
+            return s;
+        });
+    }
+
+    private static void run(String name, Supplier<DispatchingStrategy> factory) throws Exception {
+        DispatchingStrategy strategy = factory.get();
+        Map<Node, Semaphore> capacity = new HashMap<>();
+        Map<Node, Integer> serviceTime = new HashMap<>();
+        List<Node> nodes = new ArrayList<>();
+        for (int i = 0; i < SERVICE_TIME.length; i++) {
+            Node node = new Node("node" + i, 80);
+            nodes.add(node);
+            capacity.put(node, new Semaphore(NODE_CAPACITY, true));
+            serviceTime.put(node, SERVICE_TIME[i]);
+        }
+        Cluster cluster = new Cluster();
+        cluster.setNodes(nodes);
+        LoadBalancingInterceptor lb = new LoadBalancingInterceptor();
+        lb.setClusters(List.of(cluster));
+
+        long[] latencies = new long[CLIENTS * REQUESTS_PER_CLIENT];
+        try (ExecutorService es = Executors.newVirtualThreadPerTaskExecutor()) {
+            List<Future<Void>> clients = new ArrayList<>();
+            for (int c = 0; c < CLIENTS; c++) {
+                int client = c;
+                clients.add(es.submit(() -> {
+                    for (int r = 0; r < REQUESTS_PER_CLIENT; r++) {
+                        Exchange exc = new Exchange(null);
+                        long start = System.nanoTime();
+                        Node node = strategy.dispatch(lb, exc);
+                        Semaphore semaphore = capacity.get(node);
+                        semaphore.acquire();
+                        try {
+                            Thread.sleep(serviceTime.get(node));
+                        } finally {
+                            semaphore.release();
+                        }
+                        exc.setResponse(ok().build());
+                        strategy.done(exc);
+                        latencies[client * REQUESTS_PER_CLIENT + r] = System.nanoTime() - start;
+                    }
+                    return null;
+                }));
+            }
+            for (Future<Void> client : clients)
+                client.get(60, SECONDS);
+        }
+
+        Arrays.sort(latencies);
+        log.info("{}: p50 {} ms, p99 {} ms", name,
+                NANOSECONDS.toMillis(latencies[latencies.length / 2]),
+                NANOSECONDS.toMillis(latencies[latencies.length * 99 / 100]));
+    }
+}
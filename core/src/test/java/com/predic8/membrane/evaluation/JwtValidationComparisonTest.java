@@ -0,0 +1,99 @@
+/* Copyright 2026 predic8 GmbH, www.predic8.com
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+   http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License. */
+package com.predic8.membrane.evaluation;
+
+import com.predic8.membrane.core.http.*;
+import com.predic8.membrane.core.interceptor.jwt.*;
+import com.predic8.membrane.core.router.*;
+import org.jose4j.jwk.*;
+import org.jose4j.jws.*;
+import org.jose4j.jwt.*;
+import org.junit.jupiter.api.*;
+import org.slf4j.*;
+
+import java.util.*;
+
+import static com.predic8.membrane.core.interceptor.Outcome.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Compares the cost of validating RS256 tokens the first time ("cold") with validating them again ("warm"), with
+ * and without the cache of verified tokens. The numbers are only logged. ES256 is not covered, as <code>jwks</code>
+ * only loads RSA keys.
+ */
+class JwtValidationComparisonTest {
+
+    private static final Logger log = LoggerFactory.getLogger(JwtValidationComparisonTest.class);
+
+    private static final int TOKENS = 2000;
+    private static final String AUDIENCE = "aud";
+
+    @Test
+    void coldVersusWarm() throws Exception {
+        RsaJsonWebKey key = RsaJwkGenerator.generateJwk(2048);
+        key.setKeyId("membrane");
+        List<String> tokens = new ArrayList<>();
+        for (int i = 0; i < TOKENS; i++)
+            tokens.add(sign(key));
+
+        // warm up the JIT
+        run(createInterceptor(key, 10_000), tokens.subList(0, 200));
+        run(createInterceptor(key, 0), tokens.subList(0, 200));
+
+        for (int cacheSize : new int[]{0, 10_000}) {
+            JwtAuthInterceptor interceptor = createInterceptor(key, cacheSize);
+            long cold = run(interceptor, tokens);
+            long warm = run(interceptor, tokens);
+            log.info("RS256, verifiedJwtCacheSize {}: cold {} ns per token, warm {} ns per token", cacheSize, cold / TOKENS, warm / TOKENS);
+        }
+    }
+
+    private static long run(JwtAuthInterceptor interceptor, List<String> tokens) {
+        long start = System.nanoTime();
+        for (String token : tokens)
+            assertEquals(CONTINUE, interceptor.handleRequest(new Request.Builder().header("Authorization", "Bearer " + token).buildExchange()));
+        return System.nanoTime() - start;
+    }
+
+    private static JwtAuthInterceptor createInterceptor(RsaJsonWebKey key, int cacheSize) {
+        RsaJsonWebKey publicOnly = new RsaJsonWebKey(key.getRsaPublicKey());
+        publicOnly.setKeyId(key.getKeyId());
+        Jwks.Jwk jwk = new Jwks.Jwk();
+        jwk.setContent(publicOnly.toJson());
+        Jwks jwks = new Jwks();
+        jwks.setJwks(List.of(jwk));
+
+        JwtAuthInterceptor interceptor = new JwtAuthInterceptor();
+        interceptor.setJwks(jwks);
+        interceptor.setExpectedAud(AUDIENCE);
+        interceptor.setVerifiedJwtCacheSize(cacheSize);
+        interceptor.init(new DummyTestRouter());
+        return interceptor;
+    }
+
+    private static String sign(RsaJsonWebKey key) throws Exception {
+        JwtClaims claims = new JwtClaims();
+        claims.setExpirationTimeMinutesInTheFuture(10);
+        claims.setIssuedAtToNow();
+        claims.setGeneratedJwtId();
+        claims.setSubject("alice");
+        claims.setAudience(AUDIENCE);
+        JsonWebSignature jws = new JsonWebSignature();
+        jws.setPayload(claims.toJson());
+        jws.setKey(key.getPrivateKey());
+        jws.setAlgorithmHeaderValue(AlgorithmIdentifiers.RSA_USING_SHA256);
+        jws.setKeyIdHeaderValue(key.getKeyId());
+        return jws.getCompactSerialization();
+    }
+}
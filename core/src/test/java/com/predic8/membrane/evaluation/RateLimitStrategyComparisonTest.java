@@ -0,0 +1,53 @@
+/* Copyright 2026 predic8 GmbH, www.predic8.com
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+   http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License. */
+
+package com.predic8.membrane.evaluation;
+
+import com.predic8.membrane.core.interceptor.ratelimit.*;
+import org.junit.jupiter.api.*;
+import org.slf4j.*;
+
+import java.time.*;
+import java.util.function.*;
+
+/**
+ * Compares the cost of the strategies for many distinct keys. The numbers are only logged.
+ */
+class RateLimitStrategyComparisonTest {
+
+    private static final Logger log = LoggerFactory.getLogger(RateLimitStrategyComparisonTest.class);
+
+    private static final int KEYS = 1_000_000;
+
+    @Test
+    void distinctKeys() {
+        String[] keys = new String[KEYS];
+        for (int i = 0; i < KEYS; i++)
+            keys[i] = "192.168." + (i >> 16) + "." + (i & 0xFFFF);
+
+        run("fixed window", () -> new LazyRateLimit(Duration.ofMinutes(1), 10), keys);
+        run("sliding window", () -> new SlidingWindowRateLimit(Duration.ofMinutes(1), 10), keys);
+        run("token bucket", () -> new TokenBucketRateLimit(Duration.ofMinutes(1), 10), keys);
+    }
+
+    private static void run(String name, Supplier<RateLimitStrategy> factory, String[] keys) {
+        RateLimitStrategy strategy = factory.get();
+        long start = System.nanoTime();
+        for (int round = 0; round < 2; round++)
+            for (String key : keys)
+                strategy.isRequestLimitReached(key);
+        long nanos = System.nanoTime() - start;
+        log.info("{}: {} ns per request, {} distinct keys", name, nanos / (2L * keys.length), keys.length);
+    }
+}
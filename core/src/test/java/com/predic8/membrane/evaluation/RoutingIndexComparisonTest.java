@@ -0,0 +1,91 @@
+/* Copyright 2026 predic8 GmbH, www.predic8.com
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+   http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License. */
+package com.predic8.membrane.evaluation;
+
+import com.predic8.membrane.core.exchange.*;
+import com.predic8.membrane.core.proxies.*;
+import com.predic8.membrane.core.router.*;
+import org.junit.jupiter.api.*;
+import org.slf4j.*;
+
+import java.net.*;
+import java.util.*;
+
+import static com.predic8.membrane.core.proxies.RuleManager.RuleDefinitionSource.*;
+import static com.predic8.membrane.test.TestUtil.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Compares the cost of finding the matching proxy with a linear scan over all proxies and with the
+ * {@link RoutingIndex} for 10, 100, 1k and 10k proxies. The numbers are only logged.
+ */
+class RoutingIndexComparisonTest {
+
+    private static final Logger log = LoggerFactory.getLogger(RoutingIndexComparisonTest.class);
+
+    private RuleManager manager;
+
+    @Test
+    void routingCost() throws Exception {
+        for (int rules : new int[]{10, 100, 1000, 10000}) {
+            manager = new RuleManager();
+            manager.setRouter(new TestRouter());
+            List<Exchange> requests = new ArrayList<>();
+            for (int i = 0; i < rules; i++) {
+                add(key("api" + i + ".example.com", "/service" + i + "/.*"));
+                requests.add(exchange("api" + i + ".example.com", "/service" + i + "/op"));
+            }
+            long linear = measure(requests, false);
+            long indexed = measure(requests, true);
+            log.info("{} rules: linear {} ns, indexed {} ns per request", rules, linear, indexed);
+        }
+    }
+
+    private long measure(List<Exchange> requests, boolean useIndex) {
+        run(requests, useIndex, 100_000_000); // warm up
+        long start = System.nanoTime();
+        long iterations = run(requests, useIndex, 200_000_000);
+        return (System.nanoTime() - start) / iterations;
+    }
+
+    private long run(List<Exchange> requests, boolean useIndex, long nanos) {
+        long end = System.nanoTime() + nanos;
+        long i = 0;
+        while (System.nanoTime() < end) {
+            Exchange exc = requests.get((int) ((i++ * 7919) % requests.size()));
+            assertNotNull(manager.getMatchingRule(exc, useIndex));
+        }
+        return i;
+    }
+
+    private static ServiceProxyKey key(String host, String path) {
+        ServiceProxyKey key = new ServiceProxyKey(host, "*", path, 2000);
+        key.setUsePathPattern(true);
+        key.setPathRegExp(true);
+        return key;
+    }
+
+    private void add(ServiceProxyKey key) {
+        manager.addProxy(new ServiceProxy(key, "localhost", 80) {
+            @Override
+            public boolean isActive() {
+                return true;
+            }
+        }, MANUAL);
+    }
+
+    private static Exchange exchange(String host, String uri) throws UnknownHostException {
+        return assembleExchange(host, "GET", uri, "1.1", 2000, "127.0.0.1");
+    }
+}
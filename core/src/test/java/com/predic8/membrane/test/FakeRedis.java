@@ -0,0 +1,137 @@
+/* Copyright 2026 predic8 GmbH, www.predic8.com
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+   http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License. */
+package com.predic8.membrane.test;
+
+import java.io.*;
+import java.net.*;
+import java.util.*;
+import java.util.concurrent.*;
+
+import static java.nio.charset.StandardCharsets.*;
+
+/**
+ * Minimal stand-in speaking the Redis protocol, so tests need no Redis server.
+ * <p>
+ * Understands <tt>GET</tt>, <tt>GETEX</tt>, <tt>SETEX</tt>, <tt>DEL</tt>, <tt>INCRBY</tt> and <tt>PEXPIRE</tt> and
+ * answers everything else with <tt>+OK</tt>. Expiries are recorded, but keys do not expire. Records all commands
+ * except <tt>SELECT</tt> and <tt>CLIENT</tt>.
+ */
+public class FakeRedis extends Thread implements Closeable {
+
+    private final ServerSocket serverSocket = new ServerSocket(0);
+    public final Map<String, String> values = new ConcurrentHashMap<>();
+    public final Map<String, Long> expiries = new ConcurrentHashMap<>();
+    public final List<String> commands = new CopyOnWriteArrayList<>();
+
+    public FakeRedis() throws IOException {
+        setDaemon(true);
+    }
+
+    public int getPort() {
+        return serverSocket.getLocalPort();
+    }
+
+    @Override
+    public void run() {
+        try {
+            while (true) {
+                Socket socket = serverSocket.accept();
+                Thread.ofVirtual().start(() -> serve(socket));
+            }
+        } catch (IOException ignored) {
+            // closed
+        }
+    }
+
+    private void serve(Socket socket) {
+        try (socket) {
+            BufferedInputStream in = new BufferedInputStream(socket.getInputStream());
+            OutputStream out = socket.getOutputStream();
+            List<String> command;
+            while ((command = readCommand(in)) != null) {
+                out.write(execute(command));
+                out.flush();
+            }
+        } catch (IOException ignored) {
+            // client disconnected
+        }
+    }
+
+    private byte[] execute(List<String> command) {
+        String name = command.getFirst().toUpperCase();
+        if (!name.equals("SELECT") && !name.equals("CLIENT"))
+            commands.add(name + " " + String.join(" ", command.subList(1, command.size())));
+        return switch (name) {
+            case "GET", "GETEX" -> bulk(values.get(command.get(1)));
+            case "SETEX" -> {
+                values.put(command.get(1), command.get(3));
+                expiries.put(command.get(1), Long.parseLong(command.get(2)) * 1000);
+                yield "+OK\r\n".getBytes(UTF_8);
+            }
+            case "DEL" -> integer(command.subList(1, command.size()).stream().filter(k -> values.remove(k) != null).count());
+            case "INCRBY" -> integer(Long.parseLong(values.merge(command.get(1), command.get(2), (a, b) -> String.valueOf(Long.parseLong(a) + Long.parseLong(b)))));
+            case "PEXPIRE" -> {
+                expiries.put(command.get(1), Long.parseLong(command.get(2)));
+                yield integer(1);
+            }
+            default -> "+OK\r\n".getBytes(UTF_8);
+        };
+    }
+
+    private static byte[] integer(long value) {
+        return (":" + value + "\r\n").getBytes(UTF_8);
+    }
+
+    private static byte[] bulk(String value) {
+        if (value == null)
+            return "$-1\r\n".getBytes(UTF_8);
+        byte[] bytes = value.getBytes(UTF_8);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        out.writeBytes(("$" + bytes.length + "\r\n").getBytes(UTF_8));
+        out.writeBytes(bytes);
+        out.writeBytes("\r\n".getBytes(UTF_8));
+        return out.toByteArray();
+    }
+
+    private static List<String> readCommand(InputStream in) throws IOException {
+        String line = readLine(in);
+        if (line == null)
+            return null;
+        int count = Integer.parseInt(line.substring(1));
+        List<String> command = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            int length = Integer.parseInt(readLine(in).substring(1));
+            command.add(new String(in.readNBytes(length), UTF_8));
+            readLine(in);
+        }
+        return command;
+    }
+
+    private static String readLine(InputStream in) throws IOException {
+        StringBuilder sb = new StringBuilder();
+        int c;
+        while ((c = in.read()) != '\n') {
+            if (c == -1)
+                return null;
+            if (c != '\r')
+                sb.append((char) c);
+        }
+        return sb.toString();
+    }
+
+    @Override
+    public void close() throws IOException {
+        serverSocket.close();
+    }
+}